@@ -8,7 +8,9 @@ setup(
     long_description="Python library for PythonMC Minecraft mod. See documentation for details.",
     long_description_content_type="text/markdown",
     url="https://github.com/tu-usuario/pythonmc",
-    packages=find_packages(),
+    # El paquete vive junto a los recursos del mod para que el jar lo incluya
+    package_dir={"": "src/main/resources/python"},
+    packages=find_packages(where="src/main/resources/python"),
     classifiers=[
         "Programming Language :: Python :: 3",
         "License :: OSI Approved :: MIT License",
@@ -2,6 +2,27 @@ package com.pythonmc.mod;
 
 import com.pythonmc.mod.core.EngineMode;
 import com.pythonmc.mod.core.ConfigHandler;
+import com.pythonmc.mod.core.PythonExecutor;
+import com.pythonmc.mod.core.ScriptLimits;
+import com.pythonmc.mod.core.ScriptScheduler;
+import com.pythonmc.mod.nodes.Model3DNode;
+import com.pythonmc.mod.script.EngineBridge;
+import com.pythonmc.mod.script.EngineEvents;
+import com.pythonmc.mod.script.GeneratorCache;
+import com.pythonmc.mod.script.ModelBuilder;
+import com.pythonmc.mod.script.MutationQueue;
+import com.pythonmc.mod.script.NodeScripts;
+import com.pythonmc.mod.script.PlayerInput;
+import com.pythonmc.mod.script.PythonWorkerPool;
+import com.pythonmc.mod.script.PythonRuntimeFiles;
+import com.pythonmc.mod.script.ReadCache;
+import com.pythonmc.mod.script.RegionGenerator;
+import com.pythonmc.mod.script.RegionReader;
+import com.pythonmc.mod.script.ScriptProfiler;
+import com.pythonmc.mod.script.ScriptRuntime;
+import com.pythonmc.mod.script.ScriptWatcher;
+import com.pythonmc.mod.script.TextureBuffers;
+import com.pythonmc.mod.script.TransformBuffer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
 import net.minecraftforge.event.level.LevelEvent;
@@ -26,6 +47,7 @@ public class PythonMCMod {
     }
 
     private void setup(final FMLCommonSetupEvent event) {
+        event.enqueueWork(PlayerInput::registerPackets);
         LOGGER.info("Setup de PythonMC completado");
         LOGGER.info("Sistema de Engine Mode listo");
     }
@@ -46,6 +68,18 @@ public class PythonMCMod {
 
                 if (EngineMode.isEnabled(world)) {
                     LOGGER.info("Modo Engine ACTIVO en este mundo");
+
+                    // Precalentar los workers Python una sola vez por mundo (overworld)
+                    if (world.dimension() == Level.OVERWORLD) {
+                        EngineBridge.attach(world);
+                        TransformBuffer.open(world, PythonRuntimeFiles.getRuntimeFolder(world));
+                        PythonWorkerPool.start(world);
+                        ScriptRuntime.start(world);
+                        NodeScripts.load(world);
+                        ScriptLimits.configure(world);
+                        PythonExecutor.configureBackend(world);
+                        ScriptWatcher.start(world);
+                    }
                 } else {
                     LOGGER.info("Modo Engine INACTIVO en este mundo");
                 }
@@ -57,6 +91,35 @@ public class PythonMCMod {
             if (event.getLevel() instanceof Level world) {
                 LOGGER.info("Mundo descargado, limpiando cache...");
                 EngineMode.clearCache(world);
+
+                if (world instanceof ServerLevel && world.dimension() == Level.OVERWORLD) {
+                    ScriptWatcher.stop();
+                    ScriptScheduler.cancelAll();
+                    ScriptLimits.reset();
+                    PythonExecutor.stopBackends();
+                    LOGGER.info("Métricas de scripts: {}", ScriptScheduler.getMetrics());
+                    LOGGER.info("Métricas de lotes de mutación: {}", MutationQueue.getMetrics());
+                    LOGGER.info("Métricas de eventos: {}", EngineEvents.getMetrics());
+                    LOGGER.info("Métricas de corrutinas: {}", ScriptRuntime.getCoroutineMetrics());
+                    LOGGER.info("Métricas de shards del runtime: {}", ScriptRuntime.getShardMetrics());
+                    LOGGER.info("Métricas de la caché de lecturas: {}", ReadCache.getMetrics());
+                    LOGGER.info("Métricas de la caché de generadores: {}", GeneratorCache.getMetrics());
+                    LOGGER.info("Métricas de la generación por regiones: {}", RegionGenerator.getMetrics());
+                    LOGGER.info("Métricas de lecturas de regiones: {}", RegionReader.getMetrics());
+                    LOGGER.info("Métricas de texturas de scripts: {}", TextureBuffers.getMetrics());
+                    LOGGER.info("Métricas de modelos de scripts: {}", ModelBuilder.getMetrics());
+                    LOGGER.info("Métricas de entrada de jugadores: {}", PlayerInput.getMetrics());
+                    ScriptProfiler.stop();
+                    ScriptProfiler.clear();
+                    NodeScripts.clear();
+                    ScriptRuntime.stop();
+                    PythonWorkerPool.shutdown();
+                    TransformBuffer.close();
+                    TextureBuffers.closeAll();
+                    ModelBuilder.flush();
+                    Model3DNode.Model3D.clearShared();
+                    EngineBridge.detach();
+                }
             }
         }
     }
@@ -0,0 +1,55 @@
+package com.pythonmc.mod.core;
+
+import com.pythonmc.mod.script.EngineBridge;
+import com.pythonmc.mod.script.PythonRuntimeFiles;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compara la latencia de las llamadas al engine entre backends
+ *
+ * Encola pythonmc/benchmark.py una vez por cada backend disponible; cada
+ * ejecución escribe en su propio canal de consola p50/p99/media en µs.
+ */
+public final class BackendBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackendBenchmark.class);
+
+    private BackendBenchmark() {
+    }
+
+    /**
+     * Lanza el benchmark; devuelve cuántos backends se van a medir
+     */
+    public static int run() {
+        ServerLevel world = EngineBridge.getWorld();
+        if (world == null) {
+            PythonExecutor.appendOutput("[benchmark] Carga un mundo en modo Engine para medir los backends");
+            return 0;
+        }
+
+        File script;
+        try {
+            File pythonRoot = PythonRuntimeFiles.extract(PythonRuntimeFiles.getRuntimeFolder(world));
+            script = new File(new File(pythonRoot, "pythonmc"), "benchmark.py");
+        } catch (IOException e) {
+            LOGGER.error("No se pudo preparar el benchmark", e);
+            PythonExecutor.appendOutput("[benchmark] Error: " + e.getMessage());
+            return 0;
+        }
+
+        int launched = 0;
+        for (ScriptBackend backend : PythonExecutor.getBackends()) {
+            if (!backend.isAvailable()) {
+                PythonExecutor.appendOutput("[benchmark] " + backend.getName() + " no disponible, se omite");
+                continue;
+            }
+            ScriptScheduler.submit(script, ScriptJob.Priority.INTERACTIVE, backend);
+            launched++;
+        }
+        return launched;
+    }
+}
@@ -0,0 +1,225 @@
+package com.pythonmc.mod.core;
+
+import com.pythonmc.mod.script.PythonRuntimeFiles;
+import com.pythonmc.mod.script.PythonWorker;
+import com.pythonmc.mod.script.PythonWorkerPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Backend CPython: procesos Python externos
+ *
+ * Si el pool de workers está activo (mundo cargado) el script se ejecuta en
+ * un worker precalentado; si no, se lanza un proceso Python nuevo con el
+ * lanzador python/launcher.py, que aplica los ScriptLimits del proyecto.
+ * Las llamadas al engine cruzan el límite de proceso (ver EngineBridge).
+ */
+public class CPythonBackend implements ScriptBackend {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CPythonBackend.class);
+    public static final String NAME = "cpython";
+    private static final long WORKER_ACQUIRE_TIMEOUT_MS = 5_000;
+    private static final String LAUNCHER_RESOURCE = "/python/launcher.py";
+    // Menor que el margen entre el límite blando y el duro de launcher.py
+    private static final long CPU_SAMPLE_MS = 500;
+
+    // Código del lanzador con límites (null si no está en el jar)
+    private static volatile String launcherSource;
+    private static volatile boolean launcherLoaded;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Integer run(ScriptJob job) {
+        File scriptFile = job.getScriptFile();
+        ConsoleBuffer.Channel channel = job.getChannel();
+        String pythonExe = PythonExecutor.resolvePythonExecutable();
+        channel.system("Python detectado: " + pythonExe);
+
+        if (PythonWorkerPool.isRunning()) {
+            PythonWorker worker;
+            try {
+                worker = PythonWorkerPool.acquire(WORKER_ACQUIRE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                channel.system("[interrumpido]");
+                return null;
+            }
+            if (worker != null) {
+                return runInWorker(job, worker);
+            }
+            LOGGER.warn("No hay workers libres, lanzando proceso nuevo para '{}'", scriptFile.getName());
+        }
+        return runInNewProcess(job, pythonExe);
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Ejecuta el script en un worker del pool (que se devuelve al terminar)
+     */
+    private static Integer runInWorker(ScriptJob job, PythonWorker worker) {
+        File scriptFile = job.getScriptFile();
+        ConsoleBuffer.Channel channel = job.getChannel();
+        try {
+            if (!job.attach(worker)) {
+                return null;
+            }
+
+            channel.system("Usando worker " + worker.getIndex() + " (pid " + worker.getPid() + ")");
+            long start = System.nanoTime();
+            int exitCode = worker.run(scriptFile, channel, job.getLimits());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            LOGGER.info("Script '{}' finalizado con código {} en {} ms", scriptFile.getName(), exitCode, elapsedMs);
+            channel.system("[exit] " + exitCode + " (" + elapsedMs + " ms)");
+            return exitCode;
+        } catch (IOException e) {
+            // Al cancelar se mata el worker: no es un error del script
+            if (!job.isCancelRequested()) {
+                LOGGER.error("Error al ejecutar script '{}' en worker", scriptFile.getAbsolutePath(), e);
+                channel.system("[error] " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Ejecución interrumpida de script '{}'", scriptFile.getName(), e);
+            channel.system("[interrumpido]");
+        } finally {
+            PythonWorkerPool.release(worker);
+        }
+        return null;
+    }
+
+    private static Integer runInNewProcess(ScriptJob job, String pythonExe) {
+        File scriptFile = job.getScriptFile();
+        ConsoleBuffer.Channel channel = job.getChannel();
+        try {
+            ProcessBuilder builder = new ProcessBuilder(buildCommand(pythonExe, scriptFile, job.getLimits()));
+            builder.directory(scriptFile.getParentFile());
+
+            Map<String, String> env = builder.environment();
+            env.putIfAbsent("PYTHONUNBUFFERED", "1");
+            env.put("PYTHONMC_SCRIPT_NAME", scriptFile.getName());
+            env.put("PYTHONMC_SCRIPT_PATH", scriptFile.getAbsolutePath());
+            // pythonmc (events, etc.) también fuera de los workers, si el runtime ya se extrajo
+            File pythonPath = PythonRuntimeFiles.findPythonPath(scriptFile);
+            if (pythonPath != null) {
+                String existing = env.get("PYTHONPATH");
+                env.put("PYTHONPATH", existing == null || existing.isEmpty()
+                    ? pythonPath.getAbsolutePath()
+                    : pythonPath.getAbsolutePath() + File.pathSeparator + existing);
+            }
+
+            LOGGER.info("Lanzando Python: {} {}", pythonExe, scriptFile.getAbsolutePath());
+            channel.system("Lanzando proceso...");
+            Process process = builder.start();
+            if (!job.attach(process)) {
+                ScriptJob.killTree(process.toHandle());
+                return null;
+            }
+
+            // stderr en su propio hilo para no mezclarlo con stdout
+            Thread errReader = new Thread(() -> pipe(process.getErrorStream(), channel, ConsoleBuffer.STDERR),
+                "PythonMC-Stderr-" + scriptFile.getName());
+            errReader.setDaemon(true);
+            errReader.start();
+            ScheduledFuture<?> cpuSampler = sampleCpu(job, process.toHandle());
+            int exitCode;
+            try {
+                pipe(process.getInputStream(), channel, ConsoleBuffer.STDOUT);
+                exitCode = process.waitFor();
+                errReader.join();
+            } finally {
+                cpuSampler.cancel(false);
+            }
+            if (job.isCancelRequested()) {
+                return null;
+            }
+            LOGGER.info("Script '{}' finalizado con código {}", scriptFile.getName(), exitCode);
+            channel.system("[exit] " + exitCode);
+            return exitCode;
+        } catch (IOException e) {
+            LOGGER.error("Error al ejecutar script Python '{}'", scriptFile.getAbsolutePath(), e);
+            channel.system("[error] " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Ejecución interrumpida de script '{}'", scriptFile.getName(), e);
+            channel.system("[interrumpido]");
+        }
+        return null;
+    }
+
+    /**
+     * Muestrea la CPU del proceso mientras vive: al morir por el límite duro
+     * de RLIMIT_CPU ya no se puede consultar y ScriptLimits la necesita
+     */
+    private static ScheduledFuture<?> sampleCpu(ScriptJob job, ProcessHandle handle) {
+        return ScriptScheduler.every(() -> handle.info().totalCpuDuration()
+            .ifPresent(cpu -> job.recordCpuTime(cpu.toMillis())), CPU_SAMPLE_MS);
+    }
+
+    /**
+     * python -c <launcher.py> <cpu_s> <memory_mb> <script>, o el script a secas
+     * si el lanzador no está disponible
+     */
+    private static List<String> buildCommand(String pythonExe, File scriptFile, ScriptLimits limits) {
+        List<String> command = new ArrayList<>();
+        command.add(pythonExe);
+        String launcher = loadLauncher();
+        if (launcher != null) {
+            command.add("-c");
+            command.add(launcher);
+            command.add(String.valueOf(limits.getCpuSeconds()));
+            command.add(String.valueOf(limits.getMemoryMb()));
+        }
+        command.add(scriptFile.getAbsolutePath());
+        return command;
+    }
+
+    private static String loadLauncher() {
+        if (!launcherLoaded) {
+            try (InputStream in = CPythonBackend.class.getResourceAsStream(LAUNCHER_RESOURCE)) {
+                if (in != null) {
+                    launcherSource = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                } else {
+                    LOGGER.warn("{} no encontrado: los scripts en proceso propio se ejecutan sin límites de CPU/memoria",
+                        LAUNCHER_RESOURCE);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("No se pudo leer {}", LAUNCHER_RESOURCE, e);
+            }
+            launcherLoaded = true;
+        }
+        return launcherSource;
+    }
+
+    private static void pipe(InputStream in, ConsoleBuffer.Channel channel, byte stream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LOGGER.info("[PYTHON] {}", line);
+                channel.append(stream, line);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Salida del proceso Python cerrada", e);
+        }
+    }
+}
@@ -74,6 +74,48 @@ public class ConfigHandler {
         return false;
     }
 
+    /**
+     * Lee un ajuste entero de engine_config.json; si falta o no es válido devuelve el valor por defecto
+     */
+    public static int getIntSetting(Level world, String key, int defaultValue) {
+        File configFile = getConfigFile(world);
+        if (!configFile.exists()) {
+            return defaultValue;
+        }
+
+        try (FileReader reader = new FileReader(configFile)) {
+            JsonObject config = GSON.fromJson(reader, JsonObject.class);
+            if (config != null && config.has(key)) {
+                return config.get(key).getAsInt();
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Ajuste '{}' inválido en la configuración, usando {}", key, defaultValue, e);
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Lee un ajuste de texto de engine_config.json; si falta o no es válido devuelve el valor por defecto
+     */
+    public static String getStringSetting(Level world, String key, String defaultValue) {
+        File configFile = getConfigFile(world);
+        if (!configFile.exists()) {
+            return defaultValue;
+        }
+
+        try (FileReader reader = new FileReader(configFile)) {
+            JsonObject config = GSON.fromJson(reader, JsonObject.class);
+            if (config != null && config.has(key)) {
+                return config.get(key).getAsString();
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Ajuste '{}' inválido en la configuración, usando {}", key, defaultValue, e);
+        }
+
+        return defaultValue;
+    }
+
     /**
      * Verifica si existe el archivo de configuración
      */
@@ -94,6 +136,11 @@ public class ConfigHandler {
             config.addProperty("created_date", getCurrentTimestamp());
             config.addProperty("python_version", "3.11");
             config.addProperty("mod_version", "2.0.0");
+            config.addProperty("script_tick_budget_ms", 10);
+            config.addProperty("script_cpu_limit_s", ScriptLimits.DEFAULT_CPU_S);
+            config.addProperty("script_memory_limit_mb", ScriptLimits.DEFAULT_MEMORY_MB);
+            config.addProperty("script_wall_timeout_s", ScriptLimits.DEFAULT_WALL_S);
+            config.addProperty("script_backend", CPythonBackend.NAME);
 
             try (FileWriter writer = new FileWriter(configFile)) {
                 GSON.toJson(config, writer);
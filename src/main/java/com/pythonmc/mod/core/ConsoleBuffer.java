@@ -0,0 +1,326 @@
+package com.pythonmc.mod.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consola del engine: un buffer circular por ejecución de script (canal)
+ *
+ * Cada canal guarda stdout, stderr y los mensajes del engine en un anillo de
+ * tamaño fijo (-Dpythonmc.consoleLines, por defecto 4096). Las escrituras
+ * avanzan un contador volatile después de guardar la línea, así que los
+ * lectores (la consola del editor, en el hilo de render) nunca bloquean ni
+ * copian: recorren un rango de secuencias y descartan las que el escritor ya
+ * haya pisado. Normalmente cada canal tiene un solo escritor; si hay más
+ * (proceso con stdout y stderr en hilos distintos) se serializan entre ellos.
+ *
+ * Cada línea lleva un nivel (DEBUG..ERROR) para filtrar la consola: stderr es
+ * ERROR y el resto INFO, salvo los registros de pythonmc.events, que traen el
+ * suyo (ver ScriptEvents). Las métricas y el progreso que informan se agregan
+ * en el canal.
+ */
+public final class ConsoleBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleBuffer.class);
+    private static final int DEFAULT_LINES = 4096;
+    // Canales de ejecuciones antiguas que se conservan además del de sistema
+    private static final int MAX_CHANNELS = 32;
+
+    public static final byte STDOUT = 0;
+    public static final byte STDERR = 1;
+    public static final byte SYSTEM = 2;
+
+    // Niveles de línea, de menor a mayor
+    public static final byte DEBUG = 0;
+    public static final byte INFO = 1;
+    public static final byte WARN = 2;
+    public static final byte ERROR = 3;
+
+    /**
+     * Recibe las líneas de un rango sin copiarlas
+     */
+    @FunctionalInterface
+    public interface LineVisitor {
+        void visit(long seq, byte stream, byte level, String text);
+    }
+
+    private static final int CAPACITY = resolveCapacity();
+    private static final AtomicInteger CHANNEL_IDS = new AtomicInteger();
+    private static final List<Channel> CHANNELS = new CopyOnWriteArrayList<>();
+    private static final Channel SYSTEM_CHANNEL = new Channel(0, "Engine");
+
+    // Canal que muestra la consola
+    private static volatile Channel focused = SYSTEM_CHANNEL;
+
+    private ConsoleBuffer() {
+    }
+
+    /**
+     * Abre un canal nuevo (uno por ejecución) y lo pone en primer plano
+     */
+    public static Channel open(String name) {
+        return open(name, true);
+    }
+
+    /**
+     * Abre un canal nuevo; con focus = false la consola sigue mostrando el actual
+     */
+    public static Channel open(String name, boolean focus) {
+        Channel channel = new Channel(CHANNEL_IDS.incrementAndGet(), name);
+        CHANNELS.add(channel);
+        while (CHANNELS.size() > MAX_CHANNELS) {
+            CHANNELS.remove(0);
+        }
+        if (focus) {
+            focused = channel;
+        }
+        return channel;
+    }
+
+    public static Channel system() {
+        return SYSTEM_CHANNEL;
+    }
+
+    public static Channel focused() {
+        return focused;
+    }
+
+    public static void focus(Channel channel) {
+        focused = channel != null ? channel : SYSTEM_CHANNEL;
+    }
+
+    /**
+     * Canales vivos, del más antiguo al más reciente (el de sistema primero)
+     */
+    public static List<Channel> channels() {
+        List<Channel> result = new ArrayList<>(CHANNELS.size() + 1);
+        result.add(SYSTEM_CHANNEL);
+        result.addAll(CHANNELS);
+        return result;
+    }
+
+    public static int getCapacity() {
+        return CAPACITY;
+    }
+
+    /**
+     * Nivel de una línea de texto plano según su stream
+     */
+    public static byte levelOf(byte stream) {
+        return stream == STDERR ? ERROR : INFO;
+    }
+
+    private static int resolveCapacity() {
+        int lines = DEFAULT_LINES;
+        String prop = System.getProperty("pythonmc.consoleLines");
+        if (prop != null) {
+            try {
+                lines = Math.max(64, Integer.parseInt(prop.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("pythonmc.consoleLines inválido: {}", prop);
+            }
+        }
+        // Potencia de dos para indexar con una máscara
+        return Integer.highestOneBit(lines - 1) << 1;
+    }
+
+    /**
+     * Anillo de líneas de una ejecución
+     */
+    public static final class Channel {
+        private final int id;
+        private final String name;
+        private final long createdAt = System.currentTimeMillis();
+        private final String[] lines = new String[CAPACITY];
+        private final byte[] streams = new byte[CAPACITY];
+        private final byte[] levels = new byte[CAPACITY];
+        private final int mask = CAPACITY - 1;
+        private final Object writeLock = new Object();
+
+        // Número total de líneas escritas; publica las líneas a los lectores
+        private volatile long head;
+        private volatile boolean finished;
+        private volatile ScriptEvents.Progress progress;
+        private final Map<String, ScriptEvents.MetricStat> metrics = new ConcurrentHashMap<>();
+
+        private Channel(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public void out(String text) {
+            append(STDOUT, text);
+        }
+
+        public void err(String text) {
+            append(STDERR, text);
+        }
+
+        public void system(String text) {
+            append(SYSTEM, text);
+        }
+
+        public void append(byte stream, String text) {
+            if (ScriptEvents.isRecord(text)) {
+                ScriptEvents.accept(this, stream, text);
+                return;
+            }
+            append(stream, levelOf(stream), text);
+        }
+
+        public void append(byte stream, byte level, String text) {
+            synchronized (writeLock) {
+                long seq = head;
+                int index = (int) (seq & mask);
+                lines[index] = text;
+                streams[index] = stream;
+                levels[index] = level;
+                head = seq + 1;
+            }
+        }
+
+        /**
+         * Recorre las líneas [from, from + max) que sigan en el anillo
+         * Devuelve la siguiente secuencia a leer (para lecturas incrementales)
+         */
+        public long read(long from, int max, LineVisitor visitor) {
+            long end = Math.min(head, from + max);
+            long seq = Math.max(from, end - CAPACITY);
+            seq = Math.max(seq, oldest());
+            for (; seq < end; seq++) {
+                int index = (int) (seq & mask);
+                String text = lines[index];
+                byte stream = streams[index];
+                byte level = levels[index];
+                // El escritor está pisando (o ya pisó) este hueco: la línea no es fiable
+                if (head - seq >= CAPACITY) {
+                    continue;
+                }
+                visitor.visit(seq, stream, level, text);
+            }
+            return end;
+        }
+
+        /**
+         * Recorre las últimas count líneas, saltando skip desde el final (scroll)
+         */
+        public void readLast(int count, int skip, LineVisitor visitor) {
+            long end = Math.max(oldest(), head - Math.max(0, skip));
+            long start = Math.max(oldest(), end - count);
+            read(start, (int) (end - start), visitor);
+        }
+
+        /**
+         * Como readLast, pero contando solo las líneas de nivel >= minLevel
+         */
+        public void readLast(int count, int skip, byte minLevel, LineVisitor visitor) {
+            if (minLevel <= DEBUG) {
+                readLast(count, skip, visitor);
+                return;
+            }
+            long[] picked = new long[Math.max(0, count)];
+            int found = 0;
+            int toSkip = Math.max(0, skip);
+            long oldest = oldest();
+            for (long seq = head - 1; seq >= oldest && found < picked.length; seq--) {
+                if (levels[(int) (seq & mask)] < minLevel) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                } else {
+                    picked[found++] = seq;
+                }
+            }
+            for (int i = found - 1; i >= 0; i--) {
+                read(picked[i], 1, (seq, stream, level, text) -> {
+                    if (level >= minLevel) {
+                        visitor.visit(seq, stream, level, text);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Líneas en el anillo con nivel >= minLevel
+         */
+        public int size(byte minLevel) {
+            if (minLevel <= DEBUG) {
+                return size();
+            }
+            int count = 0;
+            for (long seq = oldest(), end = head; seq < end; seq++) {
+                if (levels[(int) (seq & mask)] >= minLevel) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Secuencia de la línea más antigua que sigue en el anillo
+         */
+        public long oldest() {
+            return Math.max(0, head - CAPACITY);
+        }
+
+        public long head() {
+            return head;
+        }
+
+        public int size() {
+            return (int) (head - oldest());
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public void finish() {
+            finished = true;
+        }
+
+        /**
+         * Último progreso informado con pythonmc.events, o null
+         */
+        public ScriptEvents.Progress getProgress() {
+            return progress;
+        }
+
+        /**
+         * Métricas informadas con pythonmc.events, por nombre
+         */
+        public List<ScriptEvents.MetricStat> getMetrics() {
+            List<ScriptEvents.MetricStat> sorted = new ArrayList<>(metrics.values());
+            sorted.sort(Comparator.comparing(ScriptEvents.MetricStat::getName));
+            return sorted;
+        }
+
+        void setProgress(ScriptEvents.Progress newProgress) {
+            progress = newProgress;
+        }
+
+        void recordMetric(String name, double value, String unit) {
+            metrics.computeIfAbsent(name, ScriptEvents.MetricStat::new).record(value, unit);
+        }
+    }
+}
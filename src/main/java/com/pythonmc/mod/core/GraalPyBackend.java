@@ -0,0 +1,396 @@
+package com.pythonmc.mod.core;
+
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import com.pythonmc.mod.script.EngineBridge;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Backend GraalPy: Python dentro de la JVM
+ *
+ * Los scripts se ejecutan en un Context de GraalVM Polyglot compartido y
+ * reciben un global `engine` (HostEngine) que llama a los métodos RPC sin
+ * serializar ni cruzar procesos, devuelve los Node reales con find() y
+ * permite registrar callbacks por tick con on_tick().
+ *
+ * GraalPy no es una dependencia del mod: la API de Polyglot se resuelve por
+ * reflexión y el backend solo está disponible si sus jars están en el
+ * classpath. Dentro de la JVM no hay límites de CPU ni de memoria por
+ * script; solo se aplica el tiempo de pared (cerrando el contexto).
+ */
+public class GraalPyBackend implements ScriptBackend {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraalPyBackend.class);
+    public static final String NAME = "graalpy";
+    private static final String CONTEXT_CLASS = "org.graalvm.polyglot.Context";
+    private static final String LANGUAGE_CLASS = "com.oracle.graal.python.PythonLanguage";
+    private static final long STOP_TIMEOUT_MS = 2_000;
+
+    // Define la función que ejecuta un script y devuelve su código de salida
+    private static final String BOOTSTRAP = String.join("\n",
+        "import polyglot, runpy, sys, os, traceback",
+        "engine = polyglot.import_value('engine')",
+        "def _pythonmc_run(path):",
+        "    folder = os.path.dirname(os.path.abspath(path))",
+        "    if folder not in sys.path:",
+        "        sys.path.insert(0, folder)",
+        "    try:",
+        "        runpy.run_path(path, init_globals={'engine': engine}, run_name='__main__')",
+        "        return 0",
+        "    except SystemExit as exc:",
+        "        if exc.code is None or isinstance(exc.code, int):",
+        "            return exc.code or 0",
+        "        print(exc.code, file=sys.stderr)",
+        "        return 1",
+        "    except BaseException:",
+        "        traceback.print_exc()",
+        "        return 1",
+        "    finally:",
+        "        sys.stdout.flush()",
+        "        sys.stderr.flush()",
+        "_pythonmc_run");
+
+    // Un único contexto: los scripts y sus callbacks lo usan de uno en uno
+    private final ReentrantLock contextLock = new ReentrantLock();
+    private final List<Function<Object, Object>> tickCallbacks = new CopyOnWriteArrayList<>();
+    private final HostEngine engine = new HostEngine();
+
+    private volatile Polyglot polyglot;
+    private volatile Object context;
+    private Object runFunction;
+    // Canal donde escribe el contexto: el del job en curso o el de sistema
+    private volatile ConsoleBuffer.Channel output = ConsoleBuffer.system();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        ClassLoader loader = GraalPyBackend.class.getClassLoader();
+        try {
+            Class.forName(CONTEXT_CLASS, false, loader);
+            Class.forName(LANGUAGE_CLASS, false, loader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void start(Level world) {
+        // El contexto se crea con el primer script: arrancarlo cuesta varios segundos
+        tickCallbacks.clear();
+    }
+
+    @Override
+    public void stop() {
+        boolean locked = false;
+        try {
+            // Un script puede estar esperando al hilo del servidor (EngineBridge.call): no bloquear
+            locked = contextLock.tryLock(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            closeContext(!locked);
+        } finally {
+            if (locked) {
+                contextLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Integer run(ScriptJob job) {
+        File scriptFile = job.getScriptFile();
+        ConsoleBuffer.Channel channel = job.getChannel();
+        if (job.getLimits().getCpuSeconds() > 0 || job.getLimits().getMemoryMb() > 0) {
+            channel.system("[graalpy] Los límites de CPU y memoria no se aplican dentro de la JVM");
+        }
+
+        contextLock.lock();
+        Object current = null;
+        try {
+            long start = System.nanoTime();
+            current = ensureContext();
+            Object running = current;
+            if (!job.attach(() -> polyglot.close(running, true))) {
+                return null;
+            }
+
+            output = channel;
+            int exitCode = polyglot.asInt(polyglot.execute(runFunction, scriptFile.getAbsolutePath()));
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            LOGGER.info("Script '{}' (graalpy) finalizado con código {} en {} ms", scriptFile.getName(), exitCode, elapsedMs);
+            channel.system("[exit] " + exitCode + " (" + elapsedMs + " ms)");
+            return exitCode;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Cancelar cierra el contexto: no es un error del script
+            if (!job.isCancelRequested()) {
+                Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+                LOGGER.error("Error al ejecutar script '{}' en GraalPy", scriptFile.getAbsolutePath(), cause);
+                channel.system("[error] " + cause);
+            }
+            if (current != null && current == context && (job.isCancelRequested() || polyglot.isClosedBy(e))) {
+                closeContext(false);
+            }
+            return null;
+        } finally {
+            output = ConsoleBuffer.system();
+            contextLock.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta los callbacks de on_tick(); si un script ocupa el contexto se omiten en este tick
+     */
+    @Override
+    public void tick() {
+        if (tickCallbacks.isEmpty() || !contextLock.tryLock()) {
+            return;
+        }
+        try {
+            int tickCount = EngineBridge.getWorld() != null ? EngineBridge.getWorld().getServer().getTickCount() : 0;
+            for (Function<Object, Object> callback : tickCallbacks) {
+                try {
+                    callback.apply(tickCount);
+                } catch (RuntimeException e) {
+                    tickCallbacks.remove(callback);
+                    ConsoleBuffer.focused().err("[graalpy] Callback de on_tick eliminado: " + e.getMessage());
+                    LOGGER.warn("Callback de on_tick fallido", e);
+                }
+            }
+        } finally {
+            contextLock.unlock();
+        }
+    }
+
+    public HostEngine getEngine() {
+        return engine;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private Object ensureContext() throws ReflectiveOperationException {
+        if (context != null) {
+            return context;
+        }
+        if (polyglot == null) {
+            polyglot = new Polyglot(GraalPyBackend.class.getClassLoader());
+        }
+
+        long start = System.nanoTime();
+        Object created = polyglot.newContext(new ChannelOutputStream(ConsoleBuffer.STDOUT),
+            new ChannelOutputStream(ConsoleBuffer.STDERR));
+        polyglot.putBinding(created, "engine", engine);
+        runFunction = polyglot.eval(created, BOOTSTRAP);
+        context = created;
+        LOGGER.info("Contexto GraalPy creado en {} ms", (System.nanoTime() - start) / 1_000_000);
+        return created;
+    }
+
+    private void closeContext(boolean cancel) {
+        Object current = context;
+        context = null;
+        runFunction = null;
+        tickCallbacks.clear();
+        if (current != null) {
+            try {
+                polyglot.close(current, cancel);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Error al cerrar el contexto GraalPy", e);
+            }
+        }
+    }
+
+    /**
+     * Objeto `engine` que ven los scripts de GraalPy
+     * Los métodos se llaman desde Python con allowAllAccess; los nodos solo se
+     * tocan en el hilo del servidor (on_tick o a través de call()).
+     */
+    public final class HostEngine {
+
+        /**
+         * Llama a un método RPC del bridge (mismos nombres que en CPython)
+         */
+        public Object call(String method, Object... args) {
+            return EngineBridge.call(method, Arrays.asList(args));
+        }
+
+        /**
+         * Ida y vuelta mínima por el bridge (ver pythonmc/benchmark.py)
+         */
+        public Object echo(Object value) {
+            return EngineBridge.call("engine.echo", Arrays.asList(value));
+        }
+
+        /**
+         * Igual que echo() pero sin pasar por el bridge: coste de cruzar a Java
+         */
+        public Object echo_direct(Object value) {
+            return value;
+        }
+
+        /**
+         * Node real por nombre, o null; usar solo desde on_tick()
+         */
+        public Node find(String name) {
+            ServerLevel world = EngineBridge.getWorld();
+            return world != null ? NodeRegistry.findNode(world, name) : null;
+        }
+
+        /**
+         * Registra una función que se llama en cada tick del servidor con el número de tick
+         */
+        public void on_tick(Function<Object, Object> callback) {
+            tickCallbacks.add(callback);
+        }
+
+        public void clear_ticks() {
+            tickCallbacks.clear();
+        }
+    }
+
+    /**
+     * Salida del contexto hacia el canal del job en curso, línea a línea
+     */
+    private final class ChannelOutputStream extends OutputStream {
+        private final byte stream;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        ChannelOutputStream(byte stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (b == '\n') {
+                flushLine();
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (line.size() > 0) {
+                flushLine();
+            }
+        }
+
+        private void flushLine() {
+            String text = line.toString(StandardCharsets.UTF_8);
+            line.reset();
+            LOGGER.info("[GRAALPY] {}", text);
+            output.append(stream, text);
+        }
+    }
+
+    /**
+     * API de org.graalvm.polyglot resuelta por reflexión
+     */
+    private static final class Polyglot {
+        private final Method newBuilder;
+        private final Method allowAllAccess;
+        private final Method out;
+        private final Method err;
+        private final Method build;
+        private final Method eval;
+        private final Method getPolyglotBindings;
+        private final Method putMember;
+        private final Method close;
+        private final Method execute;
+        private final Method asInt;
+        private final Class<?> polyglotException;
+        private final Method isCancelled;
+        private final Method isExit;
+
+        Polyglot(ClassLoader loader) throws ReflectiveOperationException {
+            Class<?> context = Class.forName(CONTEXT_CLASS, true, loader);
+            Class<?> builder = Class.forName(CONTEXT_CLASS + "$Builder", true, loader);
+            Class<?> value = Class.forName("org.graalvm.polyglot.Value", true, loader);
+            newBuilder = context.getMethod("newBuilder", String[].class);
+            allowAllAccess = builder.getMethod("allowAllAccess", boolean.class);
+            out = builder.getMethod("out", OutputStream.class);
+            err = builder.getMethod("err", OutputStream.class);
+            build = builder.getMethod("build");
+            eval = context.getMethod("eval", String.class, CharSequence.class);
+            getPolyglotBindings = context.getMethod("getPolyglotBindings");
+            putMember = value.getMethod("putMember", String.class, Object.class);
+            close = context.getMethod("close", boolean.class);
+            execute = value.getMethod("execute", Object[].class);
+            asInt = value.getMethod("asInt");
+            polyglotException = Class.forName("org.graalvm.polyglot.PolyglotException", true, loader);
+            isCancelled = polyglotException.getMethod("isCancelled");
+            isExit = polyglotException.getMethod("isExit");
+        }
+
+        Object newContext(OutputStream stdout, OutputStream stderr) throws ReflectiveOperationException {
+            Object builder = newBuilder.invoke(null, (Object) new String[]{"python"});
+            builder = allowAllAccess.invoke(builder, true);
+            builder = out.invoke(builder, stdout);
+            builder = err.invoke(builder, stderr);
+            return build.invoke(builder);
+        }
+
+        void putBinding(Object context, String name, Object value) throws ReflectiveOperationException {
+            putMember.invoke(getPolyglotBindings.invoke(context), name, value);
+        }
+
+        Object eval(Object context, String source) throws ReflectiveOperationException {
+            return eval.invoke(context, "python", source);
+        }
+
+        Object execute(Object function, Object... args) throws ReflectiveOperationException {
+            return execute.invoke(function, (Object) args);
+        }
+
+        int asInt(Object value) throws ReflectiveOperationException {
+            return (Integer) asInt.invoke(value);
+        }
+
+        void close(Object context, boolean cancel) {
+            try {
+                close.invoke(context, cancel);
+            } catch (InvocationTargetException e) {
+                // Cerrar un contexto ocupado con cancel=true lanza en el hilo que lo usa, no aquí
+                LOGGER.debug("Error al cerrar el contexto GraalPy", e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Si el error deja el contexto inutilizable (cancelado o con exit())
+         */
+        boolean isClosedBy(Exception e) {
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            if (!polyglotException.isInstance(cause)) {
+                return false;
+            }
+            try {
+                return (Boolean) isCancelled.invoke(cause) || (Boolean) isExit.invoke(cause);
+            } catch (ReflectiveOperationException ex) {
+                return true;
+            }
+        }
+    }
+}
@@ -181,6 +181,18 @@ public class ProjectManager {
         return getProjectRoot(world).exists();
     }
 
+    /**
+     * Carpeta filesproject que contiene un archivo, o null si está fuera de un proyecto
+     */
+    public static File findProjectRoot(File file) {
+        for (File folder = file.getAbsoluteFile().getParentFile(); folder != null; folder = folder.getParentFile()) {
+            if (PROJECT_FOLDER.equals(folder.getName())) {
+                return folder;
+            }
+        }
+        return null;
+    }
+
     // ========== MÉTODOS PRIVADOS ==========
 
     private static File getWorldFolder(Level world) {
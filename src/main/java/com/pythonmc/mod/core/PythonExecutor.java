@@ -1,17 +1,12 @@
 package com.pythonmc.mod.core;
 
+import com.pythonmc.mod.script.ScriptCompiler;
+import net.minecraft.world.level.Level;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Ejecuta scripts Python desde el Engine.
@@ -20,20 +15,25 @@ import java.util.Map;
  * - Propiedad de sistema: -Dpythonmc.python=/ruta/a/python
  * - o variable de entorno: PYTHONMC_PYTHON
  * - si no, intenta "python" del PATH.
+ *
+ * Las ejecuciones pasan por ScriptScheduler (cola con prioridad y
+ * cancelación) y las ejecuta el ScriptBackend elegido en engine_config.json
+ * ("script_backend"): CPythonBackend (por defecto) o GraalPyBackend.
+ * Un script que ScriptCompiler ya sabe que no compila se rechaza sin encolarlo.
  */
 public class PythonExecutor {
     private static final Logger LOGGER = LoggerFactory.getLogger(PythonExecutor.class);
-    private static final int MAX_OUTPUT_LINES = 200;
-    private static final List<String> OUTPUT_LINES = Collections.synchronizedList(new ArrayList<>());
+    private static final ScriptBackend CPYTHON = new CPythonBackend();
+    private static final ScriptBackend GRAALPY = new GraalPyBackend();
+    private static final List<ScriptBackend> BACKENDS = List.of(CPYTHON, GRAALPY);
+
+    private static volatile ScriptBackend backend = CPYTHON;
 
+    /**
+     * Mensaje del engine en el canal que muestra la consola
+     */
     public static void appendOutput(String line) {
-        synchronized (OUTPUT_LINES) {
-            OUTPUT_LINES.add(line);
-            // Limitar tamaño del buffer
-            while (OUTPUT_LINES.size() > MAX_OUTPUT_LINES) {
-                OUTPUT_LINES.remove(0);
-            }
-        }
+        ConsoleBuffer.focused().system(line);
     }
     
     // Método público para uso desde GUI
@@ -41,19 +41,62 @@ public class PythonExecutor {
         appendOutput(line);
     }
 
-    public static List<String> getOutputSnapshot() {
-        synchronized (OUTPUT_LINES) {
-            return new ArrayList<>(OUTPUT_LINES);
+    /**
+     * Elige el backend del proyecto y lo prepara; si no está disponible se usa CPython
+     */
+    public static void configureBackend(Level world) {
+        String name = ConfigHandler.getStringSetting(world, "script_backend", CPythonBackend.NAME);
+        ScriptBackend selected = getBackend(name);
+        if (selected == null) {
+            LOGGER.warn("script_backend desconocido: '{}', usando {}", name, CPythonBackend.NAME);
+            selected = CPYTHON;
+        } else if (!selected.isAvailable()) {
+            LOGGER.warn("El backend '{}' no está disponible en esta instalación, usando {}", name, CPythonBackend.NAME);
+            ConsoleBuffer.system().system("[backend] '" + name + "' no disponible, se usa " + CPythonBackend.NAME);
+            selected = CPYTHON;
         }
+        selected.start(world);
+        backend = selected;
+        LOGGER.info("Backend de scripts: {}", selected.getName());
     }
 
-    public static void clearOutput() {
-        synchronized (OUTPUT_LINES) {
-            OUTPUT_LINES.clear();
+    /**
+     * Detiene los backends al descargar el mundo
+     */
+    public static void stopBackends() {
+        for (ScriptBackend each : BACKENDS) {
+            each.stop();
         }
+        backend = CPYTHON;
     }
 
-    private static String resolvePythonExecutable() {
+    /**
+     * Trabajo por tick de los backends; solo desde el hilo del servidor
+     */
+    public static void tickBackends() {
+        for (ScriptBackend each : BACKENDS) {
+            each.tick();
+        }
+    }
+
+    public static ScriptBackend getBackend() {
+        return backend;
+    }
+
+    public static ScriptBackend getBackend(String name) {
+        for (ScriptBackend each : BACKENDS) {
+            if (each.getName().equalsIgnoreCase(name.trim())) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    public static List<ScriptBackend> getBackends() {
+        return BACKENDS;
+    }
+
+    public static String resolvePythonExecutable() {
         String prop = System.getProperty("pythonmc.python");
         if (prop != null && !prop.isEmpty()) {
             return prop;
@@ -67,60 +110,47 @@ public class PythonExecutor {
         return "python"; // Por defecto, usa "python" del PATH
     }
 
-    public static void runScript(File scriptFile) {
+    /**
+     * Ejecuta un script desde el editor (prioridad interactiva)
+     * Devuelve el id del job en ScriptScheduler, o -1 si el script no es válido
+     */
+    public static int runScript(File scriptFile) {
+        return runScript(scriptFile, ScriptJob.Priority.INTERACTIVE);
+    }
+
+    public static int runScript(File scriptFile, ScriptJob.Priority priority) {
         if (scriptFile == null) {
             LOGGER.error("Script Python nulo");
-            return;
+            return -1;
         }
         if (!scriptFile.exists() || !scriptFile.isFile()) {
             LOGGER.error("Script Python no encontrado: {}", scriptFile.getAbsolutePath());
-            return;
+            return -1;
+        }
+        // Si el contenido actual ya falló al compilarse al guardar, no se lanza nada
+        ScriptCompiler.Result failure = ScriptCompiler.findFailure(scriptFile);
+        if (failure != null) {
+            ConsoleBuffer.focused().err(scriptFile.getName() + ": " + failure.describe());
+            return -1;
         }
+        return ScriptScheduler.submit(scriptFile, priority);
+    }
 
-        String pythonExe = resolvePythonExecutable();
-
-        clearOutput();
-        appendOutput("Ejecutando " + scriptFile.getName() + "...");
-        appendOutput("Python detectado: " + pythonExe);
-
-        Thread thread = new Thread(() -> {
-            try {
-                ProcessBuilder builder = new ProcessBuilder(pythonExe, scriptFile.getAbsolutePath());
-                builder.directory(scriptFile.getParentFile());
-                builder.redirectErrorStream(true);
-
-                Map<String, String> env = builder.environment();
-                env.putIfAbsent("PYTHONUNBUFFERED", "1");
-                env.put("PYTHONMC_SCRIPT_NAME", scriptFile.getName());
-                env.put("PYTHONMC_SCRIPT_PATH", scriptFile.getAbsolutePath());
-
-                LOGGER.info("Lanzando Python: {} {}", pythonExe, scriptFile.getAbsolutePath());
-                appendOutput("Lanzando proceso...");
-                Process process = builder.start();
-
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        LOGGER.info("[PYTHON] {}", line);
-                        appendOutput(line);
-                    }
-                }
-
-                int exitCode = process.waitFor();
-                LOGGER.info("Script '{}' finalizado con código {}", scriptFile.getName(), exitCode);
-                appendOutput("[exit] " + exitCode);
-            } catch (IOException e) {
-                LOGGER.error("Error al ejecutar script Python '{}'", scriptFile.getAbsolutePath(), e);
-                appendOutput("[error] " + e.getMessage());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                LOGGER.error("Ejecución interrumpida de script '{}'", scriptFile.getName(), e);
-                appendOutput("[interrumpido]");
-            }
-        }, "PythonMC-Executor-" + scriptFile.getName());
+    /**
+     * Cancela una ejecución (mata el proceso y sus descendientes)
+     */
+    public static boolean cancel(int jobId) {
+        return ScriptScheduler.cancel(jobId);
+    }
 
-        thread.setDaemon(true);
-        thread.start();
+    /**
+     * Ejecuta un job en el hilo del planificador con el backend del proyecto
+     * Devuelve el código de salida, o null si falló o se canceló
+     */
+    static Integer execute(ScriptJob job) {
+        ScriptBackend selected = job.getBackend() != null ? job.getBackend() : backend;
+        job.getChannel().system("Ejecutando " + job.getName() + "... (job " + job.getId() + ", "
+            + selected.getName() + ")");
+        return selected.run(job);
     }
 }
@@ -0,0 +1,48 @@
+package com.pythonmc.mod.core;
+
+import net.minecraft.world.level.Level;
+
+/**
+ * Intérprete que ejecuta los scripts de PythonExecutor
+ *
+ * Se elige por proyecto con "script_backend" en engine_config.json:
+ * - "cpython": procesos Python externos (workers del pool o proceso propio)
+ * - "graalpy": Python dentro de la JVM, con acceso directo a los nodos
+ */
+public interface ScriptBackend {
+
+    /**
+     * Nombre del backend en engine_config.json
+     */
+    String getName();
+
+    /**
+     * Si el backend puede usarse en esta instalación
+     */
+    boolean isAvailable();
+
+    /**
+     * Prepara el backend para el mundo cargado
+     */
+    default void start(Level world) {
+    }
+
+    /**
+     * Libera lo que tenga abierto para el mundo
+     */
+    default void stop() {
+    }
+
+    /**
+     * Ejecuta el script del job en el hilo que lo llama
+     * Devuelve el código de salida, o null si falló o se canceló; para poder
+     * cancelarlo, el backend registra cómo pararlo con ScriptJob.attach
+     */
+    Integer run(ScriptJob job);
+
+    /**
+     * Trabajo por tick en el hilo del servidor (callbacks de los scripts)
+     */
+    default void tick() {
+    }
+}
@@ -0,0 +1,286 @@
+package com.pythonmc.mod.core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Registros estructurados en la salida de los scripts (ver pythonmc/events.py)
+ *
+ * Una línea que empieza por RS (\u001e) es un registro JSON compacto: log con
+ * nivel, métrica, progreso o error con los frames del traceback. Se lee con
+ * JsonReader en streaming sobre un Record del pool, sin árbol JSON, y se
+ * convierte en líneas de consola con nivel; métricas y progreso se agregan
+ * en el canal. Los scripts que no usan pythonmc.events no pagan nada más que
+ * mirar el primer carácter de cada línea.
+ */
+public final class ScriptEvents {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptEvents.class);
+    public static final char PREFIX = '\u001e';
+    private static final int POOL_SIZE = 16;
+
+    private static final ArrayBlockingQueue<Record> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public enum Kind {
+        LOG,
+        METRIC,
+        PROGRESS,
+        ERROR
+    }
+
+    private ScriptEvents() {
+    }
+
+    public static boolean isRecord(String text) {
+        return text != null && !text.isEmpty() && text.charAt(0) == PREFIX;
+    }
+
+    /**
+     * Decodifica un registro y lo escribe en el canal; si está mal formado se muestra tal cual
+     */
+    static void accept(ConsoleBuffer.Channel channel, byte stream, String text) {
+        Record record = POOL.poll();
+        if (record == null) {
+            record = new Record();
+        }
+        try {
+            parse(text, record);
+            apply(channel, stream, record);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            LOGGER.debug("Registro de script ilegible: {}", text, e);
+            channel.append(stream, ConsoleBuffer.levelOf(stream), text.substring(1));
+        } finally {
+            record.reset();
+            POOL.offer(record);
+        }
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static void parse(String text, Record record) throws IOException {
+        StringReader source = new StringReader(text);
+        source.skip(1);
+        try (JsonReader reader = new JsonReader(source)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (key) {
+                    case "t" -> record.kind = kind(reader.nextString());
+                    case "l" -> record.level = level(reader.nextString());
+                    case "m" -> record.message = reader.nextString();
+                    case "n" -> {
+                        // nombre de la métrica o total del progreso
+                        if (reader.peek() == JsonToken.NUMBER) {
+                            record.total = reader.nextLong();
+                        } else {
+                            record.name = reader.nextString();
+                        }
+                    }
+                    case "v" -> record.value = reader.nextDouble();
+                    case "u" -> record.unit = reader.nextString();
+                    case "d" -> record.done = reader.nextLong();
+                    case "f" -> readFrames(reader, record);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        if (record.kind == null) {
+            throw new IllegalStateException("Registro sin tipo");
+        }
+    }
+
+    private static void readFrames(JsonReader reader, Record record) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginArray();
+            record.addFrame(reader.nextString(), reader.nextInt(), reader.nextString());
+            while (reader.hasNext()) {
+                reader.skipValue();
+            }
+            reader.endArray();
+        }
+        reader.endArray();
+    }
+
+    private static void apply(ConsoleBuffer.Channel channel, byte stream, Record record) {
+        switch (record.kind) {
+            case LOG -> {
+                String text = record.message != null ? record.message : "";
+                channel.append(stream, record.level,
+                    record.level == ConsoleBuffer.INFO ? text : "[" + levelName(record.level) + "] " + text);
+            }
+            case METRIC -> {
+                if (record.name == null) {
+                    throw new IllegalStateException("Métrica sin nombre");
+                }
+                channel.recordMetric(record.name, record.value, record.unit);
+                channel.append(stream, ConsoleBuffer.DEBUG, "[metric] " + record.name + " = "
+                    + record.value + (record.unit != null && !record.unit.isEmpty() ? " " + record.unit : ""));
+            }
+            case PROGRESS -> {
+                channel.setProgress(new Progress(record.done, record.total, record.message));
+                channel.append(stream, ConsoleBuffer.DEBUG, "[progress] " + record.done + "/" + record.total
+                    + (record.message != null && !record.message.isEmpty() ? " " + record.message : ""));
+            }
+            case ERROR -> {
+                channel.append(ConsoleBuffer.STDERR, ConsoleBuffer.ERROR,
+                    record.message != null ? record.message : "Error");
+                // Mismo formato que un traceback de Python: la consola lo hace clicable
+                for (int i = 0; i < record.frameCount; i++) {
+                    channel.append(ConsoleBuffer.STDERR, ConsoleBuffer.ERROR, "  File \"" + record.frameFiles[i]
+                        + "\", line " + record.frameLines[i] + ", in " + record.frameFunctions[i]);
+                }
+            }
+        }
+    }
+
+    private static Kind kind(String name) {
+        return switch (name) {
+            case "log" -> Kind.LOG;
+            case "metric" -> Kind.METRIC;
+            case "progress" -> Kind.PROGRESS;
+            case "error" -> Kind.ERROR;
+            default -> throw new IllegalStateException("Tipo de registro desconocido: " + name);
+        };
+    }
+
+    private static byte level(String name) {
+        return switch (name) {
+            case "debug" -> ConsoleBuffer.DEBUG;
+            case "warn", "warning" -> ConsoleBuffer.WARN;
+            case "error" -> ConsoleBuffer.ERROR;
+            default -> ConsoleBuffer.INFO;
+        };
+    }
+
+    public static String levelName(byte level) {
+        return switch (level) {
+            case ConsoleBuffer.DEBUG -> "debug";
+            case ConsoleBuffer.WARN -> "warn";
+            case ConsoleBuffer.ERROR -> "error";
+            default -> "info";
+        };
+    }
+
+    /**
+     * Último progreso informado por un script
+     */
+    public record Progress(long done, long total, String message) {
+
+        public String describe() {
+            String text = done + "/" + total;
+            return message != null && !message.isEmpty() ? message + " " + text : text;
+        }
+    }
+
+    /**
+     * Agregado de una métrica en un canal
+     */
+    public static final class MetricStat {
+        private final String name;
+        private volatile String unit;
+        private long count;
+        private double last;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+
+        MetricStat(String name) {
+            this.name = name;
+        }
+
+        synchronized void record(double value, String newUnit) {
+            count++;
+            last = value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            if (newUnit != null && !newUnit.isEmpty()) {
+                unit = newUnit;
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getUnit() {
+            return unit != null ? unit : "";
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized double getLast() {
+            return last;
+        }
+
+        public synchronized double getMin() {
+            return min;
+        }
+
+        public synchronized double getMax() {
+            return max;
+        }
+
+        public synchronized double getAverage() {
+            return count > 0 ? sum / count : 0.0;
+        }
+    }
+
+    /**
+     * Registro decodificado; se reutiliza desde el pool
+     */
+    private static final class Record {
+        Kind kind;
+        byte level = ConsoleBuffer.INFO;
+        String message;
+        String name;
+        String unit;
+        double value;
+        long done;
+        long total;
+        String[] frameFiles = new String[8];
+        int[] frameLines = new int[8];
+        String[] frameFunctions = new String[8];
+        int frameCount;
+
+        void addFrame(String file, int line, String function) {
+            if (frameCount == frameFiles.length) {
+                frameFiles = Arrays.copyOf(frameFiles, frameCount * 2);
+                frameLines = Arrays.copyOf(frameLines, frameCount * 2);
+                frameFunctions = Arrays.copyOf(frameFunctions, frameCount * 2);
+            }
+            frameFiles[frameCount] = file;
+            frameLines[frameCount] = line;
+            frameFunctions[frameCount] = function;
+            frameCount++;
+        }
+
+        void reset() {
+            kind = null;
+            level = ConsoleBuffer.INFO;
+            message = null;
+            name = null;
+            unit = null;
+            value = 0;
+            done = 0;
+            total = 0;
+            Arrays.fill(frameFiles, 0, frameCount, null);
+            Arrays.fill(frameFunctions, 0, frameCount, null);
+            frameCount = 0;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.pythonmc.mod.core;
+
+import com.pythonmc.mod.script.PythonWorker;
+
+import java.io.File;
+
+/**
+ * Ejecución de un script gestionada por ScriptScheduler
+ *
+ * Todos los campos que cambian son volatile: la GUI y el tick del servidor
+ * consultan el estado sin bloquear mientras el hilo del job lo actualiza.
+ */
+public final class ScriptJob {
+
+    /**
+     * Clase de prioridad: las ejecuciones del editor adelantan a los scripts de fondo
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        FINISHED,
+        FAILED,
+        CANCELLED,
+        KILLED;
+
+        public boolean isDone() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final int id;
+    private final File scriptFile;
+    private final Priority priority;
+    private final ConsoleBuffer.Channel channel;
+    private final ScriptLimits limits;
+    private final ScriptBackend backend;
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile Integer exitCode;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile boolean cancelRequested;
+    private volatile String killReason;
+    // CPU del proceso del script según la última muestra (-1 sin medir)
+    private volatile long cpuTimeMs = -1;
+
+    // Cómo parar la ejecución al cancelar (matar el worker, el proceso o el contexto)
+    private volatile Runnable killer;
+
+    ScriptJob(int id, File scriptFile, Priority priority, ConsoleBuffer.Channel channel, ScriptLimits limits,
+              ScriptBackend backend) {
+        this.id = id;
+        this.scriptFile = scriptFile;
+        this.priority = priority;
+        this.channel = channel;
+        this.limits = limits;
+        this.backend = backend;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return scriptFile.getName();
+    }
+
+    public File getScriptFile() {
+        return scriptFile;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public ConsoleBuffer.Channel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Límites vigentes cuando se encoló el job
+     */
+    public ScriptLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Backend forzado para este job, o null para usar el del proyecto
+     */
+    public ScriptBackend getBackend() {
+        return backend;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Código de salida del script; null si no ha terminado o fue cancelado
+     */
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    /**
+     * Tiempo de pared desde que empezó a ejecutarse (0 si sigue en cola)
+     */
+    public long getWallTimeMs() {
+        long start = startedNanos;
+        if (start == 0) {
+            return 0;
+        }
+        long end = finishedNanos;
+        return ((end != 0 ? end : System.nanoTime()) - start) / 1_000_000;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Motivo por el que el engine mató el job (cpu-limit, memory-limit,
+     * wall-timeout) o null
+     */
+    public String getKillReason() {
+        return killReason;
+    }
+
+    /**
+     * Segundos de CPU gastados en ms, si el backend los mide; -1 si no
+     */
+    public long getCpuTimeMs() {
+        return cpuTimeMs;
+    }
+
+    // ========== ESTADO (hilo del job / ScriptScheduler) ==========
+
+    void recordCpuTime(long ms) {
+        cpuTimeMs = ms;
+    }
+
+    void markRunning() {
+        startedNanos = System.nanoTime();
+        state = State.RUNNING;
+    }
+
+    void markDone(State finalState, Integer code, String reason) {
+        exitCode = code;
+        killReason = reason;
+        finishedNanos = System.nanoTime();
+        if (startedNanos == 0) {
+            startedNanos = finishedNanos;
+        }
+        killer = null;
+        state = finalState;
+        channel.finish();
+    }
+
+    /**
+     * Registra cómo parar la ejecución; devuelve false si el job ya se canceló
+     */
+    boolean attach(Runnable stopExecution) {
+        killer = stopExecution;
+        return !cancelRequested;
+    }
+
+    boolean attach(PythonWorker runningWorker) {
+        return attach(runningWorker::kill);
+    }
+
+    boolean attach(Process runningProcess) {
+        return attach(() -> killTree(runningProcess.toHandle()));
+    }
+
+    /**
+     * Mata el job por haber superado un límite
+     */
+    void requestKill(String reason) {
+        killReason = reason;
+        requestCancel();
+    }
+
+    /**
+     * Marca la cancelación y mata lo que esté ejecutando el script
+     * (el orden con attach() garantiza que uno de los dos lo ve)
+     */
+    void requestCancel() {
+        cancelRequested = true;
+        Runnable current = killer;
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    /**
+     * Mata un proceso y todos sus descendientes (subprocesos que lance el script)
+     */
+    public static void killTree(ProcessHandle handle) {
+        handle.descendants().forEach(ProcessHandle::destroyForcibly);
+        handle.destroyForcibly();
+    }
+}
@@ -0,0 +1,131 @@
+package com.pythonmc.mod.core;
+
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Límites de recursos de las ejecuciones de scripts, por proyecto
+ *
+ * Se leen de engine_config.json al cargar el mundo (0 = sin límite):
+ * - script_cpu_limit_s: segundos de CPU (RLIMIT_CPU)
+ * - script_memory_limit_mb: memoria adicional que puede reservar el script (RLIMIT_AS)
+ * - script_wall_timeout_s: tiempo real máximo, lo aplica ScriptScheduler
+ *
+ * Los límites de CPU y memoria los aplica el propio proceso Python (worker o
+ * launcher.py) con el módulo resource, así que solo tienen efecto en sistemas
+ * POSIX; el límite de tiempo real funciona en cualquier sistema.
+ */
+public final class ScriptLimits {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptLimits.class);
+
+    // Códigos de salida reservados (mantener en sincronía con worker.py y launcher.py)
+    public static final int EXIT_CPU_LIMIT = 152; // 128 + SIGXCPU
+    public static final int EXIT_MEMORY_LIMIT = 153;
+    // Muerte por señal: 128 + señal en POSIX, -señal en otros sistemas
+    private static final int EXIT_SIGKILL = 137;
+    private static final int SIGKILL = 9;
+    private static final int SIGXCPU = 24;
+
+    public static final String KILL_CPU = "cpu-limit";
+    public static final String KILL_MEMORY = "memory-limit";
+    public static final String KILL_WALL = "wall-timeout";
+
+    public static final int DEFAULT_CPU_S = 30;
+    public static final int DEFAULT_MEMORY_MB = 1024;
+    public static final int DEFAULT_WALL_S = 300;
+
+    public static final ScriptLimits DEFAULTS = new ScriptLimits(DEFAULT_CPU_S, DEFAULT_MEMORY_MB, DEFAULT_WALL_S);
+
+    private static volatile ScriptLimits current = DEFAULTS;
+
+    private final int cpuSeconds;
+    private final int memoryMb;
+    private final int wallSeconds;
+
+    public ScriptLimits(int cpuSeconds, int memoryMb, int wallSeconds) {
+        if (cpuSeconds < 0 || memoryMb < 0 || wallSeconds < 0) {
+            throw new IllegalArgumentException("Los límites no pueden ser negativos");
+        }
+        this.cpuSeconds = cpuSeconds;
+        this.memoryMb = memoryMb;
+        this.wallSeconds = wallSeconds;
+    }
+
+    /**
+     * Carga los límites del proyecto del mundo
+     */
+    public static void configure(Level world) {
+        try {
+            current = new ScriptLimits(
+                ConfigHandler.getIntSetting(world, "script_cpu_limit_s", DEFAULT_CPU_S),
+                ConfigHandler.getIntSetting(world, "script_memory_limit_mb", DEFAULT_MEMORY_MB),
+                ConfigHandler.getIntSetting(world, "script_wall_timeout_s", DEFAULT_WALL_S));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Límites de scripts inválidos en la configuración, usando los de por defecto", e);
+            current = DEFAULTS;
+        }
+        LOGGER.info("Límites de scripts: {}", current);
+    }
+
+    public static void reset() {
+        current = DEFAULTS;
+    }
+
+    /**
+     * Límites vigentes; cada job guarda los que había al encolarse
+     */
+    public static ScriptLimits current() {
+        return current;
+    }
+
+    /**
+     * Motivo de muerte asociado a un código de salida reservado, o null
+     */
+    public static String killReason(int exitCode) {
+        switch (exitCode) {
+            case EXIT_CPU_LIMIT:
+                return KILL_CPU;
+            case EXIT_MEMORY_LIMIT:
+                return KILL_MEMORY;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Como killReason(exitCode), pero también atribuye al límite de CPU la
+     * muerte por SIGKILL o SIGXCPU si la ejecución gastó sus segundos de CPU
+     * (el límite duro de RLIMIT_CPU mata sin pasar por el código reservado)
+     */
+    public String killReason(int exitCode, long cpuTimeMs) {
+        String reason = killReason(exitCode);
+        if (reason != null || cpuSeconds <= 0 || cpuTimeMs < cpuSeconds * 1000L) {
+            return reason;
+        }
+        boolean signalled = exitCode == EXIT_SIGKILL || exitCode == -SIGKILL || exitCode == -SIGXCPU;
+        return signalled ? KILL_CPU : null;
+    }
+
+    public int getCpuSeconds() {
+        return cpuSeconds;
+    }
+
+    public int getMemoryMb() {
+        return memoryMb;
+    }
+
+    public int getWallSeconds() {
+        return wallSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "cpu " + format(cpuSeconds, " s") + ", memoria " + format(memoryMb, " MB")
+            + ", tiempo " + format(wallSeconds, " s");
+    }
+
+    private static String format(int value, String unit) {
+        return value > 0 ? value + unit : "sin límite";
+    }
+}
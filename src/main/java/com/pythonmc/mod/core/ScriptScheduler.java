@@ -0,0 +1,337 @@
+package com.pythonmc.mod.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planificador de ejecuciones de scripts (detrás de PythonExecutor.runScript)
+ *
+ * Un número fijo de hilos (-Dpythonmc.maxJobs, por defecto núcleos / 2, entre
+ * 2 y 4) atiende una cola con prioridad: las ejecuciones INTERACTIVE del editor
+ * pasan por delante de las BACKGROUND y, dentro de cada clase, por orden de
+ * llegada. La tabla de jobs es un ConcurrentHashMap de ScriptJob con estado
+ * volatile, así que la GUI y el tick la consultan sin bloquear. Se conservan
+ * los últimos jobs terminados para poder consultar su código y su duración.
+ *
+ * Cada job lleva los ScriptLimits del proyecto: CPU y memoria los aplica el
+ * proceso Python y el tiempo real lo vigila aquí un watchdog, que mata el
+ * proceso al vencer. Los contadores de getMetrics() cubren jobs y muertes.
+ */
+public final class ScriptScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptScheduler.class);
+    private static final int MAX_FINISHED_JOBS = 64;
+    private static final long IDLE_THREAD_TIMEOUT_S = 30;
+
+    private static final AtomicInteger JOB_IDS = new AtomicInteger();
+    private static final AtomicLong SUBMIT_ORDER = new AtomicLong();
+    private static final Map<Integer, ScriptJob> JOBS = new ConcurrentHashMap<>();
+    private static final Queue<Integer> FINISHED_ORDER = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger QUEUED = new AtomicInteger();
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "PythonMC-JobWatchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Métricas acumuladas desde el arranque
+    private static final AtomicLong SUBMITTED = new AtomicLong();
+    private static final AtomicLong FINISHED = new AtomicLong();
+    private static final AtomicLong FAILED = new AtomicLong();
+    private static final AtomicLong CANCELLED = new AtomicLong();
+    private static final AtomicLong KILLED_CPU = new AtomicLong();
+    private static final AtomicLong KILLED_MEMORY = new AtomicLong();
+    private static final AtomicLong KILLED_WALL = new AtomicLong();
+
+    private ScriptScheduler() {
+    }
+
+    /**
+     * Encola un script y devuelve el id del job
+     * Los jobs de fondo no cambian el canal que muestra la consola
+     */
+    public static int submit(File scriptFile, ScriptJob.Priority priority) {
+        return submit(scriptFile, priority, null);
+    }
+
+    /**
+     * Encola un script que se ejecutará con ese backend (null: el del proyecto)
+     */
+    public static int submit(File scriptFile, ScriptJob.Priority priority, ScriptBackend backend) {
+        if (scriptFile == null || priority == null) {
+            throw new IllegalArgumentException("Script y prioridad son obligatorios");
+        }
+
+        int id = JOB_IDS.incrementAndGet();
+        ConsoleBuffer.Channel channel = ConsoleBuffer.open(scriptFile.getName(),
+            priority == ScriptJob.Priority.INTERACTIVE);
+        ScriptJob job = new ScriptJob(id, scriptFile, priority, channel, ScriptLimits.current(), backend);
+        JOBS.put(id, job);
+        QUEUED.incrementAndGet();
+        SUBMITTED.incrementAndGet();
+
+        if (RUNNING.get() + QUEUED.get() > EXECUTOR.getMaximumPoolSize()) {
+            channel.system("[job " + id + "] En cola (" + priority.name().toLowerCase() + ")");
+        }
+        EXECUTOR.execute(new JobTask(job, SUBMIT_ORDER.incrementAndGet()));
+        return id;
+    }
+
+    /**
+     * Cancela un job: si está en cola se descarta; si está en marcha se mata
+     * el proceso (worker o proceso propio) con todos sus descendientes
+     * Devuelve false si el job no existe o ya había terminado
+     */
+    public static boolean cancel(int jobId) {
+        ScriptJob job = JOBS.get(jobId);
+        if (job == null || job.getState().isDone()) {
+            return false;
+        }
+
+        job.requestCancel();
+        if (job.getState() == ScriptJob.State.QUEUED
+                && EXECUTOR.getQueue().removeIf(task -> ((JobTask) task).job == job)) {
+            QUEUED.decrementAndGet();
+            finish(job, ScriptJob.State.CANCELLED, null, null);
+        }
+        LOGGER.info("Job {} ('{}') cancelado", jobId, job.getName());
+        return true;
+    }
+
+    /**
+     * Cancela todos los jobs pendientes y en marcha (al descargar el mundo)
+     */
+    public static void cancelAll() {
+        for (ScriptJob job : JOBS.values()) {
+            if (!job.getState().isDone()) {
+                cancel(job.getId());
+            }
+        }
+    }
+
+    public static ScriptJob getJob(int jobId) {
+        return JOBS.get(jobId);
+    }
+
+    /**
+     * Vista de la tabla de jobs (en cola, en marcha y los últimos terminados)
+     */
+    public static Collection<ScriptJob> getJobs() {
+        return JOBS.values();
+    }
+
+    /**
+     * Copia de la tabla ordenada por id (para listados)
+     */
+    public static List<ScriptJob> snapshot() {
+        List<ScriptJob> jobs = new ArrayList<>(JOBS.values());
+        jobs.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return jobs;
+    }
+
+    public static int getQueuedCount() {
+        return QUEUED.get();
+    }
+
+    public static int getRunningCount() {
+        return RUNNING.get();
+    }
+
+    public static int getMaxConcurrentJobs() {
+        return EXECUTOR.getMaximumPoolSize();
+    }
+
+    /**
+     * Contadores de jobs y de muertes por límite, más los límites vigentes
+     */
+    public static Map<String, Long> getMetrics() {
+        ScriptLimits limits = ScriptLimits.current();
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("jobs_submitted", SUBMITTED.get());
+        metrics.put("jobs_queued", (long) QUEUED.get());
+        metrics.put("jobs_running", (long) RUNNING.get());
+        metrics.put("jobs_finished", FINISHED.get());
+        metrics.put("jobs_failed", FAILED.get());
+        metrics.put("jobs_cancelled", CANCELLED.get());
+        metrics.put("kills_cpu_limit", KILLED_CPU.get());
+        metrics.put("kills_memory_limit", KILLED_MEMORY.get());
+        metrics.put("kills_wall_timeout", KILLED_WALL.get());
+        metrics.put("limit_cpu_s", (long) limits.getCpuSeconds());
+        metrics.put("limit_memory_mb", (long) limits.getMemoryMb());
+        metrics.put("limit_wall_s", (long) limits.getWallSeconds());
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static void runJob(ScriptJob job) {
+        QUEUED.decrementAndGet();
+        if (job.isCancelRequested()) {
+            finish(job, ScriptJob.State.CANCELLED, null, null);
+            return;
+        }
+
+        RUNNING.incrementAndGet();
+        job.markRunning();
+        ScheduledFuture<?> timeout = scheduleTimeout(job);
+        try {
+            Integer exitCode = PythonExecutor.execute(job);
+            String reason = job.getKillReason();
+            if (reason == null && exitCode != null) {
+                reason = job.getLimits().killReason(exitCode, job.getCpuTimeMs());
+            }
+
+            if (reason != null) {
+                finish(job, ScriptJob.State.KILLED, exitCode, reason);
+            } else if (job.isCancelRequested()) {
+                finish(job, ScriptJob.State.CANCELLED, null, null);
+            } else {
+                finish(job, exitCode != null ? ScriptJob.State.FINISHED : ScriptJob.State.FAILED, exitCode, null);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error inesperado en el job {} ('{}')", job.getId(), job.getName(), e);
+            job.getChannel().system("[error] " + e);
+            finish(job, ScriptJob.State.FAILED, null, null);
+        } finally {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            RUNNING.decrementAndGet();
+        }
+    }
+
+    /**
+     * Repite la tarea en el hilo del watchdog hasta cancelar el futuro
+     */
+    static ScheduledFuture<?> every(Runnable task, long periodMs) {
+        return WATCHDOG.scheduleAtFixedRate(task, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Programa la muerte del job al agotar su tiempo real
+     */
+    private static ScheduledFuture<?> scheduleTimeout(ScriptJob job) {
+        int wallSeconds = job.getLimits().getWallSeconds();
+        if (wallSeconds <= 0) {
+            return null;
+        }
+        return WATCHDOG.schedule(() -> {
+            if (job.getState() == ScriptJob.State.RUNNING) {
+                LOGGER.warn("Job {} ('{}') superó {} s de tiempo real", job.getId(), job.getName(), wallSeconds);
+                job.requestKill(ScriptLimits.KILL_WALL);
+            }
+        }, wallSeconds, TimeUnit.SECONDS);
+    }
+
+    private static void finish(ScriptJob job, ScriptJob.State state, Integer exitCode, String killReason) {
+        switch (state) {
+            case FINISHED:
+                FINISHED.incrementAndGet();
+                break;
+            case FAILED:
+                FAILED.incrementAndGet();
+                break;
+            case CANCELLED:
+                CANCELLED.incrementAndGet();
+                job.getChannel().system("[cancelado] tras " + job.getWallTimeMs() + " ms");
+                break;
+            case KILLED:
+                countKill(killReason);
+                job.getChannel().system("[killed: " + killReason + "] tras " + job.getWallTimeMs()
+                    + " ms (" + job.getLimits() + ")");
+                LOGGER.warn("Job {} ('{}') terminado por el engine: {}", job.getId(), job.getName(), killReason);
+                break;
+            default:
+                break;
+        }
+        job.markDone(state, exitCode, killReason);
+
+        FINISHED_ORDER.add(job.getId());
+        while (FINISHED_ORDER.size() > MAX_FINISHED_JOBS) {
+            Integer oldest = FINISHED_ORDER.poll();
+            if (oldest != null) {
+                JOBS.remove(oldest);
+            }
+        }
+    }
+
+    private static void countKill(String reason) {
+        if (ScriptLimits.KILL_CPU.equals(reason)) {
+            KILLED_CPU.incrementAndGet();
+        } else if (ScriptLimits.KILL_MEMORY.equals(reason)) {
+            KILLED_MEMORY.incrementAndGet();
+        } else if (ScriptLimits.KILL_WALL.equals(reason)) {
+            KILLED_WALL.incrementAndGet();
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = resolveMaxJobs();
+        AtomicInteger threadIds = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+            IDLE_THREAD_TIMEOUT_S, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r, "PythonMC-Job-" + threadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static int resolveMaxJobs() {
+        String prop = System.getProperty("pythonmc.maxJobs");
+        if (prop != null && !prop.isEmpty()) {
+            try {
+                return Math.max(1, Integer.parseInt(prop.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("pythonmc.maxJobs inválido: {}", prop);
+            }
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(2, Math.min(4, cores / 2));
+    }
+
+    /**
+     * Tarea de la cola: ordena por clase de prioridad y después por llegada
+     */
+    private static final class JobTask implements Runnable, Comparable<JobTask> {
+        private final ScriptJob job;
+        private final long order;
+
+        private JobTask(ScriptJob job, long order) {
+            this.job = job;
+            this.order = order;
+        }
+
+        @Override
+        public void run() {
+            runJob(job);
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            int byPriority = Integer.compare(job.getPriority().ordinal(), other.job.getPriority().ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+}
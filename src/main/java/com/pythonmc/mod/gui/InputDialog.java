@@ -240,19 +240,7 @@ class NodeCreationDialog extends Screen {
         String name = nameField.getValue();
         if (name.isEmpty()) return;
         
-        Node newNode = switch (selectedType) {
-            case CAMERA -> new CameraNode(name);
-            case CHARACTER_BODY -> new CharacterBodyNode(name);
-            case AUDIO_PLAYER -> new AudioPlayerNode(name);
-            default -> new Node(name, selectedType) {
-                @Override
-                public void update() {}
-                @Override
-                public void init() {}
-                @Override
-                public void destroy() {}
-            };
-        };
+        Node newNode = NodeRegistry.createNode(selectedType, name);
         
         NodeRegistry.addNode(world, newNode, null);
 
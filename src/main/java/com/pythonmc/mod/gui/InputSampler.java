@@ -0,0 +1,117 @@
+package com.pythonmc.mod.gui;
+
+import com.pythonmc.mod.script.PlayerInput;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.MouseHandler;
+import net.minecraft.client.Options;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * Muestreo de la entrada del jugador para los scripts del servidor (ver PlayerInput)
+ *
+ * Solo con la captura activada por el servidor. En cada tick lee las teclas
+ * de movimiento y acción y el desplazamiento del ratón (con el ratón
+ * capturado, no en menús) y cada interval ticks manda lo acumulado en un
+ * paquete. Todo el estado son campos primitivos y el paquete es siempre la
+ * misma instancia: muestrear no crea objetos.
+ */
+@Mod.EventBusSubscriber(modid = "pythonmc", value = Dist.CLIENT)
+public final class InputSampler {
+    // Solo desde el hilo del cliente
+    private static final PlayerInput.Sample SAMPLE = new PlayerInput.Sample();
+    private static int interval;
+    private static int elapsed;
+    private static int seq;
+    private static int held;
+    private static int pressed;
+    private static float mouseDx;
+    private static float mouseDy;
+    private static double lastMouseX = Double.NaN;
+    private static double lastMouseY = Double.NaN;
+    private static boolean idleSent = true;
+
+    private InputSampler() {
+    }
+
+    /**
+     * Intervalo pedido por el servidor (0 = no capturar)
+     */
+    public static void configure(int ticks) {
+        interval = ticks;
+        reset();
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || interval == 0) return;
+
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.player == null || mc.getConnection() == null) return;
+
+        held = mc.screen == null ? keys(mc.options) : 0;
+        pressed |= held;
+        sampleMouse(mc.mouseHandler);
+
+        if (++elapsed < interval) return;
+
+        // Parado: se manda una muestra vacía para soltar las teclas y luego nada
+        boolean idle = pressed == 0 && mouseDx == 0 && mouseDy == 0;
+        if (!idle || !idleSent) {
+            PlayerInput.CHANNEL.sendToServer(SAMPLE.set(++seq, Math.min(elapsed, 255), held, pressed, mouseDx,
+                mouseDy));
+        }
+        idleSent = idle;
+        elapsed = 0;
+        pressed = 0;
+        mouseDx = 0;
+        mouseDy = 0;
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        configure(0);
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static int keys(Options options) {
+        int mask = 0;
+        if (options.keyUp.isDown()) mask |= PlayerInput.FORWARD;
+        if (options.keyDown.isDown()) mask |= PlayerInput.BACK;
+        if (options.keyLeft.isDown()) mask |= PlayerInput.LEFT;
+        if (options.keyRight.isDown()) mask |= PlayerInput.RIGHT;
+        if (options.keyJump.isDown()) mask |= PlayerInput.JUMP;
+        if (options.keyShift.isDown()) mask |= PlayerInput.SNEAK;
+        if (options.keySprint.isDown()) mask |= PlayerInput.SPRINT;
+        if (options.keyAttack.isDown()) mask |= PlayerInput.ATTACK;
+        if (options.keyUse.isDown()) mask |= PlayerInput.USE;
+        return mask;
+    }
+
+    private static void sampleMouse(MouseHandler mouse) {
+        double x = mouse.xpos();
+        double y = mouse.ypos();
+        // Con el cursor libre (menús) se mueve el puntero, no la vista
+        if (mouse.isMouseGrabbed() && !Double.isNaN(lastMouseX)) {
+            mouseDx += (float) (x - lastMouseX);
+            mouseDy += (float) (y - lastMouseY);
+        }
+        lastMouseX = x;
+        lastMouseY = y;
+    }
+
+    private static void reset() {
+        elapsed = 0;
+        held = 0;
+        pressed = 0;
+        mouseDx = 0;
+        mouseDy = 0;
+        lastMouseX = Double.NaN;
+        lastMouseY = Double.NaN;
+        idleSent = true;
+    }
+}
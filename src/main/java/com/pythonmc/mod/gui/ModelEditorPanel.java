@@ -6,6 +6,7 @@ import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.mojang.blaze3d.vertex.Tesselator;
 import com.mojang.math.Axis;
 import com.pythonmc.mod.core.ProjectManager;
+import com.pythonmc.mod.nodes.Model3DNode;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.Button;
@@ -170,6 +171,8 @@ public class ModelEditorPanel {
             
             File modelFile = new File(modelsDir, currentFileName);
             saveModelToFile(modelFile);
+            // Los nodos que ya usan este archivo ven el modelo guardado
+            Model3DNode.Model3D.publish(currentFileName, Model3DNode.Model3D.loadFromFile(modelFile));
             
             hasUnsavedChanges = false;
             LOGGER.info("Modelo guardado: {}", modelFile.getAbsolutePath());
@@ -1,7 +1,16 @@
 package com.pythonmc.mod.gui;
 
+import com.pythonmc.mod.core.BackendBenchmark;
+import com.pythonmc.mod.core.ConsoleBuffer;
 import com.pythonmc.mod.core.PythonExecutor;
+import com.pythonmc.mod.core.ScriptEvents;
+import com.pythonmc.mod.core.ScriptJob;
+import com.pythonmc.mod.core.ScriptScheduler;
+import com.pythonmc.mod.script.ScriptCompiler;
+import com.pythonmc.mod.script.ScriptProfiler;
+import com.pythonmc.mod.script.ScriptRuntime;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.Font;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.Button;
 import net.minecraft.network.chat.Component;
@@ -12,6 +21,8 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Editor de scripts Python con syntax highlighting básico
@@ -29,10 +40,28 @@ public class ScriptEditorPanel {
     private int cursorColumn = 0;
     private int scrollOffset = 0;
     private boolean hasUnsavedChanges = false;
+    private int consoleScroll = 0;
+    // Última ejecución lanzada desde el editor (para cancelarla)
+    private int currentJobId = -1;
+    // Qué muestra el área de consola (Ctrl+G cambia de vista)
+    private ConsoleView consoleView = ConsoleView.OUTPUT;
+    private ScriptProfiler.SortKey profileSort = ScriptProfiler.SortKey.TOTAL;
+    // Nivel mínimo de las líneas de consola (Ctrl+L lo cambia)
+    private byte consoleLevel = ConsoleBuffer.INFO;
+    // Último diagnóstico de compilación que ya se escribió en la consola
+    private ScriptCompiler.Result reportedDiagnostic;
+
+    private enum ConsoleView {
+        OUTPUT,
+        PROFILE_TABLE,
+        PROFILE_FLAME,
+        METRICS
+    }
     
     // UI
     private Button saveButton;
     private Button runButton;
+    private Button tickButton;
     
     // Colores
     private static final int BG_COLOR = 0xFF1E1E1E;
@@ -44,12 +73,29 @@ public class ScriptEditorPanel {
     private static final int KEYWORD_COLOR = 0xFF569CD6;
     private static final int STRING_COLOR = 0xFFCE9178;
     private static final int COMMENT_COLOR = 0xFF6A9955;
+    private static final int DIAGNOSTIC_COLOR = 0xFFF14C4C;
     
     private static final int LINE_HEIGHT = 12;
     private static final int LINE_NUMBER_WIDTH = 40;
     private static final int CONSOLE_BG = 0xFF202020;
     private static final int CONSOLE_TEXT_COLOR = 0xFFCCCCCC;
+    private static final int CONSOLE_ERROR_COLOR = 0xFFF48771;
+    private static final int CONSOLE_SYSTEM_COLOR = 0xFF808080;
+    private static final int CONSOLE_WARN_COLOR = 0xFFDCDCAA;
+    private static final int CONSOLE_LINK_COLOR = 0xFF4FC1FF;
     private static final int CONSOLE_HEIGHT = 60;
+    private static final int PROFILE_HEIGHT = 170;
+    private static final int PROFILE_HEADER_COLOR = 0xFF9CDCFE;
+    private static final int[] FLAME_COLORS = {0xFFB5502D, 0xFFC8692E, 0xFFD9852F, 0xFFC25A3A, 0xFFD7A13C};
+    // Columnas de la tabla del profiler: nombre y orden al hacer clic en la cabecera
+    private static final String[] PROFILE_COLUMNS = {"Función", "Llamadas", "Propio ms", "Total ms"};
+    private static final String[] METRIC_COLUMNS = {"Métrica", "N", "Último", "Mín", "Máx", "Media"};
+    // Línea de traceback con ubicación: un clic abre el script en esa línea
+    private static final Pattern TRACEBACK_LOCATION = Pattern.compile("File \"([^\"]+)\", line (\\d+)");
+    private static final ScriptProfiler.SortKey[] PROFILE_SORT_KEYS = {
+        ScriptProfiler.SortKey.NAME, ScriptProfiler.SortKey.CALLS,
+        ScriptProfiler.SortKey.SELF, ScriptProfiler.SortKey.TOTAL
+    };
     
     public ScriptEditorPanel(EngineScreen parent, int x, int y, int width, int height) {
         this.parent = parent;
@@ -79,6 +125,12 @@ public class ScriptEditorPanel {
             Component.literal(" Ejecutar"),
             btn -> runScript()
         ).bounds(x + width - btnWidth - 10, btnY, btnWidth, btnHeight).build();
+
+        // Carga el script con init()/update() en cada tick
+        tickButton = Button.builder(
+            Component.literal(" Activar"),
+            btn -> toggleTickScript()
+        ).bounds(x + width - btnWidth - 180, btnY, btnWidth, btnHeight).build();
     }
     
     public void render(GuiGraphics graphics, int mouseX, int mouseY, float partialTick) {
@@ -91,13 +143,25 @@ public class ScriptEditorPanel {
         // Nombre del archivo
         String fileName = currentFile != null ? currentFile.getName() : "Sin archivo";
         if (hasUnsavedChanges) fileName += " *";
-        graphics.drawString(parent.getMinecraft().font, fileName, x + 10, y + 10, TEXT_COLOR);
+        ScriptCompiler.Result diagnostic = currentDiagnostic();
+        if (diagnostic != null) {
+            // Error de sintaxis de la última compilación al guardar, bajo el nombre
+            Font font = parent.getMinecraft().font;
+            graphics.drawString(font, fileName, x + 10, y + 4, TEXT_COLOR);
+            String message = font.plainSubstrByWidth(diagnostic.describe(), tickButton.getX() - x - 15);
+            graphics.drawString(font, message, x + 10, y + 17, DIAGNOSTIC_COLOR);
+        } else {
+            graphics.drawString(parent.getMinecraft().font, fileName, x + 10, y + 10, TEXT_COLOR);
+        }
         
         // Botones
         saveButton.render(graphics, mouseX, mouseY, partialTick);
+        runButton.setMessage(Component.literal(isJobActive() ? " Cancelar" : " Ejecutar"));
         runButton.render(graphics, mouseX, mouseY, partialTick);
+        tickButton.setMessage(Component.literal(ScriptRuntime.isLoaded(currentFile) ? " Detener" : " Activar"));
+        tickButton.render(graphics, mouseX, mouseY, partialTick);
         
-        int consoleTop = y + height - CONSOLE_HEIGHT;
+        int consoleTop = y + height - consoleHeight();
 
         // Área de números de línea
         graphics.fill(x, y + 30, x + LINE_NUMBER_WIDTH, consoleTop, LINE_NUMBER_BG);
@@ -112,6 +176,8 @@ public class ScriptEditorPanel {
         int contentX = x + LINE_NUMBER_WIDTH + 5;
         int contentY = y + 35;
         int visibleLines = (editorBottom - contentY) / LINE_HEIGHT;
+        ScriptCompiler.Result diagnostic = currentDiagnostic();
+        int errorLine = diagnostic != null ? diagnostic.line() - 1 : -1;
         
         for (int i = scrollOffset; i < Math.min(lines.size(), scrollOffset + visibleLines); i++) {
             int lineY = contentY + (i - scrollOffset) * LINE_HEIGHT;
@@ -124,6 +190,17 @@ public class ScriptEditorPanel {
             // Contenido de la línea con syntax highlighting
             String line = lines.get(i);
             renderLineWithHighlighting(graphics, line, contentX, lineY);
+
+            // Marca en el margen y subrayado desde la columna del error
+            if (i == errorLine) {
+                Font font = parent.getMinecraft().font;
+                int column = Math.max(0, Math.min(diagnostic.column() - 1, line.length()));
+                int errorX = contentX + font.width(line.substring(0, column));
+                int errorWidth = Math.max(4, font.width(line.substring(column)));
+                graphics.fill(x, lineY, x + 3, lineY + LINE_HEIGHT, DIAGNOSTIC_COLOR);
+                graphics.fill(errorX, lineY + LINE_HEIGHT - 2, errorX + errorWidth, lineY + LINE_HEIGHT - 1,
+                    DIAGNOSTIC_COLOR);
+            }
             
             // Cursor
             if (i == cursorLine) {
@@ -138,25 +215,268 @@ public class ScriptEditorPanel {
     private void renderConsole(GuiGraphics graphics, int consoleTop) {
         int headerHeight = 14;
         graphics.fill(x, consoleTop, x + width, y + height, CONSOLE_BG);
-        graphics.drawString(parent.getMinecraft().font, "Console", x + 5, consoleTop + 2, CONSOLE_TEXT_COLOR);
+        if (consoleView == ConsoleView.METRICS) {
+            renderMetrics(graphics, consoleTop, headerHeight);
+            return;
+        }
+        if (consoleView != ConsoleView.OUTPUT) {
+            renderProfile(graphics, consoleTop, headerHeight);
+            return;
+        }
 
-        java.util.List<String> output = PythonExecutor.getOutputSnapshot();
-        int maxLines = (height - consoleTop - headerHeight) / LINE_HEIGHT;
+        // Canal mostrado (clic en la cabecera para cambiar de ejecución)
+        ConsoleBuffer.Channel channel = ConsoleBuffer.focused();
+        String title = "Console - " + channel.getName() + (channel.isFinished() ? "" : " (en curso)");
+        int running = ScriptScheduler.getRunningCount();
+        int queued = ScriptScheduler.getQueuedCount();
+        if (running > 0 || queued > 0) {
+            title += "  [" + running + " en ejecución, " + queued + " en cola]";
+        }
+        ScriptEvents.Progress progress = channel.getProgress();
+        if (progress != null) {
+            title += "  (" + progress.describe() + ")";
+        }
+        title += "  nivel >= " + ScriptEvents.levelName(consoleLevel);
+        graphics.drawString(parent.getMinecraft().font, title, x + 5, consoleTop + 2, CONSOLE_TEXT_COLOR);
 
-        int lineY = consoleTop + headerHeight;
+        int maxLines = (y + height - consoleTop - headerHeight) / LINE_HEIGHT;
+        int[] lineY = {consoleTop + headerHeight};
 
-        if (output.isEmpty()) {
+        if (channel.size() == 0) {
             String hint = "No hay salida. Asegúrate de que tu script hace print() y que Python está configurado.";
-            graphics.drawString(parent.getMinecraft().font, hint, x + 5, lineY, CONSOLE_TEXT_COLOR);
+            graphics.drawString(parent.getMinecraft().font, hint, x + 5, lineY[0], CONSOLE_TEXT_COLOR);
+            return;
+        }
+
+        consoleScroll = Math.max(0, Math.min(consoleScroll, channel.size(consoleLevel) - maxLines));
+        channel.readLast(maxLines, consoleScroll, consoleLevel, (seq, stream, level, text) -> {
+            int color = TRACEBACK_LOCATION.matcher(text).find() ? CONSOLE_LINK_COLOR
+                : level >= ConsoleBuffer.ERROR ? CONSOLE_ERROR_COLOR
+                : level == ConsoleBuffer.WARN ? CONSOLE_WARN_COLOR
+                : stream == ConsoleBuffer.SYSTEM || level == ConsoleBuffer.DEBUG ? CONSOLE_SYSTEM_COLOR
+                : CONSOLE_TEXT_COLOR;
+            graphics.drawString(parent.getMinecraft().font, text, x + 5, lineY[0], color);
+            lineY[0] += LINE_HEIGHT;
+        });
+    }
+
+    /**
+     * Métricas agregadas del canal (pythonmc.events.metric)
+     */
+    private void renderMetrics(GuiGraphics graphics, int consoleTop, int headerHeight) {
+        Font font = parent.getMinecraft().font;
+        ConsoleBuffer.Channel channel = ConsoleBuffer.focused();
+        graphics.drawString(font, "Métricas - " + channel.getName(), x + 5, consoleTop + 2, CONSOLE_TEXT_COLOR);
+
+        int top = consoleTop + headerHeight;
+        List<ScriptEvents.MetricStat> metrics = channel.getMetrics();
+        if (metrics.isEmpty()) {
+            String hint = "Sin métricas. Usa pythonmc.events.metric(nombre, valor) en el script.";
+            graphics.drawString(font, hint, x + 5, top, CONSOLE_TEXT_COLOR);
+            return;
+        }
+
+        int numbers = 60;
+        int[] columnX = new int[METRIC_COLUMNS.length];
+        columnX[0] = x + 5;
+        for (int i = 1; i < columnX.length; i++) {
+            columnX[i] = x + width - (columnX.length - i) * numbers;
+        }
+        for (int i = 0; i < METRIC_COLUMNS.length; i++) {
+            graphics.drawString(font, METRIC_COLUMNS[i], columnX[i], top, PROFILE_HEADER_COLOR);
+        }
+
+        int maxRows = (y + height - top - LINE_HEIGHT) / LINE_HEIGHT;
+        consoleScroll = Math.max(0, Math.min(consoleScroll, metrics.size() - maxRows));
+        int rowY = top + LINE_HEIGHT;
+        for (int i = consoleScroll; i < Math.min(metrics.size(), consoleScroll + maxRows); i++) {
+            ScriptEvents.MetricStat metric = metrics.get(i);
+            String name = metric.getUnit().isEmpty()
+                ? metric.getName() : metric.getName() + " (" + metric.getUnit() + ")";
+            graphics.drawString(font, font.plainSubstrByWidth(name, columnX[1] - columnX[0] - 6), columnX[0], rowY,
+                CONSOLE_TEXT_COLOR);
+            double[] values = {metric.getLast(), metric.getMin(), metric.getMax(), metric.getAverage()};
+            graphics.drawString(font, String.valueOf(metric.getCount()), columnX[1], rowY, CONSOLE_TEXT_COLOR);
+            for (int v = 0; v < values.length; v++) {
+                graphics.drawString(font, String.format("%.2f", values[v]), columnX[v + 2], rowY, CONSOLE_TEXT_COLOR);
+            }
+            rowY += LINE_HEIGHT;
+        }
+    }
+
+    /**
+     * Si la línea de consola pulsada es una ubicación de traceback, abre el script en esa línea
+     */
+    private boolean openConsoleLocation(double mouseY, int consoleTop) {
+        ConsoleBuffer.Channel channel = ConsoleBuffer.focused();
+        int headerHeight = 14;
+        int row = (int) ((mouseY - consoleTop - headerHeight) / LINE_HEIGHT);
+        int maxLines = (y + height - consoleTop - headerHeight) / LINE_HEIGHT;
+        if (row < 0 || row >= maxLines) {
+            return false;
+        }
+
+        String[] clicked = new String[1];
+        int[] index = {0};
+        channel.readLast(maxLines, consoleScroll, consoleLevel, (seq, stream, level, text) -> {
+            if (index[0]++ == row) {
+                clicked[0] = text;
+            }
+        });
+        if (clicked[0] == null) {
+            return false;
+        }
+        Matcher location = TRACEBACK_LOCATION.matcher(clicked[0]);
+        if (!location.find()) {
+            return false;
+        }
+        File file = new File(location.group(1));
+        if (!file.isFile()) {
+            appendOutput("No se encuentra " + file.getPath());
+            return true;
+        }
+
+        if (!file.equals(currentFile)) {
+            if (hasUnsavedChanges) {
+                saveFile();
+            }
+            openScript(file.getAbsolutePath());
+        }
+        cursorLine = Math.max(0, Math.min(Integer.parseInt(location.group(2)) - 1, lines.size() - 1));
+        cursorColumn = 0;
+        scrollOffset = Math.max(0, cursorLine - 5);
+        return true;
+    }
+
+    /**
+     * Tabla o vista de llama del profiler de scripts (Ctrl+P lo activa)
+     */
+    private void renderProfile(GuiGraphics graphics, int consoleTop, int headerHeight) {
+        Font font = parent.getMinecraft().font;
+        ScriptProfiler.Profile profile = ScriptProfiler.snapshot();
+        String title = "Profiler" + (ScriptProfiler.isRunning()
+            ? " (" + (ScriptProfiler.getMode() == ScriptProfiler.Mode.SAMPLE ? "muestreo" : "traza") + ", Ctrl+P para parar)"
+            : " (parado)");
+        if (profile != null) {
+            title += String.format("  %.0f ms medidos", profile.getMeasuredMs());
+            if (profile.getOverheadPct() >= 0) {
+                title += String.format(", %d muestras, overhead %.1f%%", profile.getSamples(), profile.getOverheadPct());
+            }
+            if (profile.getCacheHitPct() >= 0) {
+                title += String.format(", caché %.0f%% aciertos (%d/%d)", profile.getCacheHitPct(),
+                    profile.getCacheHits(), profile.getCacheHits() + profile.getCacheMisses());
+            }
+        }
+        graphics.drawString(font, title, x + 5, consoleTop + 2, CONSOLE_TEXT_COLOR);
+
+        int top = consoleTop + headerHeight;
+        if (profile == null) {
+            String hint = "Sin datos. Ctrl+P muestrea los scripts (Ctrl+Shift+P: traza exacta); Ctrl+G cambia de vista.";
+            graphics.drawString(font, hint, x + 5, top, CONSOLE_TEXT_COLOR);
+            return;
+        }
+        if (consoleView == ConsoleView.PROFILE_TABLE) {
+            renderProfileTable(graphics, profile, top);
+        } else {
+            renderFlameGraph(graphics, profile, top);
+        }
+    }
+
+    private void renderProfileTable(GuiGraphics graphics, ScriptProfiler.Profile profile, int top) {
+        Font font = parent.getMinecraft().font;
+        int[] columnX = profileColumnX();
+        for (int i = 0; i < PROFILE_COLUMNS.length; i++) {
+            String name = i == 1 && profile.isSampling() ? "Muestras" : PROFILE_COLUMNS[i];
+            if (PROFILE_SORT_KEYS[i] == profileSort) {
+                name += " ▼";
+            }
+            graphics.drawString(font, name, columnX[i], top, PROFILE_HEADER_COLOR);
+        }
+
+        List<ScriptProfiler.FunctionStat> rows = profile.getFunctions(profileSort);
+        int maxRows = (y + height - top - LINE_HEIGHT) / LINE_HEIGHT;
+        consoleScroll = Math.max(0, Math.min(consoleScroll, rows.size() - maxRows));
+        int rowY = top + LINE_HEIGHT;
+        for (int i = consoleScroll; i < Math.min(rows.size(), consoleScroll + maxRows); i++) {
+            ScriptProfiler.FunctionStat row = rows.get(i);
+            String name = font.plainSubstrByWidth(row.name(), columnX[1] - columnX[0] - 6);
+            graphics.drawString(font, name, columnX[0], rowY, CONSOLE_TEXT_COLOR);
+            graphics.drawString(font, String.valueOf(row.calls()), columnX[1], rowY, CONSOLE_TEXT_COLOR);
+            graphics.drawString(font, String.format("%.1f", row.selfMs()), columnX[2], rowY, CONSOLE_TEXT_COLOR);
+            graphics.drawString(font, String.format("%.1f", row.totalMs()), columnX[3], rowY, CONSOLE_TEXT_COLOR);
+            rowY += LINE_HEIGHT;
+        }
+    }
+
+    /**
+     * Vista de llama de arriba abajo: cada fila es un nivel de la pila y el
+     * ancho de cada caja es su parte del tiempo total
+     */
+    private void renderFlameGraph(GuiGraphics graphics, ScriptProfiler.Profile profile, int top) {
+        ScriptProfiler.FlameNode root = profile.flameGraph();
+        if (root.getMs() <= 0) {
+            return;
+        }
+        int maxDepth = (y + height - top) / LINE_HEIGHT;
+        renderFlameNode(graphics, root, x + 5, width - 10, top, 0, maxDepth);
+    }
+
+    private void renderFlameNode(GuiGraphics graphics, ScriptProfiler.FlameNode node, int left, int boxWidth,
+                                 int rowY, int depth, int maxDepth) {
+        if (depth >= maxDepth || boxWidth < 2) {
             return;
         }
+        Font font = parent.getMinecraft().font;
+        graphics.fill(left, rowY, left + boxWidth - 1, rowY + LINE_HEIGHT - 1,
+            FLAME_COLORS[Math.floorMod(node.getName().hashCode(), FLAME_COLORS.length)]);
+        if (boxWidth > 12) {
+            String label = font.plainSubstrByWidth(String.format("%s %.0f ms", node.getName(), node.getMs()), boxWidth - 4);
+            graphics.drawString(font, label, left + 2, rowY + 2, 0xFFFFFFFF);
+        }
+
+        int childLeft = left;
+        for (ScriptProfiler.FlameNode child : node.getChildren()) {
+            int childWidth = (int) Math.round(boxWidth * child.getMs() / node.getMs());
+            renderFlameNode(graphics, child, childLeft, childWidth, rowY + LINE_HEIGHT, depth + 1, maxDepth);
+            childLeft += childWidth;
+        }
+    }
+
+    private int[] profileColumnX() {
+        int numbers = 70;
+        return new int[]{x + 5, x + width - 3 * numbers, x + width - 2 * numbers, x + width - numbers};
+    }
+
+    private int consoleHeight() {
+        return consoleView == ConsoleView.OUTPUT ? CONSOLE_HEIGHT : PROFILE_HEIGHT;
+    }
 
-        int start = Math.max(0, output.size() - maxLines);
-        for (int i = start; i < output.size(); i++) {
-            String line = output.get(i);
-            graphics.drawString(parent.getMinecraft().font, line, x + 5, lineY, CONSOLE_TEXT_COLOR);
-            lineY += LINE_HEIGHT;
+    /**
+     * Activa o para el profiler y muestra su tabla
+     */
+    private void toggleProfiler(ScriptProfiler.Mode mode) {
+        if (ScriptProfiler.isRunning()) {
+            ScriptProfiler.stop();
+            appendOutput("[profiler] Parado");
+            return;
+        }
+        int workers = ScriptProfiler.start(mode);
+        if (workers == 0) {
+            appendOutput("[profiler] No hay workers: carga un mundo en modo Engine");
+            return;
         }
+        consoleView = ConsoleView.PROFILE_TABLE;
+        consoleScroll = 0;
+    }
+
+    /**
+     * Pasa al siguiente canal de la consola (el de sistema va primero)
+     */
+    private void cycleConsoleChannel() {
+        java.util.List<ConsoleBuffer.Channel> channels = ConsoleBuffer.channels();
+        int index = channels.indexOf(ConsoleBuffer.focused());
+        ConsoleBuffer.focus(channels.get((index + 1) % channels.size()));
+        consoleScroll = 0;
     }
     
     private void renderLineWithHighlighting(GuiGraphics graphics, String line, int x, int y) {
@@ -203,6 +523,37 @@ public class ScriptEditorPanel {
         // Botones
         if (saveButton.mouseClicked(mouseX, mouseY, button)) return true;
         if (runButton.mouseClicked(mouseX, mouseY, button)) return true;
+        if (tickButton.mouseClicked(mouseX, mouseY, button)) return true;
+
+        // Cabecera de la consola: cambiar de canal
+        int consoleTop = y + height - consoleHeight();
+        if (button == 0 && mouseY >= consoleTop && mouseY < consoleTop + 14 && mouseX >= x && mouseX < x + width) {
+            if (consoleView == ConsoleView.OUTPUT) {
+                cycleConsoleChannel();
+            }
+            return true;
+        }
+
+        // Línea de traceback: saltar al script y la línea
+        if (button == 0 && consoleView == ConsoleView.OUTPUT && mouseY >= consoleTop + 14 && mouseY < y + height
+                && mouseX >= x && mouseX < x + width) {
+            openConsoleLocation(mouseY, consoleTop);
+            return true;
+        }
+
+        // Cabecera de la tabla del profiler: ordenar por esa columna
+        if (button == 0 && consoleView == ConsoleView.PROFILE_TABLE
+                && mouseY >= consoleTop + 14 && mouseY < consoleTop + 14 + LINE_HEIGHT) {
+            int[] columnX = profileColumnX();
+            for (int i = columnX.length - 1; i >= 0; i--) {
+                if (mouseX >= columnX[i]) {
+                    profileSort = PROFILE_SORT_KEYS[i];
+                    consoleScroll = 0;
+                    break;
+                }
+            }
+            return true;
+        }
         
         // Click en el editor para posicionar cursor
         if (button == 0 && mouseX >= x + LINE_NUMBER_WIDTH && mouseY >= y + 35) {
@@ -226,6 +577,12 @@ public class ScriptEditorPanel {
             return false;
         }
         
+        // Sobre la consola se desplaza el historial del canal
+        if (mouseY >= y + height - consoleHeight()) {
+            consoleScroll += (int) delta;
+            return true;
+        }
+
         scrollOffset -= (int) delta;
         scrollOffset = Math.max(0, Math.min(scrollOffset, Math.max(0, lines.size() - 20)));
         
@@ -241,6 +598,35 @@ public class ScriptEditorPanel {
             return true;
         }
         
+        // Ctrl+B para comparar la latencia de los backends de scripts
+        if (ctrlPressed && keyCode == GLFW.GLFW_KEY_B) {
+            appendOutput("=== BENCHMARK DE BACKENDS ===");
+            BackendBenchmark.run();
+            return true;
+        }
+        
+        // Ctrl+P profiler por muestreo, Ctrl+Shift+P por traza
+        if (ctrlPressed && keyCode == GLFW.GLFW_KEY_P) {
+            boolean shift = (modifiers & GLFW.GLFW_MOD_SHIFT) != 0;
+            toggleProfiler(shift ? ScriptProfiler.Mode.TRACE : ScriptProfiler.Mode.SAMPLE);
+            return true;
+        }
+
+        // Ctrl+L cambia el nivel mínimo de la consola (debug, info, warn, error)
+        if (ctrlPressed && keyCode == GLFW.GLFW_KEY_L) {
+            consoleLevel = (byte) ((consoleLevel + 1) % (ConsoleBuffer.ERROR + 1));
+            consoleScroll = 0;
+            return true;
+        }
+
+        // Ctrl+G alterna consola, tabla del profiler, vista de llama y métricas
+        if (ctrlPressed && keyCode == GLFW.GLFW_KEY_G) {
+            ConsoleView[] views = ConsoleView.values();
+            consoleView = views[(consoleView.ordinal() + 1) % views.length];
+            consoleScroll = 0;
+            return true;
+        }
+        
         // Ctrl+V para pegar
         if (ctrlPressed && keyCode == GLFW.GLFW_KEY_V) {
             pasteFromClipboard();
@@ -404,6 +790,9 @@ public class ScriptEditorPanel {
             
             hasUnsavedChanges = false;
             LOGGER.info("Archivo guardado: {}", currentFile.getName());
+
+            // Comprobación de sintaxis y bytecode en segundo plano (ver currentDiagnostic)
+            ScriptCompiler.compileAsync(currentFile);
             
             if (parent.getMinecraft().player != null) {
                 parent.getMinecraft().player.displayClientMessage(
@@ -418,6 +807,12 @@ public class ScriptEditorPanel {
     }
     
     private void runScript() {
+        // Con una ejecución en marcha el botón la cancela
+        if (isJobActive()) {
+            PythonExecutor.cancel(currentJobId);
+            return;
+        }
+
         if (currentFile == null) {
             LOGGER.warn("No hay script para ejecutar");
             appendOutput("ERROR: No hay ningún script abierto. Crea o abre un archivo primero.");
@@ -435,7 +830,7 @@ public class ScriptEditorPanel {
         appendOutput("=== INICIANDO EJECUCIÓN ===");
 
         // Ejecutar el script con el intérprete Python configurado
-        PythonExecutor.runScript(currentFile);
+        currentJobId = PythonExecutor.runScript(currentFile);
 
         if (parent.getMinecraft().player != null) {
             parent.getMinecraft().player.displayClientMessage(
@@ -445,6 +840,44 @@ public class ScriptEditorPanel {
         }
     }
     
+    /**
+     * Error de compilación del archivo abierto, o null; lo escribe en la consola la primera vez
+     */
+    private ScriptCompiler.Result currentDiagnostic() {
+        ScriptCompiler.Result result = ScriptCompiler.getLastResult(currentFile);
+        if (result == null || result.ok()) {
+            return null;
+        }
+        if (result != reportedDiagnostic) {
+            reportedDiagnostic = result;
+            ConsoleBuffer.focused().err(currentFile.getName() + ": " + result.describe());
+        }
+        return result;
+    }
+
+    private boolean isJobActive() {
+        ScriptJob job = currentJobId >= 0 ? ScriptScheduler.getJob(currentJobId) : null;
+        return job != null && !job.getState().isDone();
+    }
+
+    private void toggleTickScript() {
+        if (currentFile == null) {
+            appendOutput("ERROR: No hay ningún script abierto. Crea o abre un archivo primero.");
+            return;
+        }
+
+        if (ScriptRuntime.isLoaded(currentFile)) {
+            ScriptRuntime.unload(currentFile);
+            return;
+        }
+
+        if (hasUnsavedChanges) {
+            saveFile();
+        }
+        appendOutput("=== ACTIVANDO " + currentFile.getName() + " (init/update) ===");
+        ScriptRuntime.load(currentFile);
+    }
+
     // Método helper para añadir salida directamente desde el panel
     private void appendOutput(String line) {
         PythonExecutor.appendOutputPublic(line);
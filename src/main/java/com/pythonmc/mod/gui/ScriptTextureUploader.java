@@ -0,0 +1,123 @@
+package com.pythonmc.mod.gui;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import com.pythonmc.mod.nodes.Model3DNode;
+import com.pythonmc.mod.script.TextureBuffers;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sube a DynamicTexture las texturas que escriben los scripts (ver TextureBuffers)
+ *
+ * En cada tick del cliente copia al NativeImage solo las filas marcadas como
+ * dirty y las sube con una llamada por tramo de filas seguidas. La textura
+ * se registra en la misma ResourceLocation que Model3DNode usa para ese PNG,
+ * así que los modelos que la usan ven los cambios sin recargarse; al
+ * cerrarla se libera y vuelven a leer el PNG. Solo funciona con el servidor
+ * en el mismo proceso (un jugador o LAN).
+ */
+@Mod.EventBusSubscriber(modid = "pythonmc", value = Dist.CLIENT)
+public final class ScriptTextureUploader {
+    // Nombre del PNG -> textura subida; solo desde el hilo de render
+    private static final Map<String, Uploaded> UPLOADED = new HashMap<>();
+
+    private ScriptTextureUploader() {
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        Set<String> open = new HashSet<>();
+        for (TextureBuffers.ScriptTexture texture : TextureBuffers.getOpen()) {
+            open.add(texture.getName());
+            Uploaded uploaded = UPLOADED.get(texture.getName());
+            if (uploaded == null || uploaded.generation != texture.getGeneration()) {
+                UPLOADED.put(texture.getName(), create(texture, uploaded));
+            } else {
+                uploadDirtyRows(texture, uploaded);
+            }
+        }
+        // Las cerradas se liberan y los modelos vuelven al PNG guardado
+        Iterator<Map.Entry<String, Uploaded>> closed = UPLOADED.entrySet().iterator();
+        while (closed.hasNext()) {
+            Map.Entry<String, Uploaded> entry = closed.next();
+            if (!open.contains(entry.getKey())) {
+                release(entry.getKey(), entry.getValue());
+                closed.remove();
+            }
+        }
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static Uploaded create(TextureBuffers.ScriptTexture texture, Uploaded previous) {
+        NativeImage image = new NativeImage(texture.getWidth(), texture.getHeight(), true);
+        for (int y = 0; y < texture.getHeight(); y++) {
+            texture.takeDirtyRow(y);
+            copyRow(texture, image, y);
+        }
+        DynamicTexture dynamicTexture = new DynamicTexture(image);
+
+        TextureManager textureManager = Minecraft.getInstance().getTextureManager();
+        ResourceLocation location = previous != null ? previous.location : Model3DNode.getCachedTexture(texture.getName());
+        if (location != null) {
+            // Sustituye (y cierra) la textura anterior en esa ubicación
+            textureManager.register(location, dynamicTexture);
+        } else {
+            location = textureManager.register("pythonmc_script_texture", dynamicTexture);
+            Model3DNode.cacheTexture(texture.getName(), location);
+        }
+        return new Uploaded(texture.getGeneration(), location, dynamicTexture);
+    }
+
+    private static void release(String name, Uploaded uploaded) {
+        Model3DNode.forgetTexture(name);
+        // Cierra la DynamicTexture y libera la ubicación
+        Minecraft.getInstance().getTextureManager().release(uploaded.location);
+    }
+
+    private static void uploadDirtyRows(TextureBuffers.ScriptTexture texture, Uploaded uploaded) {
+        NativeImage image = uploaded.texture.getPixels();
+        if (image == null) {
+            return;
+        }
+        int first = -1;
+        for (int y = 0; y <= texture.getHeight(); y++) {
+            boolean dirty = y < texture.getHeight() && texture.takeDirtyRow(y);
+            if (dirty) {
+                copyRow(texture, image, y);
+                if (first < 0) {
+                    first = y;
+                }
+            } else if (first >= 0) {
+                uploaded.texture.bind();
+                image.upload(0, 0, first, 0, first, texture.getWidth(), y - first, false, false);
+                first = -1;
+            }
+        }
+    }
+
+    private static void copyRow(TextureBuffers.ScriptTexture texture, NativeImage image, int y) {
+        for (int x = 0; x < texture.getWidth(); x++) {
+            int argb = texture.getPixel(x, y);
+            // NativeImage guarda ABGR: se intercambian rojo y azul
+            image.setPixelRGBA(x, y, (argb & 0xFF00FF00) | ((argb >> 16) & 0xFF) | ((argb & 0xFF) << 16));
+        }
+    }
+
+    private record Uploaded(int generation, ResourceLocation location, DynamicTexture texture) {
+    }
+}
@@ -30,6 +30,9 @@ public class CameraNode extends Node {
     private double lastMouseX = 0;
     private double lastMouseY = 0;
     
+    // Rotada con el ratón del jugador asignado (ver PlayerInput)
+    private boolean inputControlled = false;
+    
     public CameraNode(String name) {
         super(name, NodeType.CAMERA);
     }
@@ -86,6 +89,7 @@ public class CameraNode extends Node {
         
         // Limitar pitch para evitar gimbal lock
         this.pitch = Math.max(-89.0f, Math.min(89.0f, this.pitch));
+        markChanged();
         
         if (attachedPlayer != null) {
             attachedPlayer.setYRot(this.yaw);
@@ -134,6 +138,7 @@ public class CameraNode extends Node {
         this.z = player.getZ();
         this.yaw = player.getYRot();
         this.pitch = player.getXRot();
+        markChanged();
         
         LOGGER.info("Cámara '{}' asignada al jugador {}", getName(), player.getName().getString());
     }
@@ -217,6 +222,14 @@ public class CameraNode extends Node {
         return smoothMovement;
     }
     
+    public void setInputControlled(boolean inputControlled) {
+        this.inputControlled = inputControlled;
+    }
+    
+    public boolean isInputControlled() {
+        return inputControlled;
+    }
+    
     // ========== MÉTODOS PRIVADOS ==========
     
     private void createCameraEntity() {
@@ -27,6 +27,9 @@ public class CharacterBodyNode extends Node {
     private boolean isSprinting = false;
     private boolean canJump = true;
     
+    // Controlado por la entrada del jugador asignado (ver PlayerInput)
+    private boolean inputControlled = false;
+    
     // Colisiones
     private boolean collisionEnabled = true;
     private double collisionRadius = 0.6;
@@ -143,6 +146,29 @@ public class CharacterBodyNode extends Node {
         LOGGER.debug("Personaje '{}' salta", getName());
     }
     
+    /**
+     * Aplica la entrada de un tick: forward y strafe entre -1 y 1, giro en grados
+     */
+    public void applyInput(double forward, double strafe, boolean jump, boolean sprint, float deltaYaw) {
+        if (!isActive()) {
+            return;
+        }
+        
+        if (deltaYaw != 0) {
+            rotate(deltaYaw, 0, 0);
+        }
+        setSprinting(sprint);
+        if (forward != 0) {
+            moveForward(forward);
+        }
+        if (strafe != 0) {
+            moveLeft(strafe);
+        }
+        if (jump) {
+            jump();
+        }
+    }
+    
     /**
      * Teletransporta el personaje a una posición
      */
@@ -175,6 +201,7 @@ public class CharacterBodyNode extends Node {
         this.z = player.getZ();
         this.yaw = player.getYRot();
         this.pitch = player.getXRot();
+        markChanged();
         
         LOGGER.info("CharacterBody '{}' asignado al jugador {}", 
                    getName(), player.getName().getString());
@@ -206,6 +233,7 @@ public class CharacterBodyNode extends Node {
     private void applyGravity() {
         velocity = velocity.add(0, -gravity, 0);
         y += velocity.y;
+        markChanged();
         
         // Limitar velocidad de caída
         if (velocity.y < -2.0) {
@@ -291,6 +319,14 @@ public class CharacterBodyNode extends Node {
         this.velocity = velocity;
     }
     
+    public void setInputControlled(boolean inputControlled) {
+        this.inputControlled = inputControlled;
+    }
+    
+    public boolean isInputControlled() {
+        return inputControlled;
+    }
+    
     public void setCollisionEnabled(boolean enabled) {
         this.collisionEnabled = enabled;
     }
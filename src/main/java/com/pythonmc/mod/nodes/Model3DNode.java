@@ -1,5 +1,9 @@
 package com.pythonmc.mod.nodes;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.mojang.blaze3d.systems.RenderSystem;
@@ -22,8 +26,12 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Nodo 3D que renderiza modelos con texturas y animaciones
@@ -88,6 +96,15 @@ public class Model3DNode extends BaseNode {
     
     @Override
     public void render(PoseStack poseStack, VertexConsumer consumer, float partialTick) {
+        // Un script puede haber reconstruido el modelo compartido
+        Model3D shared = Model3D.getShared(modelFile);
+        if (shared != null) {
+            model = shared;
+        }
+        // Una textura de script cerrada deja de estar en cache: se vuelve a leer el PNG
+        if (textureResource != null && !textureCache.containsKey(textureFile)) {
+            loadTexture();
+        }
         if (!visible || model == null) return;
         
         poseStack.pushPose();
@@ -227,7 +244,7 @@ public class Model3DNode extends BaseNode {
             File modelFile = new File(modelsDir, modelFile);
             
             if (modelFile.exists()) {
-                model = Model3D.loadFromFile(modelFile);
+                model = Model3D.loadShared(modelFile, this.modelFile);
                 LOGGER.info("Modelo cargado: {}", modelFile.getName());
             } else {
                 // Crear modelo por defecto
@@ -356,33 +373,125 @@ public class Model3DNode extends BaseNode {
     public Model3D getModel() {
         return model;
     }
-    
+
+    /**
+     * Textura ya registrada para ese archivo de assets/textures, o null
+     */
+    public static ResourceLocation getCachedTexture(String textureFile) {
+        return textureCache.get(textureFile);
+    }
+
+    /**
+     * Usa esa textura para el archivo (texturas escritas por scripts, ver ScriptTextureUploader)
+     */
+    public static void cacheTexture(String textureFile, ResourceLocation location) {
+        textureCache.put(textureFile, location);
+    }
+
+    /**
+     * Quita la textura del archivo de la cache; los nodos que la usan recargan el PNG
+     */
+    public static void forgetTexture(String textureFile) {
+        textureCache.remove(textureFile);
+    }
+
     // ========== CLASE INTERNA ==========
     
     /**
      * Representa un modelo 3D cargado desde archivo
+     * Los modelos se comparten entre todos los nodos que usan el mismo archivo
+     * (sin clases del cliente: ModelBuilder los publica desde el servidor)
      */
     public static class Model3D {
-        public final java.util.List<ModelCube> cubes = new java.util.ArrayList<>();
+        // Archivo de assets/models -> modelo compartido
+        private static final Map<String, Model3D> SHARED = new ConcurrentHashMap<>();
+
+        public final java.util.List<ModelCube> cubes;
+
+        public Model3D() {
+            this.cubes = new java.util.ArrayList<>();
+        }
+
+        public Model3D(int capacity) {
+            this.cubes = new java.util.ArrayList<>(capacity);
+        }
         
         public void addCube(ModelCube cube) {
             cubes.add(cube);
         }
         
+        /**
+         * Lee el formato de ModelEditorPanel: {"format_version": 1, "cubes": [{"position",
+         * "size", "color", "texture"}...]}
+         */
         public static Model3D loadFromFile(File file) throws IOException {
-            // TODO: Implementar carga desde JSON
-            Model3D model = new Model3D();
-            
-            // Por ahora, crear un cubo por defecto
-            model.addCube(new ModelCube(0, 0, 0, 1, 1, 1));
-            
+            JsonObject root;
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                root = JsonParser.parseReader(reader).getAsJsonObject();
+            } catch (RuntimeException e) {
+                throw new IOException("Modelo ilegible: " + file.getName(), e);
+            }
+            JsonArray cubes = root.has("cubes") ? root.getAsJsonArray("cubes") : new JsonArray();
+            Model3D model = new Model3D(cubes.size());
+            for (JsonElement element : cubes) {
+                JsonObject entry = element.getAsJsonObject();
+                JsonArray position = entry.getAsJsonArray("position");
+                JsonArray size = entry.getAsJsonArray("size");
+                ModelCube cube = new ModelCube(position.get(0).getAsFloat(), position.get(1).getAsFloat(),
+                    position.get(2).getAsFloat(), size.get(0).getAsFloat(), size.get(1).getAsFloat(),
+                    size.get(2).getAsFloat());
+                if (entry.has("color")) {
+                    cube.color = (int) entry.get("color").getAsLong();
+                }
+                if (entry.has("texture")) {
+                    cube.texture = entry.get("texture").getAsString();
+                }
+                model.addCube(cube);
+            }
             return model;
         }
+
+        /**
+         * Modelo compartido del archivo; se lee del disco solo la primera vez
+         */
+        public static Model3D loadShared(File file, String name) throws IOException {
+            Model3D model = SHARED.get(name);
+            if (model == null) {
+                model = loadFromFile(file);
+                Model3D previous = SHARED.putIfAbsent(name, model);
+                if (previous != null) {
+                    model = previous;
+                }
+            }
+            return model;
+        }
+
+        /**
+         * Modelo compartido ya cargado o publicado para ese archivo, o null
+         */
+        public static Model3D getShared(String name) {
+            return SHARED.get(name);
+        }
+
+        /**
+         * Sustituye el modelo del archivo para todos los nodos que lo usan
+         */
+        public static void publish(String name, Model3D model) {
+            SHARED.put(name, model);
+        }
+
+        /**
+         * Olvida todos los modelos compartidos (al cambiar de mundo o de proyecto)
+         */
+        public static void clearShared() {
+            SHARED.clear();
+        }
         
         public static class ModelCube {
             public float x, y, z;
             public float width, height, depth;
             public int color = 0xFF6A9955;
+            public String texture = "";
             
             public ModelCube(float x, float y, float z, float width, float height, float depth) {
                 this.x = x;
@@ -29,6 +29,12 @@ public abstract class Node {
     private boolean visible;
     private Level world;
     
+    // Script adjunto (ruta relativa a la carpeta de scripts), o null
+    private String script;
+    
+    // Contador de modificaciones: sube con cada cambio visible desde los scripts (ver ReadCache)
+    private long version;
+    
     // Transform (posición y rotación básicas)
     protected double x, y, z;
     protected float yaw, pitch, roll;
@@ -89,6 +95,8 @@ public abstract class Node {
         
         child.parent = this;
         children.add(child);
+        markChanged();
+        child.markChanged();
         LOGGER.debug("Hijo añadido: {} -> {}", this.name, child.name);
     }
     
@@ -98,6 +106,8 @@ public abstract class Node {
     public void removeChild(Node child) {
         if (children.remove(child)) {
             child.parent = null;
+            markChanged();
+            child.markChanged();
             LOGGER.debug("Hijo eliminado: {} -x- {}", this.name, child.name);
         }
     }
@@ -163,24 +173,28 @@ public abstract class Node {
         this.x = x;
         this.y = y;
         this.z = z;
+        markChanged();
     }
     
     public void setRotation(float yaw, float pitch, float roll) {
         this.yaw = yaw;
         this.pitch = pitch;
         this.roll = roll;
+        markChanged();
     }
     
     public void translate(double dx, double dy, double dz) {
         this.x += dx;
         this.y += dy;
         this.z += dz;
+        markChanged();
     }
     
     public void rotate(float dyaw, float dpitch, float droll) {
         this.yaw += dyaw;
         this.pitch += dpitch;
         this.roll += droll;
+        markChanged();
     }
     
     // ========== GETTERS Y SETTERS ==========
@@ -189,12 +203,24 @@ public abstract class Node {
         return id;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Para las subclases que cambian el transform o su estado sin pasar por los setters
+     */
+    protected void markChanged() {
+        version++;
+    }
+    
     public String getName() {
         return name;
     }
     
     public void setName(String name) {
         this.name = name;
+        markChanged();
     }
     
     public NodeType getType() {
@@ -207,6 +233,7 @@ public abstract class Node {
     
     public void setActive(boolean active) {
         this.active = active;
+        markChanged();
     }
     
     public boolean isVisible() {
@@ -215,6 +242,7 @@ public abstract class Node {
     
     public void setVisible(boolean visible) {
         this.visible = visible;
+        markChanged();
     }
     
     public Level getWorld() {
@@ -225,6 +253,18 @@ public abstract class Node {
         this.world = world;
     }
     
+    public String getScript() {
+        return script;
+    }
+    
+    /**
+     * Solo guarda la ruta; la instancia en el worker la gestiona NodeScripts
+     */
+    public void setScript(String script) {
+        this.script = script;
+        markChanged();
+    }
+    
     public double getX() { return x; }
     public double getY() { return y; }
     public double getZ() { return z; }
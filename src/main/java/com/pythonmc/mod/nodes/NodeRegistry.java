@@ -5,6 +5,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Registro y gestión de todos los nodos del sistema
@@ -19,6 +22,29 @@ public class NodeRegistry {
     // Mapa de IDs a nodos para búsqueda rápida
     private static final Map<String, Node> nodeById = new HashMap<>();
     
+    // Observadores de altas y bajas de nodos
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    
+    // update() de scripts que corren dentro del engine, por id del nodo
+    private static final Map<String, Consumer<Node>> compiledUpdates = new ConcurrentHashMap<>();
+    
+    /**
+     * Recibe las altas y bajas del árbol (en el hilo que las hace)
+     */
+    public interface Listener {
+        void nodeAdded(Node node);
+        
+        void nodeRemoved(Node node);
+    }
+    
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+    
     // Mapa de nombres a nodos
     private static final Map<String, List<Node>> nodesByName = new HashMap<>();
     
@@ -78,9 +104,32 @@ public class NodeRegistry {
         // Registrar en los mapas
         registerNode(node);
         
+        for (Listener listener : listeners) {
+            listener.nodeAdded(node);
+        }
+        
         LOGGER.info("Nodo '{}' añadido al árbol en '{}'", node.getName(), parent.getName());
     }
     
+    /**
+     * Crea un nodo del tipo indicado (sin añadirlo al árbol)
+     */
+    public static Node createNode(NodeType type, String name) {
+        return switch (type) {
+            case CAMERA -> new CameraNode(name);
+            case CHARACTER_BODY -> new CharacterBodyNode(name);
+            case AUDIO_PLAYER -> new AudioPlayerNode(name);
+            default -> new Node(name, type) {
+                @Override
+                public void update() {}
+                @Override
+                public void init() {}
+                @Override
+                public void destroy() {}
+            };
+        };
+    }
+    
     /**
      * Elimina un nodo del árbol
      */
@@ -106,6 +155,10 @@ public class NodeRegistry {
         // Eliminar de los registros
         unregisterNode(node);
         
+        for (Listener listener : listeners) {
+            listener.nodeRemoved(node);
+        }
+        
         LOGGER.info("Nodo '{}' eliminado del árbol", node.getName());
     }
     
@@ -159,6 +212,37 @@ public class NodeRegistry {
         }
     }
     
+    /**
+     * Registra el update() compilado de un nodo (ver script/CompiledUpdate);
+     * sustituye al que tuviera
+     */
+    public static void setCompiledUpdate(String nodeId, Consumer<Node> update) {
+        compiledUpdates.put(nodeId, update);
+    }
+    
+    public static void removeCompiledUpdate(String nodeId) {
+        compiledUpdates.remove(nodeId);
+    }
+    
+    /**
+     * Ejecuta los update() compilados; en el hilo del servidor, una vez por tick
+     */
+    public static void updateCompiled() {
+        if (compiledUpdates.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<String, Consumer<Node>>> entries = compiledUpdates.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Consumer<Node>> entry = entries.next();
+            Node node = nodeById.get(entry.getKey());
+            if (node == null) {
+                entries.remove();
+            } else {
+                entry.getValue().accept(node);
+            }
+        }
+    }
+    
     /**
      * Limpia todos los nodos de un mundo
      */
@@ -0,0 +1,104 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y validación de argumentos de las llamadas RPC
+ * Los errores se lanzan como IllegalArgumentException y llegan al script como BridgeError.
+ */
+public final class BridgeArgs {
+
+    private BridgeArgs() {
+    }
+
+    public static Object get(List<Object> args, int index) {
+        if (index >= args.size()) {
+            throw new IllegalArgumentException("Falta el argumento " + (index + 1));
+        }
+        return args.get(index);
+    }
+
+    public static Object optional(List<Object> args, int index) {
+        return index < args.size() ? args.get(index) : null;
+    }
+
+    public static String string(List<Object> args, int index) {
+        Object value = get(args, index);
+        if (!(value instanceof String text)) {
+            throw new IllegalArgumentException("El argumento " + (index + 1) + " debe ser texto");
+        }
+        return text;
+    }
+
+    public static double number(List<Object> args, int index) {
+        Object value = get(args, index);
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("El argumento " + (index + 1) + " debe ser numérico");
+        }
+        return number.doubleValue();
+    }
+
+    public static int integer(List<Object> args, int index) {
+        return (int) number(args, index);
+    }
+
+    public static boolean bool(List<Object> args, int index) {
+        Object value = get(args, index);
+        if (!(value instanceof Boolean bool)) {
+            throw new IllegalArgumentException("El argumento " + (index + 1) + " debe ser booleano");
+        }
+        return bool;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Object> list(List<Object> args, int index) {
+        Object value = get(args, index);
+        if (!(value instanceof List<?>)) {
+            throw new IllegalArgumentException("El argumento " + (index + 1) + " debe ser una lista");
+        }
+        return (List<Object>) value;
+    }
+
+    public static Map<?, ?> map(List<Object> args, int index) {
+        Object value = get(args, index);
+        if (!(value instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("El argumento " + (index + 1) + " debe ser un diccionario");
+        }
+        return map;
+    }
+
+    public static byte[] bytes(List<Object> args, int index) {
+        Object value = get(args, index);
+        if (!(value instanceof byte[] data)) {
+            throw new IllegalArgumentException("El argumento " + (index + 1) + " debe ser bytes");
+        }
+        return data;
+    }
+
+    /**
+     * Resuelve un nodo por id
+     */
+    public static Node node(List<Object> args, int index) {
+        String id = string(args, index);
+        Node node = NodeRegistry.getNodeById(id);
+        if (node == null) {
+            throw new IllegalArgumentException("Nodo no encontrado: " + id);
+        }
+        return node;
+    }
+
+    /**
+     * Resuelve un nodo por id y comprueba su clase
+     */
+    public static <T extends Node> T node(List<Object> args, int index, Class<T> type) {
+        Node node = node(args, index);
+        if (!type.isInstance(node)) {
+            throw new IllegalArgumentException("El nodo '" + node.getName() + "' no es de tipo " + type.getSimpleName());
+        }
+        return type.cast(node);
+    }
+}
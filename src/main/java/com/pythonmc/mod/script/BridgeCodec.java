@@ -0,0 +1,169 @@
+package com.pythonmc.mod.script;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codificación binaria de valores del bridge (espejo de pythonmc/bridge.py)
+ *
+ * Tipos soportados: null, Boolean, números (Long/Double), String, byte[],
+ * listas/colecciones y mapas con claves String.
+ */
+public final class BridgeCodec {
+    private static final byte TAG_NONE = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_FLOAT = 4;
+    private static final byte TAG_STR = 5;
+    private static final byte TAG_BYTES = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_MAP = 8;
+
+    private BridgeCodec() {
+    }
+
+    /**
+     * Codifica un valor en un payload nuevo
+     */
+    public static byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, value);
+        } catch (IOException e) {
+            // ByteArrayOutputStream no lanza IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica un payload completo (vacío = null)
+     */
+    public static Object decode(byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            return null;
+        }
+        return read(ByteBuffer.wrap(payload));
+    }
+
+    public static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NONE);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number number) {
+            out.writeByte(TAG_INT);
+            out.writeLong(number.longValue());
+        } else if (value instanceof CharSequence text) {
+            byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(TAG_STR);
+            out.writeInt(data.length);
+            out.write(data);
+        } else if (value instanceof byte[] data) {
+            out.writeByte(TAG_BYTES);
+            out.writeInt(data.length);
+            out.write(data);
+        } else if (value instanceof Collection<?> list) {
+            out.writeByte(TAG_LIST);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                write(out, item);
+            }
+        } else if (value instanceof double[] array) {
+            out.writeByte(TAG_LIST);
+            out.writeInt(array.length);
+            for (double item : array) {
+                out.writeByte(TAG_FLOAT);
+                out.writeDouble(item);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(TAG_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                byte[] key = String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                write(out, entry.getValue());
+            }
+        } else if (value instanceof Enum<?> constant) {
+            write(out, constant.name());
+        } else {
+            throw new IllegalArgumentException("Tipo no soportado por el bridge: " + value.getClass().getSimpleName());
+        }
+    }
+
+    public static Object read(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case TAG_NONE:
+                return null;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_INT:
+                return buffer.getLong();
+            case TAG_FLOAT:
+                return buffer.getDouble();
+            case TAG_STR:
+                return readString(buffer);
+            case TAG_BYTES: {
+                byte[] data = new byte[readCount(buffer, 1)];
+                buffer.get(data);
+                return data;
+            }
+            case TAG_LIST: {
+                // Cada elemento ocupa al menos su tag
+                int count = readCount(buffer, 1);
+                List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    list.add(read(buffer));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                // Cada entrada ocupa al menos la longitud de la clave y un tag
+                int count = readCount(buffer, 5);
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String key = readString(buffer);
+                    map.put(key, read(buffer));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Tag desconocido en payload: " + tag);
+        }
+    }
+
+    /**
+     * Cuenta de un payload no fiable: no puede pedir más de lo que queda por leer
+     */
+    private static int readCount(ByteBuffer buffer, int minBytesEach) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / minBytesEach) {
+            throw new IllegalArgumentException("Longitud fuera del payload: " + count + " (quedan "
+                + buffer.remaining() + " bytes)");
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int size = readCount(buffer, 1);
+        String text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), size, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + size);
+        return text;
+    }
+}
@@ -0,0 +1,94 @@
+package com.pythonmc.mod.script;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Trama del canal binario con los workers Python
+ * Formato: [u32 longitud][u8 tipo][u32 id][payload] en big-endian,
+ * donde longitud = 5 + tamaño del payload.
+ */
+public final class BridgeFrame {
+    // Java -> worker
+    public static final int RUN = 1;
+    public static final int PING = 2;
+    public static final int EXIT = 3;
+    public static final int LOAD = 4;
+    public static final int UNLOAD = 5;
+    public static final int UPDATE = 6;
+    public static final int RELOAD = 7;
+    public static final int PROFILE = 8;
+    public static final int EVENTS = 9;
+    public static final int ATTACH = 23;
+    public static final int DETACH = 24;
+    public static final int DIGEST = 25;
+    public static final int GENERATE = 26;
+    public static final int RESULT = 20;
+    public static final int ERROR = 21;
+    public static final int BATCH_RESULT = 22;
+
+    // worker -> Java
+    public static final int READY = 10;
+    public static final int PONG = 11;
+    public static final int OUT = 12;
+    public static final int DONE = 13;
+    public static final int REPLY = 14;
+    public static final int ERR = 15;
+    public static final int PROFILE_DATA = 16;
+    public static final int CALL = 30;
+    public static final int BATCH = 31;
+
+    // Límite defensivo para no reservar memoria por una longitud corrupta
+    private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    public final int type;
+    public final int id;
+    public final byte[] payload;
+
+    public BridgeFrame(int type, int id, byte[] payload) {
+        this.type = type;
+        this.id = id;
+        this.payload = payload != null ? payload : EMPTY;
+    }
+
+    /**
+     * Lee una trama; devuelve null si el canal se cerró limpiamente
+     */
+    public static BridgeFrame read(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 5 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Longitud de trama inválida: " + length);
+        }
+
+        int type = in.readUnsignedByte();
+        int id = in.readInt();
+        byte[] payload = new byte[length - 5];
+        in.readFully(payload);
+        return new BridgeFrame(type, id, payload);
+    }
+
+    /**
+     * Escribe una trama (el llamador sincroniza y hace flush)
+     */
+    public static void write(DataOutputStream out, int type, int id, byte[] payload) throws IOException {
+        int size = payload != null ? payload.length : 0;
+        out.writeInt(5 + size);
+        out.writeByte(type);
+        out.writeInt(id);
+        if (size > 0) {
+            out.write(payload);
+        }
+    }
+
+    public Object value() {
+        return BridgeCodec.decode(payload);
+    }
+}
@@ -0,0 +1,451 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.nodes.CameraNode;
+import com.pythonmc.mod.nodes.Node;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * update() de un script de nodos que se ejecuta en el engine, sin ir al worker (ver pythonmc/fastpath.py)
+ *
+ * El worker comprueba con el parser de Python que el update() marcado con
+ * @compiled cabe en el subconjunto y envía su árbol de operaciones en la
+ * respuesta de LOAD. Aquí se convierte una sola vez en un árbol de clausuras
+ * que se ejecuta en el hilo del servidor por cada nodo adjunto; la JIT lo
+ * trata como cualquier otro código Java.
+ *
+ * Todos los valores son double (True y False son 1 y 0) y los errores que
+ * Python daría se reproducen con una excepción: división o módulo entre cero,
+ * variable local sin asignar, raíz de un negativo. Las llamadas al nodo hacen
+ * lo mismo que sus métodos en pythonmc/engine.py.
+ */
+public final class CompiledUpdate {
+    // Nombres de las variables locales, para los mensajes de error
+    private final String[] names;
+    private Stmt body;
+
+    private CompiledUpdate(String[] names) {
+        this.names = names;
+    }
+
+    /**
+     * Compila el árbol de fastpath.translate; IllegalArgumentException si está mal formado
+     */
+    public static CompiledUpdate compile(Map<?, ?> tree) {
+        CompiledUpdate update = new CompiledUpdate(list(tree.get("names")).stream()
+            .map(String::valueOf).toArray(String[]::new));
+        update.body = update.block(list(tree.get("body")));
+        return update;
+    }
+
+    /**
+     * Una llamada a update() para el nodo; las excepciones son errores del script
+     */
+    public void run(Node node, long tick) {
+        body.exec(new Frame(node, tick, names.length));
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Estado de una llamada: el nodo, el tick y las variables locales
+     */
+    private static final class Frame {
+        final Node node;
+        final long tick;
+        final double[] locals;
+        final boolean[] bound;
+
+        Frame(Node node, long tick, int size) {
+            this.node = node;
+            this.tick = tick;
+            this.locals = new double[size];
+            this.bound = new boolean[size];
+        }
+    }
+
+    @FunctionalInterface
+    private interface Expr {
+        double eval(Frame frame);
+    }
+
+    /**
+     * Devuelve false cuando la sentencia es un return
+     */
+    @FunctionalInterface
+    private interface Stmt {
+        boolean exec(Frame frame);
+    }
+
+    private Stmt block(List<?> statements) {
+        Stmt[] compiled = statements.stream().map(this::stmt).toArray(Stmt[]::new);
+        if (compiled.length == 1) {
+            return compiled[0];
+        }
+        return frame -> {
+            for (Stmt stmt : compiled) {
+                if (!stmt.exec(frame)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private Stmt stmt(Object value) {
+        List<?> op = list(value);
+        String kind = String.valueOf(op.get(0));
+        switch (kind) {
+            case "set": {
+                int slot = slot(op.get(1));
+                Expr expr = expr(op.get(2));
+                return frame -> {
+                    frame.locals[slot] = expr.eval(frame);
+                    frame.bound[slot] = true;
+                    return true;
+                };
+            }
+            case "if": {
+                Expr test = expr(op.get(1));
+                Stmt then = block(list(op.get(2)));
+                Stmt otherwise = block(list(op.get(3)));
+                return frame -> truthy(test.eval(frame)) ? then.exec(frame) : otherwise.exec(frame);
+            }
+            case "return":
+                return frame -> false;
+            case "call":
+                return call(String.valueOf(op.get(1)), exprs(op.get(2)));
+            default:
+                throw new IllegalArgumentException("Sentencia desconocida: " + kind);
+        }
+    }
+
+    private static Stmt call(String method, Expr[] args) {
+        switch (method) {
+            case "set_position":
+                return frame -> {
+                    frame.node.setPosition(args[0].eval(frame), args[1].eval(frame), args[2].eval(frame));
+                    return true;
+                };
+            case "translate":
+                return frame -> {
+                    frame.node.translate(args[0].eval(frame), args[1].eval(frame), args[2].eval(frame));
+                    return true;
+                };
+            case "set_rotation":
+                return frame -> {
+                    float yaw = (float) args[0].eval(frame);
+                    float pitch = (float) args[1].eval(frame);
+                    float roll = args.length > 2 ? (float) args[2].eval(frame) : 0f;
+                    frame.node.setRotation(yaw, pitch, roll);
+                    return true;
+                };
+            case "rotate":
+                return frame -> {
+                    float dyaw = (float) args[0].eval(frame);
+                    float dpitch = (float) args[1].eval(frame);
+                    float droll = args.length > 2 ? (float) args[2].eval(frame) : 0f;
+                    // Como Camera.rotate en engine.py: la cámara gira con su jugador
+                    if (frame.node instanceof CameraNode camera) {
+                        camera.rotateCamera(dyaw, dpitch);
+                    } else {
+                        frame.node.rotate(dyaw, dpitch, droll);
+                    }
+                    return true;
+                };
+            case "set_active":
+                return frame -> {
+                    frame.node.setActive(truthy(args[0].eval(frame)));
+                    return true;
+                };
+            case "set_visible":
+                return frame -> {
+                    frame.node.setVisible(truthy(args[0].eval(frame)));
+                    return true;
+                };
+            default:
+                throw new IllegalArgumentException("Método de nodo no compilable: " + method);
+        }
+    }
+
+    private Expr expr(Object value) {
+        List<?> op = list(value);
+        String kind = String.valueOf(op.get(0));
+        switch (kind) {
+            case "const": {
+                double constant = ((Number) op.get(1)).doubleValue();
+                return frame -> constant;
+            }
+            case "local": {
+                int slot = slot(op.get(1));
+                String name = names[slot];
+                return frame -> {
+                    if (!frame.bound[slot]) {
+                        throw new IllegalStateException("variable local '" + name + "' usada antes de asignarla");
+                    }
+                    return frame.locals[slot];
+                };
+            }
+            case "prop":
+                return property(String.valueOf(op.get(1)));
+            case "tick":
+                return frame -> frame.tick;
+            case "bin":
+                return binary(String.valueOf(op.get(1)), expr(op.get(2)), expr(op.get(3)));
+            case "neg": {
+                Expr operand = expr(op.get(1));
+                return frame -> -operand.eval(frame);
+            }
+            case "not": {
+                Expr operand = expr(op.get(1));
+                return frame -> truthy(operand.eval(frame)) ? 0 : 1;
+            }
+            case "cmp":
+                return compare(list(op.get(1)), exprs(op.get(2)));
+            case "and": {
+                // Como en Python: el primer valor falso o el último
+                Expr[] values = exprs(op.get(1));
+                return frame -> {
+                    double result = 0;
+                    for (Expr expr : values) {
+                        result = expr.eval(frame);
+                        if (!truthy(result)) {
+                            break;
+                        }
+                    }
+                    return result;
+                };
+            }
+            case "or": {
+                Expr[] values = exprs(op.get(1));
+                return frame -> {
+                    double result = 0;
+                    for (Expr expr : values) {
+                        result = expr.eval(frame);
+                        if (truthy(result)) {
+                            break;
+                        }
+                    }
+                    return result;
+                };
+            }
+            case "ifexp": {
+                Expr test = expr(op.get(1));
+                Expr then = expr(op.get(2));
+                Expr otherwise = expr(op.get(3));
+                return frame -> truthy(test.eval(frame)) ? then.eval(frame) : otherwise.eval(frame);
+            }
+            case "fn":
+                return function(String.valueOf(op.get(1)), exprs(op.get(2)));
+            default:
+                throw new IllegalArgumentException("Expresión desconocida: " + kind);
+        }
+    }
+
+    private static Expr property(String field) {
+        switch (field) {
+            case "x":
+                return frame -> frame.node.getX();
+            case "y":
+                return frame -> frame.node.getY();
+            case "z":
+                return frame -> frame.node.getZ();
+            case "yaw":
+                return frame -> frame.node.getYaw();
+            case "pitch":
+                return frame -> frame.node.getPitch();
+            case "roll":
+                return frame -> frame.node.getRoll();
+            default:
+                throw new IllegalArgumentException("Propiedad de nodo desconocida: " + field);
+        }
+    }
+
+    private static Expr binary(String operator, Expr left, Expr right) {
+        switch (operator) {
+            case "+":
+                return frame -> left.eval(frame) + right.eval(frame);
+            case "-":
+                return frame -> left.eval(frame) - right.eval(frame);
+            case "*":
+                return frame -> left.eval(frame) * right.eval(frame);
+            case "/":
+                return frame -> {
+                    double a = left.eval(frame);
+                    return a / divisor(right.eval(frame));
+                };
+            case "//":
+                return frame -> {
+                    double a = left.eval(frame);
+                    return floorDivide(a, divisor(right.eval(frame)));
+                };
+            case "%":
+                return frame -> {
+                    double a = left.eval(frame);
+                    double b = divisor(right.eval(frame));
+                    // El resto toma el signo del divisor, como en Python (también el cero: -6 % 3 es 0.0)
+                    double r = a % b;
+                    if (r == 0) {
+                        return Math.copySign(0.0, b);
+                    }
+                    return (r < 0) != (b < 0) ? r + b : r;
+                };
+            case "**":
+                return frame -> {
+                    double a = left.eval(frame);
+                    double b = right.eval(frame);
+                    if (a == 0 && b < 0) {
+                        throw new ArithmeticException("0.0 no se puede elevar a una potencia negativa");
+                    }
+                    return Math.pow(a, b);
+                };
+            default:
+                throw new IllegalArgumentException("Operador desconocido: " + operator);
+        }
+    }
+
+    /**
+     * a < b <= c: cada operando se evalúa una vez y se para en la primera comparación falsa
+     */
+    private static Expr compare(List<?> operators, Expr[] operands) {
+        String[] ops = operators.stream().map(String::valueOf).toArray(String[]::new);
+        for (String op : ops) {
+            if (!List.of("==", "!=", "<", "<=", ">", ">=").contains(op)) {
+                throw new IllegalArgumentException("Comparación desconocida: " + op);
+            }
+        }
+        return frame -> {
+            double left = operands[0].eval(frame);
+            for (int i = 0; i < ops.length; i++) {
+                double right = operands[i + 1].eval(frame);
+                boolean holds = switch (ops[i]) {
+                    case "==" -> left == right;
+                    case "!=" -> left != right;
+                    case "<" -> left < right;
+                    case "<=" -> left <= right;
+                    case ">" -> left > right;
+                    default -> left >= right;
+                };
+                if (!holds) {
+                    return 0;
+                }
+                left = right;
+            }
+            return 1;
+        };
+    }
+
+    private static Expr function(String name, Expr[] args) {
+        switch (name) {
+            case "abs":
+                return frame -> Math.abs(args[0].eval(frame));
+            case "min":
+                return frame -> {
+                    double result = args[0].eval(frame);
+                    for (int i = 1; i < args.length; i++) {
+                        result = Math.min(result, args[i].eval(frame));
+                    }
+                    return result;
+                };
+            case "max":
+                return frame -> {
+                    double result = args[0].eval(frame);
+                    for (int i = 1; i < args.length; i++) {
+                        result = Math.max(result, args[i].eval(frame));
+                    }
+                    return result;
+                };
+            case "round":
+                // rint redondea a par en el empate, igual que round() de Python
+                return frame -> Math.rint(finite(args[0].eval(frame)));
+            case "int":
+                return frame -> {
+                    double value = finite(args[0].eval(frame));
+                    return value < 0 ? Math.ceil(value) : Math.floor(value);
+                };
+            case "float":
+                return args[0];
+            case "math.sin":
+                return frame -> Math.sin(args[0].eval(frame));
+            case "math.cos":
+                return frame -> Math.cos(args[0].eval(frame));
+            case "math.tan":
+                return frame -> Math.tan(args[0].eval(frame));
+            case "math.sqrt":
+                return frame -> {
+                    double value = args[0].eval(frame);
+                    if (value < 0) {
+                        throw new ArithmeticException("math domain error");
+                    }
+                    return Math.sqrt(value);
+                };
+            case "math.floor":
+                return frame -> Math.floor(finite(args[0].eval(frame)));
+            case "math.ceil":
+                return frame -> Math.ceil(finite(args[0].eval(frame)));
+            case "math.atan2":
+                return frame -> Math.atan2(args[0].eval(frame), args[1].eval(frame));
+            default:
+                throw new IllegalArgumentException("Función no compilable: " + name);
+        }
+    }
+
+    private Expr[] exprs(Object value) {
+        return list(value).stream().map(this::expr).toArray(Expr[]::new);
+    }
+
+    private int slot(Object value) {
+        int slot = ((Number) value).intValue();
+        if (slot < 0 || slot >= names.length) {
+            throw new IllegalArgumentException("Variable local fuera de rango: " + slot);
+        }
+        return slot;
+    }
+
+    private static boolean truthy(double value) {
+        // NaN es verdadero, como en Python
+        return value != 0;
+    }
+
+    private static double divisor(double value) {
+        if (value == 0) {
+            throw new ArithmeticException("division by zero");
+        }
+        return value;
+    }
+
+    /**
+     * a // b como float_floordiv de CPython: se parte de (a - a % b) / b y no de
+     * floor(a / b), que redondea antes de truncar (1 // 0.1 es 9.0, no 10.0)
+     */
+    private static double floorDivide(double a, double b) {
+        double mod = a % b;
+        double div = (a - mod) / b;
+        if (mod != 0 && (b < 0) != (mod < 0)) {
+            div -= 1.0;
+        }
+        if (div == 0) {
+            return Math.copySign(0.0, a / b);
+        }
+        double floor = Math.floor(div);
+        return div - floor > 0.5 ? floor + 1.0 : floor;
+    }
+
+    /**
+     * int(), round(), floor() y ceil() de Python fallan con infinito o NaN
+     */
+    private static double finite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new ArithmeticException("no se puede convertir " + value + " a entero");
+        }
+        return value;
+    }
+
+    private static List<?> list(Object value) {
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Árbol de update() mal formado: " + value);
+        }
+        return list;
+    }
+}
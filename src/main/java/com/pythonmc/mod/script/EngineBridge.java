@@ -0,0 +1,304 @@
+package com.pythonmc.mod.script;
+
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Despacho de las llamadas RPC que hacen los scripts al engine
+ *
+ * Las tramas CALL/BATCH llegan por el hilo lector de cada worker y se encolan;
+ * se ejecutan siempre en el hilo del servidor (drain), porque los nodos no son
+ * seguros entre hilos. Un BATCH se ejecuta entero en una sola pasada y se
+ * responde con una única trama BATCH_RESULT con su id (o ERROR si no se puede
+ * leer, que falla todas sus llamadas).
+ *
+ * Los métodos registrados con registerOffThread no tocan el mundo (por
+ * ejemplo encolar un lote en MutationQueue) y se ejecutan directamente en el
+ * hilo lector, sin esperar al servidor.
+ */
+public class EngineBridge {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngineBridge.class);
+
+    /**
+     * Implementación de un método RPC; se ejecuta en el hilo del servidor
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Object call(ServerLevel world, List<Object> args);
+    }
+
+    /**
+     * Método fuera del hilo del servidor que necesita saber qué worker llama
+     * (null si llega desde un backend dentro de la JVM)
+     */
+    @FunctionalInterface
+    public interface WorkerHandler {
+        Object call(PythonWorker worker, List<Object> args);
+    }
+
+    private static final Map<String, Handler> HANDLERS = new ConcurrentHashMap<>();
+    private static final Set<String> OFF_THREAD = ConcurrentHashMap.newKeySet();
+    private static final Map<String, WorkerHandler> WORKER_HANDLERS = new ConcurrentHashMap<>();
+    private static final Queue<PendingRequest> PENDING = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean DRAIN_SCHEDULED = new AtomicBoolean(false);
+
+    private static volatile ServerLevel world;
+    // Hilo del servidor mientras espera a los scripts dentro del tick (ver ScriptRuntime)
+    private static volatile Thread waiter;
+
+    static {
+        NodeBridgeMethods.register();
+        TransformBuffer.register();
+        MutationQueue.register();
+        EngineEvents.register();
+        NodeScripts.register();
+        ReadCache.register();
+        GeneratorCache.register();
+        RegionGenerator.register();
+        RegionReader.register();
+        TextureBuffers.register();
+        ModelBuilder.register();
+        PlayerInput.register();
+        // Ida y vuelta sin trabajo: mide la latencia del bridge (pythonmc/benchmark.py)
+        register("engine.echo", (level, args) -> args.isEmpty() ? null : args.get(0));
+        register("engine.tick", (level, args) -> level.getServer().getTickCount());
+    }
+
+    /**
+     * Registra un método RPC (por ejemplo "node.get")
+     */
+    public static void register(String method, Handler handler) {
+        HANDLERS.put(method, handler);
+    }
+
+    /**
+     * Registra un método que se puede ejecutar fuera del hilo del servidor
+     * El handler debe ser seguro entre hilos y no tocar nodos ni bloques
+     */
+    public static void registerOffThread(String method, Handler handler) {
+        HANDLERS.put(method, handler);
+        OFF_THREAD.add(method);
+    }
+
+    /**
+     * Como registerOffThread, pero el handler recibe el worker que hace la llamada
+     */
+    public static void registerWorkerMethod(String method, WorkerHandler handler) {
+        WORKER_HANDLERS.put(method, handler);
+        registerOffThread(method, (level, args) -> handler.call(null, args));
+    }
+
+    /**
+     * Conecta el bridge al mundo cuyos nodos verán los scripts
+     */
+    public static void attach(ServerLevel serverLevel) {
+        world = serverLevel;
+        LOGGER.info("Bridge de scripts conectado a {}", serverLevel.dimension().location());
+    }
+
+    public static void detach() {
+        world = null;
+        PENDING.clear();
+        MutationQueue.clear();
+        EngineEvents.clear();
+        PlayerInput.clear();
+        ReadCache.clear();
+        RegionReader.close();
+    }
+
+    /**
+     * Mundo conectado, o null si no hay ninguno
+     */
+    public static ServerLevel getWorld() {
+        return world;
+    }
+
+    /**
+     * Encola una trama CALL o BATCH recibida de un worker
+     */
+    static void submit(PythonWorker worker, BridgeFrame frame) {
+        if (frame.type == BridgeFrame.CALL && executeOffThread(worker, frame)) {
+            return;
+        }
+        PENDING.add(new PendingRequest(worker, frame));
+        wakeWaiter();
+
+        // Sin mundo no hay hilo de servidor: responder ya (con error) para no colgar el script
+        ServerLevel level = world;
+        if (level == null) {
+            drain();
+            return;
+        }
+
+        // Si nadie drena la cola dentro del tick, el servidor lo hará entre ticks
+        if (DRAIN_SCHEDULED.compareAndSet(false, true)) {
+            level.getServer().execute(() -> {
+                DRAIN_SCHEDULED.set(false);
+                drain();
+            });
+        }
+    }
+
+    /**
+     * Ejecuta todas las llamadas pendientes; solo desde el hilo del servidor
+     * Devuelve el número de llamadas ejecutadas
+     */
+    public static int drain() {
+        int executed = 0;
+        PendingRequest request;
+        while ((request = PENDING.poll()) != null) {
+            executed += request.frame.type == BridgeFrame.BATCH
+                ? executeBatch(request)
+                : executeCall(request);
+        }
+        return executed;
+    }
+
+    /**
+     * Llamada directa desde un backend dentro de la JVM (ver GraalPyBackend)
+     * En el hilo del servidor se ejecuta ya; desde otro hilo espera a que el
+     * servidor la ejecute, igual que una trama CALL.
+     */
+    public static Object call(String method, List<Object> args) {
+        ServerLevel level = world;
+        if (level == null || OFF_THREAD.contains(method) || level.getServer().isSameThread()) {
+            return invoke(method, args);
+        }
+        try {
+            return level.getServer().submit(() -> invoke(method, args)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public static boolean hasPending() {
+        return !PENDING.isEmpty();
+    }
+
+    /**
+     * Registra el hilo que drena la cola mientras espera (null para quitarlo)
+     */
+    static void setWaiter(Thread thread) {
+        waiter = thread;
+    }
+
+    static void wakeWaiter() {
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static int executeCall(PendingRequest request) {
+        try {
+            List<?> call = (List<?>) request.frame.value();
+            Object result = invoke((String) call.get(0), asList(call.get(1)));
+            reply(request.worker, BridgeFrame.RESULT, request.frame.id, BridgeCodec.encode(result));
+        } catch (RuntimeException e) {
+            reply(request.worker, BridgeFrame.ERROR, request.frame.id, BridgeCodec.encode(describe(e)));
+        }
+        return 1;
+    }
+
+    /**
+     * Ejecuta ya la llamada si su método no necesita el hilo del servidor
+     */
+    private static boolean executeOffThread(PythonWorker worker, BridgeFrame frame) {
+        if (OFF_THREAD.isEmpty()) {
+            return false;
+        }
+        List<?> call;
+        try {
+            call = (List<?>) frame.value();
+        } catch (RuntimeException e) {
+            return false;
+        }
+        String method = (String) call.get(0);
+        if (!OFF_THREAD.contains(method)) {
+            return false;
+        }
+        try {
+            WorkerHandler workerHandler = WORKER_HANDLERS.get(method);
+            Object result = workerHandler != null
+                ? workerHandler.call(worker, asList(call.get(1)))
+                : HANDLERS.get(method).call(world, asList(call.get(1)));
+            reply(worker, BridgeFrame.RESULT, frame.id, BridgeCodec.encode(result));
+        } catch (RuntimeException e) {
+            reply(worker, BridgeFrame.ERROR, frame.id, BridgeCodec.encode(describe(e)));
+        }
+        return true;
+    }
+
+    private static int executeBatch(PendingRequest request) {
+        List<Object> results = new ArrayList<>();
+        try {
+            for (Object entry : (List<?>) request.frame.value()) {
+                List<?> call = (List<?>) entry;
+                Object requestId = call.get(0);
+                try {
+                    Object value = invoke((String) call.get(1), asList(call.get(2)));
+                    results.add(Arrays.asList(requestId, true, value));
+                } catch (RuntimeException e) {
+                    results.add(Arrays.asList(requestId, false, describe(e)));
+                }
+            }
+        } catch (RuntimeException e) {
+            // Siempre se responde: el script espera el lote entero y se quedaría colgado
+            LOGGER.warn("Batch RPC ilegible del worker {}", request.worker.getIndex(), e);
+            reply(request.worker, BridgeFrame.ERROR, request.frame.id,
+                BridgeCodec.encode("Lote ilegible: " + describe(e)));
+            return results.size();
+        }
+
+        reply(request.worker, BridgeFrame.BATCH_RESULT, request.frame.id, BridgeCodec.encode(results));
+        return results.size();
+    }
+
+    private static Object invoke(String method, List<Object> args) {
+        Handler handler = HANDLERS.get(method);
+        if (handler == null) {
+            throw new IllegalArgumentException("Método desconocido: " + method);
+        }
+        ServerLevel level = world;
+        if (level == null) {
+            throw new IllegalStateException("No hay ningún mundo cargado");
+        }
+        return handler.call(level, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value) {
+        return value == null ? List.of() : (List<Object>) value;
+    }
+
+    private static String describe(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static void reply(PythonWorker worker, int type, int id, byte[] payload) {
+        try {
+            worker.sendFrame(type, id, payload);
+        } catch (IOException e) {
+            LOGGER.debug("No se pudo responder al worker {}", worker.getIndex(), e);
+        }
+    }
+
+    private record PendingRequest(PythonWorker worker, BridgeFrame frame) {
+    }
+}
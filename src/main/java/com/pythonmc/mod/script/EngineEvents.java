@@ -0,0 +1,722 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.PythonMCMod;
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.event.ServerChatEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.pythonmc.mod.script.BridgeArgs.integer;
+import static com.pythonmc.mod.script.BridgeArgs.list;
+import static com.pythonmc.mod.script.BridgeArgs.optional;
+
+/**
+ * Eventos del engine hacia los scripts (ver Subscription en pythonmc/engine.py)
+ *
+ * Un script se suscribe a tipos de evento y recibe lotes en lugar de
+ * consultar el engine en cada tick. Los eventos del tick se acumulan en el
+ * hilo del servidor y flush() los reparte al final del tick en la cola
+ * acotada de cada suscripción. Los cambios de transform no se publican uno
+ * a uno: flush() compara el árbol con una instantánea (solo si alguien los
+ * escucha) y emite uno por nodo y tick; si la cola aún tiene un transform
+ * de ese nodo sin entregar, se sustituye por el nuevo.
+ *
+ * Con la cola llena, DROP_OLDEST descarta el evento más antiguo y BLOCK
+ * espera a que el script consuma hasta pythonmc.eventBlockMs por tick en
+ * total; después descarta el nuevo. Los descartes se cuentan y viajan con
+ * cada lote.
+ *
+ * Entrega push: un hilo envía tramas EVENTS al worker dueño, con un solo
+ * lote en vuelo por suscripción hasta que el script lo confirma. Entrega
+ * pull: el script llama a "events.poll".
+ */
+public final class EngineEvents {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngineEvents.class);
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 65_536;
+    private static final int MAX_BATCH = 512;
+    private static final long MAX_POLL_MS = 1_000;
+    private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("pythonmc.eventBlockMs", 50));
+
+    public enum Type {
+        NODE_ADDED("node.added"),
+        NODE_REMOVED("node.removed"),
+        TRANSFORM("transform"),
+        PLAYER_JOIN("player.join"),
+        PLAYER_LEAVE("player.leave"),
+        CHAT("chat"),
+        BLOCK_BREAK("block.break"),
+        BLOCK_PLACE("block.place"),
+        INPUT("input");
+
+        private final String id;
+
+        Type(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        static Type of(String id) {
+            for (Type type : values()) {
+                if (type.id.equals(id)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Tipo de evento desconocido: " + id);
+        }
+    }
+
+    public enum Policy {
+        DROP_OLDEST,
+        BLOCK
+    }
+
+    private static final Map<Integer, Subscription> SUBSCRIPTIONS = new ConcurrentHashMap<>();
+    private static final AtomicInteger SUBSCRIPTION_IDS = new AtomicInteger();
+    // Suscripciones por tipo: publicar sin interesados no cuesta nada
+    private static final AtomicIntegerArray INTEREST = new AtomicIntegerArray(Type.values().length);
+
+    // Eventos del tick en curso (normalmente desde el hilo del servidor)
+    private static final Queue<Event> TICK_EVENTS = new ConcurrentLinkedQueue<>();
+    // Solo desde el hilo del servidor: id -> x, y, z, yaw, pitch, roll, generación
+    private static final Map<String, double[]> TRANSFORMS = new HashMap<>();
+    private static long tick;
+
+    private static final LinkedBlockingQueue<Subscription> READY = new LinkedBlockingQueue<>();
+    private static final AtomicBoolean DISPATCHER_STARTED = new AtomicBoolean();
+
+    // Métricas acumuladas
+    private static final AtomicLong PUBLISHED = new AtomicLong();
+    private static final AtomicLong DELIVERED = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong COALESCED = new AtomicLong();
+    private static final AtomicLong FRAMES = new AtomicLong();
+
+    private static final NodeRegistry.Listener NODE_LISTENER = new NodeRegistry.Listener() {
+        @Override
+        public void nodeAdded(Node node) {
+            if (hasInterest(Type.NODE_ADDED)) {
+                Map<String, Object> data = nodeData(node);
+                Node parent = node.getParent();
+                data.put("parent", parent != null ? parent.getId() : null);
+                publish(Type.NODE_ADDED, data);
+            }
+        }
+
+        @Override
+        public void nodeRemoved(Node node) {
+            if (hasInterest(Type.NODE_REMOVED)) {
+                publish(Type.NODE_REMOVED, nodeData(node));
+            }
+        }
+    };
+
+    private EngineEvents() {
+    }
+
+    static void register() {
+        NodeRegistry.addListener(NODE_LISTENER);
+        EngineBridge.registerWorkerMethod("events.subscribe", EngineEvents::subscribe);
+        EngineBridge.registerOffThread("events.unsubscribe",
+            (world, args) -> unsubscribe(integer(args, 0)));
+        EngineBridge.registerOffThread("events.poll", (world, args) -> poll(integer(args, 0),
+            optional(args, 1) != null ? integer(args, 1) : MAX_BATCH,
+            optional(args, 2) != null ? (long) BridgeArgs.number(args, 2) : 0));
+        EngineBridge.registerOffThread("events.ack", (world, args) -> ack(integer(args, 0)));
+        EngineBridge.registerOffThread("events.retype", (world, args) -> retype(integer(args, 0),
+            list(args, 1)));
+    }
+
+    public static boolean hasInterest(Type type) {
+        return INTEREST.get(type.ordinal()) > 0;
+    }
+
+    /**
+     * Publica un evento para el final del tick; sin suscriptores de ese tipo no hace nada
+     */
+    public static void publish(Type type, Map<String, Object> data) {
+        if (hasInterest(type)) {
+            TICK_EVENTS.add(new Event(type, null, data));
+        }
+    }
+
+    /**
+     * Reparte los eventos del tick; solo desde el hilo del servidor, al final del tick
+     */
+    public static void flush(ServerLevel world) {
+        tick++;
+        if (hasInterest(Type.TRANSFORM) && world != null) {
+            diffTransforms(NodeRegistry.getRoot(world));
+        } else if (!TRANSFORMS.isEmpty()) {
+            TRANSFORMS.clear();
+        }
+        if (TICK_EVENTS.isEmpty() || SUBSCRIPTIONS.isEmpty()) {
+            TICK_EVENTS.clear();
+            return;
+        }
+
+        long deadline = System.nanoTime() + BLOCK_NANOS;
+        Event event;
+        while ((event = TICK_EVENTS.poll()) != null) {
+            event.data.put("tick", tick);
+            PUBLISHED.incrementAndGet();
+            for (Subscription subscription : SUBSCRIPTIONS.values()) {
+                if (subscription.accepts(event.type)) {
+                    subscription.offer(event, deadline);
+                }
+            }
+        }
+        for (Subscription subscription : SUBSCRIPTIONS.values()) {
+            if (subscription.push) {
+                schedule(subscription);
+            }
+        }
+    }
+
+    /**
+     * Cierra todas las suscripciones (al descargar el mundo)
+     */
+    public static void clear() {
+        for (Subscription subscription : List.copyOf(SUBSCRIPTIONS.values())) {
+            unsubscribe(subscription.id);
+        }
+        TICK_EVENTS.clear();
+        TRANSFORMS.clear();
+        READY.clear();
+    }
+
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("subscriptions", (long) SUBSCRIPTIONS.size());
+        metrics.put("published", PUBLISHED.get());
+        metrics.put("delivered", DELIVERED.get());
+        metrics.put("dropped", DROPPED.get());
+        metrics.put("coalesced", COALESCED.get());
+        metrics.put("frames", FRAMES.get());
+        return metrics;
+    }
+
+    // ========== MÉTODOS DEL BRIDGE ==========
+
+    /**
+     * ["tipo", ...], capacidad, "drop_oldest"|"block", push; devuelve el id de la suscripción
+     */
+    private static Object subscribe(PythonWorker worker, List<Object> args) {
+        boolean[] types = parseTypes(list(args, 0));
+        int capacity = optional(args, 1) != null ? integer(args, 1) : DEFAULT_CAPACITY;
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("La capacidad debe estar entre 1 y " + MAX_CAPACITY);
+        }
+        Object policyName = optional(args, 2);
+        Policy policy;
+        try {
+            policy = policyName != null ? Policy.valueOf(String.valueOf(policyName).toUpperCase()) : Policy.DROP_OLDEST;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Política desconocida: " + policyName);
+        }
+        boolean push = optional(args, 3) != null && BridgeArgs.bool(args, 3);
+        if (push && worker == null) {
+            throw new IllegalArgumentException("La entrega push solo está disponible en los workers; usa poll()");
+        }
+
+        Subscription subscription = new Subscription(SUBSCRIPTION_IDS.incrementAndGet(), push ? worker : null,
+            types, capacity, policy);
+        SUBSCRIPTIONS.put(subscription.id, subscription);
+        for (int i = 0; i < types.length; i++) {
+            if (types[i]) {
+                INTEREST.incrementAndGet(i);
+            }
+        }
+        if (push) {
+            startDispatcher();
+        }
+        return subscription.id;
+    }
+
+    private static Object unsubscribe(int id) {
+        Subscription subscription = SUBSCRIPTIONS.remove(id);
+        if (subscription == null) {
+            return false;
+        }
+        subscription.close();
+        // Con el lock: retype() no cambia los tipos a medias
+        subscription.lock.lock();
+        try {
+            for (int i = 0; i < subscription.types.length; i++) {
+                if (subscription.types[i]) {
+                    INTEREST.decrementAndGet(i);
+                }
+            }
+        } finally {
+            subscription.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Cambia los tipos de una suscripción sin cerrarla: lo ya encolado se conserva
+     */
+    private static Object retype(int id, List<Object> names) {
+        boolean[] wanted = parseTypes(names);
+        Subscription subscription = find(id);
+        subscription.lock.lock();
+        try {
+            if (subscription.closed) {
+                return false;
+            }
+            for (int i = 0; i < wanted.length; i++) {
+                if (subscription.types[i] != wanted[i]) {
+                    subscription.types[i] = wanted[i];
+                    if (wanted[i]) {
+                        INTEREST.incrementAndGet(i);
+                    } else {
+                        INTEREST.decrementAndGet(i);
+                    }
+                }
+            }
+        } finally {
+            subscription.lock.unlock();
+        }
+        return true;
+    }
+
+    private static boolean[] parseTypes(List<Object> names) {
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("Indica al menos un tipo de evento");
+        }
+        boolean[] types = new boolean[Type.values().length];
+        for (Object name : names) {
+            types[Type.of(String.valueOf(name)).ordinal()] = true;
+        }
+        return types;
+    }
+
+    /**
+     * Pull: espera hasta timeout_ms (máx. 1 s) a que haya eventos y devuelve {events, dropped, coalesced}
+     */
+    private static Object poll(int id, int max, long timeoutMs) {
+        Subscription subscription = find(id);
+        if (subscription.push) {
+            throw new IllegalArgumentException("La suscripción " + id + " se entrega por callback");
+        }
+        List<Object> events = subscription.take(Math.max(1, Math.min(max, MAX_BATCH)),
+            TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(timeoutMs, MAX_POLL_MS))));
+        return subscription.batch(events);
+    }
+
+    /**
+     * Push: el script terminó con el lote en vuelo y puede recibir el siguiente
+     */
+    private static Object ack(int id) {
+        Subscription subscription = SUBSCRIPTIONS.get(id);
+        if (subscription != null) {
+            subscription.inFlight.set(false);
+            schedule(subscription);
+        }
+        return null;
+    }
+
+    private static Subscription find(int id) {
+        Subscription subscription = SUBSCRIPTIONS.get(id);
+        if (subscription == null) {
+            throw new IllegalArgumentException("Suscripción no encontrada: " + id);
+        }
+        return subscription;
+    }
+
+    // ========== ENTREGA PUSH ==========
+
+    private static void schedule(Subscription subscription) {
+        if (!subscription.inFlight.get() && subscription.hasEvents()
+                && subscription.scheduled.compareAndSet(false, true)) {
+            READY.add(subscription);
+        }
+    }
+
+    private static void startDispatcher() {
+        if (DISPATCHER_STARTED.compareAndSet(false, true)) {
+            Thread thread = new Thread(EngineEvents::dispatchLoop, "PythonMC-Events");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private static void dispatchLoop() {
+        while (true) {
+            Subscription subscription;
+            try {
+                subscription = READY.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (subscription == null) {
+                closeDeadWorkers();
+                continue;
+            }
+            subscription.scheduled.set(false);
+            if (subscription.closed || !subscription.inFlight.compareAndSet(false, true)) {
+                continue;
+            }
+            List<Object> events = subscription.drain(MAX_BATCH);
+            if (events.isEmpty()) {
+                subscription.inFlight.set(false);
+                continue;
+            }
+            try {
+                subscription.worker.sendFrame(BridgeFrame.EVENTS, subscription.id,
+                    BridgeCodec.encode(subscription.batch(events)));
+                FRAMES.incrementAndGet();
+            } catch (IOException e) {
+                LOGGER.debug("No se pudieron enviar eventos al worker {}", subscription.worker.getIndex(), e);
+                unsubscribe(subscription.id);
+            }
+        }
+    }
+
+    private static void closeDeadWorkers() {
+        for (Subscription subscription : SUBSCRIPTIONS.values()) {
+            if (subscription.worker != null && !subscription.worker.isAlive()) {
+                unsubscribe(subscription.id);
+            }
+        }
+    }
+
+    // ========== TRANSFORMS ==========
+
+    private static void diffTransforms(Node root) {
+        if (root == null) {
+            return;
+        }
+        double generation = tick;
+        ArrayDeque<Node> pending = new ArrayDeque<>(root.getChildren());
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            pending.addAll(node.getChildren());
+
+            double[] last = TRANSFORMS.get(node.getId());
+            if (last == null) {
+                // Nodo nuevo o primera pasada: solo se guarda (las altas van por node.added)
+                last = new double[7];
+                TRANSFORMS.put(node.getId(), last);
+                copyTransform(node, last);
+            } else if (last[0] != node.getX() || last[1] != node.getY() || last[2] != node.getZ()
+                    || last[3] != node.getYaw() || last[4] != node.getPitch() || last[5] != node.getRoll()) {
+                copyTransform(node, last);
+                Map<String, Object> data = nodeData(node);
+                data.put("position", List.of(last[0], last[1], last[2]));
+                data.put("rotation", List.of(last[3], last[4], last[5]));
+                TICK_EVENTS.add(new Event(Type.TRANSFORM, node.getId(), data));
+            }
+            last[6] = generation;
+        }
+
+        Iterator<double[]> entries = TRANSFORMS.values().iterator();
+        while (entries.hasNext()) {
+            if (entries.next()[6] != generation) {
+                entries.remove();
+            }
+        }
+    }
+
+    private static void copyTransform(Node node, double[] target) {
+        target[0] = node.getX();
+        target[1] = node.getY();
+        target[2] = node.getZ();
+        target[3] = node.getYaw();
+        target[4] = node.getPitch();
+        target[5] = node.getRoll();
+    }
+
+    private static Map<String, Object> nodeData(Node node) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", node.getId());
+        data.put("name", node.getName());
+        data.put("node_type", node.getType().name());
+        return data;
+    }
+
+    // ========== EVENTOS DE FORGE ==========
+
+    private static boolean inEngineWorld(Object level) {
+        return level != null && level == EngineBridge.getWorld();
+    }
+
+    private static Map<String, Object> playerData(Entity player) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("player", player.getName().getString());
+        data.put("uuid", player.getUUID().toString());
+        return data;
+    }
+
+    private static Map<String, Object> blockData(BlockPos pos, BlockState state) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("position", List.of(pos.getX(), pos.getY(), pos.getZ()));
+        data.put("block", BuiltInRegistries.BLOCK.getKey(state.getBlock()).toString());
+        return data;
+    }
+
+    @Mod.EventBusSubscriber(modid = PythonMCMod.MOD_ID)
+    public static class ForgeEvents {
+
+        @SubscribeEvent
+        public static void onPlayerJoin(PlayerEvent.PlayerLoggedInEvent event) {
+            if (hasInterest(Type.PLAYER_JOIN)) {
+                publish(Type.PLAYER_JOIN, playerData(event.getEntity()));
+            }
+        }
+
+        @SubscribeEvent
+        public static void onPlayerLeave(PlayerEvent.PlayerLoggedOutEvent event) {
+            if (hasInterest(Type.PLAYER_LEAVE)) {
+                publish(Type.PLAYER_LEAVE, playerData(event.getEntity()));
+            }
+        }
+
+        @SubscribeEvent
+        public static void onChat(ServerChatEvent event) {
+            if (hasInterest(Type.CHAT)) {
+                Map<String, Object> data = playerData(event.getPlayer());
+                data.put("message", event.getRawText());
+                publish(Type.CHAT, data);
+            }
+        }
+
+        @SubscribeEvent
+        public static void onBlockBreak(BlockEvent.BreakEvent event) {
+            if (hasInterest(Type.BLOCK_BREAK) && inEngineWorld(event.getLevel())) {
+                Map<String, Object> data = blockData(event.getPos(), event.getState());
+                data.put("player", event.getPlayer() != null ? event.getPlayer().getName().getString() : null);
+                publish(Type.BLOCK_BREAK, data);
+            }
+        }
+
+        @SubscribeEvent
+        public static void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+            if (hasInterest(Type.BLOCK_PLACE) && inEngineWorld(event.getLevel())) {
+                Map<String, Object> data = blockData(event.getPos(), event.getPlacedBlock());
+                Entity entity = event.getEntity();
+                data.put("player", entity != null ? entity.getName().getString() : null);
+                publish(Type.BLOCK_PLACE, data);
+            }
+        }
+    }
+
+    // ========== TIPOS INTERNOS ==========
+
+    /**
+     * Evento ya publicado; key agrupa los transforms del mismo nodo en la cola
+     */
+    private record Event(Type type, String key, Map<String, Object> data) {
+
+        Map<String, Object> toValue() {
+            Map<String, Object> value = new HashMap<>(data);
+            value.put("type", type.getId());
+            return value;
+        }
+    }
+
+    /**
+     * Hueco de la cola; un transform posterior del mismo nodo sustituye su evento
+     */
+    private static final class Slot {
+        Event event;
+
+        Slot(Event event) {
+            this.event = event;
+        }
+    }
+
+    private static final class Subscription {
+        final int id;
+        final PythonWorker worker;
+        final boolean push;
+        final boolean[] types;
+        final int capacity;
+        final Policy policy;
+
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition notEmpty = lock.newCondition();
+        final Condition notFull = lock.newCondition();
+        final ArrayDeque<Slot> queue = new ArrayDeque<>();
+        final Map<String, Slot> queuedTransforms = new HashMap<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean inFlight = new AtomicBoolean();
+        volatile boolean closed;
+        long dropped;
+        long coalesced;
+
+        Subscription(int id, PythonWorker worker, boolean[] types, int capacity, Policy policy) {
+            this.id = id;
+            this.worker = worker;
+            this.push = worker != null;
+            this.types = types;
+            this.capacity = capacity;
+            this.policy = policy;
+        }
+
+        boolean accepts(Type type) {
+            return types[type.ordinal()];
+        }
+
+        boolean hasEvents() {
+            lock.lock();
+            try {
+                return !queue.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void offer(Event event, long deadline) {
+            lock.lock();
+            try {
+                if (event.key() != null) {
+                    Slot queued = queuedTransforms.get(event.key());
+                    if (queued != null) {
+                        queued.event = event;
+                        coalesced++;
+                        COALESCED.incrementAndGet();
+                        return;
+                    }
+                }
+                while (queue.size() >= capacity && !closed) {
+                    if (policy == Policy.DROP_OLDEST) {
+                        forget(queue.pollFirst());
+                        drop();
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        drop();
+                        return;
+                    }
+                    notFull.awaitNanos(remaining);
+                }
+                if (closed) {
+                    return;
+                }
+                Slot slot = new Slot(event);
+                queue.addLast(slot);
+                if (event.key() != null) {
+                    queuedTransforms.put(event.key(), slot);
+                }
+                notEmpty.signal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                drop();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Object> drain(int max) {
+            lock.lock();
+            try {
+                return drainLocked(max);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Object> take(int max, long timeoutNanos) {
+            lock.lock();
+            try {
+                long remaining = timeoutNanos;
+                while (queue.isEmpty() && remaining > 0 && !closed) {
+                    remaining = notEmpty.awaitNanos(remaining);
+                }
+                return drainLocked(max);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return List.of();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<String, Object> batch(List<Object> events) {
+            Map<String, Object> batch = new HashMap<>();
+            batch.put("events", events);
+            lock.lock();
+            try {
+                batch.put("dropped", dropped);
+                batch.put("coalesced", coalesced);
+            } finally {
+                lock.unlock();
+            }
+            return batch;
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                queue.clear();
+                queuedTransforms.clear();
+                notFull.signalAll();
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Object> drainLocked(int max) {
+            if (queue.isEmpty()) {
+                return List.of();
+            }
+            List<Object> events = new ArrayList<>(Math.min(max, queue.size()));
+            while (events.size() < max && !queue.isEmpty()) {
+                Slot slot = queue.pollFirst();
+                forget(slot);
+                events.add(slot.event.toValue());
+            }
+            DELIVERED.addAndGet(events.size());
+            notFull.signalAll();
+            return events;
+        }
+
+        private void forget(Slot slot) {
+            if (slot.event.key() != null && queuedTransforms.get(slot.event.key()) == slot) {
+                queuedTransforms.remove(slot.event.key());
+            }
+        }
+
+        private void drop() {
+            dropped++;
+            DROPPED.incrementAndGet();
+        }
+    }
+}
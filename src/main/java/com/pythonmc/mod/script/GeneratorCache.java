@@ -0,0 +1,356 @@
+package com.pythonmc.mod.script;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.pythonmc.mod.core.ProjectManager;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.pythonmc.mod.script.BridgeArgs.list;
+import static com.pythonmc.mod.script.BridgeArgs.map;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Caché de resultados de scripts generadores (ver pythonmc/generators.py)
+ *
+ * Un generador define generate(**args) y devuelve las operaciones de
+ * world.mutate que construyen la estructura. Engine.generate pide primero
+ * "gen.lookup" con el script y los argumentos: la clave es el sha256 del
+ * fuente y de los argumentos en forma canónica. Su manifiesto en
+ * filesproject/.cache/generators guarda las salidas ya calculadas junto con
+ * el hash de cada módulo del proyecto que importó el generador; si todos
+ * coinciden con los archivos actuales, la salida guardada se encola en
+ * MutationQueue y el generador no llega a ejecutarse. Si no, el worker lo
+ * ejecuta y entrega la salida con "gen.store", que la aplica y la guarda.
+ *
+ * Las salidas se guardan comprimidas y direccionadas por contenido
+ * (objects/sha256.bin): claves distintas con la misma salida comparten
+ * archivo. Cada manifiesto conserva las MAX_VARIANTS últimas combinaciones
+ * de módulos.
+ */
+public final class GeneratorCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratorCache.class);
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String FOLDER = "generators";
+    private static final int MAX_VARIANTS = 8;
+    // Escrituras de manifiestos desde varios workers a la vez
+    private static final Object WRITE_LOCK = new Object();
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong STORED = new AtomicLong();
+    private static final AtomicLong OPS_REPLAYED = new AtomicLong();
+    private static final AtomicLong BYTES_WRITTEN = new AtomicLong();
+
+    private GeneratorCache() {
+    }
+
+    static void register() {
+        EngineBridge.registerOffThread("gen.lookup", (level, args) -> lookup(level, string(args, 0), map(args, 1)));
+        EngineBridge.registerOffThread("gen.store", (level, args) -> store(level, string(args, 0), string(args, 1),
+            list(args, 2), list(args, 3)));
+    }
+
+    /**
+     * Busca la salida del generador para esos argumentos y, si está, la encola:
+     * {"hit": true, "ops", "batches"}; si no, {"hit": false, "path", "root", "key"}
+     * con lo que el worker necesita para ejecutarlo
+     */
+    public static Map<String, Object> lookup(ServerLevel level, String script, Map<?, ?> arguments) {
+        File root = scriptsFolder(level);
+        File file = resolve(root, script);
+        String key = key(sourceHash(file), arguments);
+
+        List<Object> ops = find(cacheFolder(level), root, key);
+        if (ops != null) {
+            Map<String, Object> reply = new LinkedHashMap<>();
+            reply.put("hit", true);
+            reply.put("ops", ops.size());
+            reply.put("batches", MutationQueue.submitAll(ops));
+            return reply;
+        }
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("hit", false);
+        reply.put("path", file.getAbsolutePath());
+        reply.put("root", root.getAbsolutePath());
+        reply.put("key", key);
+        return reply;
+    }
+
+    /**
+     * Encola la salida recién calculada y la guarda con los módulos que usó;
+     * si el fuente cambió mientras se ejecutaba, solo se aplica
+     */
+    public static Map<String, Object> store(ServerLevel level, String key, String sourceHash, List<Object> ops,
+                                            List<Object> deps) {
+        // Antes de guardar nada: una salida que no valida no entra en la caché
+        List<Integer> batches = MutationQueue.submitAll(ops);
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("hit", false);
+        reply.put("ops", ops.size());
+        reply.put("batches", batches);
+        if (key.startsWith(sourceHash + ":")) {
+            save(cacheFolder(level), scriptsFolder(level), key, ops, deps);
+        }
+        return reply;
+    }
+
+    /**
+     * Aciertos, fallos, salidas guardadas, operaciones reaplicadas y bytes escritos
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("hits", HITS.get());
+        metrics.put("misses", MISSES.get());
+        metrics.put("stored", STORED.get());
+        metrics.put("ops_replayed", OPS_REPLAYED.get());
+        metrics.put("bytes_written", BYTES_WRITTEN.get());
+        return metrics;
+    }
+
+    /**
+     * Salida guardada en la caché para la clave cuyos módulos siguen iguales, o null
+     */
+    static List<Object> find(File cache, File root, String key) {
+        JsonObject manifest = readManifest(cache, key);
+        if (manifest != null) {
+            for (JsonElement element : manifest.getAsJsonArray("variants")) {
+                JsonObject variant = element.getAsJsonObject();
+                if (!depsMatch(root, variant.getAsJsonObject("deps"))) {
+                    continue;
+                }
+                List<Object> ops = readObject(cache, variant.get("result").getAsString());
+                if (ops != null) {
+                    HITS.incrementAndGet();
+                    OPS_REPLAYED.addAndGet(ops.size());
+                    return ops;
+                }
+            }
+        }
+        MISSES.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Guarda la salida para la clave con el hash actual de los módulos que usó
+     */
+    static void save(File cache, File root, String key, List<Object> ops, List<Object> deps) {
+        JsonObject depHashes = new JsonObject();
+        for (Object dep : deps) {
+            File file = new File(String.valueOf(dep)).getAbsoluteFile();
+            String relative = relativize(root, file);
+            if (relative != null && file.isFile()) {
+                depHashes.addProperty(relative, sha256(read(file)));
+            }
+        }
+
+        try {
+            String result = writeObject(cache, ops);
+            synchronized (WRITE_LOCK) {
+                JsonObject manifest = readManifest(cache, key);
+                JsonArray variants = new JsonArray();
+                JsonObject variant = new JsonObject();
+                variant.add("deps", depHashes);
+                variant.addProperty("result", result);
+                variant.addProperty("ops", ops.size());
+                variants.add(variant);
+                if (manifest != null) {
+                    for (JsonElement previous : manifest.getAsJsonArray("variants")) {
+                        if (variants.size() < MAX_VARIANTS
+                            && !previous.getAsJsonObject().get("deps").equals(depHashes)) {
+                            variants.add(previous);
+                        }
+                    }
+                }
+                JsonObject updated = new JsonObject();
+                updated.add("variants", variants);
+                writeAtomically(manifestFile(cache, key), GSON.toJson(updated).getBytes(StandardCharsets.UTF_8));
+            }
+            STORED.incrementAndGet();
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo guardar la salida del generador en la caché", e);
+        }
+    }
+
+    /**
+     * sha256 del fuente + ":" + sha256 de los argumentos con las claves ordenadas
+     */
+    static String key(String sourceHash, Map<?, ?> arguments) {
+        return sourceHash + ":" + sha256(BridgeCodec.encode(canonical(arguments)));
+    }
+
+    private static Object canonical(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), canonical(v)));
+            // El codec escribe los mapas en el orden en que se recorren
+            return new LinkedHashMap<>(sorted);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> result = new ArrayList<>(list.size());
+            list.forEach(item -> result.add(canonical(item)));
+            return result;
+        }
+        return value;
+    }
+
+    static String sourceHash(File file) {
+        return sha256(read(file));
+    }
+
+    static File scriptsFolder(ServerLevel level) {
+        if (level == null) {
+            throw new IllegalStateException("No hay ningún mundo con el Engine activo");
+        }
+        return ProjectManager.getScriptsFolder(level).getAbsoluteFile();
+    }
+
+    /**
+     * filesproject/.cache/generators del mundo
+     */
+    static File cacheFolder(ServerLevel level) {
+        return new File(new File(ProjectManager.getProjectRoot(level), ".cache"), FOLDER);
+    }
+
+    static File resolve(File root, String script) {
+        File file = new File(root, script.replace('\\', '/')).getAbsoluteFile();
+        if (!script.endsWith(".py") || relativize(root, file) == null || !file.isFile()) {
+            throw new IllegalArgumentException("Generador no encontrado en la carpeta de scripts: " + script);
+        }
+        return file;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static boolean depsMatch(File root, JsonObject deps) {
+        for (Map.Entry<String, JsonElement> dep : deps.entrySet()) {
+            File file = new File(root, dep.getKey());
+            if (!file.isFile() || !sha256(read(file)).equals(dep.getValue().getAsString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ruta con '/' bajo la carpeta de scripts, o null si está fuera
+     */
+    private static String relativize(File root, File file) {
+        try {
+            String rootPath = root.getCanonicalPath() + File.separator;
+            String path = file.getCanonicalPath();
+            return path.startsWith(rootPath) ? path.substring(rootPath.length()).replace('\\', '/') : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static File manifestFile(File cache, String key) {
+        return new File(new File(cache, "manifests"), sha256(key.getBytes(StandardCharsets.UTF_8))
+            + ".json");
+    }
+
+    private static JsonObject readManifest(File cache, String key) {
+        File file = manifestFile(cache, key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonObject manifest = GSON.fromJson(reader, JsonObject.class);
+            return manifest != null && manifest.has("variants") ? manifest : null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Manifiesto de generador ilegible, se ignora: {}", file.getAbsolutePath());
+            return null;
+        }
+    }
+
+    private static File objectFile(File cache, String hash) {
+        return new File(new File(cache, "objects"), hash + ".bin");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> readObject(File cache, String hash) {
+        File file = objectFile(cache, hash);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            byte[] payload = in.readAllBytes();
+            // Un objeto corrupto se trata como un fallo de caché
+            return sha256(payload).equals(hash) ? (List<Object>) BridgeCodec.decode(payload) : null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Salida de generador ilegible, se ignora: {}", file.getAbsolutePath());
+            return null;
+        }
+    }
+
+    /**
+     * Guarda la salida por su hash (si ya existe no se reescribe) y devuelve el hash
+     */
+    private static String writeObject(File cache, List<Object> ops) throws IOException {
+        byte[] payload = BridgeCodec.encode(ops);
+        String hash = sha256(payload);
+        File file = objectFile(cache, hash);
+        if (!file.isFile()) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(payload);
+            }
+            writeAtomically(file, compressed.toByteArray());
+            BYTES_WRITTEN.addAndGet(compressed.size());
+        }
+        return hash;
+    }
+
+    private static void writeAtomically(File file, byte[] content) throws IOException {
+        file.getParentFile().mkdirs();
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            Files.write(temp.toPath(), content);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private static byte[] read(File file) {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
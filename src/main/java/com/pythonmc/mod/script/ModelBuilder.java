@@ -0,0 +1,182 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.core.ProjectManager;
+import com.pythonmc.mod.nodes.Model3DNode.Model3D;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pythonmc.mod.script.BridgeArgs.bytes;
+import static com.pythonmc.mod.script.BridgeArgs.optional;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Construcción de modelos Model3D desde scripts (ver pythonmc/models.py)
+ *
+ * "model.build" recibe los cubos empaquetados: 6 float32 por cubo (x, y, z,
+ * ancho, alto, fondo) y, opcionalmente, un u32 ARGB por cubo, little-endian.
+ * El modelo se publica como modelo compartido, así que todos los Model3DNode
+ * que usan ese archivo lo ven en el siguiente frame, y se escribe en
+ * assets/models con el mismo JSON que ModelEditorPanel.saveModelToFile. La
+ * escritura (lo más lento con miles de cubos) va en un hilo aparte: si el
+ * mismo modelo se reconstruye antes de escribirse, solo se escribe el último.
+ */
+public final class ModelBuilder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelBuilder.class);
+    private static final int FLOATS_PER_CUBE = 6;
+    private static final int MAX_CUBES = 200_000;
+    private static final int DEFAULT_COLOR = 0xFF6A9955;
+
+    // Archivo -> último modelo pendiente de escribir
+    private static final Map<File, Model3D> PENDING_WRITES = new ConcurrentHashMap<>();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PythonMC-ModelWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicLong BUILT = new AtomicLong();
+    private static final AtomicLong CUBES = new AtomicLong();
+
+    private ModelBuilder() {
+    }
+
+    static void register() {
+        EngineBridge.registerOffThread("model.build", (level, args) -> build(level, string(args, 0), bytes(args, 1),
+            optional(args, 2) != null ? bytes(args, 2) : null));
+    }
+
+    /**
+     * Crea o sustituye el modelo: {"path", "cubes", "ms"}
+     */
+    public static Map<String, Object> build(ServerLevel level, String name, byte[] geometry, byte[] colors) {
+        long start = System.nanoTime();
+        String key = name.replace('\\', '/');
+        if (!key.endsWith(".json") || key.startsWith("/") || key.contains("..") || key.contains(":")) {
+            throw new IllegalArgumentException("Nombre de modelo no válido (ruta .json dentro de assets/models): "
+                + name);
+        }
+        if (geometry.length % (FLOATS_PER_CUBE * 4) != 0) {
+            throw new IllegalArgumentException("La geometría debe tener 6 float32 por cubo");
+        }
+        int count = geometry.length / (FLOATS_PER_CUBE * 4);
+        if (count > MAX_CUBES) {
+            throw new IllegalArgumentException("Un modelo puede tener como mucho " + MAX_CUBES + " cubos");
+        }
+        if (colors != null && colors.length != count * 4) {
+            throw new IllegalArgumentException("Hace falta un color u32 por cubo (" + count + ")");
+        }
+
+        FloatBuffer values = ByteBuffer.wrap(geometry).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        IntBuffer argb = colors != null ? ByteBuffer.wrap(colors).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer() : null;
+        Model3D model = new Model3D(count);
+        for (int i = 0; i < count; i++) {
+            int base = i * FLOATS_PER_CUBE;
+            Model3D.ModelCube cube = new Model3D.ModelCube(values.get(base), values.get(base + 1),
+                values.get(base + 2), values.get(base + 3), values.get(base + 4), values.get(base + 5));
+            cube.color = argb != null ? argb.get(i) : DEFAULT_COLOR;
+            model.addCube(cube);
+        }
+
+        Model3D.publish(key, model);
+        File file = new File(new File(ProjectManager.getAssetsFolder(level), "models"), key);
+        if (PENDING_WRITES.put(file, model) == null) {
+            WRITER.execute(() -> {
+                Model3D latest = PENDING_WRITES.remove(file);
+                if (latest != null) {
+                    write(file, latest);
+                }
+            });
+        }
+        BUILT.incrementAndGet();
+        CUBES.addAndGet(count);
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("path", file.getAbsolutePath());
+        reply.put("cubes", count);
+        reply.put("ms", (System.nanoTime() - start) / 1_000_000.0);
+        return reply;
+    }
+
+    /**
+     * Espera a que se escriban los modelos pendientes (al descargar el mundo)
+     */
+    public static void flush() {
+        try {
+            WRITER.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn("No se terminaron de escribir los modelos pendientes", e);
+        }
+    }
+
+    /**
+     * Modelos construidos y cubos recibidos
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("built", BUILT.get());
+        metrics.put("cubes", CUBES.get());
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Mismo texto que ModelEditorPanel.saveModelToFile, escrito de una vez
+     */
+    private static void write(File file, Model3D model) {
+        StringBuilder json = new StringBuilder(64 + model.cubes.size() * 128);
+        json.append("{\n");
+        json.append("  \"format_version\": 1,\n");
+        json.append("  \"cubes\": [\n");
+        for (int i = 0; i < model.cubes.size(); i++) {
+            Model3D.ModelCube cube = model.cubes.get(i);
+            json.append("    {\n");
+            json.append("      \"position\": [").append(cube.x).append(", ").append(cube.y).append(", ")
+                .append(cube.z).append("],\n");
+            json.append("      \"size\": [").append(cube.width).append(", ").append(cube.height).append(", ")
+                .append(cube.depth).append("],\n");
+            json.append("      \"color\": ").append(cube.color).append(",\n");
+            json.append("      \"texture\": \"").append(cube.texture).append("\"\n");
+            json.append("    }");
+            if (i < model.cubes.size() - 1) json.append(",");
+            json.append("\n");
+        }
+        json.append("  ]\n");
+        json.append("}\n");
+
+        try {
+            File folder = file.getParentFile();
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("No se pudo crear " + folder.getAbsolutePath());
+            }
+            File temp = new File(folder, file.getName() + ".tmp");
+            Files.write(temp.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo guardar el modelo {}", file, e);
+        }
+    }
+}
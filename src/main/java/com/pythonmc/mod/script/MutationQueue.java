@@ -0,0 +1,516 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import com.pythonmc.mod.nodes.NodeType;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pythonmc.mod.script.BridgeArgs.list;
+import static com.pythonmc.mod.script.BridgeArgs.number;
+import static com.pythonmc.mod.script.BridgeArgs.optional;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Lotes atómicos de cambios en nodos y bloques (ver Mutations en pythonmc/engine.py)
+ *
+ * "world.mutate" valida la forma del lote en el hilo lector del worker y lo
+ * encola sin esperar al servidor. Al inicio del siguiente tick applyPending()
+ * aplica todos los lotes pendientes en una sola pasada y en orden: cada lote
+ * se valida entero contra el estado actual y se aplica entero o se rechaza
+ * sin tocar nada. Los movimientos y bloques se agrupan por nodo y posición
+ * (gana el último) y se escriben una sola vez al final de la pasada.
+ *
+ * Operaciones (listas):
+ *   ["create", ref, tipo, nombre, padre|None, [x, y, z]|None]
+ *   ["move", nodo, x, y, z]
+ *   ["reparent", nodo, padre]
+ *   ["remove", nodo]
+ *   ["block", x, y, z, "minecraft:stone"]
+ * Los nodos se indican por id o por la ref ("$n") de un create del mismo lote.
+ */
+public final class MutationQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MutationQueue.class);
+    private static final int MAX_OPS = 10_000;
+    // Resultados que se conservan para world.batch_status
+    private static final int KEEP_RESULTS = 256;
+
+    public enum State {
+        PENDING,
+        APPLIED,
+        REJECTED,
+        FAILED
+    }
+
+    private enum Kind {
+        CREATE,
+        MOVE,
+        REPARENT,
+        REMOVE,
+        BLOCK
+    }
+
+    private static final Queue<Batch> PENDING = new ConcurrentLinkedQueue<>();
+    private static final Map<Integer, Batch> BATCHES = new ConcurrentHashMap<>();
+    private static final AtomicInteger BATCH_IDS = new AtomicInteger();
+
+    // Métricas acumuladas
+    private static final AtomicLong SUBMITTED = new AtomicLong();
+    private static final AtomicLong APPLIED = new AtomicLong();
+    private static final AtomicLong REJECTED = new AtomicLong();
+    private static final AtomicLong OPS_APPLIED = new AtomicLong();
+    private static final AtomicLong OPS_COALESCED = new AtomicLong();
+    private static final AtomicLong PASSES = new AtomicLong();
+    private static final AtomicLong PASS_NANOS = new AtomicLong();
+    private static final AtomicLong PASS_NANOS_MAX = new AtomicLong();
+
+    private MutationQueue() {
+    }
+
+    static void register() {
+        EngineBridge.registerOffThread("world.mutate", (world, args) -> submit(list(args, 0)));
+        EngineBridge.registerOffThread("world.batch_status", (world, args) -> status(BridgeArgs.integer(args, 0)));
+    }
+
+    /**
+     * Valida la forma del lote y lo encola; devuelve su id (seguro entre hilos)
+     */
+    public static int submit(List<Object> ops) {
+        if (ops.isEmpty() || ops.size() > MAX_OPS) {
+            throw new IllegalArgumentException("Un lote debe tener entre 1 y " + MAX_OPS + " operaciones");
+        }
+        return enqueue(parseAll(ops));
+    }
+
+    /**
+     * Como submit para listas de cualquier tamaño: se valida todo antes de
+     * encolar nada y se parte en lotes consecutivos de hasta MAX_OPS, cada uno
+     * atómico por separado. Las refs "$n" solo valen dentro de su lote, así que
+     * nunca se corta entre un create y el último uso de su ref.
+     * Devuelve los ids de los lotes
+     */
+    public static List<Integer> submitAll(List<Object> ops) {
+        if (ops.isEmpty()) {
+            throw new IllegalArgumentException("La lista de operaciones está vacía");
+        }
+        List<Op> parsed = parseAll(ops);
+        List<Integer> cuts = cuts(parsed);
+        List<Integer> ids = new ArrayList<>(cuts.size());
+        int from = 0;
+        for (int cut : cuts) {
+            ids.add(enqueue(new ArrayList<>(parsed.subList(from, cut))));
+            from = cut;
+        }
+        return ids;
+    }
+
+    /**
+     * Se completa con el estado del lote (como status) cuando se aplica o se rechaza
+     */
+    public static CompletableFuture<Map<String, Object>> settled(int id) {
+        Batch batch = BATCHES.get(id);
+        if (batch == null) {
+            return CompletableFuture.completedFuture(Map.of("state", "unknown"));
+        }
+        return batch.settled.thenApply(state -> describe(batch));
+    }
+
+    /**
+     * Estado de un lote: state, error, created (ref -> id), ops, coalesced, wait_ms, apply_ms
+     */
+    public static Map<String, Object> status(int id) {
+        Batch batch = BATCHES.get(id);
+        if (batch == null) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("state", "unknown");
+            return status;
+        }
+        return describe(batch);
+    }
+
+    public static boolean hasPending() {
+        return !PENDING.isEmpty();
+    }
+
+    /**
+     * Aplica los lotes pendientes; solo desde el hilo del servidor, al inicio del tick
+     * Devuelve el número de lotes procesados
+     */
+    public static int applyPending(ServerLevel world) {
+        if (PENDING.isEmpty()) {
+            return 0;
+        }
+        long passStart = System.nanoTime();
+        Map<Node, double[]> moves = new LinkedHashMap<>();
+        Map<BlockPos, BlockState> blocks = new LinkedHashMap<>();
+        int processed = 0;
+
+        Batch batch;
+        while ((batch = PENDING.poll()) != null) {
+            processed++;
+            long start = System.nanoTime();
+            batch.waitMs = (start - batch.submittedNanos) / 1_000_000.0;
+            try {
+                Plan plan = validate(world, batch);
+                execute(world, batch, plan, moves, blocks);
+                batch.finish(State.APPLIED, null, start);
+                APPLIED.incrementAndGet();
+                OPS_APPLIED.addAndGet(batch.ops.size());
+                OPS_COALESCED.addAndGet(batch.coalesced);
+            } catch (IllegalArgumentException e) {
+                batch.finish(State.REJECTED, e.getMessage(), start);
+                REJECTED.incrementAndGet();
+            } catch (RuntimeException e) {
+                // Validado pero falló al aplicarse (init() de un nodo, por ejemplo)
+                LOGGER.error("Lote {} aplicado a medias", batch.id, e);
+                batch.finish(State.FAILED, String.valueOf(e.getMessage()), start);
+                REJECTED.incrementAndGet();
+            }
+        }
+
+        // Escrituras agrupadas: una por nodo y una por bloque
+        moves.forEach((node, position) -> {
+            if (NodeRegistry.getNodeById(node.getId()) == node) {
+                node.setPosition(position[0], position[1], position[2]);
+            }
+        });
+        blocks.forEach((pos, state) -> world.setBlock(pos, state, Block.UPDATE_ALL));
+
+        long elapsed = System.nanoTime() - passStart;
+        PASSES.incrementAndGet();
+        PASS_NANOS.addAndGet(elapsed);
+        PASS_NANOS_MAX.accumulateAndGet(elapsed, Math::max);
+        return processed;
+    }
+
+    /**
+     * Rechaza lo pendiente (mundo descargado)
+     */
+    public static void clear() {
+        Batch batch;
+        while ((batch = PENDING.poll()) != null) {
+            batch.finish(State.REJECTED, "Mundo descargado", System.nanoTime());
+        }
+    }
+
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        long passes = PASSES.get();
+        metrics.put("batches_submitted", SUBMITTED.get());
+        metrics.put("batches_applied", APPLIED.get());
+        metrics.put("batches_rejected", REJECTED.get());
+        metrics.put("ops_applied", OPS_APPLIED.get());
+        metrics.put("ops_coalesced", OPS_COALESCED.get());
+        metrics.put("passes", passes);
+        metrics.put("pass_avg_us", passes > 0 ? PASS_NANOS.get() / passes / 1_000 : 0);
+        metrics.put("pass_max_us", PASS_NANOS_MAX.get() / 1_000);
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static List<Op> parseAll(List<Object> ops) {
+        List<Op> parsed = new ArrayList<>(ops.size());
+        for (int i = 0; i < ops.size(); i++) {
+            try {
+                parsed.add(parse(ops.get(i)));
+            } catch (IllegalArgumentException | ClassCastException e) {
+                throw new IllegalArgumentException("Operación " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    private static Map<String, Object> describe(Batch batch) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", batch.state.name().toLowerCase());
+        status.put("error", batch.error);
+        status.put("created", batch.created);
+        status.put("ops", batch.ops.size());
+        status.put("coalesced", batch.coalesced);
+        status.put("wait_ms", batch.waitMs);
+        status.put("apply_ms", batch.applyMs);
+        return status;
+    }
+
+    /**
+     * Finales (exclusivos) de los trozos de submitAll: cada uno de hasta MAX_OPS y sin
+     * separar una ref de su create
+     */
+    private static List<Integer> cuts(List<Op> parsed) {
+        Map<String, Integer> lastUse = new HashMap<>();
+        for (int i = 0; i < parsed.size(); i++) {
+            Op op = parsed.get(i);
+            for (String idOrRef : new String[]{op.target, op.parent}) {
+                if (idOrRef != null && idOrRef.startsWith("$")) {
+                    lastUse.put(idOrRef, i);
+                }
+            }
+        }
+
+        List<Integer> cuts = new ArrayList<>();
+        int from = 0;
+        while (from < parsed.size()) {
+            int end = Math.min(parsed.size(), from + MAX_OPS);
+            int cut = -1;
+            // Refs creadas en el trozo que se usan más adelante: no se puede cortar antes de su último uso
+            int open = -1;
+            for (int i = from; i < end; i++) {
+                Op op = parsed.get(i);
+                if (op.kind == Kind.CREATE) {
+                    open = Math.max(open, lastUse.getOrDefault(op.target, i));
+                }
+                if (open <= i) {
+                    cut = i + 1;
+                }
+            }
+            if (cut <= from) {
+                throw new IllegalArgumentException("Más de " + MAX_OPS
+                    + " operaciones seguidas dependen de la misma ref; no caben en un lote");
+            }
+            cuts.add(cut);
+            from = cut;
+        }
+        return cuts;
+    }
+
+    private static int enqueue(List<Op> parsed) {
+        Batch batch = new Batch(BATCH_IDS.incrementAndGet(), parsed);
+        BATCHES.put(batch.id, batch);
+        BATCHES.remove(batch.id - KEEP_RESULTS);
+        SUBMITTED.incrementAndGet();
+        PENDING.add(batch);
+        return batch.id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Op parse(Object value) {
+        List<Object> op = (List<Object>) value;
+        String kind = string(op, 0);
+        switch (kind) {
+            case "create": {
+                String ref = string(op, 1);
+                if (!ref.startsWith("$")) {
+                    throw new IllegalArgumentException("La ref de un create debe empezar por '$'");
+                }
+                String name = string(op, 3);
+                if (name.isBlank()) {
+                    throw new IllegalArgumentException("El nombre del nodo no puede estar vacío");
+                }
+                Object parent = optional(op, 4);
+                Object position = optional(op, 5);
+                return new Op(Kind.CREATE, ref, parent != null ? string(op, 4) : null, NodeType.fromString(string(op, 2)),
+                    name, position != null ? vector(list(op, 5), 0) : null, null, null);
+            }
+            case "move":
+                return new Op(Kind.MOVE, string(op, 1), null, null, null, vector(op, 2), null, null);
+            case "reparent":
+                return new Op(Kind.REPARENT, string(op, 1), string(op, 2), null, null, null, null, null);
+            case "remove":
+                return new Op(Kind.REMOVE, string(op, 1), null, null, null, null, null, null);
+            case "block": {
+                double[] pos = vector(op, 1);
+                String blockId = string(op, 4);
+                ResourceLocation location = ResourceLocation.tryParse(blockId);
+                if (location == null || !BuiltInRegistries.BLOCK.containsKey(location)) {
+                    throw new IllegalArgumentException("Bloque desconocido: " + blockId);
+                }
+                BlockPos blockPos = new BlockPos((int) Math.floor(pos[0]), (int) Math.floor(pos[1]), (int) Math.floor(pos[2]));
+                return new Op(Kind.BLOCK, null, null, null, null, null, blockPos,
+                    BuiltInRegistries.BLOCK.get(location).defaultBlockState());
+            }
+            default:
+                throw new IllegalArgumentException("Operación desconocida: " + kind);
+        }
+    }
+
+    private static double[] vector(List<Object> args, int from) {
+        double[] vector = {number(args, from), number(args, from + 1), number(args, from + 2)};
+        for (double component : vector) {
+            if (!Double.isFinite(component)) {
+                throw new IllegalArgumentException("Coordenada no válida: " + component);
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Simula el lote sobre el árbol actual sin modificarlo
+     * Lanza IllegalArgumentException con la primera operación inválida
+     */
+    private static Plan validate(ServerLevel world, Batch batch) {
+        Plan plan = new Plan();
+        for (int i = 0; i < batch.ops.size(); i++) {
+            Op op = batch.ops.get(i);
+            try {
+                switch (op.kind) {
+                    case CREATE -> {
+                        if (plan.created.containsKey(op.target)) {
+                            throw new IllegalArgumentException("Ref repetida: " + op.target);
+                        }
+                        Object parent = op.parent != null ? plan.resolveAlive(op.parent) : null;
+                        Planned planned = new Planned(op.target);
+                        plan.created.put(op.target, planned);
+                        plan.parents.put(planned, parent);
+                    }
+                    case MOVE -> plan.resolveAlive(op.target);
+                    case REPARENT -> {
+                        Object target = plan.resolveAlive(op.target);
+                        Object parent = plan.resolveAlive(op.parent);
+                        plan.requireNotRoot(target);
+                        for (Object ancestor = parent; ancestor != null; ancestor = plan.parentOf(ancestor)) {
+                            if (ancestor == target) {
+                                throw new IllegalArgumentException("Reparentar crearía un ciclo");
+                            }
+                        }
+                        plan.parents.put(target, parent);
+                    }
+                    case REMOVE -> {
+                        Object target = plan.resolveAlive(op.target);
+                        plan.requireNotRoot(target);
+                        plan.removed.add(target);
+                    }
+                    case BLOCK -> {
+                        if (!world.isLoaded(op.blockPos)) {
+                            throw new IllegalArgumentException("Chunk no cargado en " + op.blockPos);
+                        }
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Operación " + (i + 1) + " (" + op.kind.name().toLowerCase() + "): "
+                    + e.getMessage());
+            }
+        }
+        return plan;
+    }
+
+    private static void execute(ServerLevel world, Batch batch, Plan plan,
+                                Map<Node, double[]> moves, Map<BlockPos, BlockState> blocks) {
+        Map<String, Node> real = new HashMap<>();
+        Map<String, String> created = new LinkedHashMap<>();
+        for (Op op : batch.ops) {
+            switch (op.kind) {
+                case CREATE -> {
+                    Node node = NodeRegistry.createNode(op.type, op.name);
+                    NodeRegistry.addNode(world, node, op.parent != null ? node(real, op.parent) : null);
+                    real.put(op.target, node);
+                    created.put(op.target, node.getId());
+                    if (op.position != null) {
+                        stage(batch, moves, node, op.position);
+                    }
+                }
+                case MOVE -> stage(batch, moves, node(real, op.target), op.position);
+                case REPARENT -> node(real, op.parent).addChild(node(real, op.target));
+                case REMOVE -> NodeRegistry.removeNode(node(real, op.target));
+                case BLOCK -> {
+                    if (blocks.put(op.blockPos, op.state) != null) {
+                        batch.coalesced++;
+                    }
+                }
+            }
+        }
+        batch.created = created;
+    }
+
+    private static void stage(Batch batch, Map<Node, double[]> moves, Node node, double[] position) {
+        if (moves.put(node, position) != null) {
+            batch.coalesced++;
+        }
+    }
+
+    private static Node node(Map<String, Node> real, String idOrRef) {
+        return idOrRef.startsWith("$") ? real.get(idOrRef) : NodeRegistry.getNodeById(idOrRef);
+    }
+
+    private record Op(Kind kind, String target, String parent, NodeType type, String name, double[] position,
+                      BlockPos blockPos, BlockState state) {
+    }
+
+    /**
+     * Nodo que creará un create del lote
+     */
+    private record Planned(String ref) {
+    }
+
+    /**
+     * Árbol simulado durante la validación: nodos reales o Planned
+     */
+    private static final class Plan {
+        final Map<String, Planned> created = new HashMap<>();
+        // Padre tras los reparent/create del lote (prevalece sobre el real)
+        final Map<Object, Object> parents = new HashMap<>();
+        final Set<Object> removed = new HashSet<>();
+
+        Object resolveAlive(String idOrRef) {
+            Object target = idOrRef.startsWith("$") ? created.get(idOrRef) : NodeRegistry.getNodeById(idOrRef);
+            if (target == null) {
+                throw new IllegalArgumentException("Nodo no encontrado: " + idOrRef);
+            }
+            for (Object node = target; node != null; node = parentOf(node)) {
+                if (removed.contains(node)) {
+                    throw new IllegalArgumentException("El nodo " + idOrRef + " se elimina antes en el lote");
+                }
+            }
+            return target;
+        }
+
+        Object parentOf(Object node) {
+            if (parents.containsKey(node)) {
+                return parents.get(node);
+            }
+            return node instanceof Node real ? real.getParent() : null;
+        }
+
+        void requireNotRoot(Object target) {
+            if (target instanceof Node node && node.getParent() == null) {
+                throw new IllegalArgumentException("No se puede mover ni eliminar el nodo raíz");
+            }
+        }
+    }
+
+    private static final class Batch {
+        final int id;
+        final List<Op> ops;
+        final long submittedNanos = System.nanoTime();
+        final CompletableFuture<State> settled = new CompletableFuture<>();
+
+        volatile State state = State.PENDING;
+        volatile String error;
+        volatile Map<String, String> created = Map.of();
+        volatile int coalesced;
+        volatile double waitMs;
+        volatile double applyMs;
+
+        Batch(int id, List<Op> ops) {
+            this.id = id;
+            this.ops = ops;
+        }
+
+        void finish(State finalState, String message, long startNanos) {
+            applyMs = (System.nanoTime() - startNanos) / 1_000_000.0;
+            error = message;
+            state = finalState;
+            settled.complete(finalState);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.nodes.AudioPlayerNode;
+import com.pythonmc.mod.nodes.CameraNode;
+import com.pythonmc.mod.nodes.CharacterBodyNode;
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import com.pythonmc.mod.nodes.NodeType;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.pythonmc.mod.script.BridgeArgs.bool;
+import static com.pythonmc.mod.script.BridgeArgs.node;
+import static com.pythonmc.mod.script.BridgeArgs.number;
+import static com.pythonmc.mod.script.BridgeArgs.optional;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Métodos RPC sobre nodos: node.*, camera.*, body.* y audio.*
+ * Ver pythonmc/engine.py para la API Python que los envuelve.
+ */
+final class NodeBridgeMethods {
+
+    private NodeBridgeMethods() {
+    }
+
+    static void register() {
+        // ========== NODE ==========
+        EngineBridge.register("node.find", (world, args) -> {
+            Node node = NodeRegistry.findNode(world, string(args, 0));
+            return node != null ? describe(node) : null;
+        });
+        EngineBridge.register("node.get", (world, args) -> describe(node(args, 0)));
+        EngineBridge.register("node.list", (world, args) -> {
+            Object type = optional(args, 0);
+            List<Node> nodes = new ArrayList<>();
+            Node root = NodeRegistry.getRoot(world);
+            if (type != null) {
+                nodes.addAll(NodeRegistry.getNodesByType(world, NodeType.fromString((String) type)));
+            } else if (root != null) {
+                collect(root, nodes);
+            }
+            return describeAll(nodes);
+        });
+        EngineBridge.register("node.children", (world, args) -> describeAll(node(args, 0).getChildren()));
+        EngineBridge.register("node.get_transform", (world, args) -> transform(node(args, 0)));
+        EngineBridge.register("node.set_position", (world, args) -> {
+            node(args, 0).setPosition(number(args, 1), number(args, 2), number(args, 3));
+            return null;
+        });
+        EngineBridge.register("node.translate", (world, args) -> {
+            node(args, 0).translate(number(args, 1), number(args, 2), number(args, 3));
+            return null;
+        });
+        EngineBridge.register("node.set_rotation", (world, args) -> {
+            node(args, 0).setRotation((float) number(args, 1), (float) number(args, 2), (float) number(args, 3));
+            return null;
+        });
+        EngineBridge.register("node.rotate", (world, args) -> {
+            node(args, 0).rotate((float) number(args, 1), (float) number(args, 2), (float) number(args, 3));
+            return null;
+        });
+        EngineBridge.register("node.set_active", (world, args) -> {
+            node(args, 0).setActive(bool(args, 1));
+            return null;
+        });
+        EngineBridge.register("node.set_visible", (world, args) -> {
+            node(args, 0).setVisible(bool(args, 1));
+            return null;
+        });
+        EngineBridge.register("node.create", (world, args) -> {
+            NodeType type = NodeType.fromString(string(args, 0));
+            Object parentId = optional(args, 2);
+            Node parent = parentId != null ? node(args, 2) : null;
+            Node node = NodeRegistry.createNode(type, string(args, 1));
+            NodeRegistry.addNode(world, node, parent);
+            return describe(node);
+        });
+        EngineBridge.register("node.remove", (world, args) -> {
+            Node node = node(args, 0);
+            if (node.getParent() == null) {
+                throw new IllegalArgumentException("No se puede eliminar el nodo raíz");
+            }
+            NodeRegistry.removeNode(node);
+            return null;
+        });
+
+        // ========== CAMERA ==========
+        EngineBridge.register("camera.move", (world, args) -> {
+            node(args, 0, CameraNode.class).moveCamera(number(args, 1), number(args, 2), number(args, 3));
+            return null;
+        });
+        EngineBridge.register("camera.rotate", (world, args) -> {
+            node(args, 0, CameraNode.class).rotateCamera((float) number(args, 1), (float) number(args, 2));
+            return null;
+        });
+        EngineBridge.register("camera.get_fov", (world, args) -> (double) node(args, 0, CameraNode.class).getFOV());
+        EngineBridge.register("camera.set_fov", (world, args) -> {
+            node(args, 0, CameraNode.class).setFOV((float) number(args, 1));
+            return null;
+        });
+        EngineBridge.register("camera.attach_player", (world, args) -> {
+            node(args, 0, CameraNode.class).attachToPlayer(player(world, string(args, 1)));
+            return null;
+        });
+        EngineBridge.register("camera.detach", (world, args) -> {
+            node(args, 0, CameraNode.class).detachFromPlayer();
+            return null;
+        });
+        EngineBridge.register("camera.set_input_control", (world, args) -> {
+            node(args, 0, CameraNode.class).setInputControlled(bool(args, 1));
+            return null;
+        });
+
+        // ========== CHARACTER BODY ==========
+        EngineBridge.register("body.move", (world, args) -> {
+            node(args, 0, CharacterBodyNode.class).move(number(args, 1), number(args, 2), number(args, 3));
+            return null;
+        });
+        EngineBridge.register("body.move_forward", (world, args) -> {
+            node(args, 0, CharacterBodyNode.class).moveForward(number(args, 1));
+            return null;
+        });
+        EngineBridge.register("body.jump", (world, args) -> {
+            node(args, 0, CharacterBodyNode.class).jump();
+            return null;
+        });
+        EngineBridge.register("body.teleport", (world, args) -> {
+            node(args, 0, CharacterBodyNode.class).teleport(number(args, 1), number(args, 2), number(args, 3));
+            return null;
+        });
+        EngineBridge.register("body.set_sprinting", (world, args) -> {
+            node(args, 0, CharacterBodyNode.class).setSprinting(bool(args, 1));
+            return null;
+        });
+        EngineBridge.register("body.get_velocity", (world, args) -> {
+            Vec3 velocity = node(args, 0, CharacterBodyNode.class).getVelocity();
+            return new double[]{velocity.x, velocity.y, velocity.z};
+        });
+        EngineBridge.register("body.is_on_ground", (world, args) -> node(args, 0, CharacterBodyNode.class).isOnGround());
+        EngineBridge.register("body.attach_player", (world, args) -> {
+            node(args, 0, CharacterBodyNode.class).attachToPlayer(player(world, string(args, 1)));
+            return null;
+        });
+        EngineBridge.register("body.set_input_control", (world, args) -> {
+            node(args, 0, CharacterBodyNode.class).setInputControlled(bool(args, 1));
+            return null;
+        });
+
+        // ========== AUDIO ==========
+        EngineBridge.register("audio.play", (world, args) -> {
+            node(args, 0, AudioPlayerNode.class).playOnce();
+            return null;
+        });
+        EngineBridge.register("audio.loop", (world, args) -> {
+            node(args, 0, AudioPlayerNode.class).playLoop();
+            return null;
+        });
+        EngineBridge.register("audio.stop", (world, args) -> {
+            node(args, 0, AudioPlayerNode.class).stop();
+            return null;
+        });
+        EngineBridge.register("audio.set_sound", (world, args) -> {
+            node(args, 0, AudioPlayerNode.class).setSoundId(string(args, 1));
+            return null;
+        });
+        EngineBridge.register("audio.set_volume", (world, args) -> {
+            node(args, 0, AudioPlayerNode.class).setVolume((float) number(args, 1));
+            return null;
+        });
+        EngineBridge.register("audio.set_pitch", (world, args) -> {
+            node(args, 0, AudioPlayerNode.class).setPitch((float) number(args, 1));
+            return null;
+        });
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static Map<String, Object> describe(Node node) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", node.getId());
+        info.put("name", node.getName());
+        info.put("type", node.getType().getDisplayName());
+        info.put("path", node.getPath());
+        info.put("parent", node.getParent() != null ? node.getParent().getId() : null);
+        info.put("active", node.isActive());
+        info.put("visible", node.isVisible());
+        info.put("transform", transform(node));
+        return info;
+    }
+
+    private static List<Object> describeAll(List<Node> nodes) {
+        List<Object> result = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            result.add(describe(node));
+        }
+        return result;
+    }
+
+    private static double[] transform(Node node) {
+        return new double[]{
+            node.getX(), node.getY(), node.getZ(),
+            node.getYaw(), node.getPitch(), node.getRoll()
+        };
+    }
+
+    private static void collect(Node node, List<Node> result) {
+        for (Node child : node.getChildren()) {
+            result.add(child);
+            collect(child, result);
+        }
+    }
+
+    private static ServerPlayer player(ServerLevel world, String name) {
+        ServerPlayer player = world.getServer().getPlayerList().getPlayerByName(name);
+        if (player == null) {
+            throw new IllegalArgumentException("Jugador no conectado: " + name);
+        }
+        return player;
+    }
+}
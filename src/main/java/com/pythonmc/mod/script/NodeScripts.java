@@ -0,0 +1,229 @@
+package com.pythonmc.mod.script;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.pythonmc.mod.core.ProjectManager;
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.pythonmc.mod.script.BridgeArgs.node;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Scripts adjuntos a nodos, al estilo de Godot (ver NodeScript en pythonmc/engine.py)
+ *
+ * Las asignaciones se guardan en filesproject/nodes/scene_tree.json, en
+ * "scripts", con la ruta del nodo bajo la raíz como clave
+ * ("Puerta" o "Casa/Puerta") y el script relativo a filesproject/scripts.
+ * Al cargar el mundo se adjuntan a los nodos que ya existen y, después, a
+ * cada nodo que se añade con esa ruta; al eliminar el nodo se destruye su
+ * instancia pero la asignación se conserva.
+ *
+ * Las instancias viven en los workers del runtime, repartidas por nodo (ver
+ * ScriptRuntime.attachNode).
+ */
+public final class NodeScripts {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NodeScripts.class);
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String SCENE_FILE = "scene_tree.json";
+    private static final String SCRIPTS_KEY = "scripts";
+
+    // Ruta del nodo en la escena -> script
+    private static final Map<String, String> ATTACHMENTS = new ConcurrentHashMap<>();
+    private static volatile ServerLevel world;
+
+    private static final NodeRegistry.Listener NODE_LISTENER = new NodeRegistry.Listener() {
+        @Override
+        public void nodeAdded(Node node) {
+            String script = ATTACHMENTS.get(scenePath(node));
+            if (script != null && world != null && node.getWorld() == world) {
+                attachFromScene(node, script);
+            }
+        }
+
+        @Override
+        public void nodeRemoved(Node node) {
+            if (node.getScript() != null) {
+                ScriptRuntime.detachNode(node.getId());
+            }
+        }
+    };
+
+    private NodeScripts() {
+    }
+
+    static void register() {
+        NodeRegistry.addListener(NODE_LISTENER);
+        EngineBridge.register("node.attach_script", (level, args) -> {
+            attach(node(args, 0), string(args, 1));
+            return null;
+        });
+        EngineBridge.register("node.detach_script", (level, args) -> {
+            detach(node(args, 0));
+            return null;
+        });
+        EngineBridge.register("node.get_script", (level, args) -> node(args, 0).getScript());
+    }
+
+    /**
+     * Lee las asignaciones de la escena y adjunta los nodos que ya existen
+     */
+    public static void load(ServerLevel level) {
+        world = level;
+        ATTACHMENTS.clear();
+        JsonObject scene = readScene(level);
+        JsonElement scripts = scene != null ? scene.get(SCRIPTS_KEY) : null;
+        if (scripts != null && scripts.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : scripts.getAsJsonObject().entrySet()) {
+                ATTACHMENTS.put(entry.getKey(), entry.getValue().getAsString());
+            }
+        }
+        if (ATTACHMENTS.isEmpty()) {
+            return;
+        }
+
+        int attached = 0;
+        Node root = NodeRegistry.getRoot(level);
+        ArrayDeque<Node> pending = new ArrayDeque<>(root != null ? root.getChildren() : List.of());
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            pending.addAll(node.getChildren());
+            String script = ATTACHMENTS.get(scenePath(node));
+            if (script != null && attachFromScene(node, script)) {
+                attached++;
+            }
+        }
+        LOGGER.info("{} script(s) de nodo en la escena, {} adjuntados al cargar", ATTACHMENTS.size(), attached);
+    }
+
+    /**
+     * Adjunta el script al nodo y lo guarda en la escena
+     */
+    public static void attach(Node node, String script) {
+        if (world == null) {
+            throw new IllegalStateException("No hay ningún mundo con el Engine activo");
+        }
+        if (node.getParent() == null) {
+            throw new IllegalArgumentException("No se puede adjuntar un script al nodo raíz");
+        }
+        String normalized = script.replace('\\', '/');
+        File file = resolve(normalized);
+        if (!normalized.endsWith(".py") || !file.isFile()) {
+            throw new IllegalArgumentException("Script no encontrado en la carpeta de scripts: " + script);
+        }
+        node.setScript(normalized);
+        ATTACHMENTS.put(scenePath(node), normalized);
+        save();
+        ScriptRuntime.attachNode(node, file);
+    }
+
+    /**
+     * Quita el script del nodo y de la escena
+     */
+    public static void detach(Node node) {
+        node.setScript(null);
+        if (ATTACHMENTS.remove(scenePath(node)) != null) {
+            save();
+        }
+        ScriptRuntime.detachNode(node.getId());
+    }
+
+    public static void clear() {
+        ATTACHMENTS.clear();
+        world = null;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Una entrada rota de la escena no debe impedir crear el nodo: solo se avisa
+     */
+    private static boolean attachFromScene(Node node, String script) {
+        try {
+            File file = resolve(script);
+            node.setScript(script);
+            ScriptRuntime.attachNode(node, file);
+            return true;
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Script de nodo ignorado para '{}': {}", scenePath(node), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ruta bajo la raíz del mundo (la raíz lleva el nombre del mundo y no se guarda)
+     */
+    private static String scenePath(Node node) {
+        String path = node.getPath();
+        int start = path.indexOf('/', 1);
+        return start >= 0 ? path.substring(start + 1) : path.substring(1);
+    }
+
+    private static File resolve(String script) {
+        File scriptsFolder = ProjectManager.getScriptsFolder(world);
+        File file = new File(scriptsFolder, script);
+        try {
+            // Sin salir de la carpeta de scripts con ".."
+            if (!file.getCanonicalPath().startsWith(scriptsFolder.getCanonicalPath() + File.separator)) {
+                throw new IllegalArgumentException("El script debe estar dentro de la carpeta de scripts: " + script);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ruta de script no válida: " + script);
+        }
+        return file;
+    }
+
+    private static JsonObject readScene(ServerLevel level) {
+        File sceneFile = new File(ProjectManager.getNodesFolder(level), SCENE_FILE);
+        if (!sceneFile.isFile()) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(sceneFile.toPath(), StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, JsonObject.class);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("No se pudo leer {}", sceneFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private static void save() {
+        ServerLevel level = world;
+        if (level == null) {
+            return;
+        }
+        JsonObject scene = readScene(level);
+        if (scene == null) {
+            scene = new JsonObject();
+        }
+        JsonObject scripts = new JsonObject();
+        for (Map.Entry<String, String> entry : new TreeMap<>(ATTACHMENTS).entrySet()) {
+            scripts.addProperty(entry.getKey(), entry.getValue());
+        }
+        scene.add(SCRIPTS_KEY, scripts);
+
+        File sceneFile = new File(ProjectManager.getNodesFolder(level), SCENE_FILE);
+        sceneFile.getParentFile().mkdirs();
+        try (Writer writer = Files.newBufferedWriter(sceneFile.toPath(), StandardCharsets.UTF_8)) {
+            GSON.toJson(scene, writer);
+        } catch (IOException e) {
+            LOGGER.error("No se pudo guardar {}", sceneFile.getAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.PythonMCMod;
+import com.pythonmc.mod.gui.InputSampler;
+import com.pythonmc.mod.nodes.CameraNode;
+import com.pythonmc.mod.nodes.CharacterBodyNode;
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.network.NetworkDirection;
+import net.minecraftforge.network.NetworkEvent;
+import net.minecraftforge.network.NetworkRegistry;
+import net.minecraftforge.network.PacketDistributor;
+import net.minecraftforge.network.simple.SimpleChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.pythonmc.mod.script.BridgeArgs.integer;
+import static com.pythonmc.mod.script.BridgeArgs.optional;
+
+/**
+ * Entrada de los jugadores (teclas y ratón) hacia scripts y controladores (ver Engine.capture_input)
+ *
+ * La captura es opcional: "input.capture" le dice a los clientes cada
+ * cuántos ticks enviar. El cliente (InputSampler) acumula las teclas y el
+ * movimiento del ratón de esos ticks en un único paquete Sample; sin nada
+ * pulsado no envía nada. En el servidor las muestras que llegan en un mismo
+ * tick se funden por jugador y al final del tick salen como un evento
+ * "input" por jugador y se aplican a los CharacterBodyNode y CameraNode
+ * asignados a ese jugador que tengan activado el control por entrada.
+ *
+ * held son las teclas pulsadas al enviar y pressed las que se pulsaron en
+ * algún tick desde el envío anterior (para no perder pulsaciones cortas),
+ * como máscaras de bits en el orden de KEYS.
+ */
+public final class PlayerInput {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlayerInput.class);
+    private static final String PROTOCOL = "1";
+    private static final int MAX_INTERVAL = 20;
+    private static final int DEFAULT_INTERVAL = Integer.getInteger("pythonmc.inputInterval", 1);
+    private static final float MAX_MOUSE_DELTA = 10_000f;
+    // Mismo factor que CameraNode.updateMouseControl
+    private static final float MOUSE_SCALE = 0.15f;
+
+    public static final String[] KEYS = {"forward", "back", "left", "right", "jump", "sneak", "sprint", "attack",
+        "use"};
+    public static final int FORWARD = 1;
+    public static final int BACK = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int JUMP = 1 << 4;
+    public static final int SNEAK = 1 << 5;
+    public static final int SPRINT = 1 << 6;
+    public static final int ATTACK = 1 << 7;
+    public static final int USE = 1 << 8;
+    private static final int ALL_KEYS = (1 << KEYS.length) - 1;
+
+    public static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(
+        new ResourceLocation(PythonMCMod.MOD_ID, "input"), () -> PROTOCOL,
+        NetworkRegistry.acceptMissingOr(PROTOCOL), NetworkRegistry.acceptMissingOr(PROTOCOL));
+
+    // Solo desde el hilo del servidor
+    private static final Map<UUID, State> STATES = new HashMap<>();
+    private static int interval;
+
+    private static final AtomicLong SAMPLES = new AtomicLong();
+    private static final AtomicLong STALE = new AtomicLong();
+    private static final AtomicLong EVENTS = new AtomicLong();
+
+    private PlayerInput() {
+    }
+
+    /**
+     * Registra los paquetes del canal (setup común, en cliente y servidor)
+     */
+    public static void registerPackets() {
+        CHANNEL.messageBuilder(Capture.class, 0, NetworkDirection.PLAY_TO_CLIENT)
+            .encoder(Capture::encode)
+            .decoder(Capture::decode)
+            .consumerMainThread(Capture::handle)
+            .add();
+        CHANNEL.messageBuilder(Sample.class, 1, NetworkDirection.PLAY_TO_SERVER)
+            .encoder(Sample::encode)
+            .decoder(Sample::decode)
+            .consumerMainThread(Sample::handle)
+            .add();
+    }
+
+    static void register() {
+        EngineBridge.register("input.capture", (world, args) -> capture(optional(args, 0) != null
+            ? integer(args, 0) : DEFAULT_INTERVAL));
+        EngineBridge.register("input.state", (world, args) -> state(world));
+    }
+
+    /**
+     * Activa la captura en los clientes (un envío cada interval ticks) o la para con 0
+     */
+    public static int capture(int ticks) {
+        if (ticks < 0 || ticks > MAX_INTERVAL) {
+            throw new IllegalArgumentException("El intervalo de envío debe estar entre 0 y " + MAX_INTERVAL
+                + " ticks");
+        }
+        if (ticks != interval) {
+            interval = ticks;
+            CHANNEL.send(PacketDistributor.ALL.noArg(), new Capture(ticks));
+            if (ticks == 0) {
+                STATES.clear();
+            }
+            LOGGER.info("Captura de entrada: {}", ticks == 0 ? "desactivada" : "cada " + ticks + " ticks");
+        }
+        return interval;
+    }
+
+    /**
+     * Reparte la entrada del tick: un evento "input" por jugador con muestras nuevas y
+     * los controladores; solo desde el hilo del servidor, al final del tick
+     */
+    public static void flush(ServerLevel world) {
+        if (STATES.isEmpty()) {
+            return;
+        }
+        boolean active = false;
+        for (State state : STATES.values()) {
+            if (state.fresh && EngineEvents.hasInterest(EngineEvents.Type.INPUT)) {
+                EngineEvents.publish(EngineEvents.Type.INPUT, state.toEvent());
+                EVENTS.incrementAndGet();
+            }
+            active |= state.held != 0 || state.pressed != 0 || state.dx != 0 || state.dy != 0;
+        }
+        if (active && world != null) {
+            driveControllers(NodeRegistry.getRoot(world));
+        }
+        for (State state : STATES.values()) {
+            state.pressed = 0;
+            state.dx = 0;
+            state.dy = 0;
+            state.ticks = 0;
+            state.fresh = false;
+        }
+    }
+
+    /**
+     * Para la captura y olvida el estado (al descargar el mundo)
+     */
+    public static void clear() {
+        STATES.clear();
+        interval = 0;
+    }
+
+    /**
+     * Muestras recibidas, descartadas por llegar desordenadas y eventos publicados
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("samples", SAMPLES.get());
+        metrics.put("stale", STALE.get());
+        metrics.put("events", EVENTS.get());
+        metrics.put("players", (long) STATES.size());
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static void receive(ServerPlayer player, Sample sample) {
+        if (interval == 0 || player.level() != EngineBridge.getWorld()) {
+            return;
+        }
+        State state = STATES.computeIfAbsent(player.getUUID(), uuid -> new State(player));
+        if (state.seq != 0 && sample.seq - state.seq <= 0) {
+            STALE.incrementAndGet();
+            return;
+        }
+        SAMPLES.incrementAndGet();
+        state.player = player;
+        state.seq = sample.seq;
+        state.held = sample.held;
+        state.pressed |= sample.pressed | sample.held;
+        state.dx += sample.dx;
+        state.dy += sample.dy;
+        state.ticks += sample.ticks;
+        state.fresh = true;
+    }
+
+    private static Object state(ServerLevel world) {
+        Map<String, Object> players = new LinkedHashMap<>();
+        for (State state : STATES.values()) {
+            players.put(state.player.getName().getString(), keyNames(state.held));
+        }
+        return players;
+    }
+
+    private static void driveControllers(Node root) {
+        if (root == null) {
+            return;
+        }
+        ArrayDeque<Node> pending = new ArrayDeque<>(root.getChildren());
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            pending.addAll(node.getChildren());
+            if (node instanceof CharacterBodyNode body && body.isInputControlled()) {
+                State state = stateOf(body.getPlayer());
+                if (state != null) {
+                    int keys = state.held | state.pressed;
+                    body.applyInput(axis(keys, FORWARD, BACK), axis(keys, LEFT, RIGHT), (keys & JUMP) != 0,
+                        (state.held & SPRINT) != 0, state.dx * MOUSE_SCALE);
+                }
+            } else if (node instanceof CameraNode camera && camera.isInputControlled()) {
+                State state = stateOf(camera.getAttachedPlayer());
+                if (state != null && (state.dx != 0 || state.dy != 0)) {
+                    camera.rotateCamera(state.dx * MOUSE_SCALE, -state.dy * MOUSE_SCALE);
+                }
+            }
+        }
+    }
+
+    private static State stateOf(Player player) {
+        return player != null ? STATES.get(player.getUUID()) : null;
+    }
+
+    private static double axis(int keys, int positive, int negative) {
+        return ((keys & positive) != 0 ? 1 : 0) - ((keys & negative) != 0 ? 1 : 0);
+    }
+
+    private static List<String> keyNames(int mask) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < KEYS.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                names.add(KEYS[i]);
+            }
+        }
+        return names;
+    }
+
+    @Mod.EventBusSubscriber(modid = PythonMCMod.MOD_ID)
+    public static class ForgeEvents {
+
+        @SubscribeEvent
+        public static void onPlayerJoin(PlayerEvent.PlayerLoggedInEvent event) {
+            if (interval != 0 && event.getEntity() instanceof ServerPlayer player) {
+                CHANNEL.send(PacketDistributor.PLAYER.with(() -> player), new Capture(interval));
+            }
+        }
+
+        @SubscribeEvent
+        public static void onPlayerLeave(PlayerEvent.PlayerLoggedOutEvent event) {
+            STATES.remove(event.getEntity().getUUID());
+        }
+    }
+
+    // ========== TIPOS INTERNOS ==========
+
+    /**
+     * Entrada fundida de un jugador desde el último final de tick
+     */
+    private static final class State {
+        ServerPlayer player;
+        int seq;
+        int held;
+        int pressed;
+        float dx;
+        float dy;
+        int ticks;
+        boolean fresh;
+
+        State(ServerPlayer player) {
+            this.player = player;
+        }
+
+        Map<String, Object> toEvent() {
+            Map<String, Object> data = new HashMap<>();
+            data.put("player", player.getName().getString());
+            data.put("uuid", player.getUUID().toString());
+            data.put("held", keyNames(held));
+            data.put("pressed", keyNames(pressed));
+            data.put("mouse", List.of((double) dx, (double) dy));
+            data.put("ticks", ticks);
+            data.put("seq", seq);
+            return data;
+        }
+    }
+
+    /**
+     * Servidor -> cliente: enviar una muestra cada interval ticks (0 = no capturar)
+     */
+    public static final class Capture {
+        private final int interval;
+
+        Capture(int interval) {
+            this.interval = interval;
+        }
+
+        void encode(FriendlyByteBuf buffer) {
+            buffer.writeVarInt(interval);
+        }
+
+        static Capture decode(FriendlyByteBuf buffer) {
+            return new Capture(Math.max(0, Math.min(MAX_INTERVAL, buffer.readVarInt())));
+        }
+
+        void handle(Supplier<NetworkEvent.Context> context) {
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> InputSampler.configure(interval));
+        }
+    }
+
+    /**
+     * Cliente -> servidor: teclas y ratón de los últimos ticks. El cliente reutiliza
+     * una sola instancia (sendToServer la codifica al momento)
+     */
+    public static final class Sample {
+        private int seq;
+        private int ticks;
+        private int held;
+        private int pressed;
+        private float dx;
+        private float dy;
+
+        public Sample() {
+        }
+
+        public Sample set(int seq, int ticks, int held, int pressed, float dx, float dy) {
+            this.seq = seq;
+            this.ticks = ticks;
+            this.held = held;
+            this.pressed = pressed;
+            this.dx = dx;
+            this.dy = dy;
+            return this;
+        }
+
+        void encode(FriendlyByteBuf buffer) {
+            buffer.writeVarInt(seq);
+            buffer.writeByte(ticks);
+            buffer.writeVarInt(held);
+            buffer.writeVarInt(pressed);
+            buffer.writeFloat(dx);
+            buffer.writeFloat(dy);
+        }
+
+        static Sample decode(FriendlyByteBuf buffer) {
+            // Lo que manda el cliente no es de fiar: se acota todo
+            return new Sample().set(buffer.readVarInt(), buffer.readUnsignedByte(), buffer.readVarInt() & ALL_KEYS,
+                buffer.readVarInt() & ALL_KEYS, delta(buffer.readFloat()), delta(buffer.readFloat()));
+        }
+
+        void handle(Supplier<NetworkEvent.Context> context) {
+            ServerPlayer player = context.get().getSender();
+            if (player != null) {
+                receive(player, this);
+            }
+        }
+
+        private static float delta(float value) {
+            return Float.isFinite(value) ? Math.max(-MAX_MOUSE_DELTA, Math.min(MAX_MOUSE_DELTA, value)) : 0f;
+        }
+    }
+}
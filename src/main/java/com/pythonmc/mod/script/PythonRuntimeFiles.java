@@ -0,0 +1,85 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.core.ProjectManager;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Extrae el paquete Python "pythonmc" incluido en el jar del mod
+ * Ubicación: saves/world_name/filesproject/.runtime/python/pythonmc
+ */
+public class PythonRuntimeFiles {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PythonRuntimeFiles.class);
+    private static final String RUNTIME_FOLDER = ".runtime";
+    private static final String RESOURCE_ROOT = "/python/pythonmc/";
+
+    // Módulos del paquete que se copian al runtime
+    private static final String[] MODULES = {
+        "__init__.py",
+        "benchmark.py",
+        "bridge.py",
+        "compiler.py",
+        "coroutines.py",
+        "engine.py",
+        "events.py",
+        "fastpath.py",
+        "generators.py",
+        "hotreload.py",
+        "models.py",
+        "profiler.py",
+        "readcache.py",
+        "regions.py",
+        "textures.py",
+        "transforms.py",
+        "worker.py"
+    };
+
+    /**
+     * Obtiene la carpeta .runtime del proyecto
+     */
+    public static File getRuntimeFolder(Level world) {
+        return new File(ProjectManager.getProjectRoot(world), RUNTIME_FOLDER);
+    }
+
+    /**
+     * Carpeta python ya extraída del proyecto que contiene el script, o null
+     */
+    public static File findPythonPath(File script) {
+        File projectRoot = ProjectManager.findProjectRoot(script);
+        if (projectRoot == null) {
+            return null;
+        }
+        File pythonRoot = new File(new File(projectRoot, RUNTIME_FOLDER), "python");
+        return new File(pythonRoot, "pythonmc").isDirectory() ? pythonRoot : null;
+    }
+
+    /**
+     * Copia el paquete pythonmc al runtime y devuelve la carpeta a añadir al PYTHONPATH
+     */
+    public static File extract(File runtimeFolder) throws IOException {
+        File pythonRoot = new File(runtimeFolder, "python");
+        File packageFolder = new File(pythonRoot, "pythonmc");
+        if (!packageFolder.exists() && !packageFolder.mkdirs()) {
+            throw new IOException("No se pudo crear " + packageFolder.getAbsolutePath());
+        }
+
+        for (String module : MODULES) {
+            try (InputStream in = PythonRuntimeFiles.class.getResourceAsStream(RESOURCE_ROOT + module)) {
+                if (in == null) {
+                    throw new IOException("Recurso Python no encontrado en el jar: " + module);
+                }
+                Files.copy(in, new File(packageFolder, module).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        LOGGER.debug("Paquete pythonmc extraído en {}", packageFolder.getAbsolutePath());
+        return pythonRoot;
+    }
+}
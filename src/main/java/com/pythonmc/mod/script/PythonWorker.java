@@ -0,0 +1,329 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.core.ConsoleBuffer;
+import com.pythonmc.mod.core.ScriptLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proceso Python de larga duración que ejecuta scripts bajo demanda
+ * Se comunica por tramas binarias (BridgeFrame); ver pythonmc/worker.py
+ * para el otro extremo. Las llamadas RPC del script se delegan a EngineBridge.
+ */
+public class PythonWorker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PythonWorker.class);
+    private static final AtomicInteger RUN_IDS = new AtomicInteger();
+
+    private final int index;
+    private final Process process;
+    private final DataOutputStream stdin;
+    private final Thread readerThread;
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    // Ejecución en curso (un worker atiende una ejecución a la vez)
+    private volatile int currentRunId = -1;
+    private volatile CompletableFuture<Integer> currentResult;
+    private volatile CompletableFuture<Void> pendingPing;
+    private volatile boolean readerExited;
+
+    // Canal de consola de las tramas OUT/ERR por id (ejecuciones y scripts de ciclo de vida)
+    private final Map<Integer, ConsoleBuffer.Channel> outputs = new ConcurrentHashMap<>();
+    // Peticiones LOAD/UNLOAD/UPDATE esperando su REPLY
+    private final Map<Integer, CompletableFuture<Object>> replies = new ConcurrentHashMap<>();
+
+    private PythonWorker(int index, Process process) {
+        this.index = index;
+        this.process = process;
+        this.stdin = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.readerThread = new Thread(this::readLoop, "PythonMC-Worker-" + index);
+        this.readerThread.setDaemon(true);
+    }
+
+    /**
+     * Lanza un worker y espera a que termine los imports de precalentamiento
+     */
+    public static PythonWorker start(int index, String pythonExe, File pythonPath, File runtimeFolder,
+                                     List<String> warmImports, long startupTimeoutMs) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(pythonExe, "-u", "-m", "pythonmc.worker");
+        builder.directory(runtimeFolder);
+        builder.redirectError(ProcessBuilder.Redirect.appendTo(new File(runtimeFolder, "worker-" + index + ".log")));
+
+        Map<String, String> env = builder.environment();
+        env.put("PYTHONUNBUFFERED", "1");
+        env.put("PYTHONIOENCODING", "utf-8");
+        env.put("PYTHONMC_WARM_IMPORTS", String.join(",", warmImports));
+        env.put("PYTHONMC_RUNTIME", runtimeFolder.getAbsolutePath());
+        String existing = env.get("PYTHONPATH");
+        env.put("PYTHONPATH", existing == null || existing.isEmpty()
+            ? pythonPath.getAbsolutePath()
+            : pythonPath.getAbsolutePath() + File.pathSeparator + existing);
+
+        PythonWorker worker = new PythonWorker(index, builder.start());
+        worker.readerThread.start();
+
+        try {
+            worker.ready.get(startupTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            worker.shutdown();
+            throw new IOException("El worker " + index + " no respondió al arrancar", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker.shutdown();
+            throw new IOException("Arranque del worker " + index + " interrumpido", e);
+        }
+
+        LOGGER.info("Worker Python {} listo (pid {})", index, worker.process.pid());
+        return worker;
+    }
+
+    /**
+     * Ejecuta un script en un namespace nuevo y devuelve su código de salida
+     * Los límites de CPU y memoria los aplica el worker solo durante esta ejecución
+     */
+    public int run(File scriptFile, ConsoleBuffer.Channel output, ScriptLimits limits)
+            throws IOException, InterruptedException {
+        int runId = RUN_IDS.incrementAndGet();
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        outputs.put(runId, output);
+        currentResult = result;
+        currentRunId = runId;
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("path", scriptFile.getAbsolutePath());
+        request.put("cpu_s", limits.getCpuSeconds());
+        request.put("memory_mb", limits.getMemoryMb());
+        // Bytecode de la última compilación al guardar, si coincide con el contenido actual
+        File bytecode = ScriptCompiler.getBytecode(scriptFile);
+        if (bytecode != null) {
+            request.put("bytecode", bytecode.getAbsolutePath());
+        }
+        sendFrame(BridgeFrame.RUN, runId, BridgeCodec.encode(request));
+        if (readerExited) {
+            // El lector terminó antes de ver currentResult
+            result.completeExceptionally(new IOException("Worker " + index + " finalizado"));
+        }
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new IOException("El worker " + index + " terminó durante la ejecución", e.getCause());
+        } finally {
+            currentRunId = -1;
+            outputs.remove(runId);
+            currentResult = null;
+        }
+    }
+
+    /**
+     * Reserva un id para un script de ciclo de vida y registra el canal de su salida
+     */
+    public int openHandle(ConsoleBuffer.Channel output) {
+        int handle = RUN_IDS.incrementAndGet();
+        outputs.put(handle, output);
+        return handle;
+    }
+
+    public void closeHandle(int handle) {
+        outputs.remove(handle);
+    }
+
+    /**
+     * Canal de la ejecución RUN en curso, o null si el worker no está ejecutando ninguna
+     */
+    public ConsoleBuffer.Channel getCurrentOutput() {
+        int runId = currentRunId;
+        return runId < 0 ? null : outputs.get(runId);
+    }
+
+    /**
+     * Envía una petición LOAD/UNLOAD/UPDATE; el futuro se completa con el payload del REPLY
+     */
+    public CompletableFuture<Object> request(int type, Object payload) {
+        int requestId = RUN_IDS.incrementAndGet();
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        replies.put(requestId, reply);
+        try {
+            sendFrame(type, requestId, BridgeCodec.encode(payload));
+        } catch (IOException e) {
+            replies.remove(requestId);
+            reply.completeExceptionally(e);
+        }
+        if (readerExited && replies.remove(requestId) != null) {
+            reply.completeExceptionally(new IOException("Worker " + index + " finalizado"));
+        }
+        return reply;
+    }
+
+    /**
+     * Comprueba que el worker sigue respondiendo
+     */
+    public boolean ping(long timeoutMs) {
+        if (!isAlive() || currentResult != null) {
+            // Un worker ocupado no puede contestar hasta terminar el script
+            return isAlive();
+        }
+
+        CompletableFuture<Void> pong = new CompletableFuture<>();
+        pendingPing = pong;
+        try {
+            sendFrame(BridgeFrame.PING, 0, null);
+            pong.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            pendingPing = null;
+        }
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getPid() {
+        return process.pid();
+    }
+
+    /**
+     * Pide al worker que termine y lo mata si no lo hace a tiempo
+     */
+    public void shutdown() {
+        if (process.isAlive()) {
+            try {
+                sendFrame(BridgeFrame.EXIT, 0, null);
+                if (!process.waitFor(500, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Mata el worker y los procesos que haya lanzado el script (cancelación)
+     * El pool lo reemplaza cuando se le devuelve muerto
+     */
+    public void kill() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Envía una trama al worker (seguro entre hilos)
+     */
+    public void sendFrame(int type, int id, byte[] payload) throws IOException {
+        synchronized (stdin) {
+            BridgeFrame.write(stdin, type, id, payload);
+            stdin.flush();
+        }
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private void readLoop() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(process.getInputStream()))) {
+            BridgeFrame frame;
+            while ((frame = BridgeFrame.read(in)) != null) {
+                try {
+                    handleFrame(frame);
+                } catch (RuntimeException e) {
+                    // Una trama mal formada no debe dejar al worker sin lector
+                    LOGGER.warn("[worker {}] error al procesar la trama {} ({})", index, frame.type, frame.id, e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Canal del worker {} cerrado", index, e);
+        } finally {
+            failPending();
+        }
+    }
+
+    /**
+     * Sin lector nadie completará lo pendiente: falla todo lo que espera una trama
+     */
+    private void failPending() {
+        readerExited = true;
+        IOException closed = new IOException("Worker " + index + " finalizado");
+        ready.completeExceptionally(closed);
+        CompletableFuture<Integer> result = currentResult;
+        if (result != null) {
+            result.completeExceptionally(closed);
+        }
+        CompletableFuture<Void> pong = pendingPing;
+        if (pong != null) {
+            pong.completeExceptionally(closed);
+        }
+        replies.values().forEach(reply -> reply.completeExceptionally(closed));
+        replies.clear();
+    }
+
+    private void handleFrame(BridgeFrame frame) {
+        switch (frame.type) {
+            case BridgeFrame.READY:
+                ready.complete(null);
+                break;
+            case BridgeFrame.PONG:
+                CompletableFuture<Void> pong = pendingPing;
+                if (pong != null) {
+                    pong.complete(null);
+                }
+                break;
+            case BridgeFrame.OUT:
+            case BridgeFrame.ERR:
+                ConsoleBuffer.Channel output = outputs.get(frame.id);
+                if (output != null) {
+                    output.append(frame.type == BridgeFrame.ERR ? ConsoleBuffer.STDERR : ConsoleBuffer.STDOUT,
+                        (String) frame.value());
+                }
+                break;
+            case BridgeFrame.DONE:
+                CompletableFuture<Integer> result = currentResult;
+                if (result != null && frame.id == currentRunId) {
+                    result.complete(((Number) frame.value()).intValue());
+                }
+                break;
+            case BridgeFrame.REPLY:
+                CompletableFuture<Object> reply = replies.remove(frame.id);
+                if (reply != null) {
+                    reply.complete(frame.value());
+                }
+                break;
+            case BridgeFrame.PROFILE_DATA:
+                ScriptProfiler.accept(this, frame.value());
+                break;
+            case BridgeFrame.CALL:
+            case BridgeFrame.BATCH:
+                EngineBridge.submit(this, frame);
+                break;
+            default:
+                LOGGER.debug("[worker {}] trama desconocida: {}", index, frame.type);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.core.PythonExecutor;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de workers Python precalentados
+ * Se arranca al cargar el mundo y se reutiliza entre ejecuciones de scripts,
+ * evitando pagar el arranque del intérprete en cada "Ejecutar".
+ *
+ * Configuración (propiedades de sistema):
+ * - pythonmc.workers: número de workers (por defecto: núcleos / 2, entre 1 y 4)
+ * - pythonmc.warmImports: módulos a importar al arrancar (separados por comas)
+ */
+public class PythonWorkerPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PythonWorkerPool.class);
+
+    private static final long STARTUP_TIMEOUT_MS = 10_000;
+    private static final long HEALTH_CHECK_INTERVAL_S = 15;
+    private static final long PING_TIMEOUT_MS = 2_000;
+    private static final String DEFAULT_WARM_IMPORTS = "json,math,random,collections,pythonmc";
+
+    private static final BlockingQueue<PythonWorker> IDLE = new LinkedBlockingQueue<>();
+    private static final List<PythonWorker> ALL = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger PENDING_SPAWNS = new AtomicInteger();
+    // Índices para workers nuevos (no sustitutos): nunca repite uno vivo
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    private static ScheduledExecutorService healthChecker;
+    private static volatile boolean running = false;
+    private static String pythonExe;
+    private static File pythonPath;
+    private static File runtimeFolder;
+    private static List<String> warmImports;
+
+    /**
+     * Arranca el pool para el mundo cargado
+     */
+    public static synchronized void start(Level world) {
+        if (running) {
+            return;
+        }
+
+        try {
+            runtimeFolder = PythonRuntimeFiles.getRuntimeFolder(world);
+            pythonPath = PythonRuntimeFiles.extract(runtimeFolder);
+        } catch (IOException e) {
+            LOGGER.error("No se pudo preparar el runtime Python", e);
+            return;
+        }
+
+        pythonExe = PythonExecutor.resolvePythonExecutable();
+        warmImports = parseWarmImports();
+        running = true;
+
+        int size = resolvePoolSize();
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PythonMC-WorkerPool");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Arrancar los workers en segundo plano para no bloquear la carga del mundo
+        NEXT_INDEX.set(0);
+        for (int i = 0; i < size; i++) {
+            scheduleSpawn(NEXT_INDEX.getAndIncrement());
+        }
+        healthChecker.scheduleWithFixedDelay(PythonWorkerPool::checkHealth,
+            HEALTH_CHECK_INTERVAL_S, HEALTH_CHECK_INTERVAL_S, TimeUnit.SECONDS);
+
+        LOGGER.info("Pool de workers Python iniciado: {} workers con '{}'", size, pythonExe);
+    }
+
+    /**
+     * Detiene todos los workers del pool
+     */
+    public static synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+
+        for (PythonWorker worker : ALL) {
+            worker.shutdown();
+        }
+        ALL.clear();
+        IDLE.clear();
+
+        LOGGER.info("Pool de workers Python detenido");
+    }
+
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Toma un worker libre, esperando como máximo timeoutMs
+     * Devuelve null si no hay ninguno disponible a tiempo
+     */
+    public static PythonWorker acquire(long timeoutMs) throws InterruptedException {
+        if (!running) {
+            return null;
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (running) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+
+            PythonWorker worker = IDLE.poll(remaining, TimeUnit.MILLISECONDS);
+            if (worker == null) {
+                return null;
+            }
+            if (worker.isAlive()) {
+                return worker;
+            }
+            replaceWorker(worker);
+        }
+        return null;
+    }
+
+    /**
+     * Devuelve un worker al pool; si ha muerto se lanza uno nuevo
+     */
+    public static void release(PythonWorker worker) {
+        if (worker == null) {
+            return;
+        }
+        if (!running) {
+            worker.shutdown();
+            return;
+        }
+        if (worker.isAlive()) {
+            IDLE.offer(worker);
+        } else {
+            replaceWorker(worker);
+        }
+    }
+
+    /**
+     * Todos los workers arrancados, libres u ocupados
+     */
+    public static List<PythonWorker> getWorkers() {
+        return new ArrayList<>(ALL);
+    }
+
+    public static int getWorkerCount() {
+        return ALL.size();
+    }
+
+    /**
+     * Tamaño configurado del pool, aunque los workers aún estén arrancando
+     */
+    public static int getPoolSize() {
+        return resolvePoolSize();
+    }
+
+    public static int getIdleCount() {
+        return IDLE.size();
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static int resolvePoolSize() {
+        String prop = System.getProperty("pythonmc.workers");
+        if (prop != null && !prop.isEmpty()) {
+            try {
+                return Math.max(1, Integer.parseInt(prop.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("pythonmc.workers inválido: {}", prop);
+            }
+        }
+
+        // Dejar la mitad de los núcleos al servidor
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(4, cores / 2));
+    }
+
+    private static List<String> parseWarmImports() {
+        String prop = System.getProperty("pythonmc.warmImports", DEFAULT_WARM_IMPORTS);
+        List<String> modules = new ArrayList<>();
+        for (String module : Arrays.asList(prop.split(","))) {
+            if (!module.trim().isEmpty()) {
+                modules.add(module.trim());
+            }
+        }
+        return modules;
+    }
+
+    private static void scheduleSpawn(int index) {
+        ScheduledExecutorService executor = healthChecker;
+        if (running && executor != null) {
+            PENDING_SPAWNS.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    spawnWorker(index);
+                } finally {
+                    PENDING_SPAWNS.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static void spawnWorker(int index) {
+        if (!running) {
+            return;
+        }
+
+        try {
+            PythonWorker worker = PythonWorker.start(index, pythonExe, pythonPath, runtimeFolder,
+                warmImports, STARTUP_TIMEOUT_MS);
+            if (!running) {
+                worker.shutdown();
+                return;
+            }
+            ALL.add(worker);
+            IDLE.offer(worker);
+        } catch (IOException e) {
+            LOGGER.error("No se pudo arrancar el worker Python {}", index, e);
+        }
+    }
+
+    private static void replaceWorker(PythonWorker dead) {
+        ALL.remove(dead);
+        IDLE.remove(dead);
+        dead.shutdown();
+
+        LOGGER.warn("Worker Python {} caído, relanzando", dead.getIndex());
+        scheduleSpawn(dead.getIndex());
+    }
+
+    /**
+     * Hace ping a los workers libres y reemplaza los que no responden
+     */
+    private static void checkHealth() {
+        List<PythonWorker> idle = new ArrayList<>();
+        IDLE.drainTo(idle);
+
+        for (PythonWorker worker : idle) {
+            if (worker.ping(PING_TIMEOUT_MS)) {
+                IDLE.offer(worker);
+            } else {
+                replaceWorker(worker);
+            }
+        }
+
+        // Reponer workers perdidos (por ejemplo si falló un arranque)
+        int missing = resolvePoolSize() - ALL.size() - PENDING_SPAWNS.get();
+        for (int i = 0; i < missing; i++) {
+            scheduleSpawn(NEXT_INDEX.getAndIncrement());
+        }
+    }
+}
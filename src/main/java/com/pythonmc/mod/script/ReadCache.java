@@ -0,0 +1,241 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.PythonMCMod;
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pythonmc.mod.script.BridgeArgs.integer;
+import static com.pythonmc.mod.script.BridgeArgs.node;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Versiones y digest de cambios para la caché de lecturas de los workers (ver pythonmc/readcache.py)
+ *
+ * Un worker activa la caché con "cache.enable" la primera vez que lee algo
+ * cacheable. Desde entonces recibe al inicio de cada tick una trama DIGEST
+ * con lo que cambió desde la anterior: los nodos cuyo contador de
+ * modificaciones (Node.getVersion) avanzó, con la versión nueva, los nodos
+ * eliminados y los bloques que cambiaron. Las lecturas cacheables se piden con
+ * "cache.node" y "cache.block", que devuelven también la versión del valor;
+ * el worker las sirve sin salir del proceso hasta que un digest las invalida.
+ *
+ * El digest se envía aunque esté vacío: es lo que dice al worker que su caché
+ * sigue al día. Si un tick cambia más de MAX_CHANGES cosas se envía "full" y
+ * el worker vacía la caché entera.
+ *
+ * Los bloques cambiados salen de BlockEvent.NeighborNotifyEvent: un setBlock
+ * sin UPDATE_NEIGHBORS (comandos, estructuras, algunos mods) no lo dispara.
+ * Para eso está "cache.invalidate", que vacía esta caché en todos los workers
+ * con el siguiente digest y también la de RegionReader.
+ */
+public final class ReadCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadCache.class);
+    private static final int MAX_CHANGES = 4096;
+    // Lecturas de nodo que se pueden cachear: dependen solo del estado del nodo (node.get lleva
+    // la ruta y el padre, y node.children el estado de los hijos, así que no entran)
+    private static final Set<String> NODE_READS = Set.of("node.get_transform", "node.get_script");
+
+    private static final Set<PythonWorker> WORKERS = ConcurrentHashMap.newKeySet();
+    private static final Set<BlockPos> CHANGED_BLOCKS = ConcurrentHashMap.newKeySet();
+    // Id del nodo -> {versión publicada, generación}; solo desde el hilo del servidor
+    private static final Map<String, long[]> PUBLISHED = new HashMap<>();
+
+    private static volatile long sequence;
+    // Sin versiones de referencia el primer digest es "full"; solo desde el hilo del servidor
+    private static boolean baseline;
+    // "cache.invalidate": el siguiente digest es "full"
+    private static volatile boolean invalidateAll;
+
+    private static final AtomicLong DIGESTS = new AtomicLong();
+    private static final AtomicLong NODES_CHANGED = new AtomicLong();
+    private static final AtomicLong BLOCKS_CHANGED = new AtomicLong();
+    private static final AtomicLong FULL = new AtomicLong();
+
+    private ReadCache() {
+    }
+
+    static void register() {
+        EngineBridge.registerWorkerMethod("cache.enable", (worker, args) -> {
+            if (worker != null) {
+                WORKERS.add(worker);
+            }
+            return sequence;
+        });
+        EngineBridge.register("cache.node", (level, args) -> {
+            String method = string(args, 0);
+            if (!NODE_READS.contains(method)) {
+                throw new IllegalArgumentException("Lectura no cacheable: " + method);
+            }
+            Node node = node(args, 1);
+            // Versión antes de leer: si el valor cambia después, el digest lo invalida
+            long version = node.getVersion();
+            return Arrays.asList(version, EngineBridge.call(method, List.<Object>of(node.getId())));
+        });
+        EngineBridge.register("cache.block", (level, args) -> Arrays.asList(sequence,
+            blockId(level, new BlockPos(integer(args, 0), integer(args, 1), integer(args, 2)))));
+        EngineBridge.register("world.get_block", (level, args) ->
+            blockId(level, new BlockPos(integer(args, 0), integer(args, 1), integer(args, 2))));
+        EngineBridge.registerOffThread("cache.invalidate", (level, args) -> {
+            invalidate();
+            RegionReader.invalidate();
+            return null;
+        });
+    }
+
+    /**
+     * Vacía la caché de bloques y nodos de todos los workers con el siguiente digest
+     */
+    public static void invalidate() {
+        invalidateAll = true;
+    }
+
+    /**
+     * Envía el digest del tick a los workers con la caché activa; en el hilo del
+     * servidor, antes de que corran los update()
+     */
+    public static void publish(ServerLevel level) {
+        if (WORKERS.isEmpty() || level == null) {
+            PUBLISHED.clear();
+            CHANGED_BLOCKS.clear();
+            baseline = false;
+            return;
+        }
+
+        List<Object> nodes = new ArrayList<>();
+        List<Object> removed = new ArrayList<>();
+        long generation = sequence + 1;
+        Node root = NodeRegistry.getRoot(level);
+        if (root != null) {
+            ArrayDeque<Node> pending = new ArrayDeque<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                pending.addAll(node.getChildren());
+                long[] published = PUBLISHED.computeIfAbsent(node.getId(), id -> new long[] {-1, 0});
+                if (published[0] != node.getVersion()) {
+                    published[0] = node.getVersion();
+                    nodes.add(Arrays.asList(node.getId(), published[0]));
+                }
+                published[1] = generation;
+            }
+        }
+        Iterator<Map.Entry<String, long[]>> entries = PUBLISHED.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, long[]> entry = entries.next();
+            if (entry.getValue()[1] != generation) {
+                removed.add(entry.getKey());
+                entries.remove();
+            }
+        }
+
+        List<Integer> blocks = new ArrayList<>();
+        Iterator<BlockPos> changed = CHANGED_BLOCKS.iterator();
+        while (changed.hasNext()) {
+            BlockPos pos = changed.next();
+            changed.remove();
+            blocks.add(pos.getX());
+            blocks.add(pos.getY());
+            blocks.add(pos.getZ());
+        }
+
+        boolean full = !baseline || invalidateAll || nodes.size() + removed.size() + blocks.size() / 3 > MAX_CHANGES;
+        baseline = true;
+        invalidateAll = false;
+        sequence = generation;
+        Map<String, Object> digest = new LinkedHashMap<>();
+        digest.put("seq", generation);
+        digest.put("full", full);
+        if (!full) {
+            digest.put("nodes", nodes);
+            digest.put("removed", removed);
+            digest.put("blocks", blocks);
+            NODES_CHANGED.addAndGet(nodes.size() + removed.size());
+            BLOCKS_CHANGED.addAndGet(blocks.size() / 3);
+        } else {
+            FULL.incrementAndGet();
+        }
+        DIGESTS.incrementAndGet();
+
+        byte[] payload = BridgeCodec.encode(digest);
+        for (PythonWorker worker : WORKERS) {
+            if (!worker.isAlive()) {
+                WORKERS.remove(worker);
+                continue;
+            }
+            try {
+                worker.sendFrame(BridgeFrame.DIGEST, 0, payload);
+            } catch (IOException e) {
+                LOGGER.debug("No se pudo enviar el digest al worker {}", worker.getIndex(), e);
+                WORKERS.remove(worker);
+            }
+        }
+    }
+
+    public static void clear() {
+        WORKERS.clear();
+        CHANGED_BLOCKS.clear();
+        PUBLISHED.clear();
+        baseline = false;
+    }
+
+    /**
+     * Digests enviados, nodos y bloques invalidados y vaciados completos
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("workers", (long) WORKERS.size());
+        metrics.put("digests", DIGESTS.get());
+        metrics.put("nodes_changed", NODES_CHANGED.get());
+        metrics.put("blocks_changed", BLOCKS_CHANGED.get());
+        metrics.put("full", FULL.get());
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Id del bloque, o null si su chunk no está cargado (no se carga por una lectura; el
+     * worker no guarda los null porque la carga del chunk no pasa por el digest)
+     */
+    private static String blockId(ServerLevel level, BlockPos pos) {
+        if (!level.isLoaded(pos)) {
+            return null;
+        }
+        return BuiltInRegistries.BLOCK.getKey(level.getBlockState(pos).getBlock()).toString();
+    }
+
+    @Mod.EventBusSubscriber(modid = PythonMCMod.MOD_ID)
+    public static class ForgeEvents {
+
+        /**
+         * Llega tras cada setBlock que avisa a los vecinos: colocar, romper, fluidos, explosiones...
+         */
+        @SubscribeEvent
+        public static void onBlockChanged(BlockEvent.NeighborNotifyEvent event) {
+            if (!WORKERS.isEmpty() && event.getLevel() == EngineBridge.getWorld()) {
+                CHANGED_BLOCKS.add(event.getPos().immutable());
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.pythonmc.mod.script;
+
+import com.google.gson.JsonObject;
+import com.pythonmc.mod.core.ConsoleBuffer;
+import com.pythonmc.mod.core.ScriptEvents;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pythonmc.mod.script.BridgeArgs.integer;
+import static com.pythonmc.mod.script.BridgeArgs.list;
+import static com.pythonmc.mod.script.BridgeArgs.map;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Generación en paralelo por regiones (ver pythonmc/generators.py)
+ *
+ * Un generador que define generate_region(region, **args) se puede lanzar con
+ * Engine.generate_parallel: "gen.parallel" parte la caja en regiones de
+ * regionChunks x regionChunks chunks alineadas con la rejilla de chunks, en
+ * orden de chunk (z y luego x), y reparte las que no están en GeneratorCache
+ * entre workers libres del pool con tramas GENERATE, una región por worker a
+ * la vez. Cada región se guarda en la caché con su propia clave.
+ *
+ * Las listas de operaciones se colocan en orden de chunk: en cuanto las
+ * regiones anteriores están listas se encolan en MutationQueue, cada región
+ * en sus propios lotes (sus refs "$n" son suyas), así que la estructura
+ * empieza a aparecer antes de que termine la última región. Cada región
+ * informa de su progreso en la consola del script que la pidió. Si una región
+ * falla, o se rechaza alguno de sus lotes, la llamada falla; lo ya aplicado
+ * se queda.
+ */
+public final class RegionGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegionGenerator.class);
+    private static final int MAX_REGIONS = 4096;
+    private static final int MAX_REGION_CHUNKS = 32;
+    private static final long FIRST_WORKER_TIMEOUT_MS = 5_000;
+    private static final long REGION_TIMEOUT_MS = 120_000;
+    private static final long SETTLE_TIMEOUT_MS = 30_000;
+
+    private static final AtomicLong CALLS = new AtomicLong();
+    private static final AtomicLong REGIONS = new AtomicLong();
+    private static final AtomicLong REGIONS_CACHED = new AtomicLong();
+    private static final AtomicLong CALLS_FAILED = new AtomicLong();
+    private static final AtomicLong WORKERS_USED = new AtomicLong();
+
+    private RegionGenerator() {
+    }
+
+    static void register() {
+        EngineBridge.registerWorkerMethod("gen.parallel", (worker, args) -> generate(worker, string(args, 0),
+            list(args, 1), integer(args, 2), integer(args, 3), map(args, 4)));
+    }
+
+    /**
+     * Genera la caja por regiones en varios workers y encola el resultado en orden de chunk:
+     * {"regions", "cached", "ops", "batches", "pending", "workers", "ms"}. Espera a que se
+     * apliquen los lotes ("pending" son los que aún no se aplicaron), así que no se puede
+     * llamar desde el hilo del servidor (un BATCH o el backend GraalPy): congelaría el tick
+     */
+    public static Map<String, Object> generate(PythonWorker caller, String script, List<Object> box,
+                                               int regionChunks, int maxWorkers, Map<?, ?> arguments) {
+        if (box.size() != 6) {
+            throw new IllegalArgumentException("La caja debe ser [x0, y0, z0, x1, y1, z1]");
+        }
+        if (regionChunks < 1 || regionChunks > MAX_REGION_CHUNKS) {
+            throw new IllegalArgumentException("region_chunks debe estar entre 1 y " + MAX_REGION_CHUNKS);
+        }
+        long start = System.nanoTime();
+        ServerLevel level = EngineBridge.getWorld();
+        if (level != null && level.getServer().isSameThread()) {
+            throw new IllegalStateException("gen.parallel no se puede usar dentro de un batch ni desde el hilo"
+                + " del servidor: usa Engine.generate_parallel fuera de with Engine.batch()");
+        }
+        File root = GeneratorCache.scriptsFolder(level);
+        File cache = GeneratorCache.cacheFolder(level);
+        File file = GeneratorCache.resolve(root, script);
+        String sourceHash = GeneratorCache.sourceHash(file);
+        List<int[]> regions = split(box, regionChunks);
+        CALLS.incrementAndGet();
+        REGIONS.addAndGet(regions.size());
+
+        ConsoleBuffer.Channel channel = caller != null ? caller.getCurrentOutput() : null;
+        if (channel == null) {
+            channel = ConsoleBuffer.focused();
+        }
+
+        int count = regions.size();
+        String[] keys = new String[count];
+        List<List<Object>> results = new ArrayList<>(count);
+        Queue<Integer> pending = new ArrayDeque<>();
+        int cached = 0;
+        for (int i = 0; i < count; i++) {
+            keys[i] = GeneratorCache.key(sourceHash, regionArguments(arguments, regions.get(i)));
+            List<Object> ops = GeneratorCache.find(cache, root, keys[i]);
+            results.add(ops != null ? sortByChunk(ops) : null);
+            if (ops != null) {
+                cached++;
+            } else {
+                pending.add(i);
+            }
+        }
+        REGIONS_CACHED.addAndGet(cached);
+
+        Placement placement = new Placement(results);
+        if (cached > 0) {
+            report(channel, cached, count, cached + " regiones de la caché");
+        }
+        placement.placeReady();
+
+        List<PythonWorker> helpers = new ArrayList<>();
+        Map<PythonWorker, Integer> handles = new HashMap<>();
+        Map<PythonWorker, Integer> busy = new HashMap<>();
+        boolean failed = true;
+        try {
+            if (!pending.isEmpty()) {
+                acquireHelpers(helpers, Math.min(pending.size(),
+                    maxWorkers > 0 ? maxWorkers : PythonWorkerPool.getWorkerCount()));
+                WORKERS_USED.addAndGet(helpers.size());
+
+                BlockingQueue<Completion> done = new LinkedBlockingQueue<>();
+                for (PythonWorker helper : helpers) {
+                    handles.put(helper, helper.openHandle(channel));
+                    dispatch(helper, pending, busy, handles, file, root, regions, arguments, done);
+                }
+
+                int finished = cached;
+                while (!busy.isEmpty()) {
+                    Completion completion = done.poll(REGION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (completion == null) {
+                        throw new IllegalStateException("Una región tardó más de " + REGION_TIMEOUT_MS / 1000
+                            + " s en generarse");
+                    }
+                    busy.remove(completion.worker);
+                    int index = completion.region;
+                    Map<?, ?> reply = completion.reply(index, regions.get(index));
+
+                    List<Object> ops = asList(reply.get("ops"));
+                    if (sourceHash.equals(reply.get("source"))) {
+                        GeneratorCache.save(cache, root, keys[index], ops, asList(reply.get("deps")));
+                    }
+                    results.set(index, sortByChunk(ops));
+                    finished++;
+                    report(channel, finished, count, String.format("región %d/%d (%s): %d ops, %.0f ms, worker %d",
+                        index + 1, count, describe(regions.get(index)), ops.size(),
+                        ((Number) reply.get("ms")).doubleValue(), completion.worker.getIndex()));
+                    placement.placeReady();
+                    dispatch(completion.worker, pending, busy, handles, file, root, regions, arguments, done);
+                }
+            }
+            failed = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación en paralelo interrumpida");
+        } finally {
+            if (failed) {
+                CALLS_FAILED.incrementAndGet();
+                // Un worker a mitad de región seguiría generando para nadie
+                busy.keySet().forEach(PythonWorker::kill);
+            }
+            handles.forEach(PythonWorker::closeHandle);
+            helpers.forEach(PythonWorkerPool::release);
+        }
+
+        int unsettled = placement.awaitApplied();
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("regions", count);
+        reply.put("cached", cached);
+        reply.put("ops", placement.ops);
+        reply.put("batches", placement.batches);
+        reply.put("pending", unsettled);
+        reply.put("workers", helpers.size());
+        reply.put("ms", (System.nanoTime() - start) / 1_000_000.0);
+        return reply;
+    }
+
+    /**
+     * Llamadas, regiones pedidas, regiones de la caché, llamadas fallidas y workers usados
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("calls", CALLS.get());
+        metrics.put("regions", REGIONS.get());
+        metrics.put("regions_cached", REGIONS_CACHED.get());
+        metrics.put("failed", CALLS_FAILED.get());
+        metrics.put("workers_used", WORKERS_USED.get());
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Regiones [x0, y0, z0, x1, y1, z1] (inclusivas) alineadas con los chunks, en orden de chunk
+     */
+    private static List<int[]> split(List<Object> box, int regionChunks) {
+        int[] values = new int[6];
+        for (int i = 0; i < 6; i++) {
+            values[i] = ((Number) box.get(i)).intValue();
+        }
+        int minX = Math.min(values[0], values[3]), maxX = Math.max(values[0], values[3]);
+        int minY = Math.min(values[1], values[4]), maxY = Math.max(values[1], values[4]);
+        int minZ = Math.min(values[2], values[5]), maxZ = Math.max(values[2], values[5]);
+
+        int size = regionChunks * 16;
+        int firstX = Math.floorDiv(minX >> 4, regionChunks), lastX = Math.floorDiv(maxX >> 4, regionChunks);
+        int firstZ = Math.floorDiv(minZ >> 4, regionChunks), lastZ = Math.floorDiv(maxZ >> 4, regionChunks);
+        long total = (long) (lastX - firstX + 1) * (lastZ - firstZ + 1);
+        if (total > MAX_REGIONS) {
+            throw new IllegalArgumentException("La caja se parte en " + total + " regiones (máximo " + MAX_REGIONS
+                + "); usa un region_chunks mayor");
+        }
+
+        List<int[]> regions = new ArrayList<>((int) total);
+        for (int rz = firstZ; rz <= lastZ; rz++) {
+            for (int rx = firstX; rx <= lastX; rx++) {
+                regions.add(new int[]{
+                    Math.max(minX, rx * size), minY, Math.max(minZ, rz * size),
+                    Math.min(maxX, rx * size + size - 1), maxY, Math.min(maxZ, rz * size + size - 1)
+                });
+            }
+        }
+        return regions;
+    }
+
+    private static Map<String, Object> regionArguments(Map<?, ?> arguments, int[] region) {
+        Map<String, Object> withRegion = new LinkedHashMap<>();
+        arguments.forEach((key, value) -> withRegion.put(String.valueOf(key), value));
+        withRegion.put("__region__", toList(region));
+        return withRegion;
+    }
+
+    /**
+     * Toma hasta wanted workers libres: espera al primero, los demás solo si ya están libres
+     */
+    private static void acquireHelpers(List<PythonWorker> helpers, int wanted) throws InterruptedException {
+        PythonWorker first = PythonWorkerPool.acquire(FIRST_WORKER_TIMEOUT_MS);
+        if (first == null) {
+            throw new IllegalStateException("No hay workers libres para generar en paralelo");
+        }
+        helpers.add(first);
+        while (helpers.size() < wanted) {
+            PythonWorker worker = PythonWorkerPool.acquire(1);
+            if (worker == null) {
+                break;
+            }
+            helpers.add(worker);
+        }
+    }
+
+    private static void dispatch(PythonWorker worker, Queue<Integer> pending, Map<PythonWorker, Integer> busy,
+                                 Map<PythonWorker, Integer> handles, File file, File root, List<int[]> regions,
+                                 Map<?, ?> arguments, BlockingQueue<Completion> done) {
+        Integer index = pending.poll();
+        if (index == null) {
+            return;
+        }
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("handle", handles.get(worker));
+        request.put("path", file.getAbsolutePath());
+        request.put("root", root.getAbsolutePath());
+        request.put("region", toList(regions.get(index)));
+        request.put("args", arguments);
+        busy.put(worker, index);
+        worker.request(BridgeFrame.GENERATE, request)
+            .whenComplete((reply, error) -> done.add(new Completion(worker, index, reply, error)));
+    }
+
+    /**
+     * Ordena las operaciones de bloque por chunk (z y luego x) sin cambiar el orden dentro
+     * de cada chunk; las demás operaciones van al final en su orden
+     */
+    private static List<Object> sortByChunk(List<Object> ops) {
+        List<Object> sorted = new ArrayList<>(ops);
+        sorted.sort(Comparator.comparingLong(RegionGenerator::chunkOrder));
+        return sorted;
+    }
+
+    private static long chunkOrder(Object op) {
+        if (op instanceof List<?> values && values.size() >= 4 && "block".equals(values.get(0))
+            && values.get(1) instanceof Number x && values.get(3) instanceof Number z) {
+            long chunkX = Math.floorDiv((long) Math.floor(x.doubleValue()), 16L);
+            long chunkZ = Math.floorDiv((long) Math.floor(z.doubleValue()), 16L);
+            return (chunkZ << 32) + chunkX;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static void report(ConsoleBuffer.Channel channel, int done, int total, String message) {
+        JsonObject record = new JsonObject();
+        record.addProperty("t", "progress");
+        record.addProperty("d", done);
+        record.addProperty("n", total);
+        record.addProperty("m", message);
+        channel.out(ScriptEvents.PREFIX + record.toString());
+        channel.system("[gen] " + message);
+    }
+
+    private static String describe(int[] region) {
+        return "x " + region[0] + ".." + region[3] + ", z " + region[2] + ".." + region[5];
+    }
+
+    private static List<Object> toList(int[] values) {
+        List<Object> list = new ArrayList<>(values.length);
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value) {
+        if (!(value instanceof List<?>)) {
+            throw new IllegalArgumentException("Respuesta de región sin lista: " + value);
+        }
+        return (List<Object>) value;
+    }
+
+    /**
+     * Encola las regiones terminadas en orden: una región solo se coloca cuando
+     * todas las anteriores ya lo están. Cada región va en sus propios lotes: las
+     * refs de dos regiones se llaman igual y no pueden compartir lote
+     */
+    private static final class Placement {
+        private final List<List<Object>> results;
+        private final List<Integer> batches = new ArrayList<>();
+        private final List<CompletableFuture<Map<String, Object>>> settled = new ArrayList<>();
+        private int next = 0;
+        private long ops = 0;
+
+        Placement(List<List<Object>> results) {
+            this.results = results;
+        }
+
+        void placeReady() {
+            while (next < results.size() && results.get(next) != null) {
+                List<Object> ready = results.get(next);
+                // Ya encolada: no hace falta conservarla
+                results.set(next, List.of());
+                next++;
+                if (!ready.isEmpty()) {
+                    for (int id : MutationQueue.submitAll(ready)) {
+                        batches.add(id);
+                        // Se pide ya: MutationQueue solo conserva los últimos estados
+                        settled.add(MutationQueue.settled(id));
+                    }
+                    ops += ready.size();
+                }
+            }
+        }
+
+        /**
+         * Espera a que se apliquen los lotes; falla si alguno se rechazó. Devuelve los que
+         * siguen pendientes al agotar el tiempo
+         */
+        int awaitApplied() {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SETTLE_TIMEOUT_MS);
+            List<String> errors = new ArrayList<>();
+            int unsettled = 0;
+            for (int i = 0; i < settled.size(); i++) {
+                Map<String, Object> status;
+                try {
+                    status = settled.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    unsettled++;
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Generación en paralelo interrumpida");
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Lote " + batches.get(i) + ": " + e.getCause());
+                }
+                Object state = status.get("state");
+                if ("rejected".equals(state) || "failed".equals(state)) {
+                    errors.add("lote " + batches.get(i) + " " + state + ": " + status.get("error"));
+                }
+            }
+            if (!errors.isEmpty()) {
+                CALLS_FAILED.incrementAndGet();
+                throw new IllegalStateException(errors.size() + " de " + batches.size()
+                    + " lotes no se aplicaron (" + errors.get(0) + (errors.size() > 1 ? ", ..." : "") + ")");
+            }
+            return unsettled;
+        }
+    }
+
+    private record Completion(PythonWorker worker, int region, Object reply, Throwable error) {
+        Map<?, ?> reply(int index, int[] bounds) {
+            if (error != null) {
+                LOGGER.warn("Región {} sin respuesta del worker {}", index + 1, worker.getIndex(), error);
+                throw new IllegalStateException("La región " + describe(bounds) + " no respondió: "
+                    + error.getMessage());
+            }
+            if (!(reply instanceof Map<?, ?> values)) {
+                throw new IllegalStateException("Respuesta de región ilegible: " + reply);
+            }
+            if (values.get("error") != null) {
+                throw new IllegalStateException("La región " + describe(bounds) + " falló: " + values.get("error"));
+            }
+            return values;
+        }
+    }
+}
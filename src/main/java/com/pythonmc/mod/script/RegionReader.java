@@ -0,0 +1,392 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.PythonMCMod;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pythonmc.mod.script.BridgeArgs.integer;
+
+/**
+ * Lectura de bloques por cajas para los scripts (ver pythonmc/regions.py)
+ *
+ * "world.read_region" corre en el hilo del servidor y solo copia las secciones
+ * de chunk (16x16x16) que toca la caja: PalettedContainer.copy() de cada una,
+ * salvo las que ya están codificadas con la misma versión y las que son solo
+ * aire. Devuelve un ticket. "world.region_data" codifica esas copias fuera
+ * del hilo del servidor: por sección, una paleta de ids de bloque y 4096
+ * índices (u8 si la paleta cabe, u16 little-endian si no; ninguno si la
+ * sección tiene un solo bloque) en orden y, z, x.
+ *
+ * Los índices se escriben en un archivo mapeado por worker
+ * (.runtime/regions-índice-generación.bin) que Python lee sin copiar; la
+ * respuesta lleva la ruta y el offset de cada sección. Las lecturas desde un
+ * backend sin worker (GraalPy) reciben los bytes en la respuesta.
+ *
+ * Cada sección tiene un contador de versión que sube con cada cambio de
+ * bloque que avisa a los vecinos; las codificaciones se guardan con esa
+ * versión (y la sección de la que salieron, por si el chunk se recargó)
+ * hasta MAX_CACHE_BYTES, así que repetir una lectura sobre terreno sin
+ * cambios no vuelve a recorrer sus bloques. Un setBlock sin UPDATE_NEIGHBORS
+ * no sube la versión: invalidate() (o "cache.invalidate") descarta todas las
+ * codificaciones.
+ */
+public final class RegionReader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegionReader.class);
+    private static final int SECTION_BLOCKS = 4096;
+    private static final int MAX_SECTIONS = 8192;
+    private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final long TICKET_TTL_NS = 30_000_000_000L;
+    private static final long MIN_FILE_SIZE = 1L << 20;
+    private static final String AIR = "minecraft:air";
+    private static final Encoded ONLY_AIR = new Encoded(0, null, List.of(AIR), 0, new byte[0]);
+
+    // Posición de la sección (SectionPos.asLong) -> número de cambios de bloque
+    private static final Map<Long, Long> VERSIONS = new ConcurrentHashMap<>();
+    // Codificaciones por posición de sección, la menos usada primero
+    private static final LinkedHashMap<Long, Encoded> CACHE = new LinkedHashMap<>(256, 0.75f, true);
+    private static final Map<Integer, Snapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+    private static final Map<Integer, MappedFile> FILES = new ConcurrentHashMap<>();
+    private static final AtomicInteger TICKETS = new AtomicInteger();
+    private static long cacheBytes;
+
+    private static final AtomicLong READS = new AtomicLong();
+    private static final AtomicLong SECTIONS = new AtomicLong();
+    private static final AtomicLong SECTION_HITS = new AtomicLong();
+    private static final AtomicLong SECTIONS_ENCODED = new AtomicLong();
+    private static final AtomicLong SECTIONS_UNLOADED = new AtomicLong();
+
+    private RegionReader() {
+    }
+
+    static void register() {
+        EngineBridge.register("world.read_region", (level, args) -> snapshot(level, integer(args, 0),
+            integer(args, 1), integer(args, 2), integer(args, 3), integer(args, 4), integer(args, 5)));
+        EngineBridge.registerWorkerMethod("world.region_data", (worker, args) -> encode(worker, integer(args, 0)));
+    }
+
+    /**
+     * Copia las secciones de la caja que no están en la caché; solo desde el hilo del servidor
+     * Devuelve el ticket para "world.region_data"
+     */
+    public static int snapshot(ServerLevel level, int x0, int y0, int z0, int x1, int y1, int z1) {
+        int minSx = SectionPos.blockToSectionCoord(Math.min(x0, x1));
+        int maxSx = SectionPos.blockToSectionCoord(Math.max(x0, x1));
+        int minSz = SectionPos.blockToSectionCoord(Math.min(z0, z1));
+        int maxSz = SectionPos.blockToSectionCoord(Math.max(z0, z1));
+        int minSy = Math.max(level.getMinSection(), SectionPos.blockToSectionCoord(Math.min(y0, y1)));
+        int maxSy = Math.min(level.getMaxSection() - 1, SectionPos.blockToSectionCoord(Math.max(y0, y1)));
+        long count = (long) (maxSx - minSx + 1) * (maxSz - minSz + 1) * Math.max(0, maxSy - minSy + 1);
+        if (count > MAX_SECTIONS) {
+            throw new IllegalArgumentException("La caja toca " + count + " secciones de chunk (máximo "
+                + MAX_SECTIONS + ")");
+        }
+        expireSnapshots();
+
+        List<SectionRead> reads = new ArrayList<>((int) count);
+        for (int sz = minSz; sz <= maxSz; sz++) {
+            for (int sx = minSx; sx <= maxSx; sx++) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(sx, sz);
+                for (int sy = minSy; sy <= maxSy; sy++) {
+                    reads.add(read(level, chunk, sx, sy, sz));
+                }
+            }
+        }
+        READS.incrementAndGet();
+        SECTIONS.addAndGet(reads.size());
+
+        int ticket = TICKETS.incrementAndGet();
+        SNAPSHOTS.put(ticket, new Snapshot(System.nanoTime(), Arrays.asList(x0, y0, z0, x1, y1, z1), reads));
+        return ticket;
+    }
+
+    /**
+     * Codifica las copias del ticket y las publica:
+     * {"box", "path", "sections": [[sx, sy, sz, paleta, ancho, offset | bytes]...]}
+     * El ancho es 0 (un solo bloque), 1 o 2 bytes por índice; paleta null si el chunk no estaba cargado
+     */
+    public static Map<String, Object> encode(PythonWorker worker, int ticket) {
+        Snapshot snapshot = SNAPSHOTS.remove(ticket);
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Lectura de región desconocida o caducada: " + ticket);
+        }
+
+        List<Encoded> encoded = new ArrayList<>(snapshot.reads.size());
+        long size = 0;
+        for (SectionRead read : snapshot.reads) {
+            Encoded section = read.cached;
+            if (section == null && read.states != null) {
+                section = encode(read.states, read.version, read.section);
+                store(read.key, section);
+                SECTIONS_ENCODED.incrementAndGet();
+            }
+            encoded.add(section);
+            size += section != null ? section.data.length : 0;
+        }
+
+        MappedFile file = worker != null ? mappedFile(worker.getIndex(), size) : null;
+        List<Object> sections = new ArrayList<>(encoded.size());
+        long offset = 0;
+        for (int i = 0; i < encoded.size(); i++) {
+            SectionRead read = snapshot.reads.get(i);
+            Encoded section = encoded.get(i);
+            if (section == null) {
+                sections.add(Arrays.asList(read.x, read.y, read.z, null, 0, 0));
+                continue;
+            }
+            Object data = section.data;
+            if (file != null) {
+                file.buffer.put((int) offset, section.data);
+                data = offset;
+                offset += section.data.length;
+            }
+            sections.add(Arrays.asList(read.x, read.y, read.z, section.palette, section.width, data));
+        }
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("box", snapshot.box);
+        reply.put("path", file != null ? file.path : null);
+        reply.put("sections", sections);
+        return reply;
+    }
+
+    /**
+     * Suelta los archivos mapeados, las copias pendientes y la caché (al descargar el mundo)
+     */
+    public static void close() {
+        SNAPSHOTS.clear();
+        VERSIONS.clear();
+        synchronized (CACHE) {
+            CACHE.clear();
+            cacheBytes = 0;
+        }
+        FILES.values().forEach(MappedFile::close);
+        FILES.clear();
+    }
+
+    /**
+     * Descarta las secciones codificadas: la siguiente lectura recorre los bloques
+     */
+    public static void invalidate() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            cacheBytes = 0;
+        }
+    }
+
+    /**
+     * Lecturas, secciones leídas, secciones servidas de la caché, codificadas y sin cargar
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("reads", READS.get());
+        metrics.put("sections", SECTIONS.get());
+        metrics.put("section_hits", SECTION_HITS.get());
+        metrics.put("sections_encoded", SECTIONS_ENCODED.get());
+        metrics.put("sections_unloaded", SECTIONS_UNLOADED.get());
+        synchronized (CACHE) {
+            metrics.put("cache_bytes", cacheBytes);
+        }
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static SectionRead read(ServerLevel level, LevelChunk chunk, int sx, int sy, int sz) {
+        long key = SectionPos.asLong(sx, sy, sz);
+        if (chunk == null) {
+            // No se carga un chunk por una lectura
+            SECTIONS_UNLOADED.incrementAndGet();
+            return new SectionRead(sx, sy, sz, key, null, 0, null, null);
+        }
+        LevelChunkSection section = chunk.getSections()[level.getSectionIndexFromSectionY(sy)];
+        if (section.hasOnlyAir()) {
+            SECTION_HITS.incrementAndGet();
+            return new SectionRead(sx, sy, sz, key, ONLY_AIR, 0, null, null);
+        }
+        long version = VERSIONS.getOrDefault(key, 0L);
+        Encoded cached;
+        synchronized (CACHE) {
+            cached = CACHE.get(key);
+        }
+        if (cached != null && cached.version == version && cached.section.get() == section) {
+            SECTION_HITS.incrementAndGet();
+            return new SectionRead(sx, sy, sz, key, cached, 0, null, null);
+        }
+        return new SectionRead(sx, sy, sz, key, null, version, section.getStates().copy(), section);
+    }
+
+    private static Encoded encode(PalettedContainer<BlockState> states, long version, LevelChunkSection section) {
+        Map<Block, Integer> indices = new IdentityHashMap<>();
+        List<String> palette = new ArrayList<>();
+        short[] values = new short[SECTION_BLOCKS];
+        for (int i = 0; i < SECTION_BLOCKS; i++) {
+            Block block = states.get(i & 15, i >> 8, (i >> 4) & 15).getBlock();
+            Integer index = indices.get(block);
+            if (index == null) {
+                index = palette.size();
+                indices.put(block, index);
+                palette.add(BuiltInRegistries.BLOCK.getKey(block).toString());
+            }
+            values[i] = (short) (int) index;
+        }
+
+        byte[] data;
+        int width;
+        if (palette.size() == 1) {
+            width = 0;
+            data = new byte[0];
+        } else if (palette.size() <= 256) {
+            width = 1;
+            data = new byte[SECTION_BLOCKS];
+            for (int i = 0; i < SECTION_BLOCKS; i++) {
+                data[i] = (byte) values[i];
+            }
+        } else {
+            width = 2;
+            data = new byte[SECTION_BLOCKS * 2];
+            for (int i = 0; i < SECTION_BLOCKS; i++) {
+                data[i * 2] = (byte) values[i];
+                data[i * 2 + 1] = (byte) (values[i] >> 8);
+            }
+        }
+        return new Encoded(version, new WeakReference<>(section), List.copyOf(palette), width, data);
+    }
+
+    private static void store(long key, Encoded section) {
+        synchronized (CACHE) {
+            Encoded previous = CACHE.put(key, section);
+            cacheBytes += section.data.length - (previous != null ? previous.data.length : 0);
+            Iterator<Encoded> oldest = CACHE.values().iterator();
+            while (cacheBytes > MAX_CACHE_BYTES && oldest.hasNext()) {
+                cacheBytes -= oldest.next().data.length;
+                oldest.remove();
+            }
+        }
+    }
+
+    private static void expireSnapshots() {
+        long now = System.nanoTime();
+        // Un worker que murió entre las dos llamadas deja su ticket sin recoger
+        SNAPSHOTS.values().removeIf(snapshot -> now - snapshot.created > TICKET_TTL_NS);
+    }
+
+    /**
+     * Archivo mapeado del worker con al menos size bytes; al crecer se crea uno
+     * nuevo (Python puede tener vistas sobre el anterior)
+     */
+    private static MappedFile mappedFile(int workerIndex, long size) {
+        MappedFile current = FILES.get(workerIndex);
+        if (current != null && current.size >= size) {
+            return current;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lectura de región demasiado grande: " + size + " bytes");
+        }
+        long capacity = Math.max(MIN_FILE_SIZE, Long.highestOneBit(Math.max(1, size - 1)) << 1);
+        int generation = current != null ? current.generation + 1 : 0;
+        File folder = PythonRuntimeFiles.getRuntimeFolder(EngineBridge.getWorld());
+        File target = new File(folder, "regions-" + workerIndex + "-" + generation + ".bin");
+        try {
+            MappedFile file = new MappedFile(target, capacity, generation);
+            FILES.put(workerIndex, file);
+            if (current != null) {
+                current.close();
+                if (!current.file.delete()) {
+                    current.file.deleteOnExit();
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo mapear " + target.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private record Encoded(long version, WeakReference<LevelChunkSection> section, List<String> palette, int width,
+                           byte[] data) {
+    }
+
+    /**
+     * Una sección de la lectura: ya codificada (cached), copiada para codificar (states) o sin cargar
+     */
+    private record SectionRead(int x, int y, int z, long key, Encoded cached, long version,
+                               PalettedContainer<BlockState> states, LevelChunkSection section) {
+    }
+
+    private record Snapshot(long created, List<Object> box, List<SectionRead> reads) {
+    }
+
+    private static final class MappedFile {
+        private final File file;
+        private final String path;
+        private final long size;
+        private final int generation;
+        private final RandomAccessFile handle;
+        private final MappedByteBuffer buffer;
+
+        MappedFile(File file, long size, int generation) throws IOException {
+            File folder = file.getParentFile();
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("No se pudo crear " + folder.getAbsolutePath());
+            }
+            this.file = file;
+            this.path = file.getAbsolutePath();
+            this.size = size;
+            this.generation = generation;
+            this.handle = new RandomAccessFile(file, "rw");
+            handle.setLength(size);
+            this.buffer = handle.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        void close() {
+            try {
+                handle.close();
+            } catch (IOException e) {
+                LOGGER.debug("Error al cerrar {}", path, e);
+            }
+        }
+    }
+
+    @Mod.EventBusSubscriber(modid = PythonMCMod.MOD_ID)
+    public static class ForgeEvents {
+
+        /**
+         * Un cambio de bloque deja vieja la codificación de su sección
+         */
+        @SubscribeEvent
+        public static void onBlockChanged(BlockEvent.NeighborNotifyEvent event) {
+            if (event.getLevel() == EngineBridge.getWorld()) {
+                int x = event.getPos().getX(), y = event.getPos().getY(), z = event.getPos().getZ();
+                VERSIONS.merge(SectionPos.asLong(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(y),
+                    SectionPos.blockToSectionCoord(z)), 1L, Long::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.pythonmc.mod.script;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.pythonmc.mod.core.ProjectManager;
+import com.pythonmc.mod.core.PythonExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Compilación de scripts en segundo plano (ver pythonmc/compiler.py)
+ *
+ * ScriptEditorPanel pide compilar cada script al guardarlo; la primera vez en
+ * un proyecto se encolan también el resto de scripts de filesproject/scripts.
+ * Un proceso Python persistente compila el fuente y guarda el bytecode en
+ * filesproject/.cache/bytecode con el sha256 del contenido como clave.
+ *
+ * Con el resultado, PythonExecutor rechaza al momento una ejecución cuyo
+ * contenido ya se sabe que no compila (sin lanzar ningún proceso) y
+ * PythonWorker pasa el .pyc al worker para que no vuelva a compilar.
+ */
+public final class ScriptCompiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptCompiler.class);
+    private static final Gson GSON = new Gson();
+
+    // Un solo hilo: las peticiones al proceso compilador van de una en una
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "PythonMC-ScriptCompiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, Result> BY_HASH = new ConcurrentHashMap<>();
+    private static final Map<String, Result> BY_PATH = new ConcurrentHashMap<>();
+    private static final Set<String> SCANNED_PROJECTS = ConcurrentHashMap.newKeySet();
+
+    // Solo desde el hilo del compilador
+    private static Process process;
+    private static BufferedWriter requests;
+    private static BufferedReader replies;
+
+    private ScriptCompiler() {
+    }
+
+    /**
+     * Resultado de compilar un contenido concreto; line y column empiezan en 1 (0 si no aplican)
+     */
+    public record Result(String hash, boolean ok, int line, int column, String message, File bytecode, double ms) {
+
+        public String describe() {
+            if (ok) {
+                return "Sin errores de sintaxis";
+            }
+            return line > 0 ? "Línea " + line + ", columna " + column + ": " + message : message;
+        }
+    }
+
+    /**
+     * Compila el script en segundo plano; el futuro da null si no se pudo compilar
+     */
+    public static CompletableFuture<Result> compileAsync(File script) {
+        CompletableFuture<Result> result = CompletableFuture.supplyAsync(() -> compileNow(script), EXECUTOR);
+
+        File projectRoot = ProjectManager.findProjectRoot(script);
+        File scriptsFolder = projectRoot != null ? new File(projectRoot, "scripts") : null;
+        if (scriptsFolder != null && scriptsFolder.isDirectory()
+                && SCANNED_PROJECTS.add(scriptsFolder.getAbsolutePath())) {
+            // Primer guardado del proyecto: el resto de scripts detrás del actual
+            for (File other : listScripts(scriptsFolder)) {
+                if (!other.equals(script)) {
+                    EXECUTOR.execute(() -> compileNow(other));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resultado fallido ya conocido para el contenido actual del script, o null
+     * (null también si no se ha compilado todavía: la ejecución sigue su curso)
+     */
+    public static Result findFailure(File script) {
+        Result known = lookup(script);
+        return known != null && !known.ok() ? known : null;
+    }
+
+    /**
+     * Bytecode cacheado para el contenido actual del script, o null
+     */
+    public static File getBytecode(File script) {
+        Result known = lookup(script);
+        return known != null && known.ok() && known.bytecode() != null && known.bytecode().isFile()
+            ? known.bytecode() : null;
+    }
+
+    /**
+     * Última compilación de este archivo (diagnóstico del editor), o null
+     */
+    public static Result getLastResult(File script) {
+        return script != null ? BY_PATH.get(script.getAbsolutePath()) : null;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static Result lookup(File script) {
+        try {
+            return BY_HASH.get(hash(script));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Result compileNow(File script) {
+        String path = script.getAbsolutePath();
+        try {
+            Result known = BY_HASH.get(hash(script));
+            // Un ok sin bytecode (respuesta sin ruta o caché editada) se vuelve a compilar
+            if (known != null && (!known.ok() || known.bytecode() != null && known.bytecode().isFile())) {
+                BY_PATH.put(path, known);
+                return known;
+            }
+
+            JsonObject request = new JsonObject();
+            request.addProperty("path", path);
+            request.addProperty("cache", getCacheFolder(script).getAbsolutePath());
+            String line = exchange(script, GSON.toJson(request));
+            if (line == null) {
+                LOGGER.warn("El compilador de Python terminó compilando {}", script.getName());
+                return null;
+            }
+
+            Result result = parse(GSON.fromJson(line, JsonObject.class));
+            if (result.hash() != null) {
+                BY_HASH.put(result.hash(), result);
+            }
+            BY_PATH.put(path, result);
+            LOGGER.debug("{} compilado en {} ms: {}", script.getName(), String.format("%.1f", result.ms()),
+                result.describe());
+            return result;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("No se pudo compilar {} en segundo plano: {}", script.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Envía una petición y espera su línea de respuesta; relanza el proceso si murió
+     */
+    private static String exchange(File script, String request) throws IOException {
+        if (process == null || !process.isAlive()) {
+            startProcess(script);
+        }
+        requests.write(request);
+        requests.newLine();
+        requests.flush();
+        String reply = replies.readLine();
+        if (reply == null) {
+            process.destroyForcibly();
+            process = null;
+        }
+        return reply;
+    }
+
+    private static void startProcess(File script) throws IOException {
+        File runtimeFolder = new File(getProjectRoot(script), ".runtime");
+        File pythonPath = PythonRuntimeFiles.extract(runtimeFolder);
+
+        ProcessBuilder builder = new ProcessBuilder(PythonExecutor.resolvePythonExecutable(), "-u", "-m",
+            "pythonmc.compiler");
+        builder.directory(runtimeFolder);
+        builder.redirectError(ProcessBuilder.Redirect.appendTo(new File(runtimeFolder, "compiler.log")));
+        Map<String, String> env = builder.environment();
+        env.put("PYTHONIOENCODING", "utf-8");
+        String existing = env.get("PYTHONPATH");
+        env.put("PYTHONPATH", existing == null || existing.isEmpty()
+            ? pythonPath.getAbsolutePath()
+            : pythonPath.getAbsolutePath() + File.pathSeparator + existing);
+
+        // Sale solo cuando se cierra su stdin (al terminar el juego)
+        process = builder.start();
+        requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        replies = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        LOGGER.info("Compilador de scripts en segundo plano iniciado (pid {})", process.pid());
+    }
+
+    private static Result parse(JsonObject reply) {
+        String bytecode = string(reply, "bytecode");
+        return new Result(string(reply, "hash"), reply.get("ok").getAsBoolean(), integer(reply, "line"),
+            integer(reply, "col"), string(reply, "message"), bytecode != null ? new File(bytecode) : null,
+            reply.has("ms") ? reply.get("ms").getAsDouble() : 0.0);
+    }
+
+    private static String string(JsonObject reply, String key) {
+        JsonElement value = reply.get(key);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static int integer(JsonObject reply, String key) {
+        JsonElement value = reply.get(key);
+        return value == null || value.isJsonNull() ? 0 : value.getAsInt();
+    }
+
+    private static String hash(File script) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(Files.readAllBytes(script.toPath())));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File getProjectRoot(File script) {
+        File projectRoot = ProjectManager.findProjectRoot(script);
+        return projectRoot != null ? projectRoot : script.getAbsoluteFile().getParentFile();
+    }
+
+    private static File getCacheFolder(File script) {
+        return new File(new File(getProjectRoot(script), ".cache"), "bytecode");
+    }
+
+    private static List<File> listScripts(File scriptsFolder) {
+        try (Stream<Path> paths = Files.walk(scriptsFolder.toPath())) {
+            return paths.filter(path -> path.toString().endsWith(".py") && Files.isRegularFile(path))
+                .map(Path::toFile)
+                .toList();
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo recorrer {}", scriptsFolder.getAbsolutePath(), e);
+            return List.of();
+        }
+    }
+}
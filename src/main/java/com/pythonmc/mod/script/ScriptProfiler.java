@@ -0,0 +1,324 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.core.ConsoleBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Profiler de scripts: lo activa en los workers (trama PROFILE) y guarda el
+ * último resumen PROFILE_DATA de cada uno (ver pythonmc/profiler.py)
+ *
+ * Los resúmenes son acumulados desde que se activó; snapshot() los junta
+ * para la tabla y la vista de llama de ScriptEditorPanel.
+ */
+public final class ScriptProfiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptProfiler.class);
+    private static final int DEFAULT_INTERVAL_MS = 5;
+
+    public enum Mode {
+        // Muestreo de la pila: overhead bajo, sin contar llamadas
+        SAMPLE,
+        // sys.setprofile: llamadas exactas, overhead alto
+        TRACE;
+
+        String wireName() {
+            return name().toLowerCase();
+        }
+    }
+
+    public enum SortKey {
+        SELF,
+        TOTAL,
+        CALLS,
+        NAME
+    }
+
+    private static final Map<Integer, Profile> BY_WORKER = new ConcurrentHashMap<>();
+    private static volatile Mode mode;
+
+    private ScriptProfiler() {
+    }
+
+    /**
+     * Activa el profiler en todos los workers (reinicia los datos)
+     * Devuelve cuántos workers lo aceptaron
+     */
+    public static int start(Mode newMode) {
+        BY_WORKER.clear();
+        mode = newMode;
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("enabled", true);
+        request.put("mode", newMode.wireName());
+        request.put("interval_ms", resolveIntervalMs());
+        int enabled = send(request);
+        LOGGER.info("Profiler de scripts ({}) activo en {} worker(s)", newMode.wireName(), enabled);
+        return enabled;
+    }
+
+    /**
+     * Apaga el profiler; el último resumen de cada worker se conserva
+     */
+    public static void stop() {
+        if (mode == null) {
+            return;
+        }
+        mode = null;
+        send(Map.of("enabled", false));
+    }
+
+    public static boolean isRunning() {
+        return mode != null;
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Resumen de todos los workers, o null si todavía no llegó ninguno
+     */
+    public static Profile snapshot() {
+        List<Profile> profiles = new ArrayList<>(BY_WORKER.values());
+        if (profiles.isEmpty()) {
+            return null;
+        }
+        return profiles.size() == 1 ? profiles.get(0) : Profile.merge(profiles);
+    }
+
+    public static void clear() {
+        BY_WORKER.clear();
+    }
+
+    /**
+     * Trama PROFILE_DATA recibida en el hilo lector de un worker
+     */
+    static void accept(PythonWorker worker, Object value) {
+        try {
+            BY_WORKER.put(worker.getIndex(), Profile.parse((Map<?, ?>) value));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Resumen de profiling ilegible del worker {}", worker.getIndex(), e);
+        }
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static int send(Map<String, Object> request) {
+        int accepted = 0;
+        for (PythonWorker worker : PythonWorkerPool.getWorkers()) {
+            if (!worker.isAlive()) {
+                continue;
+            }
+            // El worker contesta cuando termine lo que esté ejecutando; no se espera
+            worker.request(BridgeFrame.PROFILE, request).thenAccept(reply -> {
+                Object error = ((Map<?, ?>) reply).get("error");
+                if (error != null) {
+                    ConsoleBuffer.system().err("[profiler] Worker " + worker.getIndex() + ": " + error);
+                }
+            });
+            accepted++;
+        }
+        return accepted;
+    }
+
+    private static int resolveIntervalMs() {
+        String prop = System.getProperty("pythonmc.profileIntervalMs");
+        if (prop != null) {
+            try {
+                return Math.max(1, Integer.parseInt(prop.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("pythonmc.profileIntervalMs inválido: {}", prop);
+            }
+        }
+        return DEFAULT_INTERVAL_MS;
+    }
+
+    /**
+     * Tiempos de una función; en modo muestreo calls son muestras
+     */
+    public record FunctionStat(String name, long calls, double selfMs, double totalMs) {
+    }
+
+    /**
+     * Nodo de la vista de llama: tiempo acumulado de esa pila y sus hijos
+     */
+    public static final class FlameNode {
+        private final String name;
+        private double ms;
+        private final Map<String, FlameNode> children = new LinkedHashMap<>();
+
+        FlameNode(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getMs() {
+            return ms;
+        }
+
+        /**
+         * Hijos de más a menos costoso
+         */
+        public List<FlameNode> getChildren() {
+            List<FlameNode> sorted = new ArrayList<>(children.values());
+            sorted.sort(Comparator.comparingDouble(FlameNode::getMs).reversed());
+            return sorted;
+        }
+    }
+
+    /**
+     * Resumen acumulado de uno o varios workers
+     */
+    public static final class Profile {
+        private final String mode;
+        private final long samples;
+        private final double measuredMs;
+        private final double overheadPct;
+        private final List<FunctionStat> functions;
+        private final Map<String, Double> stacks;
+        // Caché de lecturas del worker (ver pythonmc/readcache.py)
+        private final long cacheHits;
+        private final long cacheMisses;
+
+        Profile(String mode, long samples, double measuredMs, double overheadPct,
+                List<FunctionStat> functions, Map<String, Double> stacks, long cacheHits, long cacheMisses) {
+            this.mode = mode;
+            this.samples = samples;
+            this.measuredMs = measuredMs;
+            this.overheadPct = overheadPct;
+            this.functions = functions;
+            this.stacks = stacks;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+        }
+
+        public boolean isSampling() {
+            return Mode.SAMPLE.wireName().equals(mode);
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        /**
+         * Tiempo de script medido (dentro de init/update/RUN)
+         */
+        public double getMeasuredMs() {
+            return measuredMs;
+        }
+
+        /**
+         * Coste del muestreo sobre el tiempo medido; negativo si no se mide (modo traza)
+         */
+        public double getOverheadPct() {
+            return overheadPct;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+
+        /**
+         * Lecturas servidas por la caché sobre el total; negativo si no hubo lecturas
+         */
+        public double getCacheHitPct() {
+            long total = cacheHits + cacheMisses;
+            return total > 0 ? cacheHits * 100.0 / total : -1.0;
+        }
+
+        public List<FunctionStat> getFunctions(SortKey key) {
+            Comparator<FunctionStat> order = switch (key) {
+                case SELF -> Comparator.comparingDouble(FunctionStat::selfMs).reversed();
+                case TOTAL -> Comparator.comparingDouble(FunctionStat::totalMs).reversed();
+                case CALLS -> Comparator.comparingLong(FunctionStat::calls).reversed();
+                case NAME -> Comparator.comparing(FunctionStat::name);
+            };
+            List<FunctionStat> sorted = new ArrayList<>(functions);
+            sorted.sort(order);
+            return sorted;
+        }
+
+        /**
+         * Pilas colapsadas ("a;b;c" -> ms propios)
+         */
+        public Map<String, Double> getStacks() {
+            return stacks;
+        }
+
+        /**
+         * Árbol de la vista de llama a partir de las pilas colapsadas
+         */
+        public FlameNode flameGraph() {
+            FlameNode root = new FlameNode("total");
+            stacks.forEach((stack, ms) -> {
+                root.ms += ms;
+                FlameNode node = root;
+                for (String frame : stack.split(";")) {
+                    node = node.children.computeIfAbsent(frame, FlameNode::new);
+                    node.ms += ms;
+                }
+            });
+            return root;
+        }
+
+        static Profile parse(Map<?, ?> value) {
+            List<FunctionStat> functions = new ArrayList<>();
+            for (Object entry : (List<?>) value.get("functions")) {
+                List<?> row = (List<?>) entry;
+                functions.add(new FunctionStat((String) row.get(0), ((Number) row.get(1)).longValue(),
+                    ((Number) row.get(2)).doubleValue(), ((Number) row.get(3)).doubleValue()));
+            }
+            Map<String, Double> stacks = new LinkedHashMap<>();
+            for (Object entry : (List<?>) value.get("stacks")) {
+                List<?> row = (List<?>) entry;
+                stacks.merge((String) row.get(0), ((Number) row.get(1)).doubleValue(), Double::sum);
+            }
+            Map<?, ?> cache = (Map<?, ?>) value.get("cache");
+            long hits = cache != null ? ((Number) cache.get("hits")).longValue() : 0;
+            long misses = cache != null ? ((Number) cache.get("misses")).longValue() : 0;
+            return new Profile((String) value.get("mode"), ((Number) value.get("samples")).longValue(),
+                ((Number) value.get("measured_ms")).doubleValue(), ((Number) value.get("overhead_pct")).doubleValue(),
+                functions, stacks, hits, misses);
+        }
+
+        static Profile merge(List<Profile> profiles) {
+            Map<String, FunctionStat> functions = new LinkedHashMap<>();
+            Map<String, Double> stacks = new LinkedHashMap<>();
+            long samples = 0;
+            double measured = 0;
+            double cost = 0;
+            long hits = 0;
+            long misses = 0;
+            boolean sampling = true;
+            for (Profile profile : profiles) {
+                samples += profile.samples;
+                hits += profile.cacheHits;
+                misses += profile.cacheMisses;
+                measured += profile.measuredMs;
+                cost += profile.overheadPct * profile.measuredMs;
+                sampling &= profile.isSampling();
+                for (FunctionStat stat : profile.functions) {
+                    functions.merge(stat.name(), stat, (a, b) -> new FunctionStat(a.name(),
+                        a.calls() + b.calls(), a.selfMs() + b.selfMs(), a.totalMs() + b.totalMs()));
+                }
+                profile.stacks.forEach((stack, ms) -> stacks.merge(stack, ms, Double::sum));
+            }
+            double overhead = sampling && measured > 0 ? cost / measured : -1.0;
+            return new Profile(profiles.get(0).mode, samples, measured, overhead,
+                new ArrayList<>(functions.values()), stacks, hits, misses);
+        }
+    }
+}
@@ -0,0 +1,994 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.PythonMCMod;
+import com.pythonmc.mod.core.ConfigHandler;
+import com.pythonmc.mod.core.ConsoleBuffer;
+import com.pythonmc.mod.core.PythonExecutor;
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ciclo de vida de scripts al estilo engine: init() al cargar y update() en cada tick
+ *
+ * Los scripts activos se reparten entre shards, cada uno con un worker sacado
+ * del pool. En cada tick del servidor se envía una trama UPDATE a cada shard
+ * con sus scripts y el hilo del servidor espera a todos a la vez como máximo
+ * el presupuesto del tick (script_tick_budget_ms en engine_config.json),
+ * atendiendo mientras tanto las llamadas RPC que hagan los update(). Si un
+ * shard no termina a tiempo el tick sigue adelante: sus ticks siguientes se
+ * omiten hasta que responda y el retraso se informa en la consola; el resto
+ * de shards no espera por él.
+ */
+public class ScriptRuntime {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptRuntime.class);
+    private static final int DEFAULT_TICK_BUDGET_MS = 10;
+    private static final int MAX_TICK_BUDGET_MS = 50;
+    private static final long ACQUIRE_TIMEOUT_MS = 5_000;
+    private static final long LOAD_TIMEOUT_MS = 10_000;
+    private static final double TICK_MS = 50.0;
+    // Cada cuántos ticks omitidos u overruns se repite el aviso en consola
+    private static final int REPORT_INTERVAL = 20;
+    // Reparto de instancias de nodos entre shards
+    private static final int REBALANCE_INTERVAL = 100;
+    private static final double REBALANCE_RATIO = 1.5;
+    private static final double REBALANCE_MIN_MS = 1.0;
+    private static final int MAX_MOVES_PER_REBALANCE = 16;
+    private static final double LOAD_SMOOTHING = 0.1;
+
+    // Scripts cargados o cargándose, por ruta absoluta
+    private static final Map<String, LoadedScript> BY_PATH = new ConcurrentHashMap<>();
+    // Handles por worker: cada shard numera los suyos
+    private static final Map<PythonWorker, Map<Integer, LoadedScript>> BY_HANDLE = new ConcurrentHashMap<>();
+    // Scripts con init() completado, en orden de carga (orden de update())
+    private static final List<LoadedScript> ACTIVE = new CopyOnWriteArrayList<>();
+    // Clave en BY_PATH de un archivo cargado como script de nodos (más el shard)
+    private static final String NODE_KEY = "node:";
+    // Nodo -> script de nodos que tiene su instancia
+    private static final Map<String, LoadedScript> NODE_OWNERS = new ConcurrentHashMap<>();
+    // Altas, bajas y traslados de instancias en orden y fuera del hilo del servidor
+    private static final ExecutorService NODE_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "PythonMC-NodeScripts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile boolean running = false;
+    private static volatile List<Shard> shards = List.of();
+    private static volatile int tickBudgetMs = DEFAULT_TICK_BUDGET_MS;
+    // Solo desde el hilo del servidor
+    private static int ticksSinceRebalance;
+    // Tick que ven los update() compilados; solo desde el hilo del servidor
+    private static long compiledTick;
+
+    // Acumulados de corrutinas y reparto desde el arranque
+    private static final AtomicLong COROUTINES_RESUMED_TOTAL = new AtomicLong();
+    private static final AtomicLong COROUTINES_RESUMED_MAX = new AtomicLong();
+    private static final AtomicLong REBALANCES = new AtomicLong();
+    private static final AtomicLong NODES_MOVED = new AtomicLong();
+    private static final AtomicLong MOVES_REFUSED = new AtomicLong();
+
+    /**
+     * Activa el runtime para el mundo cargado
+     *
+     * Crea los shards de node_script_shards (engine_config.json; por defecto un
+     * worker menos que el pool, sin pasar de los núcleos libres). Los scripts de
+     * ciclo de vida van siempre al shard 0 y los de nodos se reparten por nodo.
+     */
+    public static void start(Level world) {
+        int budget = ConfigHandler.getIntSetting(world, "script_tick_budget_ms", DEFAULT_TICK_BUDGET_MS);
+        tickBudgetMs = Math.max(1, Math.min(MAX_TICK_BUDGET_MS, budget));
+
+        // Un worker del pool queda siempre para las ejecuciones normales. Se usa el tamaño
+        // configurado: al cargar el mundo los workers todavía están arrancando
+        int maxShards = Math.max(1, PythonWorkerPool.getPoolSize() - 1);
+        int defaultShards = Math.min(maxShards, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        int count = Math.max(1, Math.min(maxShards,
+            ConfigHandler.getIntSetting(world, "node_script_shards", defaultShards)));
+        List<Shard> created = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            created.add(new Shard(i));
+        }
+        shards = List.copyOf(created);
+        ticksSinceRebalance = 0;
+        running = true;
+        LOGGER.info("Runtime de scripts activo (presupuesto {} ms por tick, {} shard(s) para scripts de nodos)",
+            tickBudgetMs, count);
+    }
+
+    /**
+     * Descarga todos los scripts y devuelve los workers al pool
+     */
+    public static void stop() {
+        running = false;
+        BY_PATH.clear();
+        BY_HANDLE.clear();
+        ACTIVE.clear();
+        NODE_OWNERS.keySet().forEach(NodeRegistry::removeCompiledUpdate);
+        NODE_OWNERS.clear();
+        for (Shard shard : shards) {
+            shard.reset();
+            synchronized (shard) {
+                PythonWorkerPool.release(shard.worker);
+                shard.worker = null;
+            }
+        }
+        shards = List.of();
+    }
+
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Corrutinas vivas, reanudadas en el último tick y acumulados desde el
+     * arranque, sumadas entre todos los shards
+     */
+    public static Map<String, Long> getCoroutineMetrics() {
+        long live = 0;
+        long resumed = 0;
+        long failed = 0;
+        for (Shard shard : shards) {
+            live += shard.coroutinesLive;
+            resumed += shard.coroutinesResumed;
+            failed += shard.coroutinesFailed;
+        }
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("live", live);
+        metrics.put("resumed_last_tick", resumed);
+        metrics.put("resumed_total", COROUTINES_RESUMED_TOTAL.get());
+        metrics.put("resumed_max_per_tick", COROUTINES_RESUMED_MAX.get());
+        metrics.put("failed", failed);
+        return metrics;
+    }
+
+    /**
+     * Instancias de nodos y carga (µs de update() por tick, media móvil) de
+     * cada shard, y traslados hechos al repartir
+     */
+    public static Map<String, Long> getShardMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("shards", (long) shards.size());
+        for (Shard shard : shards) {
+            metrics.put("shard_" + shard.index + "_nodes", (long) shard.nodes.size());
+            metrics.put("shard_" + shard.index + "_load_us", Math.round(shard.loadMs * 1000.0));
+            metrics.put("shard_" + shard.index + "_skipped_ticks", shard.skippedTotal);
+        }
+        metrics.put("rebalances", REBALANCES.get());
+        metrics.put("nodes_moved", NODES_MOVED.get());
+        metrics.put("moves_refused", MOVES_REFUSED.get());
+        return metrics;
+    }
+
+    /**
+     * Carga un script: se importa como módulo, se llama init() y a partir del
+     * siguiente tick su update() (si lo define) se ejecuta en cada tick
+     */
+    public static void load(File scriptFile) {
+        List<Shard> current = shards;
+        if (!running || current.isEmpty() || !PythonWorkerPool.isRunning()) {
+            PythonExecutor.appendOutput("[runtime] El runtime de scripts no está activo en este mundo");
+            return;
+        }
+
+        String path = scriptFile.getAbsolutePath();
+        if (BY_PATH.containsKey(path)) {
+            PythonExecutor.appendOutput("[runtime] " + scriptFile.getName() + " ya está activo");
+            return;
+        }
+        LoadedScript script = new LoadedScript(scriptFile.getName(), path,
+            ConsoleBuffer.open(scriptFile.getName() + " (tick)", false), current.get(0));
+        if (BY_PATH.putIfAbsent(path, script) != null) {
+            script.channel.finish();
+            return;
+        }
+
+        // La carga espera al worker y a init(): fuera del hilo que la pide
+        Thread loader = new Thread(() -> loadScript(script), "PythonMC-ScriptLoad");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Descarga un script; su destroy() (si lo define) se llama en el worker
+     */
+    public static void unload(File scriptFile) {
+        LoadedScript script = BY_PATH.get(scriptFile.getAbsolutePath());
+        if (script != null) {
+            remove(script, "descargado");
+        }
+    }
+
+    /**
+     * Crea la instancia del script para el nodo (init(self) en el worker); si
+     * el nodo ya tenía otro script, lo sustituye
+     */
+    public static void attachNode(Node node, File scriptFile) {
+        if (!running || shards.isEmpty() || !PythonWorkerPool.isRunning()) {
+            return;
+        }
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", node.getId());
+        info.put("name", node.getName());
+        info.put("type", node.getType().getDisplayName());
+        NODE_EXECUTOR.execute(() -> attachNow(info, scriptFile));
+    }
+
+    /**
+     * Destruye la instancia del nodo (destroy(self)); el archivo se descarga con la última
+     */
+    public static void detachNode(String nodeId) {
+        if (NODE_OWNERS.containsKey(nodeId)) {
+            NODE_EXECUTOR.execute(() -> detachNow(nodeId));
+        }
+    }
+
+    public static int getAttachedNodeCount() {
+        return NODE_OWNERS.size();
+    }
+
+    public static boolean isLoaded(File scriptFile) {
+        return scriptFile != null && BY_PATH.containsKey(scriptFile.getAbsolutePath());
+    }
+
+    public static int getActiveCount() {
+        return ACTIVE.size();
+    }
+
+    public static int getTickBudgetMs() {
+        return tickBudgetMs;
+    }
+
+    /**
+     * Ejecuta un tick del runtime; solo desde el hilo del servidor
+     *
+     * UPDATE lleva el tick del servidor: tras los update() el worker reanuda las
+     * corrutinas que vencen (ver pythonmc/coroutines.py) y devuelve cuántas
+     * siguen vivas. Mientras haya corrutinas vivas se envía UPDATE aunque todos
+     * los scripts estén en enfriamiento.
+     */
+    public static void tick() {
+        List<Shard> current = shards;
+        if (!running || current.isEmpty()) {
+            return;
+        }
+
+        ServerLevel level = EngineBridge.getWorld();
+        int tickCount = level != null ? level.getServer().getTickCount() : 0;
+        long now = System.nanoTime();
+        List<Shard> sent = new ArrayList<>(current.size());
+        for (Shard shard : current) {
+            if (sendUpdate(shard, tickCount, now)) {
+                sent.add(shard);
+            }
+        }
+        if (!sent.isEmpty()) {
+            awaitWithinBudget(sent, now + tickBudgetMs * 1_000_000L);
+            for (Shard shard : sent) {
+                if (shard.pending.isDone()) {
+                    finishUpdate(shard);
+                }
+            }
+        }
+
+        if (current.size() > 1 && ++ticksSinceRebalance >= REBALANCE_INTERVAL) {
+            ticksSinceRebalance = 0;
+            rebalance(current);
+        }
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Envía el UPDATE del shard; false si no hay nada que actualizar o el anterior sigue en curso
+     */
+    private static boolean sendUpdate(Shard shard, int tickCount, long now) {
+        PythonWorker current = shard.worker;
+        if (current == null) {
+            return false;
+        }
+        if (!current.isAlive()) {
+            onWorkerDied(shard, current);
+            return false;
+        }
+
+        // El UPDATE anterior sigue en marcha: este tick se omite en este shard
+        if (shard.pending != null) {
+            if (!shard.pending.isDone()) {
+                shard.skippedTicks++;
+                shard.skippedTotal++;
+                if (shard.skippedTicks == 1 || shard.skippedTicks % REPORT_INTERVAL == 0) {
+                    ConsoleBuffer.system().system(String.format(
+                        "[runtime] update() sigue en curso%s: +%.1f ms sobre el presupuesto, %d tick(s) omitidos",
+                        shard.label(), lateMs(shard), shard.skippedTicks));
+                }
+                return false;
+            }
+            finishUpdate(shard);
+        }
+
+        List<Integer> handles = new ArrayList<>();
+        boolean loaded = false;
+        for (LoadedScript script : BY_PATH.values()) {
+            if (script.shard == shard) {
+                loaded = true;
+                break;
+            }
+        }
+        if (!loaded) {
+            releaseWorkerIfIdle(shard);
+            return false;
+        }
+        for (LoadedScript script : ACTIVE) {
+            if (script.shard != shard) {
+                continue;
+            }
+            if (script.cooldownTicks > 0) {
+                script.cooldownTicks--;
+            } else {
+                handles.add(script.handle);
+            }
+        }
+        if (handles.isEmpty() && shard.coroutinesLive == 0) {
+            return false;
+        }
+
+        CompletableFuture<Object> update = current.request(BridgeFrame.UPDATE,
+            Map.of("tick", tickCount, "handles", handles));
+        shard.pending = update;
+        shard.pendingSince = now;
+        update.whenComplete((value, error) -> EngineBridge.wakeWaiter());
+        return true;
+    }
+
+    private static void loadScript(LoadedScript script) {
+        PythonWorker current;
+        try {
+            current = acquireWorker(script.shard);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            BY_PATH.remove(script.key(), script);
+            return;
+        }
+        if (current == null) {
+            BY_PATH.remove(script.key(), script);
+            script.channel.system("[runtime] No hay ningún worker Python libre para " + script.name);
+            script.channel.finish();
+            return;
+        }
+
+        script.worker = current;
+        script.handle = current.openHandle(script.channel);
+        BY_HANDLE.computeIfAbsent(current, w -> new ConcurrentHashMap<>()).put(script.handle, script);
+
+        Object reply;
+        try {
+            reply = current.request(BridgeFrame.LOAD, Map.of("handle", script.handle, "path", script.path,
+                "node_script", script.nodeScript)).get(LOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            remove(script, "init() no terminó en " + LOAD_TIMEOUT_MS + " ms");
+            return;
+        } catch (ExecutionException e) {
+            remove(script, "el worker terminó durante la carga");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            remove(script, "carga interrumpida");
+            return;
+        }
+
+        Map<?, ?> result = (Map<?, ?>) reply;
+        if (!Boolean.TRUE.equals(result.get("ok"))) {
+            remove(script, "error al cargar: " + result.get("error"));
+            return;
+        }
+        // Se pudo descargar mientras init() corría
+        if (BY_PATH.get(script.key()) != script) {
+            return;
+        }
+        if (!setCompiled(script, result.get("compiled"))) {
+            return;
+        }
+
+        ACTIVE.add(script);
+        script.channel.system("[runtime] " + script.name + " activo" + script.shard.label()
+            + (script.compiled != null ? ", update() compilado" : ""));
+        LOGGER.info("Script de ciclo de vida cargado: {}{}", script.path, script.shard.label());
+    }
+
+    private static void attachNow(Map<String, Object> info, File scriptFile) {
+        String nodeId = (String) info.get("id");
+        LoadedScript previous = NODE_OWNERS.get(nodeId);
+        // Un nodo que cambia de script sigue en su shard
+        Shard shard = previous != null ? previous.shard : placeNode(nodeId);
+        if (previous != null) {
+            detachNow(nodeId);
+        }
+        if (shard == null) {
+            return;
+        }
+        attachTo(shard, info, scriptFile, null);
+    }
+
+    /**
+     * Crea la instancia en el shard: con init() o, si se trae estado de otro shard, sin él
+     */
+    private static boolean attachTo(Shard shard, Map<String, Object> info, File scriptFile, byte[] state) {
+        String nodeId = (String) info.get("id");
+        LoadedScript script = nodeScriptFor(shard, scriptFile);
+        if (script == null) {
+            return false;
+        }
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("handle", script.handle);
+        request.put("node", info);
+        if (state != null) {
+            request.put("state", state);
+        }
+        try {
+            Map<?, ?> result = (Map<?, ?>) script.worker.request(BridgeFrame.ATTACH, request)
+                .get(LOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (!Boolean.TRUE.equals(result.get("ok"))) {
+                script.channel.system("[runtime] " + info.get("name") + ": init() falló: " + result.get("error"));
+                removeIfUnused(script);
+                return false;
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            script.channel.system("[runtime] " + info.get("name") + ": no se pudo adjuntar " + script.name);
+            removeIfUnused(script);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        script.instances.put(nodeId, info);
+        shard.nodes.add(nodeId);
+        NODE_OWNERS.put(nodeId, script);
+        if (script.compiled != null) {
+            registerCompiled(script, nodeId);
+        }
+        return true;
+    }
+
+    /**
+     * Compila el árbol de update() que devuelve el worker (null: update() en
+     * Python); si no se puede, el script se descarga y devuelve false
+     *
+     * El árbol llega con LOAD o RELOAD si update() está marcado con @compiled
+     * (ver pythonmc/fastpath.py). Se ejecuta para cada nodo en el hilo del
+     * servidor con NodeRegistry.updateCompiled, antes de enviar los UPDATE.
+     */
+    private static boolean setCompiled(LoadedScript script, Object tree) {
+        CompiledUpdate update = null;
+        if (tree instanceof Map<?, ?> map) {
+            try {
+                update = CompiledUpdate.compile(map);
+            } catch (RuntimeException e) {
+                LOGGER.warn("No se pudo compilar update() de {}", script.path, e);
+                remove(script, "update() no se pudo compilar: " + e.getMessage());
+                return false;
+            }
+        }
+        script.compiled = update;
+        return true;
+    }
+
+    private static void registerCompiled(LoadedScript script, String nodeId) {
+        NodeRegistry.setCompiledUpdate(nodeId, node -> runCompiled(script, node));
+    }
+
+    /**
+     * update() compilado de una instancia; si falla, la instancia deja de actualizarse como en el worker
+     */
+    private static void runCompiled(LoadedScript script, Node node) {
+        CompiledUpdate update = script.compiled;
+        if (update == null || NODE_OWNERS.get(node.getId()) != script) {
+            return;
+        }
+        try {
+            update.run(node, compiledTick);
+        } catch (RuntimeException e) {
+            NodeRegistry.removeCompiledUpdate(node.getId());
+            script.channel.err("[" + node.getName() + "] update() falló; la instancia queda desactivada: "
+                + e.getMessage());
+        }
+    }
+
+    /**
+     * Respuesta de RELOAD de un worker: el update() de los scripts de nodos
+     * recargados puede empezar a compilarse o volver a Python
+     * ([[handle, árbol o null]], ver ScriptWatcher)
+     */
+    static void onReloaded(PythonWorker worker, List<?> compiled) {
+        Map<Integer, LoadedScript> handles = BY_HANDLE.get(worker);
+        if (handles == null) {
+            return;
+        }
+        for (Object entry : compiled) {
+            List<?> pair = (List<?>) entry;
+            LoadedScript script = handles.get(((Number) pair.get(0)).intValue());
+            if (script == null || !setCompiled(script, pair.get(1))) {
+                continue;
+            }
+            for (String nodeId : script.instances.keySet()) {
+                if (script.compiled != null) {
+                    registerCompiled(script, nodeId);
+                } else {
+                    NodeRegistry.removeCompiledUpdate(nodeId);
+                }
+            }
+        }
+    }
+
+    /**
+     * El archivo cargado como script de nodos en el shard; lo carga si aún no lo está
+     */
+    private static LoadedScript nodeScriptFor(Shard shard, File scriptFile) {
+        String key = NODE_KEY + shard.index + ":" + scriptFile.getAbsolutePath();
+        LoadedScript script = BY_PATH.get(key);
+        if (script == null) {
+            script = new LoadedScript(scriptFile.getName(), scriptFile.getAbsolutePath(),
+                // Canal de fondo: cargar o repartir scripts no quita la consola al usuario
+                ConsoleBuffer.open(scriptFile.getName() + " (nodos" + (shard.index > 0 ? " #" + shard.index : "")
+                    + ")", false), shard);
+            script.nodeScript = true;
+            BY_PATH.put(key, script);
+            loadScript(script);
+        }
+        return BY_PATH.get(key) == script && script.worker != null ? script : null;
+    }
+
+    private static void detachNow(String nodeId) {
+        LoadedScript script = NODE_OWNERS.remove(nodeId);
+        if (script == null) {
+            return;
+        }
+        script.instances.remove(nodeId);
+        script.shard.nodes.remove(nodeId);
+        NodeRegistry.removeCompiledUpdate(nodeId);
+        PythonWorker owner = script.worker;
+        if (owner != null && owner.isAlive()) {
+            try {
+                owner.request(BridgeFrame.DETACH, Map.of("handle", script.handle, "node", nodeId))
+                    .get(LOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                LOGGER.debug("DETACH de {} sin respuesta", nodeId, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        removeIfUnused(script);
+    }
+
+    private static void removeIfUnused(LoadedScript script) {
+        if (script.instances.isEmpty() && BY_PATH.get(script.key()) == script) {
+            remove(script, "sin nodos adjuntos");
+        }
+    }
+
+    /**
+     * Shard inicial de un nodo: por hash de su id, estable entre sesiones
+     */
+    private static Shard placeNode(String nodeId) {
+        List<Shard> current = shards;
+        return current.isEmpty() ? null : current.get(Math.floorMod(nodeId.hashCode(), current.size()));
+    }
+
+    /**
+     * Mueve instancias del shard más cargado al más desahogado si la diferencia
+     * es clara; los traslados se hacen en NODE_EXECUTOR
+     *
+     * Mover es DETACH con "export" (el worker devuelve el estado sin destroy())
+     * y ATTACH con "state" en el destino (sin init()). Las instancias con
+     * corrutinas o suscripciones vivas, o sin estado serializable, no se mueven.
+     */
+    private static void rebalance(List<Shard> current) {
+        Shard slowest = null;
+        Shard fastest = null;
+        for (Shard shard : current) {
+            if (shard.nodes.size() > 1 && (slowest == null || shard.loadMs > slowest.loadMs)) {
+                slowest = shard;
+            }
+            if (fastest == null || shard.loadMs < fastest.loadMs) {
+                fastest = shard;
+            }
+        }
+        if (slowest == null || slowest == fastest || slowest.loadMs < REBALANCE_MIN_MS
+            || slowest.loadMs < fastest.loadMs * REBALANCE_RATIO) {
+            return;
+        }
+
+        // La parte de instancias que igualaría la carga, suponiendo que todas pesan lo mismo
+        double share = (slowest.loadMs - fastest.loadMs) / (2.0 * slowest.loadMs);
+        int moves = (int) Math.max(1, Math.min(MAX_MOVES_PER_REBALANCE, Math.floor(slowest.nodes.size() * share)));
+        List<String> selected = new ArrayList<>(moves);
+        for (String nodeId : slowest.nodes) {
+            if (selected.size() == moves) {
+                break;
+            }
+            selected.add(nodeId);
+        }
+
+        REBALANCES.incrementAndGet();
+        LOGGER.debug("Reparto de scripts de nodos: {} instancia(s) del shard {} ({} ms) al {} ({} ms)",
+            selected.size(), slowest.index, String.format("%.2f", slowest.loadMs), fastest.index,
+            String.format("%.2f", fastest.loadMs));
+        Shard target = fastest;
+        for (String nodeId : selected) {
+            NODE_EXECUTOR.execute(() -> moveNode(nodeId, target));
+        }
+    }
+
+    /**
+     * Traslada la instancia con su estado; si el destino falla vuelve al origen
+     */
+    private static void moveNode(String nodeId, Shard target) {
+        LoadedScript from = NODE_OWNERS.get(nodeId);
+        PythonWorker owner = from != null ? from.worker : null;
+        if (!running || from == null || from.shard == target || owner == null || !owner.isAlive()) {
+            return;
+        }
+
+        Map<?, ?> exported;
+        try {
+            exported = (Map<?, ?>) owner.request(BridgeFrame.DETACH,
+                Map.of("handle", from.handle, "node", nodeId, "export", true))
+                .get(LOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            LOGGER.debug("No se pudo exportar la instancia de {}", nodeId, e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!Boolean.TRUE.equals(exported.get("moved"))) {
+            MOVES_REFUSED.incrementAndGet();
+            return;
+        }
+
+        Map<String, Object> info = from.instances.remove(nodeId);
+        NODE_OWNERS.remove(nodeId, from);
+        NodeRegistry.removeCompiledUpdate(nodeId);
+        from.shard.nodes.remove(nodeId);
+        File scriptFile = new File(from.path);
+        byte[] state = (byte[]) exported.get("state");
+        if (attachTo(target, info, scriptFile, state)) {
+            NODES_MOVED.incrementAndGet();
+        } else if (!attachTo(from.shard, info, scriptFile, state)) {
+            LOGGER.warn("La instancia de {} se perdió al cambiar de shard", info.get("name"));
+        }
+        removeIfUnused(from);
+    }
+
+    private static PythonWorker acquireWorker(Shard shard) throws InterruptedException {
+        synchronized (shard) {
+            PythonWorker current = shard.worker;
+            if (current != null && current.isAlive()) {
+                return current;
+            }
+            current = PythonWorkerPool.acquire(ACQUIRE_TIMEOUT_MS);
+            shard.worker = current;
+            return current;
+        }
+    }
+
+    private static void releaseWorkerIfIdle(Shard shard) {
+        if (shard.pending != null) {
+            return;
+        }
+        synchronized (shard) {
+            if (shard.worker == null) {
+                return;
+            }
+            for (LoadedScript script : BY_PATH.values()) {
+                if (script.shard == shard) {
+                    return;
+                }
+            }
+            BY_HANDLE.remove(shard.worker);
+            PythonWorkerPool.release(shard.worker);
+            shard.worker = null;
+            shard.reset();
+        }
+    }
+
+    /**
+     * Espera a los UPDATE atendiendo las llamadas RPC hasta agotar el presupuesto
+     */
+    private static void awaitWithinBudget(List<Shard> sent, long deadline) {
+        EngineBridge.setWaiter(Thread.currentThread());
+        try {
+            while (!allDone(sent)) {
+                EngineBridge.drain();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(remaining);
+            }
+        } finally {
+            EngineBridge.setWaiter(null);
+        }
+        EngineBridge.drain();
+    }
+
+    private static boolean allDone(List<Shard> sent) {
+        for (Shard shard : sent) {
+            if (!shard.pending.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void finishUpdate(Shard shard) {
+        CompletableFuture<Object> update = shard.pending;
+        shard.pending = null;
+
+        if (shard.skippedTicks > 0) {
+            ConsoleBuffer.system().system(String.format(
+                "[runtime] update() terminó%s con +%.1f ms de retraso (%d tick(s) omitidos)",
+                shard.label(), lateMs(shard), shard.skippedTicks));
+            shard.skippedTicks = 0;
+        }
+
+        Map<?, ?> reply;
+        try {
+            reply = (Map<?, ?>) update.getNow(null);
+        } catch (RuntimeException e) {
+            // El worker murió: lo detecta el siguiente tick
+            return;
+        }
+        if (reply == null) {
+            return;
+        }
+        Map<?, ?> coroutines = (Map<?, ?>) reply.get("coroutines");
+        double totalMs = recordCoroutines(shard, coroutines);
+
+        Map<Integer, LoadedScript> handles = BY_HANDLE.getOrDefault(shard.worker, Map.of());
+        for (Object entry : (List<?>) reply.get("results")) {
+            List<?> result = (List<?>) entry;
+            LoadedScript script = handles.get(((Number) result.get(0)).intValue());
+            double elapsedMs = ((Number) result.get(1)).doubleValue();
+            totalMs += elapsedMs;
+            if (script == null) {
+                continue;
+            }
+            Object error = result.get(2);
+
+            if (error != null) {
+                remove(script, "update() falló: " + error);
+            } else if (elapsedMs > tickBudgetMs) {
+                onOverrun(script, elapsedMs);
+            }
+        }
+        // Carga del shard: tiempo de update() y corrutinas medido en el worker
+        shard.loadMs += (totalMs - shard.loadMs) * LOAD_SMOOTHING;
+    }
+
+    /**
+     * Guarda los contadores de corrutinas del shard; devuelve los ms que tardaron
+     */
+    private static double recordCoroutines(Shard shard, Map<?, ?> stats) {
+        if (stats == null) {
+            return 0.0;
+        }
+        long resumed = ((Number) stats.get("resumed")).longValue();
+        shard.coroutinesLive = ((Number) stats.get("live")).longValue();
+        shard.coroutinesResumed = resumed;
+        shard.coroutinesFailed = ((Number) stats.get("failed")).longValue();
+        COROUTINES_RESUMED_TOTAL.addAndGet(resumed);
+        COROUTINES_RESUMED_MAX.accumulateAndGet(resumed, Math::max);
+        Object ms = stats.get("ms");
+        return ms instanceof Number number ? number.doubleValue() : 0.0;
+    }
+
+    /**
+     * Un script que se pasa del presupuesto se salta tantos ticks como ha ocupado
+     */
+    private static void onOverrun(LoadedScript script, double elapsedMs) {
+        script.overruns++;
+        script.cooldownTicks = (int) Math.ceil(elapsedMs / TICK_MS);
+        if (script.overruns == 1 || script.overruns % REPORT_INTERVAL == 0) {
+            script.channel.system(String.format(
+                "[runtime] %s: update() tardó %.1f ms (presupuesto %d ms), se omite %d tick(s) [%d veces]",
+                script.name, elapsedMs, tickBudgetMs, script.cooldownTicks, script.overruns));
+        }
+    }
+
+    private static void remove(LoadedScript script, String reason) {
+        BY_PATH.remove(script.key(), script);
+        ACTIVE.remove(script);
+        if (script.nodeScript) {
+            // Un fallo del módulo se lleva todas sus instancias
+            for (String nodeId : script.instances.keySet()) {
+                if (NODE_OWNERS.remove(nodeId, script)) {
+                    script.shard.nodes.remove(nodeId);
+                    NodeRegistry.removeCompiledUpdate(nodeId);
+                }
+            }
+            script.instances.clear();
+        }
+        script.channel.system("[runtime] " + script.name + " " + reason);
+        script.channel.finish();
+
+        PythonWorker owner = script.worker;
+        if (owner == null || script.handle < 0) {
+            return;
+        }
+        // destroy() puede imprimir: se cierra la salida cuando el worker confirma
+        owner.request(BridgeFrame.UNLOAD, script.handle).whenComplete((value, error) -> {
+            owner.closeHandle(script.handle);
+            Map<Integer, LoadedScript> handles = BY_HANDLE.get(owner);
+            if (handles != null) {
+                handles.remove(script.handle, script);
+            }
+        });
+    }
+
+    /**
+     * Solo se pierden los scripts del shard cuyo worker murió
+     */
+    private static void onWorkerDied(Shard shard, PythonWorker dead) {
+        List<LoadedScript> lost = new ArrayList<>();
+        for (LoadedScript script : BY_PATH.values()) {
+            if (script.shard == shard) {
+                lost.add(script);
+            }
+        }
+        LOGGER.warn("El worker del shard {} del runtime de scripts terminó inesperadamente", shard.index);
+        ConsoleBuffer.system().system("[runtime] El worker Python" + shard.label() + " terminó; se descargan "
+            + lost.size() + " script(s)");
+        for (LoadedScript script : lost) {
+            BY_PATH.remove(script.key(), script);
+            ACTIVE.remove(script);
+            for (String nodeId : script.instances.keySet()) {
+                if (NODE_OWNERS.remove(nodeId, script)) {
+                    NodeRegistry.removeCompiledUpdate(nodeId);
+                }
+            }
+            script.instances.clear();
+            script.channel.finish();
+        }
+        BY_HANDLE.remove(dead);
+        shard.nodes.clear();
+        shard.reset();
+        synchronized (shard) {
+            if (shard.worker == dead) {
+                PythonWorkerPool.release(dead);
+                shard.worker = null;
+            }
+        }
+    }
+
+    private static double lateMs(Shard shard) {
+        return (System.nanoTime() - shard.pendingSince) / 1_000_000.0 - tickBudgetMs;
+    }
+
+    /**
+     * Un worker del runtime y su parte de las instancias de nodos
+     *
+     * Cada archivo de script de nodos se carga una vez por shard y cada nodo es
+     * una instancia con su propio estado; sus update() van en el UPDATE del
+     * shard, bajo el handle del archivo.
+     */
+    private static final class Shard {
+        final int index;
+        volatile PythonWorker worker;
+        // Nodos con instancia en este shard
+        final Set<String> nodes = ConcurrentHashMap.newKeySet();
+        // Corrutinas del worker según la última respuesta de UPDATE
+        volatile long coroutinesLive;
+        volatile long coroutinesResumed;
+        volatile long coroutinesFailed;
+        // Ms de update() por tick en el worker, media móvil
+        volatile double loadMs;
+        volatile long skippedTotal;
+        // Estado del UPDATE en curso; solo desde el hilo del servidor
+        CompletableFuture<Object> pending;
+        long pendingSince;
+        int skippedTicks;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        String label() {
+            return shards.size() > 1 ? " (shard " + index + ")" : "";
+        }
+
+        void reset() {
+            pending = null;
+            skippedTicks = 0;
+            coroutinesLive = 0;
+            coroutinesResumed = 0;
+            loadMs = 0;
+        }
+    }
+
+    private static class LoadedScript {
+        final String name;
+        final String path;
+        final ConsoleBuffer.Channel channel;
+        final Shard shard;
+        volatile PythonWorker worker;
+        volatile int handle = -1;
+        // Script de nodos: una instancia por nodo adjunto (id -> datos del nodo)
+        volatile boolean nodeScript;
+        final Map<String, Map<String, Object>> instances = new ConcurrentHashMap<>();
+        // update() que corre en el engine, o null si lo llama el worker
+        volatile CompiledUpdate compiled;
+        // Solo desde el hilo del servidor
+        int cooldownTicks;
+        int overruns;
+
+        LoadedScript(String name, String path, ConsoleBuffer.Channel channel, Shard shard) {
+            this.name = name;
+            this.path = path;
+            this.channel = channel;
+            this.shard = shard;
+        }
+
+        String key() {
+            return nodeScript ? NODE_KEY + shard.index + ":" + path : path;
+        }
+    }
+
+    /**
+     * Engancha el runtime al tick del servidor
+     */
+    @Mod.EventBusSubscriber(modid = PythonMCMod.MOD_ID)
+    public static class TickHandler {
+
+        @SubscribeEvent
+        public static void onServerTick(TickEvent.ServerTickEvent event) {
+            if (event.phase == TickEvent.Phase.START) {
+                // Lotes de world.mutate: antes de publicar para que update() vea el resultado
+                ServerLevel world = EngineBridge.getWorld();
+                if (world != null) {
+                    MutationQueue.applyPending(world);
+                    // update() compilados: antes de publicar, para que el resto de scripts vea el resultado
+                    compiledTick = world.getServer().getTickCount();
+                    NodeRegistry.updateCompiled();
+                }
+                // Lo que cambió desde el tick anterior, antes de que update() lea de su caché
+                ReadCache.publish(world);
+                TransformBuffer.publish();
+                tick();
+                // Callbacks por tick de los backends dentro de la JVM
+                PythonExecutor.tickBackends();
+                // Lo que update() escribió en el buffer se aplica en este mismo tick
+                TransformBuffer.applyWrites();
+            } else {
+                // Entrada de los jugadores: un evento por jugador y controladores
+                PlayerInput.flush(EngineBridge.getWorld());
+                // Eventos del tick (y transforms que cambiaron) hacia las suscripciones
+                EngineEvents.flush(EngineBridge.getWorld());
+            }
+        }
+    }
+}
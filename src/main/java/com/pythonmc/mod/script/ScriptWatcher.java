@@ -0,0 +1,256 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.core.ConsoleBuffer;
+import com.pythonmc.mod.core.ProjectManager;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recarga en caliente: vigila la carpeta scripts/ del proyecto y, cuando se
+ * guarda un .py, pide a los workers que recarguen ese módulo y los que
+ * dependen de él (ver pythonmc/hotreload.py) sin reiniciar el proceso.
+ *
+ * Los eventos se agrupan hasta que pasan -Dpythonmc.reloadDebounceMs (por
+ * defecto 150) sin cambios: un guardado suele generar varios eventos.
+ */
+public class ScriptWatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptWatcher.class);
+    private static final long DEFAULT_DEBOUNCE_MS = 150;
+    // Espera máxima a las respuestas; un worker ocupado recarga al terminar su script
+    private static final long RELOAD_TIMEOUT_MS = 2_000;
+
+    private static WatchService watchService;
+    private static Thread thread;
+    private static volatile boolean running = false;
+
+    /**
+     * Empieza a vigilar los scripts del mundo cargado
+     */
+    public static synchronized void start(Level world) {
+        stop();
+        Path root = ProjectManager.getScriptsFolder(world).toPath();
+        if (!Files.isDirectory(root)) {
+            LOGGER.warn("No existe la carpeta de scripts, recarga en caliente desactivada: {}", root);
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(watchService, root);
+        } catch (IOException e) {
+            LOGGER.error("No se pudo vigilar la carpeta de scripts", e);
+            stop();
+            return;
+        }
+
+        running = true;
+        WatchService service = watchService;
+        thread = new Thread(() -> watchLoop(service), "PythonMC-ScriptWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("Recarga en caliente activa en {}", root);
+    }
+
+    public static synchronized void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.debug("Error al cerrar el WatchService", e);
+            }
+            watchService = null;
+        }
+        thread = null;
+    }
+
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Recarga los módulos de esos archivos en todos los workers y lo informa en consola
+     * firstEventNanos: instante del primer cambio (para medir la latencia total)
+     */
+    public static void reload(List<String> paths, long firstEventNanos) {
+        List<PythonWorker> workers = PythonWorkerPool.getWorkers();
+        if (workers.isEmpty() || paths.isEmpty()) {
+            return;
+        }
+
+        Map<PythonWorker, CompletableFuture<Object>> replies = new LinkedHashMap<>();
+        for (PythonWorker worker : workers) {
+            if (worker.isAlive()) {
+                replies.put(worker, worker.request(BridgeFrame.RELOAD, Map.of("paths", paths)));
+            }
+        }
+
+        // Por módulo: el peor tiempo y el primer error entre todos los workers
+        Map<String, Double> times = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RELOAD_TIMEOUT_MS);
+        int pending = 0;
+        for (Map.Entry<PythonWorker, CompletableFuture<Object>> reply : replies.entrySet()) {
+            Object value;
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                value = reply.getValue().get(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                pending++;
+                continue;
+            }
+
+            // update() de scripts de nodos que pasan a compilarse o vuelven a Python
+            if (((Map<?, ?>) value).get("compiled") instanceof List<?> compiled && !compiled.isEmpty()) {
+                ScriptRuntime.onReloaded(reply.getKey(), compiled);
+            }
+            for (Object entry : (List<?>) ((Map<?, ?>) value).get("modules")) {
+                List<?> result = (List<?>) entry;
+                String module = (String) result.get(0);
+                times.merge(module, ((Number) result.get(1)).doubleValue(), Math::max);
+                if (result.get(2) != null) {
+                    errors.putIfAbsent(module, (String) result.get(2));
+                }
+            }
+        }
+
+        if (times.isEmpty()) {
+            // Ningún worker tenía cargado el módulo: se usará la versión nueva en la próxima ejecución
+            return;
+        }
+
+        double totalMs = times.values().stream().mapToDouble(Double::doubleValue).sum();
+        double latencyMs = (System.nanoTime() - firstEventNanos) / 1_000_000.0;
+        ConsoleBuffer.Channel console = ConsoleBuffer.focused();
+        console.system(String.format("[reload] %s recargado(s) en %.1f ms (latencia %.0f ms desde el guardado%s)",
+            String.join(", ", times.keySet()), totalMs, latencyMs,
+            pending > 0 ? ", " + pending + " worker(s) ocupados recargarán al terminar" : ""));
+        errors.forEach((module, error) -> {
+            console.err("[reload] Error en " + module + ":");
+            for (String line : error.split("\n")) {
+                console.err("  " + line);
+            }
+        });
+        LOGGER.info("Recarga en caliente de {} en {} ms", times.keySet(), String.format("%.1f", latencyMs));
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static void watchLoop(WatchService service) {
+        long debounceNanos = TimeUnit.MILLISECONDS.toNanos(resolveDebounceMs());
+        Set<String> changed = new LinkedHashSet<>();
+        long firstEvent = 0;
+        long lastEvent = 0;
+
+        try {
+            while (running) {
+                WatchKey key;
+                if (changed.isEmpty()) {
+                    key = service.take();
+                } else {
+                    long wait = debounceNanos - (System.nanoTime() - lastEvent);
+                    key = wait > 0 ? service.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+
+                if (key != null) {
+                    boolean relevant = collect(service, key, changed);
+                    key.reset();
+                    if (relevant) {
+                        lastEvent = System.nanoTime();
+                        if (firstEvent == 0) {
+                            firstEvent = lastEvent;
+                        }
+                    }
+                    continue;
+                }
+
+                if (!changed.isEmpty() && System.nanoTime() - lastEvent >= debounceNanos) {
+                    reload(new ArrayList<>(changed), firstEvent);
+                    changed.clear();
+                    firstEvent = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // stop()
+        }
+    }
+
+    /**
+     * Añade los .py creados o modificados; devuelve true si hubo alguno
+     */
+    private static boolean collect(WatchService service, WatchKey key, Set<String> changed) {
+        Path folder = (Path) key.watchable();
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            Path path = folder.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(service, path);
+                } catch (IOException e) {
+                    LOGGER.warn("No se pudo vigilar la carpeta nueva {}", path, e);
+                }
+                continue;
+            }
+            if (path.getFileName().toString().endsWith(".py")) {
+                changed.add(path.toAbsolutePath().toString());
+                relevant = true;
+            }
+        }
+        return relevant;
+    }
+
+    private static void registerTree(WatchService service, Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (dir.getFileName() != null && dir.getFileName().toString().equals("__pycache__")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static long resolveDebounceMs() {
+        String prop = System.getProperty("pythonmc.reloadDebounceMs");
+        if (prop != null) {
+            try {
+                return Math.max(0, Long.parseLong(prop.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("pythonmc.reloadDebounceMs inválido: {}", prop);
+            }
+        }
+        return DEFAULT_DEBOUNCE_MS;
+    }
+}
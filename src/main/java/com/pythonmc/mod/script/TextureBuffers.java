@@ -0,0 +1,348 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.core.ProjectManager;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pythonmc.mod.script.BridgeArgs.integer;
+import static com.pythonmc.mod.script.BridgeArgs.string;
+
+/**
+ * Texturas procedurales escritas por los scripts en memoria mapeada (ver pythonmc/textures.py)
+ * Archivo: filesproject/.runtime/textures/nombre-generación.bin
+ *
+ * Cabecera de 64 bytes, un byte dirty por fila y los píxeles ARGB (u32) por
+ * filas, little-endian:
+ *   cabecera: magic, versión, ancho, alto, offset de las filas, offset de los
+ *             píxeles (u32), modified (u8, algo cambió desde el último PNG)
+ *
+ * Python escribe los píxeles de una fila y después pone su dirty = 1. En el
+ * cliente del mismo proceso ScriptTextureUploader limpia dirty antes de leer
+ * la fila y sube a su DynamicTexture solo las filas marcadas. "texture.save"
+ * guarda la textura como PNG en assets/textures, donde la encuentran el
+ * editor de texturas y Model3DNode; al descargar el mundo se guardan las que
+ * tengan cambios. Abrir con otro tamaño crea un archivo nuevo (generación
+ * siguiente) y el cliente crea otra DynamicTexture.
+ */
+public final class TextureBuffers {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TextureBuffers.class);
+    private static final String FOLDER = "textures";
+
+    public static final int MAGIC = 0x58544350; // "PCTX"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int MAX_SIZE = 4096;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_WIDTH = 8;
+    private static final int H_HEIGHT = 12;
+    private static final int H_ROWS = 16;
+    private static final int H_PIXELS = 20;
+    private static final int H_MODIFIED = 24;
+
+    // Nombre del PNG (relativo a assets/textures) -> textura abierta
+    private static final Map<String, ScriptTexture> OPEN = new HashMap<>();
+    private static volatile List<ScriptTexture> openSnapshot = List.of();
+    private static ServerLevel world;
+
+    private static final AtomicLong OPENED = new AtomicLong();
+    private static final AtomicLong SAVED = new AtomicLong();
+
+    private TextureBuffers() {
+    }
+
+    static void register() {
+        EngineBridge.registerOffThread("texture.open", (level, args) -> open(level, string(args, 0), integer(args, 1),
+            integer(args, 2)));
+        EngineBridge.registerOffThread("texture.save", (level, args) -> save(string(args, 0)));
+        EngineBridge.registerOffThread("texture.close", (level, args) -> close(string(args, 0)));
+    }
+
+    /**
+     * Abre (o crea) la textura: con tamaño 0 usa el del PNG existente; si el PNG existe y
+     * tiene ese tamaño se cargan sus píxeles. Devuelve {"path", "width", "height", "generation"}
+     */
+    public static synchronized Map<String, Object> open(ServerLevel level, String name, int width, int height) {
+        String key = normalize(name);
+        File png = new File(texturesFolder(level), key);
+        BufferedImage image = null;
+        ScriptTexture current = OPEN.get(key);
+        if (current == null && png.isFile()) {
+            try {
+                image = ImageIO.read(png);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("No se pudo leer " + key + ": " + e.getMessage());
+            }
+        }
+        if (width == 0 && height == 0) {
+            if (current != null) {
+                return current.describe();
+            }
+            if (image == null) {
+                throw new IllegalArgumentException("La textura " + key + " no existe: indica su tamaño");
+            }
+            width = image.getWidth();
+            height = image.getHeight();
+        }
+        if (width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("El tamaño de una textura debe estar entre 1 y " + MAX_SIZE);
+        }
+        if (current != null && current.width == width && current.height == height) {
+            return current.describe();
+        }
+
+        int generation = current != null ? current.generation + 1 : 0;
+        File folder = new File(PythonRuntimeFiles.getRuntimeFolder(level), FOLDER);
+        File target = new File(folder, key.replace('/', '_').replace(".png", "") + "-" + generation + ".bin");
+        ScriptTexture texture;
+        try {
+            texture = new ScriptTexture(key, target, width, height, generation);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo mapear la textura " + key + ": " + e.getMessage());
+        }
+        if (image != null && image.getWidth() == width && image.getHeight() == height) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    texture.setPixel(x, y, image.getRGB(x, y));
+                }
+            }
+        }
+        if (current != null) {
+            current.release();
+        }
+        world = level;
+        OPEN.put(key, texture);
+        openSnapshot = new ArrayList<>(OPEN.values());
+        OPENED.incrementAndGet();
+        return texture.describe();
+    }
+
+    /**
+     * Guarda la textura abierta como PNG en assets/textures; devuelve la ruta del PNG
+     */
+    public static synchronized String save(String name) {
+        ScriptTexture texture = OPEN.get(normalize(name));
+        if (texture == null || world == null) {
+            throw new IllegalArgumentException("La textura no está abierta: " + name);
+        }
+        return write(texture).getAbsolutePath();
+    }
+
+    /**
+     * Guarda la textura si tiene cambios y suelta su archivo mapeado
+     */
+    public static synchronized boolean close(String name) {
+        ScriptTexture texture = OPEN.remove(normalize(name));
+        if (texture == null) {
+            return false;
+        }
+        openSnapshot = new ArrayList<>(OPEN.values());
+        saveIfModified(texture);
+        texture.release();
+        return true;
+    }
+
+    /**
+     * Guarda las texturas con cambios y las cierra todas (al descargar el mundo)
+     */
+    public static synchronized void closeAll() {
+        OPEN.values().forEach(texture -> {
+            saveIfModified(texture);
+            texture.release();
+        });
+        OPEN.clear();
+        openSnapshot = List.of();
+        world = null;
+    }
+
+    /**
+     * Texturas abiertas, para subirlas en el cliente
+     */
+    public static List<ScriptTexture> getOpen() {
+        return openSnapshot;
+    }
+
+    /**
+     * Texturas abiertas y PNG guardados
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("opened", OPENED.get());
+        metrics.put("saved", SAVED.get());
+        metrics.put("open", (long) openSnapshot.size());
+        return metrics;
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static String normalize(String name) {
+        String key = name.replace('\\', '/');
+        if (!key.endsWith(".png") || key.startsWith("/") || key.contains("..") || key.contains(":")) {
+            throw new IllegalArgumentException("Nombre de textura no válido (ruta .png dentro de assets/textures): "
+                + name);
+        }
+        return key;
+    }
+
+    private static File texturesFolder(ServerLevel level) {
+        return new File(ProjectManager.getAssetsFolder(level), "textures");
+    }
+
+    private static void saveIfModified(ScriptTexture texture) {
+        if (texture.isModified() && world != null) {
+            try {
+                write(texture);
+            } catch (RuntimeException e) {
+                LOGGER.warn("No se pudo guardar la textura {}", texture.name, e);
+            }
+        }
+    }
+
+    private static File write(ScriptTexture texture) {
+        File png = new File(texturesFolder(world), texture.name);
+        // Limpiar antes de copiar: una escritura concurrente la vuelve a marcar
+        texture.buffer.put(H_MODIFIED, (byte) 0);
+        BufferedImage image = new BufferedImage(texture.width, texture.height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < texture.height; y++) {
+            for (int x = 0; x < texture.width; x++) {
+                image.setRGB(x, y, texture.getPixel(x, y));
+            }
+        }
+        try {
+            File folder = png.getParentFile();
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("No se pudo crear " + folder.getAbsolutePath());
+            }
+            File temp = new File(folder, png.getName() + ".tmp");
+            ImageIO.write(image, "PNG", temp);
+            Files.move(temp.toPath(), png.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo guardar " + texture.name + ": " + e.getMessage());
+        }
+        SAVED.incrementAndGet();
+        LOGGER.info("Textura de script guardada: {}", png.getAbsolutePath());
+        return png;
+    }
+
+    /**
+     * Una textura abierta; los métodos de lectura y takeDirtyRow son seguros entre hilos
+     */
+    public static final class ScriptTexture {
+        private final String name;
+        private final File file;
+        private final int width;
+        private final int height;
+        private final int generation;
+        private final int pixelsOffset;
+        private final RandomAccessFile handle;
+        private final MappedByteBuffer buffer;
+
+        ScriptTexture(String name, File file, int width, int height, int generation) throws IOException {
+            File folder = file.getParentFile();
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("No se pudo crear " + folder.getAbsolutePath());
+            }
+            this.name = name;
+            this.file = file;
+            this.width = width;
+            this.height = height;
+            this.generation = generation;
+            this.pixelsOffset = HEADER_SIZE + ((height + 7) & ~7);
+            long size = pixelsOffset + (long) width * height * 4;
+            this.handle = new RandomAccessFile(file, "rw");
+            // A cero: un archivo reutilizado no debe traer filas dirty de otra sesión
+            handle.setLength(0);
+            handle.setLength(size);
+            this.buffer = handle.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_VERSION, VERSION);
+            buffer.putInt(H_WIDTH, width);
+            buffer.putInt(H_HEIGHT, height);
+            buffer.putInt(H_ROWS, HEADER_SIZE);
+            buffer.putInt(H_PIXELS, pixelsOffset);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Píxel ARGB
+         */
+        public int getPixel(int x, int y) {
+            return buffer.getInt(pixelsOffset + (y * width + x) * 4);
+        }
+
+        /**
+         * true si Python marcó la fila desde la última llamada; la marca se limpia antes de leerla
+         */
+        public boolean takeDirtyRow(int y) {
+            if (buffer.get(HEADER_SIZE + y) == 0) {
+                return false;
+            }
+            buffer.put(HEADER_SIZE + y, (byte) 0);
+            return true;
+        }
+
+        boolean isModified() {
+            return buffer.get(H_MODIFIED) != 0;
+        }
+
+        void setPixel(int x, int y, int argb) {
+            buffer.putInt(pixelsOffset + (y * width + x) * 4, argb);
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("path", file.getAbsolutePath());
+            result.put("width", width);
+            result.put("height", height);
+            result.put("generation", generation);
+            return result;
+        }
+
+        void release() {
+            try {
+                handle.close();
+            } catch (IOException e) {
+                LOGGER.debug("Error al cerrar la textura {}", name, e);
+            }
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transforms de los nodos compartidos con los workers Python por memoria mapeada
+ * Archivo: filesproject/.runtime/transforms.bin (ver pythonmc/transforms.py)
+ *
+ * Cabecera de 64 bytes y dos áreas de capacidad slots de 48 bytes, little-endian:
+ *   cabecera: magic, versión, stride, capacidad, slots usados, layout (u32),
+ *             seq (u64, impar mientras Java publica), tick (u64)
+ *   slot:     x, y, z (f64), yaw, pitch, roll (f32), active, visible, dirty (u8)
+ *
+ * Solo Java escribe el área publicada y solo Python escribe el área de
+ * escritura (detrás de la publicada), así que publicar nunca pisa una
+ * escritura a medias. Python lee la publicada con el patrón seqlock (seq par
+ * e igual antes y después de copiar); para escribir copia el slot publicado
+ * al área de escritura si no está dirty, cambia los valores y pone dirty = 1
+ * al final. "layout" cambia cuando cambia la asignación nodo -> slot, que
+ * Python consulta con transforms.slots.
+ */
+public class TransformBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformBuffer.class);
+    private static final String FILE_NAME = "transforms.bin";
+
+    public static final int MAGIC = 0x544D4350; // "PCMT"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+    public static final int STRIDE = 48;
+
+    // Cabecera
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_STRIDE = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_COUNT = 16;
+    private static final int H_LAYOUT = 20;
+    private static final int H_SEQ = 24;
+    private static final int H_TICK = 32;
+
+    // Slot
+    private static final int S_X = 0;
+    private static final int S_Y = 8;
+    private static final int S_Z = 16;
+    private static final int S_YAW = 24;
+    private static final int S_PITCH = 28;
+    private static final int S_ROLL = 32;
+    private static final int S_ACTIVE = 36;
+    private static final int S_VISIBLE = 37;
+    private static final int S_DIRTY = 38;
+
+    // Asignación nodo -> slot; solo desde el hilo del servidor salvo getSlots()
+    private static final Map<String, Integer> SLOTS = new HashMap<>();
+    private static final Deque<Integer> FREE_SLOTS = new ArrayDeque<>();
+    private static final List<Node> SLOT_NODES = new ArrayList<>();
+
+    private static RandomAccessFile file;
+    private static MappedByteBuffer buffer;
+    private static ServerLevel world;
+    private static int capacity;
+    private static int layout;
+    private static long seq;
+    private static long tick;
+    private static boolean overflowWarned;
+    private static volatile Map<String, Integer> slotSnapshot = Map.of();
+
+    /**
+     * Crea (o reutiliza) el archivo mapeado del mundo
+     */
+    public static synchronized void open(ServerLevel serverLevel, File runtimeFolder) {
+        close();
+        capacity = resolveCapacity();
+        File target = new File(runtimeFolder, FILE_NAME);
+
+        try {
+            if (!runtimeFolder.exists() && !runtimeFolder.mkdirs()) {
+                throw new IOException("No se pudo crear " + runtimeFolder.getAbsolutePath());
+            }
+            long size = HEADER_SIZE + 2L * capacity * STRIDE;
+            file = new RandomAccessFile(target, "rw");
+            // Un mapeo anterior puede seguir vivo (ver close()): solo se cambia el tamaño si hace falta
+            if (file.length() != size) {
+                file.setLength(size);
+            }
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            // Slots a cero: un archivo reutilizado no debe traer dirty de otra sesión
+            for (int i = 0; i < size; i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_VERSION, VERSION);
+            buffer.putInt(H_STRIDE, STRIDE);
+            buffer.putInt(H_CAPACITY, capacity);
+
+            world = serverLevel;
+            LOGGER.info("Buffer de transforms mapeado en {} ({} slots)", target.getAbsolutePath(), capacity);
+        } catch (IOException e) {
+            LOGGER.error("No se pudo mapear el buffer de transforms", e);
+            close();
+        }
+    }
+
+    /**
+     * Suelta el buffer; Java no permite liberar un MappedByteBuffer, así que el
+     * mapeo sigue vivo hasta que el GC lo recoja (y el archivo se reutiliza)
+     */
+    public static synchronized void close() {
+        world = null;
+        buffer = null;
+        SLOTS.clear();
+        FREE_SLOTS.clear();
+        SLOT_NODES.clear();
+        slotSnapshot = Map.of();
+        layout = 0;
+        seq = 0;
+        tick = 0;
+        overflowWarned = false;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                LOGGER.debug("Error al cerrar el buffer de transforms", e);
+            }
+            file = null;
+        }
+    }
+
+    public static boolean isOpen() {
+        return buffer != null;
+    }
+
+    /**
+     * Aplica a los nodos los slots escritos por Python; solo desde el hilo del servidor
+     * Devuelve el número de nodos actualizados
+     */
+    public static int applyWrites() {
+        MappedByteBuffer buf = buffer;
+        if (buf == null) {
+            return 0;
+        }
+
+        int applied = 0;
+        for (int slot = 0; slot < SLOT_NODES.size(); slot++) {
+            int base = writeBase(slot);
+            if (buf.get(base + S_DIRTY) == 0) {
+                continue;
+            }
+            // Limpiar antes de leer: una escritura concurrente volverá a marcarlo
+            buf.put(base + S_DIRTY, (byte) 0);
+
+            Node node = SLOT_NODES.get(slot);
+            if (node == null) {
+                continue;
+            }
+            node.setPosition(buf.getDouble(base + S_X), buf.getDouble(base + S_Y), buf.getDouble(base + S_Z));
+            node.setRotation(buf.getFloat(base + S_YAW), buf.getFloat(base + S_PITCH), buf.getFloat(base + S_ROLL));
+            node.setActive(buf.get(base + S_ACTIVE) != 0);
+            node.setVisible(buf.get(base + S_VISIBLE) != 0);
+            // Publicado ya: la siguiente escritura de Python parte de este estado
+            beginPublish(buf);
+            writeSlot(buf, slot, node);
+            endPublish(buf);
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Aplica las escrituras pendientes y publica el estado de todos los nodos
+     */
+    public static void publish() {
+        MappedByteBuffer buf = buffer;
+        ServerLevel level = world;
+        if (buf == null || level == null) {
+            return;
+        }
+
+        applyWrites();
+        boolean layoutChanged = assignSlots(level);
+
+        beginPublish(buf);
+        for (int slot = 0; slot < SLOT_NODES.size(); slot++) {
+            Node node = SLOT_NODES.get(slot);
+            if (node != null) {
+                writeSlot(buf, slot, node);
+            }
+        }
+        buf.putInt(H_COUNT, SLOT_NODES.size());
+        if (layoutChanged) {
+            buf.putInt(H_LAYOUT, ++layout);
+        }
+        buf.putLong(H_TICK, ++tick);
+        endPublish(buf);
+    }
+
+    /**
+     * Asignación actual id de nodo -> slot (para transforms.slots)
+     */
+    public static Map<String, Integer> getSlots() {
+        return slotSnapshot;
+    }
+
+    static void register() {
+        EngineBridge.register("transforms.slots", (level, args) -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("layout", layout);
+            result.put("slots", getSlots());
+            return result;
+        });
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static int writeBase(int slot) {
+        return HEADER_SIZE + (capacity + slot) * STRIDE;
+    }
+
+    private static void beginPublish(MappedByteBuffer buf) {
+        seq++;
+        buf.putLong(H_SEQ, seq * 2 - 1); // impar: publicando
+    }
+
+    private static void endPublish(MappedByteBuffer buf) {
+        buf.putLong(H_SEQ, seq * 2); // par: consistente
+    }
+
+    private static void writeSlot(MappedByteBuffer buf, int slot, Node node) {
+        int base = HEADER_SIZE + slot * STRIDE;
+        buf.putDouble(base + S_X, node.getX());
+        buf.putDouble(base + S_Y, node.getY());
+        buf.putDouble(base + S_Z, node.getZ());
+        buf.putFloat(base + S_YAW, node.getYaw());
+        buf.putFloat(base + S_PITCH, node.getPitch());
+        buf.putFloat(base + S_ROLL, node.getRoll());
+        buf.put(base + S_ACTIVE, (byte) (node.isActive() ? 1 : 0));
+        buf.put(base + S_VISIBLE, (byte) (node.isVisible() ? 1 : 0));
+    }
+
+    /**
+     * Da slot a los nodos nuevos y libera los de nodos eliminados
+     * Devuelve true si la asignación cambió
+     */
+    private static boolean assignSlots(ServerLevel level) {
+        Set<String> seen = new HashSet<>();
+        boolean changed = false;
+
+        Node root = NodeRegistry.getRoot(level);
+        Deque<Node> stack = new ArrayDeque<>();
+        if (root != null) {
+            stack.addAll(root.getChildren());
+        }
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            stack.addAll(node.getChildren());
+            seen.add(node.getId());
+            if (SLOTS.containsKey(node.getId())) {
+                continue;
+            }
+
+            int slot;
+            if (!FREE_SLOTS.isEmpty()) {
+                slot = FREE_SLOTS.pop();
+                SLOT_NODES.set(slot, node);
+            } else if (SLOT_NODES.size() < capacity) {
+                slot = SLOT_NODES.size();
+                SLOT_NODES.add(node);
+            } else {
+                if (!overflowWarned) {
+                    LOGGER.warn("Buffer de transforms lleno ({} slots); usa -Dpythonmc.transformSlots", capacity);
+                    overflowWarned = true;
+                }
+                continue;
+            }
+            SLOTS.put(node.getId(), slot);
+            changed = true;
+        }
+
+        if (SLOTS.size() > seen.size()) {
+            Iterator<Map.Entry<String, Integer>> it = SLOTS.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Integer> entry = it.next();
+                if (!seen.contains(entry.getKey())) {
+                    int slot = entry.getValue();
+                    SLOT_NODES.set(slot, null);
+                    buffer.put(writeBase(slot) + S_DIRTY, (byte) 0);
+                    FREE_SLOTS.push(slot);
+                    it.remove();
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            slotSnapshot = Map.copyOf(SLOTS);
+        }
+        return changed;
+    }
+
+    private static int resolveCapacity() {
+        String prop = System.getProperty("pythonmc.transformSlots");
+        if (prop != null) {
+            try {
+                return Math.max(16, Integer.parseInt(prop.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("pythonmc.transformSlots inválido: {}", prop);
+            }
+        }
+        return 4096;
+    }
+}
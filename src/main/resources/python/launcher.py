@@ -0,0 +1,93 @@
+"""
+Lanzador de scripts en un proceso propio con límites de recursos.
+
+PythonExecutor lo ejecuta como `python -c <este archivo> <cpu_s> <memory_mb> <script>`
+cuando no hay un worker libre. No importa nada de pythonmc: tiene que
+funcionar aunque el runtime del mundo no esté extraído.
+
+- RLIMIT_CPU: al agotar el límite blando llega SIGXCPU y el script termina
+  con EXIT_CPU_LIMIT; unos segundos después el límite duro lo mata.
+- RLIMIT_AS: las reservas por encima del límite lanzan MemoryError y el
+  script termina con EXIT_MEMORY_LIMIT.
+
+Sin el módulo resource (Windows) el script se ejecuta sin estos límites.
+"""
+
+import os
+import runpy
+import signal
+import sys
+import traceback
+
+# Códigos de salida reservados (mantener en sincronía con ScriptLimits.java)
+EXIT_CPU_LIMIT = 152
+EXIT_MEMORY_LIMIT = 153
+
+# Margen entre el límite blando de CPU (SIGXCPU) y el duro (SIGKILL)
+_CPU_GRACE_S = 2
+
+
+class CpuLimitExceeded(BaseException):
+    """Se lanza en el script al agotar su tiempo de CPU."""
+
+
+def _on_cpu_limit(signum, frame):
+    raise CpuLimitExceeded("límite de CPU agotado")
+
+
+def _address_space(resource):
+    try:
+        with open("/proc/self/statm") as statm:
+            return int(statm.read().split()[0]) * resource.getpagesize()
+    except (OSError, ValueError, IndexError):
+        return None
+
+
+def _print_script_traceback(path):
+    """Traceback sin los frames del lanzador ni de runpy."""
+    exc_type, exc_value, tb = sys.exc_info()
+    script = os.path.abspath(path)
+    while tb is not None and os.path.abspath(tb.tb_frame.f_code.co_filename) != script:
+        tb = tb.tb_next
+    traceback.print_exception(exc_type, exc_value, tb)
+
+
+def _apply_limits(cpu_s, memory_mb):
+    try:
+        import resource
+    except ImportError:
+        return
+
+    if cpu_s > 0 and hasattr(signal, "SIGXCPU"):
+        signal.signal(signal.SIGXCPU, _on_cpu_limit)
+        resource.setrlimit(resource.RLIMIT_CPU, (cpu_s, cpu_s + _CPU_GRACE_S))
+    if memory_mb > 0:
+        base = _address_space(resource)
+        if base is not None:
+            limit = base + memory_mb * 1024 * 1024
+            resource.setrlimit(resource.RLIMIT_AS, (limit, limit))
+
+
+def main():
+    cpu_s, memory_mb, path = int(sys.argv[1]), int(sys.argv[2]), sys.argv[3]
+    _apply_limits(cpu_s, memory_mb)
+
+    sys.argv = [path] + sys.argv[4:]
+    sys.path[0] = os.path.dirname(os.path.abspath(path))
+    try:
+        runpy.run_path(path, run_name="__main__")
+    except CpuLimitExceeded:
+        sys.stderr.write("CpuLimitExceeded: %d s de CPU agotados\n" % cpu_s)
+        sys.exit(EXIT_CPU_LIMIT)
+    except MemoryError:
+        _print_script_traceback(path)
+        sys.exit(EXIT_MEMORY_LIMIT)
+    except SystemExit:
+        raise
+    except BaseException:
+        _print_script_traceback(path)
+        sys.exit(1)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,12 @@
+"""
+PythonMC - librería de scripts para el Engine de PythonMC.
+
+El mod extrae este paquete en filesproject/.runtime/python y lo añade al
+PYTHONPATH de los workers, así que los scripts solo necesitan `import pythonmc`.
+"""
+
+__version__ = "2.0.0"
+
+from pythonmc.engine import (  # noqa: E402
+    Engine, Node, Camera, CharacterBody, AudioPlayer, Mutations, Subscription, NodeScript, compiled,
+)
@@ -0,0 +1,62 @@
+"""
+Latencia de una llamada al engine desde el backend de scripts actual.
+
+BackendBenchmark lo ejecuta una vez con cada backend disponible (Ctrl+B en
+el editor). Mide idas y vueltas de "engine.echo", que no hace trabajo en el
+servidor, así que el resultado es el coste del propio bridge:
+
+- cpython: trama CALL por la pipe del worker, ejecución en el hilo del
+  servidor y trama RESULT de vuelta.
+- graalpy: llamada directa a Java con el global `engine`; además se mide
+  engine.echo_direct, que ni siquiera pasa por EngineBridge.
+"""
+
+import sys
+import time
+
+ITERATIONS = 2000
+WARMUP = 200
+
+
+def _measure(call, iterations):
+    clock = time.perf_counter
+    for i in range(WARMUP):
+        call(i)
+    samples = []
+    for i in range(iterations):
+        start = clock()
+        call(i)
+        samples.append((clock() - start) * 1e6)
+    samples.sort()
+    return samples
+
+
+def _report(backend, label, samples):
+    count = len(samples)
+    p50 = samples[count // 2]
+    p99 = samples[min(count - 1, int(count * 0.99))]
+    mean = sum(samples) / count
+    print("[benchmark] %-8s %-24s p50 %8.1f us  p99 %8.1f us  media %8.1f us  (%d llamadas)"
+          % (backend, label, p50, p99, mean, count))
+
+
+def main(host=None):
+    if host is not None:
+        _report("graalpy", "engine.echo", _measure(host.echo, ITERATIONS))
+        _report("graalpy", "echo_direct (sin bridge)", _measure(host.echo_direct, ITERATIONS))
+        return 0
+
+    try:
+        from pythonmc.bridge import BridgeError, get_bridge
+        bridge = get_bridge()
+    except (ImportError, BridgeError):
+        sys.stderr.write("El benchmark necesita un worker del engine (mundo cargado en modo Engine)\n")
+        return 1
+
+    _report("cpython", "engine.echo", _measure(lambda i: bridge.call("engine.echo", i), ITERATIONS))
+    return 0
+
+
+if __name__ == "__main__":
+    # GraalPyBackend inyecta el global `engine`; en los workers CPython no existe
+    sys.exit(main(globals().get("engine")))
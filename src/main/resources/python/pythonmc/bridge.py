@@ -0,0 +1,364 @@
+"""
+Canal RPC binario entre los scripts y el engine.
+
+Trama: [u32 longitud][u8 tipo][u32 id][payload], big-endian. `longitud`
+cuenta tipo + id + payload. Los payloads se codifican con `encode`/`decode`
+(ver BridgeCodec.java, que es el espejo de este módulo).
+
+Uso desde un script:
+
+    from pythonmc.bridge import get_bridge
+    bridge = get_bridge()
+    pos = bridge.call("node.get_transform", node_id)
+
+    # Varias llamadas en una sola trama (un solo viaje al servidor)
+    with bridge.batch() as batch:
+        futures = [batch.call("node.translate", nid, 0, 1, 0) for nid in ids]
+    results = [f.result() for f in futures]
+"""
+
+import struct
+import threading
+from collections import deque
+
+# ---------- Tipos de trama (mantener en sincronía con BridgeFrame.java) ----------
+RUN = 1
+PING = 2
+EXIT = 3
+LOAD = 4
+UNLOAD = 5
+UPDATE = 6
+RELOAD = 7
+PROFILE = 8
+EVENTS = 9
+READY = 10
+PONG = 11
+OUT = 12
+DONE = 13
+REPLY = 14
+ERR = 15
+PROFILE_DATA = 16
+RESULT = 20
+ERROR = 21
+BATCH_RESULT = 22
+ATTACH = 23
+DETACH = 24
+DIGEST = 25
+GENERATE = 26
+CALL = 30
+BATCH = 31
+
+_HEADER = struct.Struct(">IBI")
+_U32 = struct.Struct(">I")
+_I64 = struct.Struct(">q")
+_F64 = struct.Struct(">d")
+
+# ---------- Codec de valores ----------
+_TAG_NONE = 0
+_TAG_FALSE = 1
+_TAG_TRUE = 2
+_TAG_INT = 3
+_TAG_FLOAT = 4
+_TAG_STR = 5
+_TAG_BYTES = 6
+_TAG_LIST = 7
+_TAG_MAP = 8
+
+
+class BridgeError(Exception):
+    """Error devuelto por el engine para una llamada RPC."""
+
+
+def encode(value, out=None):
+    if out is None:
+        out = bytearray()
+    if value is None:
+        out.append(_TAG_NONE)
+    elif value is True:
+        out.append(_TAG_TRUE)
+    elif value is False:
+        out.append(_TAG_FALSE)
+    elif isinstance(value, int):
+        out.append(_TAG_INT)
+        out += _I64.pack(value)
+    elif isinstance(value, float):
+        out.append(_TAG_FLOAT)
+        out += _F64.pack(value)
+    elif isinstance(value, str):
+        data = value.encode("utf-8")
+        out.append(_TAG_STR)
+        out += _U32.pack(len(data))
+        out += data
+    elif isinstance(value, (bytes, bytearray, memoryview)):
+        out.append(_TAG_BYTES)
+        out += _U32.pack(len(value))
+        out += value
+    elif isinstance(value, (list, tuple)):
+        out.append(_TAG_LIST)
+        out += _U32.pack(len(value))
+        for item in value:
+            encode(item, out)
+    elif isinstance(value, dict):
+        out.append(_TAG_MAP)
+        out += _U32.pack(len(value))
+        for key, item in value.items():
+            data = str(key).encode("utf-8")
+            out += _U32.pack(len(data))
+            out += data
+            encode(item, out)
+    else:
+        # Números tipo numpy y similares
+        if hasattr(value, "__index__"):
+            return encode(value.__index__(), out)
+        if hasattr(value, "__float__"):
+            return encode(float(value), out)
+        raise TypeError("Tipo no soportado por el bridge: %s" % type(value).__name__)
+    return out
+
+
+def decode(buf, pos=0):
+    tag = buf[pos]
+    pos += 1
+    if tag == _TAG_NONE:
+        return None, pos
+    if tag == _TAG_FALSE:
+        return False, pos
+    if tag == _TAG_TRUE:
+        return True, pos
+    if tag == _TAG_INT:
+        return _I64.unpack_from(buf, pos)[0], pos + 8
+    if tag == _TAG_FLOAT:
+        return _F64.unpack_from(buf, pos)[0], pos + 8
+    if tag == _TAG_STR:
+        size = _U32.unpack_from(buf, pos)[0]
+        pos += 4
+        return bytes(buf[pos:pos + size]).decode("utf-8"), pos + size
+    if tag == _TAG_BYTES:
+        size = _U32.unpack_from(buf, pos)[0]
+        pos += 4
+        return bytes(buf[pos:pos + size]), pos + size
+    if tag == _TAG_LIST:
+        count = _U32.unpack_from(buf, pos)[0]
+        pos += 4
+        items = []
+        for _ in range(count):
+            item, pos = decode(buf, pos)
+            items.append(item)
+        return items, pos
+    if tag == _TAG_MAP:
+        count = _U32.unpack_from(buf, pos)[0]
+        pos += 4
+        result = {}
+        for _ in range(count):
+            size = _U32.unpack_from(buf, pos)[0]
+            pos += 4
+            key = bytes(buf[pos:pos + size]).decode("utf-8")
+            pos += size
+            result[key], pos = decode(buf, pos)
+        return result, pos
+    raise ValueError("Tag desconocido en payload: %d" % tag)
+
+
+def decode_value(payload):
+    if not payload:
+        return None
+    return decode(payload, 0)[0]
+
+
+# ---------- Tramas ----------
+
+def write_frame(stream, frame_type, frame_id, payload=b""):
+    stream.write(_HEADER.pack(5 + len(payload), frame_type, frame_id))
+    if payload:
+        stream.write(payload)
+
+
+def read_frame(stream):
+    """Lee una trama completa; devuelve None si el canal se cerró."""
+    header = _read_exact(stream, 9)
+    if header is None:
+        return None
+    length, frame_type, frame_id = _HEADER.unpack(header)
+    payload = _read_exact(stream, length - 5) if length > 5 else b""
+    if payload is None:
+        return None
+    return frame_type, frame_id, payload
+
+
+def _read_exact(stream, size):
+    chunks = []
+    remaining = size
+    while remaining > 0:
+        chunk = stream.read(remaining)
+        if not chunk:
+            return None
+        chunks.append(chunk)
+        remaining -= len(chunk)
+    return b"".join(chunks) if len(chunks) != 1 else chunks[0]
+
+
+# ---------- Cliente ----------
+
+class CallFuture(object):
+    """Resultado pendiente de una llamada enviada al engine."""
+
+    __slots__ = ("_bridge", "request_id", "_done", "_value", "_error")
+
+    def __init__(self, bridge, request_id):
+        self._bridge = bridge
+        self.request_id = request_id
+        self._done = False
+        self._value = None
+        self._error = None
+
+    def done(self):
+        return self._done
+
+    def result(self):
+        if not self._done:
+            self._bridge._wait_for(self)
+        if self._error is not None:
+            raise BridgeError(self._error)
+        return self._value
+
+    def _resolve(self, value, error=None):
+        self._value = value
+        self._error = error
+        self._done = True
+
+
+class Batch(object):
+    """Agrupa llamadas en una sola trama BATCH; se envía al salir del with."""
+
+    def __init__(self, bridge):
+        self._bridge = bridge
+        self._calls = []
+        self._futures = []
+
+    def call(self, method, *args):
+        future = self._bridge._new_future()
+        self._calls.append([future.request_id, method, list(args)])
+        self._futures.append(future)
+        return future
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, exc_type, exc, tb):
+        if exc_type is None and self._calls:
+            batch_id = self._bridge._new_batch([future.request_id for future in self._futures])
+            self._bridge._send(BATCH, batch_id, encode(self._calls))
+            self._bridge.flush()
+        return False
+
+
+class Bridge(object):
+    """Cliente RPC del engine con peticiones numeradas y pipelining."""
+
+    def __init__(self, stream_in, stream_out):
+        self._in = stream_in
+        self._out = stream_out
+        self._lock = threading.RLock()
+        self._next_id = 1
+        self._pending = {}
+        # Lotes enviados: id de la trama BATCH -> ids de sus llamadas
+        self._batches = {}
+        # Tramas que no son respuestas RPC; las consume el bucle del worker
+        self.unsolicited = deque()
+        # Lo fija pythonmc.readcache al activarse: aplica cada DIGEST en cuanto se lee
+        self.digest_handler = None
+
+    def call(self, method, *args):
+        """Llamada síncrona: envía y espera la respuesta."""
+        future = self.call_async(method, *args)
+        self.flush()
+        return future.result()
+
+    def call_async(self, method, *args):
+        """Envía la llamada sin esperar; usa .result() para recoger el valor."""
+        future = self._new_future()
+        self._send(CALL, future.request_id, encode([method, list(args)]))
+        return future
+
+    def batch(self):
+        return Batch(self)
+
+    def flush(self):
+        with self._lock:
+            self._out.flush()
+
+    def send_frame(self, frame_type, frame_id, payload=b""):
+        self._send(frame_type, frame_id, payload)
+        self.flush()
+
+    def handle_frame(self, frame_type, frame_id, payload):
+        """Procesa una respuesta RPC o un digest; devuelve False si la trama es para el worker."""
+        if frame_type == RESULT:
+            self._resolve(frame_id, decode_value(payload), None)
+        elif frame_type == ERROR:
+            error = decode_value(payload) or "error"
+            # Un ERROR con el id de un lote falla todas sus llamadas
+            for request_id in self._batches.pop(frame_id, (frame_id,)):
+                self._resolve(request_id, None, error)
+        elif frame_type == BATCH_RESULT:
+            request_ids = self._batches.pop(frame_id, ())
+            for request_id, ok, value in decode_value(payload):
+                self._resolve(request_id, value if ok else None, None if ok else (value or "error"))
+            for request_id in request_ids:
+                self._resolve(request_id, None, "El engine no respondió a la llamada del lote")
+        elif frame_type == DIGEST and self.digest_handler is not None:
+            self.digest_handler(decode_value(payload))
+        else:
+            return False
+        return True
+
+    # ---------- internos ----------
+
+    def _new_future(self):
+        with self._lock:
+            request_id = self._next_id
+            self._next_id = (self._next_id + 1) & 0x7FFFFFFF or 1
+            future = CallFuture(self, request_id)
+            self._pending[request_id] = future
+            return future
+
+    def _new_batch(self, request_ids):
+        with self._lock:
+            batch_id = self._next_id
+            self._next_id = (self._next_id + 1) & 0x7FFFFFFF or 1
+            self._batches[batch_id] = request_ids
+            return batch_id
+
+    def _send(self, frame_type, frame_id, payload):
+        with self._lock:
+            write_frame(self._out, frame_type, frame_id, payload)
+
+    def _resolve(self, request_id, value, error):
+        future = self._pending.pop(request_id, None)
+        if future is not None:
+            future._resolve(value, error)
+
+    def _wait_for(self, future):
+        self.flush()
+        while not future.done():
+            frame = read_frame(self._in)
+            if frame is None:
+                raise BridgeError("Conexión con el engine cerrada")
+            if not self.handle_frame(*frame):
+                self.unsolicited.append(frame)
+
+
+_BRIDGE = None
+
+
+def install(stream_in, stream_out):
+    """Lo llama el worker al arrancar para conectar el cliente a sus pipes."""
+    global _BRIDGE
+    _BRIDGE = Bridge(stream_in, stream_out)
+    return _BRIDGE
+
+
+def get_bridge():
+    if _BRIDGE is None:
+        raise BridgeError("El script no se está ejecutando dentro del engine de PythonMC")
+    return _BRIDGE
@@ -0,0 +1,121 @@
+"""
+Compilador de scripts en segundo plano (ver ScriptCompiler.java).
+
+El editor lo lanza una vez con `python -m pythonmc.compiler` y le pide una
+compilación por cada script guardado. Protocolo de líneas JSON:
+
+- stdin:  {"path": "...", "cache": "carpeta de bytecode"}
+- stdout: {"path", "hash", "ok", "line", "col", "message", "bytecode", "ms"}
+
+El bytecode se guarda como <sha256 del fuente>.<cache_tag>.pyc (número mágico
++ marshal), así que un contenido ya compilado no se vuelve a compilar y un
+intérprete de otra versión no lo reutiliza. Dos scripts con el mismo fuente
+comparten el .pyc: load_bytecode pone la ruta del que se ejecuta en el code. Los workers lo ejecutan en lugar
+de volver a compilar el script (ver worker._exec_main).
+"""
+
+import hashlib
+import importlib.util
+import json
+import marshal
+import os
+import sys
+import time
+
+MAGIC = importlib.util.MAGIC_NUMBER
+
+
+def bytecode_path(cache_dir, digest):
+    return os.path.join(cache_dir, "%s.%s.pyc" % (digest, sys.implementation.cache_tag))
+
+
+def load_bytecode(path, filename=None):
+    """
+    Code object de un .pyc de este compilador, o None si no sirve. Con filename
+    se cambia la ruta que guardó la primera compilación (tracebacks del editor).
+    """
+    try:
+        with open(path, "rb") as handle:
+            data = handle.read()
+    except OSError:
+        return None
+    if data[:len(MAGIC)] != MAGIC:
+        return None
+    try:
+        code = marshal.loads(data[len(MAGIC):])
+    except (EOFError, ValueError, TypeError):
+        return None
+    if filename is not None and code.co_filename != filename:
+        code = _with_filename(code, filename)
+    return code
+
+
+def _with_filename(code, filename):
+    """Copia del code object (y de los anidados) con otra co_filename."""
+    consts = tuple(_with_filename(const, filename) if isinstance(const, type(code)) else const
+                   for const in code.co_consts)
+    return code.replace(co_filename=filename, co_consts=consts)
+
+
+def compile_file(path, cache_dir):
+    start = time.perf_counter()
+    result = {"path": path, "hash": None, "ok": False, "line": 0, "col": 0, "message": None, "bytecode": None}
+    try:
+        with open(path, "rb") as handle:
+            source = handle.read()
+    except OSError as exc:
+        result["message"] = "No se pudo leer: %s" % exc
+        return _finish(result, start)
+
+    digest = hashlib.sha256(source).hexdigest()
+    result["hash"] = digest
+    target = bytecode_path(cache_dir, digest)
+    if os.path.exists(target):
+        result["ok"] = True
+        result["bytecode"] = target
+        return _finish(result, start)
+
+    try:
+        code = compile(source, path, "exec", dont_inherit=True)
+    except SyntaxError as exc:
+        result["line"] = exc.lineno or 0
+        result["col"] = exc.offset or 0
+        result["message"] = "%s: %s" % (type(exc).__name__, exc.msg)
+        return _finish(result, start)
+    except ValueError as exc:
+        # Bytes nulos en el fuente
+        result["message"] = "ValueError: %s" % exc
+        return _finish(result, start)
+
+    os.makedirs(cache_dir, exist_ok=True)
+    temp = "%s.%d.tmp" % (target, os.getpid())
+    with open(temp, "wb") as handle:
+        handle.write(MAGIC)
+        marshal.dump(code, handle)
+    os.replace(temp, target)
+    result["ok"] = True
+    result["bytecode"] = target
+    return _finish(result, start)
+
+
+def _finish(result, start):
+    result["ms"] = (time.perf_counter() - start) * 1000.0
+    return result
+
+
+def main():
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        try:
+            request = json.loads(line)
+            result = compile_file(request["path"], request["cache"])
+        except Exception as exc:  # una petición rota no debe tumbar el proceso
+            result = {"path": None, "ok": False, "message": "%s: %s" % (type(exc).__name__, exc)}
+        sys.stdout.write(json.dumps(result) + "\n")
+        sys.stdout.flush()
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,387 @@
+"""
+Corrutinas de scripts reanudadas por el tick del engine.
+
+Una corrutina es una función generadora que cede esperas; el worker las
+reanuda desde una rueda de temporizadores en cada UPDATE, sin un hilo ni un
+proceso por comportamiento. Solo en scripts de ciclo de vida (init/update):
+se cancelan al descargar el script o al recargarlo con un init() nuevo.
+
+    from pythonmc import Engine
+    from pythonmc.coroutines import start, wait_ticks, wait_event, wait_until
+
+    def door(node):
+        yield wait_ticks(40)
+        node.call("open")
+        event = yield wait_event("chat", lambda e: e["message"] == "cerrar", timeout=200)
+        if event is None:
+            print("nadie pidió cerrar")
+        yield wait_until(lambda: node.position[1] > 70)
+
+    def init():
+        start(door(Engine.get_node("Door")))
+
+Esperas:
+    wait_ticks(n)                       reanuda n ticks después (None o 0: el siguiente)
+    wait_event(tipos, filtro, timeout)  reanuda con el evento (ver Engine.subscribe)
+                                        o con None si pasan timeout ticks
+    wait_until(predicado, every=1)      reanuda cuando predicado() es cierto; se
+                                        comprueba cada `every` ticks
+
+stats() da las corrutinas vivas y las reanudadas en el último tick.
+"""
+
+import time
+
+from pythonmc import engine as _engine
+
+# Rueda de temporizadores: un hueco por tick; las esperas más largas dan vueltas
+_WHEEL_SIZE = 256
+# Cola de eventos de la suscripción interna del planificador
+_EVENT_CAPACITY = 4096
+
+
+class WaitTicks(object):
+    __slots__ = ("ticks",)
+
+    def __init__(self, ticks):
+        self.ticks = max(1, int(ticks))
+
+
+class WaitEvent(object):
+    __slots__ = ("types", "predicate", "timeout")
+
+    def __init__(self, types, predicate, timeout):
+        self.types = frozenset([types] if isinstance(types, str) else types)
+        self.predicate = predicate
+        self.timeout = timeout
+
+
+class WaitUntil(object):
+    __slots__ = ("predicate", "every")
+
+    def __init__(self, predicate, every):
+        self.predicate = predicate
+        self.every = max(1, int(every))
+
+
+def wait_ticks(ticks=1):
+    return WaitTicks(ticks or 1)
+
+
+def wait_event(types, predicate=None, timeout=None):
+    return WaitEvent(types, predicate, timeout)
+
+
+def wait_until(predicate, every=1):
+    return WaitUntil(predicate, every)
+
+
+class Coroutine(object):
+    """Corrutina en marcha; done pasa a True al terminar, fallar o cancelarse."""
+
+    __slots__ = ("generator", "owner", "name", "done", "result", "due", "timer", "wait", "_scheduler")
+
+    def __init__(self, scheduler, generator, owner):
+        self._scheduler = scheduler
+        self.generator = generator
+        self.owner = owner
+        self.name = getattr(generator, "__qualname__", "corrutina")
+        self.done = False
+        self.result = None
+        self.due = 0
+        # Las entradas de la rueda con otro valor están anuladas (evento antes del timeout)
+        self.timer = 0
+        # Espera activa (WaitEvent/WaitUntil) o None si está en la rueda
+        self.wait = None
+
+    def cancel(self):
+        if not self.done:
+            self._scheduler._finish(self)
+            self.generator.close()
+
+    def __repr__(self):
+        return "<Coroutine %s%s>" % (self.name, " terminada" if self.done else "")
+
+
+class Scheduler(object):
+    """
+    Planificador del worker. advance() lo llama el worker en cada UPDATE con
+    el tick del servidor; si se omitieron ticks, las esperas vencidas en ellos
+    se reanudan juntas en el siguiente.
+    """
+
+    def __init__(self):
+        self.tick = None
+        self._wheel = [[] for _ in range(_WHEEL_SIZE)]
+        self._ready = []
+        self._waiting_events = []
+        self._waiting_until = []
+        self._live = 0
+        self._subscription = None
+        self._subscribed_types = frozenset()
+        # Contadores
+        self.started = 0
+        self.finished = 0
+        self.failed = 0
+        self.resumed_last_tick = 0
+        self.resumed_total = 0
+        self.last_ms = 0.0
+
+    def start(self, generator, owner=None):
+        if not hasattr(generator, "send"):
+            raise TypeError("start() espera un generador (llama a la función: start(f()))")
+        if owner is None:
+            owner = _engine._OWNER
+        if owner is not None and owner[0] == "run":
+            raise RuntimeError("las corrutinas son para scripts de ciclo de vida (init/update)")
+        coroutine = Coroutine(self, generator, owner)
+        self._live += 1
+        self.started += 1
+        # Primer paso en el siguiente tick, igual que cualquier reanudación
+        self._ready.append((coroutine, None))
+        return coroutine
+
+    def owns(self, owner):
+        """True si el dueño tiene alguna corrutina viva."""
+        return any(coroutine.owner == owner for coroutine in self._all())
+
+    def cancel_owned(self, owner):
+        for coroutine in self._all():
+            if coroutine.owner == owner:
+                coroutine.cancel()
+
+    def stats(self):
+        return {
+            "live": self._live,
+            "resumed": self.resumed_last_tick,
+            "resumed_total": self.resumed_total,
+            "started": self.started,
+            "finished": self.finished,
+            "failed": self.failed,
+            "ms": self.last_ms,
+        }
+
+    def advance(self, tick, owner_context):
+        """
+        Reanuda lo que vence hasta `tick`. owner_context(owner) es un context
+        manager (salida del script dueño) que da una función report(exc).
+        """
+        start = time.perf_counter()
+        due = self._collect(tick)
+        resumed = 0
+        if due:
+            by_owner = {}
+            for item in due:
+                by_owner.setdefault(item[0].owner, []).append(item)
+            for owner, items in by_owner.items():
+                with owner_context(owner) as report:
+                    for coroutine, value in items:
+                        if not coroutine.done:
+                            resumed += 1
+                            self._step(coroutine, value, report)
+        self._sync_subscription()
+        self.resumed_last_tick = resumed
+        self.resumed_total += resumed
+        self.last_ms = (time.perf_counter() - start) * 1000.0
+        return resumed
+
+    # ---------- internos ----------
+
+    def _collect(self, tick):
+        previous = self.tick
+        if self._live == 0:
+            # Sin corrutinas la rueda empieza de cero (p. ej. en otro mundo)
+            previous = None
+            self._wheel = [[] for _ in range(_WHEEL_SIZE)]
+        elif previous is not None and tick < previous:
+            # El contador del servidor se reinició: se conservan los ticks que faltaban
+            self._rebase(tick - previous)
+            previous = tick - 1
+        self.tick = tick
+        due = self._ready
+        self._ready = []
+        if previous is None:
+            return due
+
+        # Cada hueco de la rueda entre el tick anterior y este (como mucho una vuelta)
+        steps = min(tick - previous, _WHEEL_SIZE)
+        for offset in range(1, steps + 1):
+            index = (previous + offset) % _WHEEL_SIZE
+            bucket = self._wheel[index]
+            if not bucket:
+                continue
+            keep = []
+            for entry in bucket:
+                coroutine, timer = entry
+                if coroutine.done or timer != coroutine.timer:
+                    continue
+                if coroutine.due > tick:
+                    keep.append(entry)
+                elif coroutine.wait is None:
+                    due.append((coroutine, None))
+                else:
+                    # Fin del timeout de un wait_event
+                    self._waiting_events.remove(coroutine)
+                    coroutine.wait = None
+                    due.append((coroutine, None))
+            self._wheel[index] = keep
+
+        if self._waiting_until:
+            still = []
+            for coroutine in self._waiting_until:
+                if coroutine.done:
+                    continue
+                if (tick - coroutine.due) % coroutine.wait.every:
+                    still.append(coroutine)
+                    continue
+                try:
+                    ready = coroutine.wait.predicate()
+                except Exception as exc:  # el error se informa al reanudarla
+                    ready = exc
+                if ready:
+                    coroutine.wait = None
+                    due.append((coroutine, ready if isinstance(ready, Exception) else None))
+                else:
+                    still.append(coroutine)
+            self._waiting_until = still
+        return due
+
+    def _rebase(self, shift):
+        entries = [entry for bucket in self._wheel for entry in bucket]
+        self._wheel = [[] for _ in range(_WHEEL_SIZE)]
+        for coroutine, timer in entries:
+            if not coroutine.done and timer == coroutine.timer:
+                self._add_timer(coroutine, coroutine.due + shift)
+        for coroutine in self._waiting_until:
+            coroutine.due += shift
+
+    def _step(self, coroutine, value, report):
+        try:
+            if isinstance(value, Exception):
+                request = coroutine.generator.throw(value)
+            else:
+                request = coroutine.generator.send(value)
+        except StopIteration as stop:
+            coroutine.result = stop.value
+            self._finish(coroutine)
+            return
+        except Exception as exc:
+            self._finish(coroutine)
+            self.failed += 1
+            report(exc)
+            return
+        try:
+            self._schedule(coroutine, request)
+        except TypeError as exc:
+            coroutine.generator.close()
+            self._finish(coroutine)
+            self.failed += 1
+            report(exc)
+
+    def _schedule(self, coroutine, request):
+        tick = self.tick
+        if request is None or isinstance(request, WaitTicks):
+            self._add_timer(coroutine, tick + (request.ticks if request is not None else 1))
+        elif isinstance(request, WaitEvent):
+            coroutine.wait = request
+            self._waiting_events.append(coroutine)
+            if request.timeout is not None:
+                self._add_timer(coroutine, tick + max(1, int(request.timeout)))
+        elif isinstance(request, WaitUntil):
+            coroutine.wait = request
+            coroutine.due = tick
+            self._waiting_until.append(coroutine)
+        else:
+            raise TypeError("%s cedió %r; usa wait_ticks, wait_event o wait_until"
+                            % (coroutine.name, request))
+
+    def _add_timer(self, coroutine, due):
+        coroutine.due = due
+        coroutine.timer += 1
+        self._wheel[due % _WHEEL_SIZE].append((coroutine, coroutine.timer))
+
+    def _finish(self, coroutine):
+        if coroutine.done:
+            return
+        coroutine.done = True
+        coroutine.timer += 1
+        self._live -= 1
+        self.finished += 1
+        if coroutine.wait is not None:
+            if coroutine in self._waiting_events:
+                self._waiting_events.remove(coroutine)
+            coroutine.wait = None
+
+    def _all(self):
+        seen = {}
+        for coroutine, _ in self._ready:
+            seen[id(coroutine)] = coroutine
+        for bucket in self._wheel:
+            for coroutine, _ in bucket:
+                seen[id(coroutine)] = coroutine
+        for coroutine in self._waiting_events + self._waiting_until:
+            seen[id(coroutine)] = coroutine
+        return [coroutine for coroutine in seen.values() if not coroutine.done]
+
+    def _on_events(self, events):
+        """Callback de la suscripción interna: despierta las esperas que casan."""
+        waiting = self._waiting_events
+        for event in events:
+            if not waiting:
+                break
+            event_type = event["type"]
+            for coroutine in list(waiting):
+                wait = coroutine.wait
+                if event_type not in wait.types:
+                    continue
+                value = event
+                try:
+                    matches = wait.predicate is None or wait.predicate(event)
+                except Exception as exc:
+                    # Solo esta corrutina recibe la excepción; el evento sigue igual para las demás
+                    matches, value = True, exc
+                if matches:
+                    waiting.remove(coroutine)
+                    coroutine.wait = None
+                    # Anula el temporizador del timeout, si lo tenía
+                    coroutine.timer += 1
+                    self._ready.append((coroutine, value))
+
+    def _sync_subscription(self):
+        """
+        Una sola suscripción push con la unión de los tipos que se esperan.
+
+        Se cambian sus tipos sin cerrarla: cerrar vaciaría la cola del engine y
+        perdería los eventos pendientes de las corrutinas que siguen esperando.
+        """
+        wanted = frozenset()
+        for coroutine in self._waiting_events:
+            wanted |= coroutine.wait.types
+        if wanted == self._subscribed_types:
+            return
+        self._subscribed_types = wanted
+        if self._subscription is not None:
+            if wanted:
+                self._subscription.set_types(sorted(wanted))
+                return
+            self._subscription.close()
+            self._subscription = None
+        if wanted:
+            saved = _engine._set_owner(("scheduler", 0))
+            try:
+                self._subscription = _engine.Engine.subscribe(sorted(wanted), self._on_events,
+                                                              capacity=_EVENT_CAPACITY)
+            finally:
+                _engine._set_owner(saved)
+
+
+SCHEDULER = Scheduler()
+
+
+def start(generator):
+    """Programa la corrutina para el siguiente tick y la devuelve."""
+    return SCHEDULER.start(generator)
+
+
+def stats():
+    return SCHEDULER.stats()
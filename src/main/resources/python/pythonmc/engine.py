@@ -0,0 +1,556 @@
+"""
+API de alto nivel sobre el bridge RPC para acceder a los nodos del engine.
+
+    from pythonmc import Engine
+
+    camera = Engine.get_node("MainCamera")
+    camera.move(100, 70, 200)
+
+    # Las lecturas repetidas se sirven desde la caché del proceso (ver pythonmc.readcache)
+    print(camera.position, Engine.get_block(100, 69, 200))
+
+    audio = Engine.create_node("AudioPlayer", "Music")
+    audio.play()
+
+    # Muchas escrituras en un solo viaje al servidor
+    with Engine.batch() as batch:
+        for node in Engine.nodes():
+            batch.call("node.translate", node.id, 0, 0.1, 0)
+
+    # Cambios atómicos: se aplican todos juntos al inicio del siguiente tick
+    with Engine.mutations() as m:
+        door = m.create("Node", "Door", parent=camera, position=(0, 64, 0))
+        m.set_block(0, 64, 0, "minecraft:air")
+    print(m.wait()["created"][door])
+
+    # Estructuras de un script generador; con los mismos argumentos sale de la caché
+    Engine.generate("torre.py", x=0, y=64, z=0, height=30)
+    # ...o repartido por regiones de chunks entre varios workers
+    Engine.generate_parallel("terreno.py", (0, 60, 0, 255, 80, 255), region_chunks=2)
+
+    # Miles de cubos de un Model3D en una sola llamada (ver pythonmc.models)
+    Engine.build_model("voxels.json", [(0, 0, 0, 1, 1, 1), (1, 0, 0, 1, 2, 1)], colors=0xFF3366CC)
+
+    # Script adjunto al nodo: una instancia por nodo, guardado en la escena
+    # (un update() marcado con @compiled puede correr dentro del engine, ver pythonmc.fastpath)
+    camera.attach_script("orbit.py")
+
+    # Eventos del engine: por callback en scripts de ciclo de vida...
+    def on_events(events):
+        for event in events:
+            print(event["type"], event.get("name"))
+    Engine.subscribe(["node.added", "chat"], on_events)
+
+    # ...o consultando la cola desde un script normal
+    with Engine.subscribe(["block.break"]) as sub:
+        for event in sub.poll(timeout=1.0):
+            print(event["block"], event["position"])
+
+    # Entrada de los jugadores (opcional): un evento "input" por jugador y tick
+    Engine.capture_input(interval=2)
+    Engine.get_node("Player").set_input_control(True)
+    Engine.subscribe(["input"], lambda events: print(events[-1]["held"], events[-1]["mouse"]))
+"""
+
+import time
+
+from pythonmc import generators as _generators
+from pythonmc import models as _models
+from pythonmc import regions as _regions
+from pythonmc import textures as _textures
+from pythonmc.bridge import get_bridge
+from pythonmc.readcache import CACHE as _CACHE
+
+
+class Node(object):
+    """Referencia ligera a un nodo del engine (solo guarda su id)."""
+
+    __slots__ = ("id",)
+
+    def __init__(self, node_id):
+        self.id = node_id
+
+    def _call(self, method, *args):
+        """Llamada que modifica el nodo: descarta lo que hay de él en la caché."""
+        _CACHE.forget(self.id)
+        return get_bridge().call(method, self.id, *args)
+
+    def _get(self, method):
+        """Lectura que no se cachea (depende de algo más que el nodo)."""
+        return get_bridge().call(method, self.id)
+
+    def _read(self, method):
+        return _CACHE.node(method, self.id)
+
+    def info(self):
+        return dict(self._get("node.get"))
+
+    @property
+    def name(self):
+        return self._get("node.get")["name"]
+
+    @property
+    def position(self):
+        return tuple(self._read("node.get_transform")[:3])
+
+    @property
+    def rotation(self):
+        return tuple(self._read("node.get_transform")[3:])
+
+    def set_position(self, x, y, z):
+        self._call("node.set_position", float(x), float(y), float(z))
+
+    def translate(self, dx, dy, dz):
+        self._call("node.translate", float(dx), float(dy), float(dz))
+
+    def set_rotation(self, yaw, pitch, roll=0.0):
+        self._call("node.set_rotation", float(yaw), float(pitch), float(roll))
+
+    def rotate(self, dyaw, dpitch, droll=0.0):
+        self._call("node.rotate", float(dyaw), float(dpitch), float(droll))
+
+    def set_active(self, active):
+        self._call("node.set_active", bool(active))
+
+    def set_visible(self, visible):
+        self._call("node.set_visible", bool(visible))
+
+    def children(self):
+        return [_wrap(info) for info in self._get("node.children")]
+
+    def remove(self):
+        self._call("node.remove")
+
+    @property
+    def script(self):
+        return self._read("node.get_script")
+
+    def attach_script(self, script):
+        """Adjunta un script de filesproject/scripts (se guarda en la escena)."""
+        self._call("node.attach_script", script)
+
+    def detach_script(self):
+        self._call("node.detach_script")
+
+    def move(self, x, y, z):
+        self.set_position(x, y, z)
+
+    def __eq__(self, other):
+        return isinstance(other, Node) and other.id == self.id
+
+    def __hash__(self):
+        return hash(self.id)
+
+    def __repr__(self):
+        return "%s(%r)" % (type(self).__name__, self.id)
+
+
+class Camera(Node):
+    __slots__ = ()
+
+    def move(self, x, y, z):
+        self._call("camera.move", float(x), float(y), float(z))
+
+    def rotate(self, dyaw, dpitch, droll=0.0):
+        self._call("camera.rotate", float(dyaw), float(dpitch))
+
+    @property
+    def fov(self):
+        return self._get("camera.get_fov")
+
+    @fov.setter
+    def fov(self, value):
+        self._call("camera.set_fov", float(value))
+
+    def attach_to_player(self, player_name):
+        self._call("camera.attach_player", player_name)
+
+    def detach(self):
+        self._call("camera.detach")
+
+    def set_input_control(self, enabled=True):
+        """Gira la cámara con el ratón del jugador asignado (hace falta Engine.capture_input)."""
+        self._call("camera.set_input_control", bool(enabled))
+
+
+class CharacterBody(Node):
+    __slots__ = ()
+
+    def move(self, dx, dy, dz):
+        self._call("body.move", float(dx), float(dy), float(dz))
+
+    def move_forward(self, distance):
+        self._call("body.move_forward", float(distance))
+
+    def jump(self):
+        self._call("body.jump")
+
+    def teleport(self, x, y, z):
+        self._call("body.teleport", float(x), float(y), float(z))
+
+    def set_sprinting(self, sprinting):
+        self._call("body.set_sprinting", bool(sprinting))
+
+    @property
+    def velocity(self):
+        return tuple(self._get("body.get_velocity"))
+
+    @property
+    def on_ground(self):
+        return self._get("body.is_on_ground")
+
+    def attach_to_player(self, player_name):
+        self._call("body.attach_player", player_name)
+
+    def set_input_control(self, enabled=True):
+        """Mueve el cuerpo con las teclas y el ratón del jugador asignado (hace falta Engine.capture_input)."""
+        self._call("body.set_input_control", bool(enabled))
+
+
+class AudioPlayer(Node):
+    __slots__ = ()
+
+    def play(self):
+        self._call("audio.play")
+
+    def play_loop(self):
+        self._call("audio.loop")
+
+    def stop(self):
+        self._call("audio.stop")
+
+    def set_sound(self, sound_id):
+        self._call("audio.set_sound", sound_id)
+
+    def set_volume(self, volume):
+        self._call("audio.set_volume", float(volume))
+
+    def set_pitch(self, pitch):
+        self._call("audio.set_pitch", float(pitch))
+
+
+_TYPES = {
+    "Camera": Camera,
+    "Camera3D": Camera,
+    "CharacterBody": CharacterBody,
+    "CharacterBody3D": CharacterBody,
+    "AudioPlayer": AudioPlayer,
+}
+
+
+class NodeScript(object):
+    """
+    Estado de una instancia de script adjunta a un nodo (ver NodeScripts.java).
+
+    El módulo se carga una vez por archivo y cada nodo tiene su propia
+    instancia. Con una subclase en el módulo se llaman sus métodos:
+
+        class Door(NodeScript):
+            def init(self):
+                self.open = False
+
+            def update(self):
+                if self.open:
+                    self.node.rotate(5, 0)
+
+    Sin subclase, el módulo define funciones init(self), update(self) y
+    destroy(self) que reciben la instancia (un NodeScript para guardar estado).
+    self.node es el nodo al que está adjunto.
+    """
+
+    node = None
+
+    def __repr__(self):
+        return "%s(%r)" % (type(self).__name__, self.node)
+
+
+def compiled(function):
+    """
+    Marca el update() de un script de nodos para ejecutarlo en el engine, sin
+    pasar por el worker, si cabe en el subconjunto de pythonmc.fastpath; si
+    no cabe se queda en Python y se avisa en la consola del script.
+    """
+    function._pythonmc_compiled = True
+    return function
+
+
+def _wrap(info):
+    if info is None:
+        return None
+    return _TYPES.get(info.get("type"), Node)(info["id"])
+
+
+def _node_ref(node):
+    return node.id if isinstance(node, Node) else node
+
+
+class Mutations(object):
+    """
+    Lote atómico de cambios (ver MutationQueue.java).
+
+    submit() lo encola sin esperar al servidor; al inicio del siguiente tick
+    se aplica entero o se rechaza entero. create() devuelve una ref ("$1")
+    que sirve como nodo en el resto del lote.
+    """
+
+    def __init__(self):
+        self._ops = []
+        self._refs = 0
+        self.batch_id = None
+
+    def create(self, node_type, name, parent=None, position=None):
+        self._refs += 1
+        ref = "$%d" % self._refs
+        if position is not None:
+            position = [float(position[0]), float(position[1]), float(position[2])]
+        self._ops.append(["create", ref, node_type, name, _node_ref(parent), position])
+        return ref
+
+    def move(self, node, x, y, z):
+        self._ops.append(["move", _node_ref(node), float(x), float(y), float(z)])
+        return self
+
+    def reparent(self, node, parent):
+        self._ops.append(["reparent", _node_ref(node), _node_ref(parent)])
+        return self
+
+    def remove(self, node):
+        self._ops.append(["remove", _node_ref(node)])
+        return self
+
+    def set_block(self, x, y, z, block_id):
+        self._ops.append(["block", int(x), int(y), int(z), block_id])
+        return self
+
+    def submit(self):
+        """Encola el lote (un solo viaje, sin esperar al tick) y devuelve su id."""
+        if self.batch_id is not None:
+            raise RuntimeError("el lote ya se envió")
+        if not self._ops:
+            return None
+        self.batch_id = get_bridge().call("world.mutate", self._ops)
+        return self.batch_id
+
+    def status(self):
+        return Engine.batch_status(self.batch_id)
+
+    def wait(self, timeout=5.0):
+        """
+        Espera a que se aplique y devuelve su estado. No usar dentro de
+        update(): el lote no se aplica hasta que termine el tick actual.
+        """
+        deadline = time.monotonic() + timeout
+        while True:
+            status = self.status()
+            if status["state"] != "pending":
+                break
+            if time.monotonic() >= deadline:
+                raise TimeoutError("el lote %s sigue pendiente" % self.batch_id)
+            time.sleep(0.005)
+        if status["state"] in ("rejected", "failed"):
+            raise ValueError("lote %s %s: %s" % (self.batch_id, status["state"], status["error"]))
+        return status
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, exc_type, exc, tb):
+        if exc_type is None:
+            self.submit()
+        return False
+
+
+# Suscripciones abiertas en este proceso: id -> Subscription
+_SUBSCRIPTIONS = {}
+# Quién abre las suscripciones ahora mismo; lo fija el worker: ("run", id) o ("handle", id)
+_OWNER = None
+# Tick del último UPDATE; lo fija el worker (None fuera del runtime)
+_TICK = None
+
+
+def _set_owner(owner):
+    """Fija el dueño de las suscripciones nuevas y devuelve el anterior."""
+    global _OWNER
+    previous, _OWNER = _OWNER, owner
+    return previous
+
+
+def _owns(owner):
+    """True si el dueño tiene alguna suscripción abierta."""
+    return any(sub.owner == owner for sub in _SUBSCRIPTIONS.values())
+
+
+def _close_owned(owner):
+    """Cierra las suscripciones de un dueño (al terminar la ejecución o descargar el script)."""
+    for subscription in [sub for sub in _SUBSCRIPTIONS.values() if sub.owner == owner]:
+        subscription.close()
+
+
+def _dispatch(subscription_id, batch):
+    """Entrega un lote push a su callback; devuelve la suscripción o None si ya se cerró."""
+    subscription = _SUBSCRIPTIONS.get(subscription_id)
+    if subscription is None:
+        return None
+    subscription._update(batch)
+    try:
+        subscription.callback(batch["events"])
+    finally:
+        # Java no envía el siguiente lote hasta la confirmación
+        if subscription.id in _SUBSCRIPTIONS:
+            get_bridge().call("events.ack", subscription.id)
+    return subscription
+
+
+class Subscription(object):
+    """
+    Suscripción a eventos del engine (ver EngineEvents.java).
+
+    Los eventos son diccionarios con "type", "tick" y los datos del tipo.
+    dropped y coalesced son los totales que informa el engine: eventos
+    descartados por cola llena y transforms sustituidos por uno más nuevo.
+    """
+
+    def __init__(self, subscription_id, callback, owner):
+        self.id = subscription_id
+        self.callback = callback
+        self.owner = owner
+        self.dropped = 0
+        self.coalesced = 0
+
+    def poll(self, timeout=0.0, max_events=512):
+        """Eventos pendientes (espera hasta timeout segundos, máx. 1 s, si no hay ninguno)."""
+        if self.callback is not None:
+            raise RuntimeError("la suscripción %s se entrega por callback" % self.id)
+        batch = get_bridge().call("events.poll", self.id, max_events, int(timeout * 1000))
+        self._update(batch)
+        return batch["events"]
+
+    def close(self):
+        if _SUBSCRIPTIONS.pop(self.id, None) is not None:
+            get_bridge().call("events.unsubscribe", self.id)
+
+    def set_types(self, types):
+        """Cambia los tipos sin cerrarla: los eventos ya encolados se conservan."""
+        if isinstance(types, str):
+            types = [types]
+        get_bridge().call("events.retype", self.id, list(types))
+
+    def _update(self, batch):
+        self.dropped = batch["dropped"]
+        self.coalesced = batch["coalesced"]
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, exc_type, exc, tb):
+        self.close()
+        return False
+
+
+class Engine(object):
+    """Punto de entrada para los scripts."""
+
+    @staticmethod
+    def get_node(name):
+        return _wrap(get_bridge().call("node.find", name))
+
+    @staticmethod
+    def get_node_by_id(node_id):
+        return _wrap(get_bridge().call("node.get", node_id))
+
+    @staticmethod
+    def get_block(x, y, z):
+        """Id del bloque ("minecraft:stone"), o None si su chunk no está cargado."""
+        return _CACHE.block(int(x), int(y), int(z))
+
+    @staticmethod
+    def read_region(x0, y0, z0, x1, y1, z1):
+        """Todos los bloques de la caja en una sola lectura (ver pythonmc.regions)."""
+        return _regions.read_region(x0, y0, z0, x1, y1, z1)
+
+    @staticmethod
+    def texture(name, width=0, height=0):
+        """Píxeles ARGB compartidos de una textura de assets/textures (ver pythonmc.textures)."""
+        return _textures.open_texture(name, width, height)
+
+    @staticmethod
+    def build_model(name, geometry, colors=None):
+        """Crea o sustituye un modelo de assets/models con los cubos empaquetados (ver pythonmc.models)."""
+        return _models.build_model(name, geometry, colors)
+
+    @staticmethod
+    def tick():
+        """Tick del servidor; dentro de update() el del UPDATE en curso."""
+        if _TICK is not None:
+            return _TICK
+        return get_bridge().call("engine.tick")
+
+    @staticmethod
+    def nodes(node_type=None):
+        return [_wrap(info) for info in get_bridge().call("node.list", node_type)]
+
+    @staticmethod
+    def create_node(node_type, name, parent=None):
+        parent_id = parent.id if isinstance(parent, Node) else parent
+        return _wrap(get_bridge().call("node.create", node_type, name, parent_id))
+
+    @staticmethod
+    def batch():
+        return get_bridge().batch()
+
+    @staticmethod
+    def mutations():
+        return Mutations()
+
+    @staticmethod
+    def generate(script, **args):
+        """Aplica la salida de un script generador (ver pythonmc.generators)."""
+        return _generators.generate(script, **args)
+
+    @staticmethod
+    def generate_parallel(script, box, region_chunks=1, workers=None, **args):
+        """Genera la caja por regiones en varios workers (ver pythonmc.generators)."""
+        return _generators.generate_parallel(script, box, region_chunks, workers, **args)
+
+    @staticmethod
+    def batch_status(batch_id):
+        return get_bridge().call("world.batch_status", batch_id)
+
+    @staticmethod
+    def capture_input(interval=None):
+        """
+        Pide a los clientes su entrada: un paquete cada interval ticks (por
+        defecto pythonmc.inputInterval, 1); 0 la desactiva. Llega como un
+        evento "input" por jugador y tick (held, pressed, mouse) y mueve los
+        nodos con set_input_control.
+        """
+        return get_bridge().call("input.capture", None if interval is None else int(interval))
+
+    @staticmethod
+    def input_state():
+        """Teclas pulsadas por jugador: {"Steve": ["forward", "jump"]}."""
+        return get_bridge().call("input.state")
+
+    @staticmethod
+    def subscribe(types, callback=None, capacity=1024, policy="drop_oldest"):
+        """
+        Se suscribe a eventos ("node.added", "node.removed", "transform",
+        "player.join", "player.leave", "chat", "block.break", "block.place",
+        "input" con Engine.capture_input).
+        Con callback, el worker lo llama con cada lote entre ticks (scripts de
+        ciclo de vida); sin callback, se leen con poll(). policy: "drop_oldest"
+        o "block" cuando la cola de capacity eventos se llena.
+        """
+        if isinstance(types, str):
+            types = [types]
+        if callback is not None and _OWNER is not None and _OWNER[0] == "run":
+            raise RuntimeError("los callbacks de eventos son para scripts de ciclo de vida; usa poll()")
+        subscription_id = get_bridge().call("events.subscribe", list(types), capacity, policy,
+                                            callback is not None)
+        subscription = Subscription(subscription_id, callback, _OWNER)
+        _SUBSCRIPTIONS[subscription_id] = subscription
+        return subscription
+
+    @staticmethod
+    def call(method, *args):
+        return get_bridge().call(method, *args)
@@ -0,0 +1,81 @@
+"""
+Salida estructurada para la consola del engine (opcional).
+
+Cada llamada escribe en stdout una línea que empieza por RS (\\x1e) seguida de
+un JSON compacto; la consola la reconoce (ver ScriptEvents.java) y la muestra
+con su nivel en lugar de como texto plano. Funciona igual en los workers, en
+un proceso propio y con GraalPy, porque solo usa print.
+
+    from pythonmc import events
+
+    events.info("Generando terreno", chunks=64)
+    events.metric("chunks_por_s", 12.5, unit="/s")
+    events.progress(10, 64, "chunks")
+    try:
+        ...
+    except Exception as exc:
+        events.error(exc)
+
+Registros (claves cortas para que la línea sea pequeña):
+    {"t": "log", "l": "debug|info|warn|error", "m": texto}
+    {"t": "metric", "n": nombre, "v": valor, "u": unidad}
+    {"t": "progress", "d": hechos, "n": total, "m": texto}
+    {"t": "error", "m": "Tipo: mensaje", "f": [[archivo, línea, función], ...]}
+"""
+
+import json
+import sys
+import traceback
+
+PREFIX = "\x1e"
+LEVELS = ("debug", "info", "warn", "error")
+
+_ENCODER = json.JSONEncoder(separators=(",", ":"), default=str)
+
+
+def _emit(record):
+    sys.stdout.write(PREFIX + _ENCODER.encode(record) + "\n")
+
+
+def log(level, message, **fields):
+    if level not in LEVELS:
+        raise ValueError("nivel desconocido: %s" % level)
+    if fields:
+        message = "%s %s" % (message, " ".join("%s=%s" % item for item in fields.items()))
+    _emit({"t": "log", "l": level, "m": str(message)})
+
+
+def debug(message, **fields):
+    log("debug", message, **fields)
+
+
+def info(message, **fields):
+    log("info", message, **fields)
+
+
+def warn(message, **fields):
+    log("warn", message, **fields)
+
+
+def metric(name, value, unit=""):
+    _emit({"t": "metric", "n": name, "v": float(value), "u": unit})
+
+
+def progress(done, total, message=""):
+    _emit({"t": "progress", "d": int(done), "n": int(total), "m": message})
+
+
+def error(exc=None, message=None):
+    """Error con los frames del traceback (por defecto, la excepción que se está manejando)."""
+    if exc is None:
+        exc = sys.exc_info()[1]
+    frames = []
+    if exc is not None:
+        text = "%s: %s" % (type(exc).__name__, exc)
+        frames = [[frame.filename, frame.lineno, frame.name]
+                  for frame in traceback.extract_tb(exc.__traceback__)]
+    else:
+        text = ""
+    if message:
+        text = "%s (%s)" % (message, text) if text else message
+    _emit({"t": "error", "m": text, "f": frames})
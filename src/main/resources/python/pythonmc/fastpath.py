@@ -0,0 +1,334 @@
+"""
+Ruta rápida para update() sencillos de scripts de nodos (ver CompiledUpdate.java).
+
+Un update() marcado con @compiled que solo hace aritmética con el transform
+del nodo se traduce aquí, al cargar el script, a un árbol de operaciones; el
+engine lo compila y lo ejecuta en el hilo del servidor antes de enviar el
+UPDATE, sin viajes al worker. Si usa algo fuera del subconjunto se queda en
+Python y la consola del script dice qué línea lo impide.
+
+    import math
+    from pythonmc import Engine, NodeScript, compiled
+
+    HEIGHT = 2.0
+
+    class Bob(NodeScript):
+        @compiled
+        def update(self):
+            x, y, z = self.node.position
+            self.node.set_position(x, 64 + HEIGHT * math.sin(Engine.tick() / 10.0), z)
+            self.node.rotate(4, 0)
+
+Subconjunto:
+  - números y True/False (1 y 0), constantes numéricas del módulo (se leen al cargar)
+  - variables locales: x = ..., x += ..., x, y, z = self.node.position
+  - + - * / // % **, comparaciones (también encadenadas), and/or/not, a if c else b
+  - if/elif/else, pass y return sin valor; sin bucles, así que siempre termina
+  - self.node.position[i], self.node.rotation[i]
+  - self.node.set_position, translate, set_rotation, rotate, set_active, set_visible
+  - abs, min, max, round (sin decimales), int, float, Engine.tick() y de math:
+    sin, cos, tan, sqrt, floor, ceil, atan2, pi, e
+El estado de la instancia (self.algo) no está disponible: un update() que lo
+necesita se queda en Python.
+"""
+
+import ast
+import inspect
+import math
+import textwrap
+
+from pythonmc import engine as _engine
+
+# Método del nodo -> (mínimo, máximo) de argumentos
+_NODE_CALLS = {
+    "set_position": (3, 3),
+    "translate": (3, 3),
+    "set_rotation": (2, 3),
+    "rotate": (2, 3),
+    "set_active": (1, 1),
+    "set_visible": (1, 1),
+}
+_PROPERTIES = {
+    "position": ("x", "y", "z"),
+    "rotation": ("yaw", "pitch", "roll"),
+}
+# Función -> (mínimo, máximo) de argumentos; None: sin máximo
+_BUILTINS = {
+    "abs": (1, 1),
+    "min": (2, None),
+    "max": (2, None),
+    "round": (1, 1),
+    "int": (1, 1),
+    "float": (1, 1),
+}
+_MATH = {
+    "sin": 1,
+    "cos": 1,
+    "tan": 1,
+    "sqrt": 1,
+    "floor": 1,
+    "ceil": 1,
+    "atan2": 2,
+}
+_MATH_CONSTANTS = ("pi", "e")
+_BINARY = {
+    ast.Add: "+",
+    ast.Sub: "-",
+    ast.Mult: "*",
+    ast.Div: "/",
+    ast.FloorDiv: "//",
+    ast.Mod: "%",
+    ast.Pow: "**",
+}
+_COMPARE = {
+    ast.Eq: "==",
+    ast.NotEq: "!=",
+    ast.Lt: "<",
+    ast.LtE: "<=",
+    ast.Gt: ">",
+    ast.GtE: ">=",
+}
+
+
+class Unsupported(Exception):
+    """El update() usa algo fuera del subconjunto; lineno es la línea del archivo."""
+
+    def __init__(self, node, message, offset=0):
+        Exception.__init__(self, message)
+        self.lineno = getattr(node, "lineno", 0) + offset if node is not None else 0
+
+    def __str__(self):
+        message = Exception.__str__(self)
+        return "línea %d: %s" % (self.lineno, message) if self.lineno else message
+
+
+def is_marked(function):
+    return bool(getattr(function, "_pythonmc_compiled", False))
+
+
+def translate(function):
+    """
+    Árbol de operaciones de un update(self) para CompiledUpdate.java:
+    {"names": [locales], "body": [sentencias]}. Lanza Unsupported.
+    """
+    function = getattr(function, "__func__", function)
+    try:
+        source = textwrap.dedent(inspect.getsource(function))
+    except (OSError, TypeError):
+        raise Unsupported(None, "no se encuentra el código fuente")
+    offset = function.__code__.co_firstlineno - 1
+    definition = ast.parse(source).body[0]
+    if not isinstance(definition, ast.FunctionDef):
+        raise Unsupported(definition, "solo funciones definidas con def", offset)
+    try:
+        return _Translator(function, definition).translate()
+    except Unsupported as exc:
+        exc.lineno += offset if exc.lineno else 0
+        raise
+
+
+class _Translator(object):
+
+    def __init__(self, function, definition):
+        self.globals = function.__globals__
+        self.definition = definition
+        args = definition.args
+        if (len(args.args) != 1 or args.vararg or args.kwarg or args.kwonlyargs or args.defaults
+                or getattr(args, "posonlyargs", None)):
+            raise Unsupported(definition, "update() compilado solo recibe self")
+        self.self_name = args.args[0].arg
+        self.slots = {}
+        self.names = []
+        self.temporaries = 0
+
+    def translate(self):
+        # Como en Python: toda variable asignada en la función es local
+        for node in ast.walk(self.definition):
+            if isinstance(node, ast.Name) and isinstance(node.ctx, ast.Store):
+                if node.id == self.self_name:
+                    raise Unsupported(node, "no se puede reasignar %s" % self.self_name)
+                self._slot(node.id)
+        return {"names": self.names, "body": self._block(self.definition.body)}
+
+    # ---------- sentencias ----------
+
+    def _block(self, statements):
+        result = []
+        for statement in statements:
+            result.extend(self._statement(statement))
+        return result
+
+    def _statement(self, node):
+        if isinstance(node, ast.Pass):
+            return []
+        if isinstance(node, ast.Expr):
+            if isinstance(node.value, ast.Constant) and isinstance(node.value.value, str):
+                return []  # docstring
+            return [self._node_call(node.value)]
+        if isinstance(node, ast.Return):
+            if node.value is not None and not (isinstance(node.value, ast.Constant) and node.value.value is None):
+                raise Unsupported(node, "return con valor")
+            return [["return"]]
+        if isinstance(node, ast.Assign):
+            if len(node.targets) != 1:
+                raise Unsupported(node, "asignación múltiple (a = b = ...)")
+            return self._assign(node.targets[0], node.value)
+        if isinstance(node, ast.AugAssign):
+            operator = _BINARY.get(type(node.op))
+            if not isinstance(node.target, ast.Name) or operator is None:
+                raise Unsupported(node, "asignación compuesta no soportada")
+            slot = self.slots[node.target.id]
+            return [["set", slot, ["bin", operator, ["local", slot], self._expr(node.value)]]]
+        if isinstance(node, ast.If):
+            return [["if", self._expr(node.test), self._block(node.body), self._block(node.orelse)]]
+        raise Unsupported(node, "%s no está en el subconjunto compilable" % type(node).__name__)
+
+    def _assign(self, target, value):
+        if isinstance(target, ast.Name):
+            return [["set", self.slots[target.id], self._expr(value)]]
+        if not isinstance(target, ast.Tuple) or not all(isinstance(e, ast.Name) for e in target.elts):
+            raise Unsupported(target, "solo se asigna a variables locales")
+        slots = [self.slots[e.id] for e in target.elts]
+        fields = self._property(value)
+        if fields is not None:
+            if len(fields) != len(slots):
+                raise Unsupported(target, "se esperaban %d variables" % len(fields))
+            return [["set", slot, ["prop", field]] for slot, field in zip(slots, fields)]
+        if isinstance(value, ast.Tuple) and len(value.elts) == len(slots):
+            # a, b = b, a: primero se evalúa todo el lado derecho
+            temporaries = [self._slot("$%d" % self._next_temporary()) for _ in slots]
+            return ([["set", temp, self._expr(e)] for temp, e in zip(temporaries, value.elts)]
+                    + [["set", slot, ["local", temp]] for slot, temp in zip(slots, temporaries)])
+        raise Unsupported(value, "solo se desempaqueta self.node.position, rotation o una tupla")
+
+    def _node_call(self, node):
+        if not (isinstance(node, ast.Call) and isinstance(node.func, ast.Attribute)
+                and self._is_node(node.func.value) and node.func.attr in _NODE_CALLS):
+            raise Unsupported(node, "solo se llaman métodos del nodo: %s" % ", ".join(sorted(_NODE_CALLS)))
+        low, high = _NODE_CALLS[node.func.attr]
+        if node.keywords or not low <= len(node.args) <= high:
+            raise Unsupported(node, "%s() con argumentos no soportados" % node.func.attr)
+        return ["call", node.func.attr, [self._expr(arg) for arg in node.args]]
+
+    # ---------- expresiones ----------
+
+    def _expr(self, node):
+        if isinstance(node, ast.Constant):
+            if isinstance(node.value, (bool, int, float)):
+                return ["const", float(node.value)]
+            raise Unsupported(node, "solo constantes numéricas")
+        if isinstance(node, ast.Name):
+            if node.id in self.slots:
+                return ["local", self.slots[node.id]]
+            return ["const", self._global_number(node)]
+        if isinstance(node, ast.BinOp):
+            operator = _BINARY.get(type(node.op))
+            if operator is None:
+                raise Unsupported(node, "operador no soportado")
+            return ["bin", operator, self._expr(node.left), self._expr(node.right)]
+        if isinstance(node, ast.UnaryOp):
+            if isinstance(node.op, ast.USub):
+                return ["neg", self._expr(node.operand)]
+            if isinstance(node.op, ast.UAdd):
+                return self._expr(node.operand)
+            if isinstance(node.op, ast.Not):
+                return ["not", self._expr(node.operand)]
+            raise Unsupported(node, "operador no soportado")
+        if isinstance(node, ast.BoolOp):
+            kind = "and" if isinstance(node.op, ast.And) else "or"
+            return [kind, [self._expr(value) for value in node.values]]
+        if isinstance(node, ast.Compare):
+            operators = []
+            for operator in node.ops:
+                if type(operator) not in _COMPARE:
+                    raise Unsupported(node, "comparación no soportada")
+                operators.append(_COMPARE[type(operator)])
+            return ["cmp", operators, [self._expr(e) for e in [node.left] + node.comparators]]
+        if isinstance(node, ast.IfExp):
+            return ["ifexp", self._expr(node.test), self._expr(node.body), self._expr(node.orelse)]
+        if isinstance(node, ast.Subscript):
+            return self._component(node)
+        if isinstance(node, ast.Call):
+            return self._call(node)
+        if isinstance(node, ast.Attribute):
+            if (isinstance(node.value, ast.Name) and self.globals.get(node.value.id) is math
+                    and node.attr in _MATH_CONSTANTS):
+                return ["const", getattr(math, node.attr)]
+            if isinstance(node.value, ast.Name) and node.value.id == self.self_name:
+                raise Unsupported(node, "%s.%s: el estado de la instancia no está disponible" % (self.self_name, node.attr))
+            raise Unsupported(node, "atributo %s no soportado" % node.attr)
+        raise Unsupported(node, "%s no está en el subconjunto compilable" % type(node).__name__)
+
+    def _component(self, node):
+        fields = self._property(node.value)
+        index = node.slice
+        if isinstance(index, getattr(ast, "Index", ())):  # Python < 3.9
+            index = index.value
+        if isinstance(index, ast.UnaryOp) and isinstance(index.op, ast.USub) and isinstance(index.operand, ast.Constant):
+            index = ast.Constant(-index.operand.value)
+        if (fields is None or not isinstance(index, ast.Constant) or type(index.value) is not int
+                or not -len(fields) <= index.value < len(fields)):
+            raise Unsupported(node, "solo self.node.position[i] o self.node.rotation[i] con i constante")
+        return ["prop", fields[index.value]]
+
+    def _call(self, node):
+        if node.keywords:
+            raise Unsupported(node, "argumentos con nombre no soportados")
+        func = node.func
+        args = node.args
+        if isinstance(func, ast.Name) and func.id not in self.slots:
+            value = self.globals.get(func.id)
+            if func.id in _BUILTINS and value is None:
+                low, high = _BUILTINS[func.id]
+                if len(args) < low or (high is not None and len(args) > high):
+                    raise Unsupported(node, "%s() con %d argumentos" % (func.id, len(args)))
+                return ["fn", func.id, [self._expr(arg) for arg in args]]
+            # from math import sin
+            for name, arity in _MATH.items():
+                if value is getattr(math, name):
+                    return self._math(node, name, arity)
+        if isinstance(func, ast.Attribute) and isinstance(func.value, ast.Name):
+            owner = self.globals.get(func.value.id)
+            if owner is math and func.attr in _MATH:
+                return self._math(node, func.attr, _MATH[func.attr])
+            if owner is _engine.Engine and func.attr == "tick" and not args:
+                return ["tick"]
+        raise Unsupported(node, "llamada no soportada (solo math, abs/min/max/round/int/float y Engine.tick)")
+
+    def _math(self, node, name, arity):
+        if len(node.args) != arity:
+            raise Unsupported(node, "math.%s() espera %d argumento(s)" % (name, arity))
+        return ["fn", "math." + name, [self._expr(arg) for arg in node.args]]
+
+    def _global_number(self, node):
+        if node.id == self.self_name:
+            raise Unsupported(node, "de %s solo se usa %s.node" % (node.id, node.id))
+        if node.id in self.globals:
+            value = self.globals[node.id]
+            if isinstance(value, (bool, int, float)):
+                return float(value)
+            raise Unsupported(node, "%s no es una constante numérica del módulo" % node.id)
+        raise Unsupported(node, "nombre desconocido: %s" % node.id)
+
+    # ---------- auxiliares ----------
+
+    def _is_node(self, node):
+        return (isinstance(node, ast.Attribute) and node.attr == "node"
+                and isinstance(node.value, ast.Name) and node.value.id == self.self_name)
+
+    def _property(self, node):
+        """Campos de self.node.position / rotation, o None si no es eso."""
+        if isinstance(node, ast.Attribute) and node.attr in _PROPERTIES and self._is_node(node.value):
+            return _PROPERTIES[node.attr]
+        return None
+
+    def _slot(self, name):
+        slot = self.slots.get(name)
+        if slot is None:
+            slot = self.slots[name] = len(self.names)
+            self.names.append(name)
+        return slot
+
+    def _next_temporary(self):
+        self.temporaries += 1
+        return self.temporaries
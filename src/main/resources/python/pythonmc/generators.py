@@ -0,0 +1,165 @@
+"""
+Scripts generadores con caché de resultados (ver GeneratorCache.java).
+
+Un generador es un script que define generate(**args) y devuelve las
+operaciones que construyen la estructura, en el formato de Engine.mutations
+(("block", x, y, z, id), ("create", "$ref", tipo, nombre, padre, (x, y, z))...):
+
+    # torre.py
+    def generate(x, y, z, height=10, block="minecraft:stone_bricks"):
+        return [("block", x, y + dy, z, block) for dy in range(height)]
+
+    from pythonmc import Engine
+    result = Engine.generate("torre.py", x=0, y=64, z=0, height=30)
+    print(result["hit"], result["ops"], result["batches"])
+
+La salida se guarda en filesproject/.cache/generators con una clave del
+fuente del script y de los argumentos, más el hash de los módulos del
+proyecto que importó. Con la misma clave y los mismos módulos el engine
+vuelve a aplicar la salida guardada sin ejecutar el generador, así que
+generate() solo debe depender de sus argumentos (no del mundo ni del azar
+sin semilla). Las operaciones se encolan en lotes de MutationQueue que se
+aplican al inicio del siguiente tick (ver Engine.batch_status).
+
+Para estructuras grandes el generador puede definir generate_region(region,
+**args), que recibe una Region inclusiva (x0, y0, z0, x1, y1, z1) y devuelve
+solo las operaciones de esa parte:
+
+    # terreno.py
+    def generate_region(region, base=60):
+        return [("block", x, base, z, "minecraft:grass_block")
+                for x in range(region.x0, region.x1 + 1)
+                for z in range(region.z0, region.z1 + 1)]
+
+    Engine.generate_parallel("terreno.py", (0, 60, 0, 255, 80, 255), region_chunks=2, base=60)
+
+El engine parte la caja en regiones de region_chunks x region_chunks chunks,
+las reparte entre los workers libres (ver RegionGenerator.java) y coloca el
+resultado en orden de chunk, informando del progreso de cada región. Cada
+región se guarda en la caché por separado.
+"""
+
+import collections
+import hashlib
+import os
+import sys
+import time
+
+from pythonmc.bridge import get_bridge
+
+Region = collections.namedtuple("Region", "x0 y0 z0 x1 y1 z1")
+
+# path -> (sha256 del fuente, namespace): un worker reutiliza el generador entre regiones
+_REGION_NAMESPACES = {}
+
+
+def generate(script, **args):
+    """Aplica la salida del generador (de la caché si se puede): {"hit", "ops", "batches"}."""
+    bridge = get_bridge()
+    lookup = bridge.call("gen.lookup", script, args)
+    if lookup["hit"]:
+        return lookup
+    path = lookup["path"]
+    with open(path, "rb") as source_file:
+        source = source_file.read()
+    ops = _run(path, source, args)
+    deps = _dependencies(lookup["root"], path)
+    return bridge.call("gen.store", lookup["key"], hashlib.sha256(source).hexdigest(), ops, deps)
+
+
+def generate_parallel(script, box, region_chunks=1, workers=None, **args):
+    """
+    Genera la caja (x0, y0, z0, x1, y1, z1) por regiones en varios workers:
+    {"regions", "cached", "ops", "batches", "pending", "workers", "ms"}.
+    workers limita cuántos se usan (por defecto todos los libres). Espera a
+    que se apliquen los lotes y falla si alguno se rechaza; pending son los
+    que aún no se habían aplicado al agotar la espera. No se puede llamar
+    dentro de Engine.batch().
+    """
+    box = [int(value) for value in box]
+    if len(box) != 6:
+        raise ValueError("box debe ser (x0, y0, z0, x1, y1, z1)")
+    return get_bridge().call("gen.parallel", script, box, int(region_chunks), int(workers or 0), args)
+
+
+def run_region(path, root, region, args):
+    """
+    Trama GENERATE en un worker auxiliar: ejecuta generate_region() para una
+    región. Devuelve (operaciones, sha256 del fuente ejecutado, dependencias, ms).
+    """
+    start = time.perf_counter()
+    with open(path, "rb") as source_file:
+        source = source_file.read()
+    digest = hashlib.sha256(source).hexdigest()
+    cached = _REGION_NAMESPACES.get(path)
+    if cached is not None and cached[0] == digest:
+        namespace = cached[1]
+    else:
+        namespace = _exec(path, source)
+        _REGION_NAMESPACES[path] = (digest, namespace)
+    function = namespace.get("generate_region")
+    if not callable(function):
+        raise TypeError("%s no define generate_region()" % os.path.basename(path))
+    with _script_path(path):
+        ops = _as_ops(function(Region(*region), **args), "generate_region()")
+    return ops, digest, _dependencies(root, path), (time.perf_counter() - start) * 1000.0
+
+
+def _run(path, source, args):
+    """Ejecuta el fuente leído (el mismo cuyo hash se guarda) y llama a generate(**args)."""
+    namespace = _exec(path, source)
+    function = namespace.get("generate")
+    if not callable(function):
+        raise TypeError("%s no define generate()" % os.path.basename(path))
+    with _script_path(path):
+        return _as_ops(function(**args), "generate()")
+
+
+def _exec(path, source):
+    namespace = {"__name__": "__pythonmc_generator__", "__file__": path, "__builtins__": __builtins__}
+    with _script_path(path):
+        exec(compile(source, path, "exec"), namespace)
+    return namespace
+
+
+class _script_path(object):
+    """La carpeta del generador en sys.path mientras se ejecuta (para sus imports)."""
+
+    def __init__(self, path):
+        self._dir = os.path.dirname(path)
+        self._added = False
+
+    def __enter__(self):
+        self._added = self._dir not in sys.path
+        if self._added:
+            sys.path.insert(0, self._dir)
+
+    def __exit__(self, exc_type, exc, tb):
+        if self._added and self._dir in sys.path:
+            sys.path.remove(self._dir)
+        return False
+
+
+def _as_ops(result, name):
+    if result is None:
+        raise TypeError("%s debe devolver una lista de operaciones" % name)
+    return [list(op) for op in result]
+
+
+def _dependencies(root, path):
+    """
+    Módulos del proyecto cargados en el proceso. Incluye los que importaron
+    otros scripts antes: sobran dependencias (algún fallo de caché de más)
+    antes que faltar alguna y reaplicar una salida vieja.
+    """
+    root = os.path.normcase(os.path.abspath(root)) + os.sep
+    own = os.path.normcase(os.path.abspath(path))
+    deps = set()
+    for module in list(sys.modules.values()):
+        filename = getattr(module, "__file__", None)
+        if not filename:
+            continue
+        filename = os.path.normcase(os.path.abspath(filename))
+        if filename.startswith(root) and filename != own and filename.endswith(".py"):
+            deps.add(filename)
+    return sorted(deps)
@@ -0,0 +1,139 @@
+"""
+Recarga en caliente de los módulos de scripts dentro de un worker.
+
+El engine vigila la carpeta scripts/ y envía una trama RELOAD con las rutas
+modificadas. Se recargan los módulos cargados desde esas rutas y, después,
+los módulos de scripts que dependen de ellos (por sus import), en orden
+topológico: primero las dependencias.
+
+Cada módulo se vuelve a ejecutar sobre el mismo objeto módulo, así que
+quien lo haya importado con `import modulo` ve el código nuevo. Por defecto
+el estado de módulo se pierde; para conservarlo, el script declara qué
+globals sobreviven a la recarga:
+
+    __persist__ = ("puntos", "enemigos")
+
+Si el código nuevo falla al ejecutarse, el módulo se queda como estaba.
+"""
+
+import ast
+import os
+import sys
+import time
+import traceback
+
+# Atributos del módulo que se mantienen al reejecutarlo
+_MODULE_ATTRS = ("__name__", "__file__", "__loader__", "__package__", "__spec__", "__path__",
+                 "__builtins__", "__cached__")
+
+
+def _norm(path):
+    return os.path.normcase(os.path.realpath(path))
+
+
+def script_modules(script_dirs):
+    """Módulos de sys.modules cargados desde alguna carpeta de scripts (nombre -> módulo)."""
+    prefixes = [_norm(folder) + os.sep for folder in script_dirs]
+    result = {}
+    for name, module in list(sys.modules.items()):
+        path = getattr(module, "__file__", None)
+        if module is None or not path:
+            continue
+        normalized = _norm(path)
+        if any(normalized.startswith(prefix) for prefix in prefixes):
+            result[name] = module
+    return result
+
+
+def _imports(module):
+    """Nombres de los módulos que importa el fuente actual del módulo."""
+    try:
+        with open(module.__file__, "rb") as handle:
+            tree = ast.parse(handle.read(), module.__file__)
+    except (OSError, SyntaxError, ValueError):
+        return set()
+
+    package = getattr(module, "__package__", None) or ""
+    names = set()
+    for node in ast.walk(tree):
+        if isinstance(node, ast.Import):
+            names.update(alias.name for alias in node.names)
+        elif isinstance(node, ast.ImportFrom):
+            base = node.module or ""
+            if node.level:
+                parts = package.split(".") if package else []
+                parts = parts[:len(parts) - (node.level - 1)] if node.level > 1 else parts
+                base = ".".join(part for part in parts + [base] if part)
+            if base:
+                names.add(base)
+                names.update(base + "." + alias.name for alias in node.names)
+    return names
+
+
+def _topological(names, deps):
+    """Ordena names con las dependencias primero; los ciclos van al final por nombre."""
+    pending = {name: {dep for dep in deps.get(name, ()) if dep in names} for name in names}
+    order = []
+    while pending:
+        ready = sorted(name for name, waiting in pending.items() if not waiting)
+        if not ready:
+            # Ciclo de imports: no hay orden correcto, se recargan tal cual
+            ready = sorted(pending)
+        for name in ready:
+            del pending[name]
+            order.append(name)
+        for waiting in pending.values():
+            waiting.difference_update(ready)
+    return order
+
+
+def _reexec(module):
+    """Vuelve a ejecutar el módulo en su propio objeto; devuelve el error o None."""
+    saved = dict(module.__dict__)
+    persist = saved.get("__persist__", ())
+    if isinstance(persist, str):
+        persist = (persist,)
+    kept = {name: saved[name] for name in persist if name in saved}
+
+    module.__dict__.clear()
+    module.__dict__.update({key: saved[key] for key in _MODULE_ATTRS if key in saved})
+    try:
+        with open(module.__file__, "rb") as handle:
+            code = compile(handle.read(), module.__file__, "exec")
+        exec(code, module.__dict__)
+    except BaseException as exc:
+        module.__dict__.clear()
+        module.__dict__.update(saved)
+        return "".join(traceback.format_exception_only(type(exc), exc)).strip()
+
+    module.__dict__.update(kept)
+    return None
+
+
+def reload(paths, script_dirs):
+    """Recarga los módulos de paths y sus dependientes; devuelve [nombre, ms, error] por módulo."""
+    modules = script_modules(script_dirs)
+    changed_paths = {_norm(path) for path in paths}
+    changed = {name for name, module in modules.items() if _norm(module.__file__) in changed_paths}
+    if not changed:
+        return []
+
+    deps = {name: {dep for dep in _imports(module) if dep in modules and dep != name}
+            for name, module in modules.items()}
+
+    affected = set(changed)
+    stack = list(changed)
+    while stack:
+        current = stack.pop()
+        for name, module_deps in deps.items():
+            if current in module_deps and name not in affected:
+                affected.add(name)
+                stack.append(name)
+
+    results = []
+    clock = time.perf_counter
+    for name in _topological(affected, deps):
+        start = clock()
+        error = _reexec(modules[name])
+        results.append([name, (clock() - start) * 1000.0, error])
+    return results
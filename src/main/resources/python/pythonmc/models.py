@@ -0,0 +1,86 @@
+"""
+Modelos Model3D construidos desde scripts en una sola llamada (ver ModelBuilder.java).
+
+Los cubos viajan empaquetados: 6 float32 por cubo (x, y, z, ancho, alto,
+fondo) y un color ARGB u32 por cubo, en vez de una llamada por cubo. El
+modelo sustituye al instante al que usen los Model3DNode con ese archivo y
+se guarda en assets/models con el formato del editor de modelos:
+
+    from pythonmc import Engine
+    from pythonmc.models import ModelBuilder
+
+    builder = ModelBuilder()
+    for i in range(1000):
+        builder.cube(i % 10, i // 100, (i // 10) % 10, 0.9, 0.9, 0.9, 0xFF3366CC)
+    print(builder.build("voxels/bloque.json"))   # {"path", "cubes", "ms"}
+
+    # ...o con los arrays ya hechos (array('f'), numpy, listas)
+    Engine.build_model("malla.json", geometry, colors=0xFFFFFFFF)
+"""
+
+import sys
+from array import array
+
+from pythonmc.bridge import get_bridge
+
+FLOATS_PER_CUBE = 6
+
+
+class ModelBuilder(object):
+    """Acumula cubos en arrays empaquetados y los envía todos con build()."""
+
+    def __init__(self):
+        self.geometry = array("f")
+        self.colors = array("I")
+
+    def cube(self, x, y, z, width, height, depth, color=0xFF6A9955):
+        self.geometry.extend((x, y, z, width, height, depth))
+        self.colors.append(color & 0xFFFFFFFF)
+        return self
+
+    def __len__(self):
+        return len(self.colors)
+
+    def build(self, name):
+        """Crea o sustituye el modelo name (ruta .json en assets/models)."""
+        return build_model(name, self.geometry, self.colors)
+
+
+def build_model(name, geometry, colors=None):
+    """
+    Crea o sustituye el modelo name con los cubos de geometry (6 valores por
+    cubo, plano o en filas); colors es un ARGB para todos, uno por cubo o None.
+    """
+    data = _pack(geometry, "f", "<f4")
+    if len(data) % (FLOATS_PER_CUBE * 4) != 0:
+        raise ValueError("la geometría debe tener 6 valores por cubo")
+    count = len(data) // (FLOATS_PER_CUBE * 4)
+    if isinstance(colors, int):
+        colors = array("I", [colors & 0xFFFFFFFF]) * count
+    packed = _pack(colors, "I", "<u4") if colors is not None else None
+    if packed is not None and len(packed) != count * 4:
+        raise ValueError("hace falta un color por cubo (%d)" % count)
+    return get_bridge().call("model.build", name, data, packed)
+
+
+def _pack(values, typecode, dtype):
+    """Bytes little-endian de un array, vista numpy o secuencia (plana o de filas)."""
+    if hasattr(values, "__array_interface__"):
+        import numpy
+        return numpy.ascontiguousarray(values, dtype=dtype).tobytes()
+    if isinstance(values, array) and values.typecode == typecode:
+        packed = values
+    else:
+        flat = []
+        for value in values:
+            if isinstance(value, (tuple, list)):
+                flat.extend(value)
+            else:
+                flat.append(value)
+        if typecode == "I":
+            flat = [value & 0xFFFFFFFF for value in flat]
+        packed = array(typecode, flat)
+    if sys.byteorder != "little":
+        packed = array(typecode, packed)
+        packed.byteswap()
+    return packed.tobytes()
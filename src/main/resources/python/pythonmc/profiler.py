@@ -0,0 +1,266 @@
+"""
+Profiler de scripts dentro de un worker.
+
+El engine lo activa con una trama PROFILE y el worker envía resúmenes
+PROFILE_DATA mientras está activo (ver ScriptProfiler.java). Solo se mide el
+código de los scripts: init()/update()/destroy() y las ejecuciones RUN, que
+el worker envuelve en section().
+
+Dos modos:
+
+- "sample": cada interval_ms de CPU llega SIGPROF (setitimer) y, si el hilo
+  principal está dentro de section(), se anota la pila interrumpida. No cuenta llamadas
+  (el campo calls son muestras) pero el overhead es bajo y se mide: tiempo
+  dentro del manejador sobre el tiempo medido. Sin setitimer (Windows) un
+  hilo toma la pila del hilo principal; como necesita el GIL, tiende a
+  perder las secciones cortas.
+- "trace": sys.setprofile con llamadas exactas y tiempos propio/total; más
+  preciso pero mucho más caro en código con muchas llamadas pequeñas.
+
+Cada resumen es acumulado desde que se activó: funciones más costosas con
+[nombre, llamadas, propio_ms, total_ms] y pilas colapsadas ("a;b;c", ms)
+para la vista de llama.
+"""
+
+import os
+import runpy
+import signal
+import sys
+import threading
+import time
+
+# Límites del resumen para que la trama siga siendo pequeña
+MAX_FUNCTIONS = 40
+MAX_STACKS = 120
+OTHERS = "(otros)"
+
+_CLOCK = time.perf_counter
+
+
+def _skip_files():
+    files = {os.path.abspath(__file__), os.path.abspath(runpy.__file__)}
+    worker = sys.modules.get("pythonmc.worker") or sys.modules.get("__main__")
+    if worker is not None and getattr(worker, "__file__", None):
+        files.add(os.path.abspath(worker.__file__))
+    return files
+
+
+class Profiler(object):
+    """Acumula tiempos por función y por pila del hilo principal."""
+
+    def __init__(self, mode="sample", interval_ms=5):
+        if mode not in ("sample", "trace"):
+            raise ValueError("modo de profiling desconocido: %s" % mode)
+        self.mode = mode
+        self._interval = max(1, interval_ms) / 1000.0
+        self._target = threading.get_ident()
+        self._use_signal = mode == "sample" and hasattr(signal, "setitimer") and hasattr(signal, "SIGPROF")
+        # Con SIGPROF todo ocurre en el hilo principal y fuera de las secciones
+        # el manejador no toca nada: no hace falta (ni se puede) bloquear
+        self._lock = NO_SECTION if self._use_signal else threading.Lock()
+        self._saved_handler = None
+        self._skip = _skip_files()
+        self._labels = {}
+        self._depth = 0
+        self._started = _CLOCK()
+        self._measured = 0.0
+        self._section_start = 0.0
+        self._cost = 0.0
+        self._samples = 0
+        # label -> [llamadas o muestras, propio_s, total_s]
+        self._functions = {}
+        # tupla de labels (raíz -> hoja) -> segundos propios
+        self._stacks = {}
+        # modo trace: [code, inicio, tiempo de hijos]
+        self._trace_stack = []
+        self._active_codes = {}
+        self._stop = threading.Event()
+        self._thread = None
+
+    # ========== CICLO DE VIDA ==========
+
+    def start(self):
+        if self._use_signal:
+            self._saved_handler = signal.signal(signal.SIGPROF, self._on_signal)
+            # Siempre armado: rearmarlo en cada sección lo reiniciaría y las
+            # secciones más cortas que el intervalo no recibirían ninguna muestra
+            signal.setitimer(signal.ITIMER_PROF, self._interval, self._interval)
+        elif self.mode == "sample":
+            self._thread = threading.Thread(target=self._sample_loop, name="pythonmc-profiler", daemon=True)
+            self._thread.start()
+        return self
+
+    def stop(self):
+        self._stop.set()
+        if self._use_signal:
+            signal.setitimer(signal.ITIMER_PROF, 0)
+            signal.signal(signal.SIGPROF, self._saved_handler or signal.SIG_DFL)
+        if self._thread is not None:
+            self._thread.join(1.0)
+            self._thread = None
+        if self.mode == "trace":
+            sys.setprofile(None)
+
+    def section(self):
+        """Contexto que marca código de script a medir (anidable)."""
+        return _Section(self)
+
+    def _enter(self):
+        self._depth += 1
+        if self._depth == 1:
+            self._section_start = _CLOCK()
+            if self.mode == "trace":
+                self._trace_stack = []
+                self._active_codes = {}
+                sys.setprofile(self._trace)
+
+    def _exit(self):
+        self._depth -= 1
+        if self._depth == 0:
+            if self.mode == "trace":
+                sys.setprofile(None)
+            self._measured += _CLOCK() - self._section_start
+
+    # ========== MUESTREO ==========
+
+    def _on_signal(self, signum, frame):
+        start = _CLOCK()
+        if self._depth > 0 and frame is not None:
+            self._record_sample(frame, self._interval)
+        self._cost += _CLOCK() - start
+
+    def _sample_loop(self):
+        last = _CLOCK()
+        while not self._stop.wait(self._interval):
+            start = _CLOCK()
+            weight, last = start - last, start
+            if self._depth > 0:
+                frame = sys._current_frames().get(self._target)
+                if frame is not None:
+                    self._record_sample(frame, weight)
+            self._cost += _CLOCK() - start
+
+    def _record_sample(self, frame, weight):
+        path = []
+        while frame is not None:
+            code = frame.f_code
+            label = self._labels.get(code)
+            if label is None:
+                label = self._label(code)
+            if label:
+                path.append(label)
+            frame = frame.f_back
+        if not path:
+            return
+        path.reverse()
+
+        with self._lock:
+            self._samples += 1
+            for label in set(path):
+                stat = self._functions.get(label)
+                if stat is None:
+                    stat = self._functions[label] = [0, 0.0, 0.0]
+                stat[0] += 1
+                stat[2] += weight
+            self._functions[path[-1]][1] += weight
+            key = tuple(path)
+            self._stacks[key] = self._stacks.get(key, 0.0) + weight
+
+    # ========== TRAZA ==========
+
+    def _trace(self, frame, event, arg):
+        if event == "call":
+            code = frame.f_code
+            self._trace_stack.append([code, _CLOCK(), 0.0])
+            self._active_codes[code] = self._active_codes.get(code, 0) + 1
+        elif event == "return" and self._trace_stack:
+            code, start, children = self._trace_stack.pop()
+            elapsed = _CLOCK() - start
+            active = self._active_codes[code] - 1
+            self._active_codes[code] = active
+            if self._trace_stack:
+                self._trace_stack[-1][2] += elapsed
+
+            label = self._labels.get(code)
+            if label is None:
+                label = self._label(code)
+            if not label:
+                return
+            own = elapsed - children
+            path = tuple(filter(None, (self._labels.get(entry[0]) or self._label(entry[0])
+                                       for entry in self._trace_stack))) + (label,)
+            with self._lock:
+                stat = self._functions.get(label)
+                if stat is None:
+                    stat = self._functions[label] = [0, 0.0, 0.0]
+                stat[0] += 1
+                stat[1] += own
+                # En recursión el total solo cuenta la llamada más externa
+                if active == 0:
+                    stat[2] += elapsed
+                self._stacks[path] = self._stacks.get(path, 0.0) + own
+
+    # ========== RESUMEN ==========
+
+    def _label(self, code):
+        path = os.path.abspath(code.co_filename)
+        if path in self._skip or code.co_filename.startswith("<frozen"):
+            label = ""
+        else:
+            label = "%s (%s:%d)" % (code.co_name, os.path.basename(code.co_filename), code.co_firstlineno)
+        self._labels[code] = label
+        return label
+
+    def snapshot(self):
+        """Resumen acumulado, listo para codificar con pythonmc.bridge."""
+        with self._lock:
+            functions = sorted(self._functions.items(), key=lambda item: item[1][2], reverse=True)
+            stacks = sorted(self._stacks.items(), key=lambda item: item[1], reverse=True)
+            samples = self._samples
+
+        measured = self._measured
+        if self._depth > 0:
+            measured += _CLOCK() - self._section_start
+        rest = sum(seconds for _, seconds in stacks[MAX_STACKS:])
+        collapsed = [[";".join(path), seconds * 1000.0] for path, seconds in stacks[:MAX_STACKS]]
+        if rest > 0:
+            collapsed.append([OTHERS, rest * 1000.0])
+
+        return {
+            "mode": self.mode,
+            "samples": samples,
+            "elapsed_ms": (_CLOCK() - self._started) * 1000.0,
+            "measured_ms": measured * 1000.0,
+            "overhead_pct": (self._cost / measured * 100.0) if measured > 0 and self.mode == "sample" else -1.0,
+            "functions": [[label, stat[0], stat[1] * 1000.0, stat[2] * 1000.0]
+                          for label, stat in functions[:MAX_FUNCTIONS]],
+            "stacks": collapsed,
+        }
+
+
+class _Section(object):
+    __slots__ = ("_profiler",)
+
+    def __init__(self, profiler):
+        self._profiler = profiler
+
+    def __enter__(self):
+        self._profiler._enter()
+        return self
+
+    def __exit__(self, exc_type, exc, tb):
+        self._profiler._exit()
+        return False
+
+
+class _NoSection(object):
+    """Sección vacía cuando el profiler está apagado (y cerrojo nulo)."""
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, exc_type, exc, tb):
+        return False
+
+
+NO_SECTION = _NoSection()
@@ -0,0 +1,157 @@
+"""
+Caché de lecturas del engine dentro del proceso (ver ReadCache.java).
+
+Las lecturas de nodos que dependen solo del nodo (transform y script) y las
+de bloques pasan por aquí: la primera va al servidor y devuelve el valor con su versión; las
+siguientes se sirven sin salir del proceso. Al inicio de cada tick el engine
+envía un digest DIGEST con los nodos que cambiaron (y su versión nueva), los
+eliminados y los bloques modificados, y solo esas entradas se descartan.
+
+El digest llega por el mismo canal que las respuestas y se aplica cuando el
+worker lee tramas. Si hace más de _MAX_AGE_S que no llega ninguno (un script
+que solo lee de la caché no lee tramas) la siguiente lectura va al servidor,
+lo que de paso aplica los digests pendientes: una lectura nunca va más de un
+par de ticks por detrás. Las escrituras del propio script sobre un nodo
+descartan sus entradas al momento.
+
+Los bloques del digest son los cambios que avisan a los vecinos: un setBlock
+sin UPDATE_NEIGHBORS (colocar estructuras, algunos comandos y mods) no
+llega y la caché seguiría sirviendo el bloque anterior. Tras uno de esos
+cambios, invalidate() vacía esta caché y la de todos los workers (también
+la de Engine.read_region).
+
+    from pythonmc import readcache
+    print(readcache.stats())      # aciertos, fallos, invalidaciones
+    readcache.invalidate()        # tras cambios que el engine no ve
+    readcache.set_enabled(False)  # todas las lecturas al servidor
+"""
+
+import time
+
+from pythonmc.bridge import get_bridge
+
+# Dos ticks: el digest se envía en cada uno aunque no haya cambios
+_MAX_AGE_S = 0.1
+
+
+class ReadCache(object):
+
+    def __init__(self):
+        self.enabled = True
+        self._active = False
+        self._seq = None
+        self._received = 0.0
+        # id del nodo -> {método: (versión, valor)}
+        self._nodes = {}
+        # (x, y, z) -> id del bloque
+        self._blocks = {}
+        self.hits = 0
+        self.misses = 0
+        self.invalidated = 0
+        self.flushes = 0
+
+    def node(self, method, node_id):
+        if self._usable():
+            entry = self._nodes.get(node_id)
+            if entry is not None and method in entry:
+                self.hits += 1
+                return entry[method][1]
+        self.misses += 1
+        version, value = get_bridge().call("cache.node", method, node_id)
+        if self._active and self.enabled:
+            self._nodes.setdefault(node_id, {})[method] = (version, value)
+        return value
+
+    def block(self, x, y, z):
+        key = (x, y, z)
+        if self._usable() and key in self._blocks:
+            self.hits += 1
+            return self._blocks[key]
+        self.misses += 1
+        _, value = get_bridge().call("cache.block", x, y, z)
+        # None es chunk sin cargar: cargarlo no llega en el digest, así que no se guarda
+        if self._active and self.enabled and value is not None:
+            self._blocks[key] = value
+        return value
+
+    def forget(self, node_id):
+        """Descarta las lecturas de un nodo tras escribirlo desde este proceso."""
+        if self._nodes.pop(node_id, None) is not None:
+            self.invalidated += 1
+
+    def clear(self):
+        self._nodes.clear()
+        self._blocks.clear()
+
+    def apply_digest(self, digest):
+        """Trama DIGEST del engine; la llama el bridge al leerla."""
+        seq = digest["seq"]
+        gap = self._seq is not None and seq != self._seq + 1
+        self._seq = seq
+        self._received = time.monotonic()
+        if digest["full"] or gap:
+            self.flushes += 1
+            self.clear()
+            return
+        nodes = self._nodes
+        if nodes:
+            for node_id, version in digest["nodes"]:
+                entry = nodes.get(node_id)
+                if entry is not None and any(cached[0] < version for cached in entry.values()):
+                    del nodes[node_id]
+                    self.invalidated += 1
+            for node_id in digest["removed"]:
+                if nodes.pop(node_id, None) is not None:
+                    self.invalidated += 1
+        blocks = self._blocks
+        if blocks:
+            coords = digest["blocks"]
+            for i in range(0, len(coords), 3):
+                if blocks.pop((coords[i], coords[i + 1], coords[i + 2]), None) is not None:
+                    self.invalidated += 1
+
+    def stats(self):
+        total = self.hits + self.misses
+        return {
+            "hits": self.hits,
+            "misses": self.misses,
+            "hit_rate": self.hits / float(total) if total else 0.0,
+            "invalidated": self.invalidated,
+            "flushes": self.flushes,
+            "entries": sum(len(entry) for entry in self._nodes.values()) + len(self._blocks),
+        }
+
+    def reset_stats(self):
+        self.hits = self.misses = self.invalidated = self.flushes = 0
+
+    def _usable(self):
+        if not self.enabled:
+            return False
+        if not self._active:
+            # Primera lectura: el engine empieza a enviar digests a este worker
+            bridge = get_bridge()
+            bridge.digest_handler = self.apply_digest
+            self._seq = bridge.call("cache.enable")
+            self._received = time.monotonic()
+            self._active = True
+            return False
+        return time.monotonic() - self._received <= _MAX_AGE_S
+
+
+CACHE = ReadCache()
+
+
+def stats():
+    return CACHE.stats()
+
+
+def invalidate():
+    """Vacía la caché de lecturas aquí y, con el siguiente digest, en los demás workers."""
+    CACHE.clear()
+    get_bridge().call("cache.invalidate")
+
+
+def set_enabled(enabled):
+    CACHE.enabled = bool(enabled)
+    if not enabled:
+        CACHE.clear()
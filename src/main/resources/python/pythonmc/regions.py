@@ -0,0 +1,168 @@
+"""
+Lectura de bloques por cajas (ver RegionReader.java).
+
+Una sola lectura trae todos los bloques de la caja, sección de chunk a
+sección de chunk (16x16x16): una paleta de ids y 4096 índices en orden
+y, z, x. El engine copia las secciones en el hilo del servidor, las codifica
+fuera de él y deja los índices en un archivo mapeado que se lee sin copiar;
+repetir la lectura sobre terreno sin cambios sale de su caché. Esa caché no
+ve los cambios sin UPDATE_NEIGHBORS (ver readcache.invalidate()).
+
+    from pythonmc import Engine
+    region = Engine.read_region(0, 0, 0, 127, 319, 127)
+    print(region.block(10, 64, 10))
+    print(region.count("minecraft:diamond_ore", "minecraft:deepslate_diamond_ore"))
+    print(region.highest(10, 10))     # y del bloque más alto que no es aire
+
+    for section in region.sections:
+        print(section.x, section.y, section.z, section.palette, len(section.indices or ()))
+
+Las vistas de Section.indices apuntan al archivo mapeado del worker y valen
+hasta la siguiente lectura del mismo proceso; bytes(section.indices) o
+numpy.array(section.indices) si hacen falta después. Las secciones de chunks
+sin cargar no se cargan: su paleta es None y block() devuelve None.
+"""
+
+import array
+import mmap
+import sys
+
+from pythonmc.bridge import get_bridge
+
+AIR = "minecraft:air"
+
+# ruta -> mmap abierto; al crecer el engine usa un archivo nuevo
+_MAPS = {}
+
+
+class Section(object):
+    """Una sección 16x16x16: palette (ids) e indices (None si tiene un solo bloque o no está cargada)."""
+
+    __slots__ = ("x", "y", "z", "palette", "indices")
+
+    def __init__(self, x, y, z, palette, indices):
+        self.x = x
+        self.y = y
+        self.z = z
+        self.palette = palette
+        self.indices = indices
+
+    @property
+    def loaded(self):
+        return self.palette is not None
+
+    def block(self, lx, ly, lz):
+        """Id del bloque en coordenadas locales (0-15) de la sección."""
+        if self.palette is None:
+            return None
+        if self.indices is None:
+            return self.palette[0]
+        return self.palette[self.indices[(ly << 8) | (lz << 4) | lx]]
+
+    def counts(self):
+        """Número de bloques de cada id en la sección."""
+        if self.palette is None:
+            return {}
+        if self.indices is None:
+            return {self.palette[0]: 4096}
+        tally = [0] * len(self.palette)
+        for index in self.indices:
+            tally[index] += 1
+        return dict((self.palette[i], n) for i, n in enumerate(tally) if n)
+
+
+class RegionData(object):
+    """Resultado de read_region: box (x0, y0, z0, x1, y1, z1) y las secciones que toca."""
+
+    def __init__(self, box, sections):
+        self.box = tuple(box)
+        self.sections = sections
+        self._by_pos = dict(((s.x, s.y, s.z), s) for s in sections)
+
+    def section(self, x, y, z):
+        """Sección que contiene el bloque (x, y, z), o None si queda fuera de la lectura."""
+        return self._by_pos.get((x >> 4, y >> 4, z >> 4))
+
+    def block(self, x, y, z):
+        section = self.section(x, y, z)
+        if section is None:
+            return None
+        return section.block(x & 15, y & 15, z & 15)
+
+    def count(self, *block_ids):
+        """Bloques de esos ids dentro de la caja (no de las secciones enteras)."""
+        wanted = set(block_ids)
+        x0, y0, z0, x1, y1, z1 = self._bounds()
+        total = 0
+        for section in self.sections:
+            if section.palette is None or wanted.isdisjoint(section.palette):
+                continue
+            bx, by, bz = section.x << 4, section.y << 4, section.z << 4
+            if bx >= x0 and bx + 15 <= x1 and by >= y0 and by + 15 <= y1 and bz >= z0 and bz + 15 <= z1:
+                counts = section.counts()
+                total += sum(counts.get(block_id, 0) for block_id in wanted)
+                continue
+            for y in range(max(y0, by), min(y1, by + 15) + 1):
+                for z in range(max(z0, bz), min(z1, bz + 15) + 1):
+                    for x in range(max(x0, bx), min(x1, bx + 15) + 1):
+                        if section.block(x & 15, y & 15, z & 15) in wanted:
+                            total += 1
+        return total
+
+    def highest(self, x, z, ignore=(AIR,)):
+        """y del bloque más alto de la columna (x, z) dentro de la caja que no está en ignore, o None."""
+        _, y0, _, _, y1, _ = self._bounds()
+        ignored = set(ignore)
+        for y in range(y1, y0 - 1, -1):
+            section = self.section(x, y, z)
+            if section is None or section.palette is None:
+                continue
+            if section.indices is None and section.palette[0] in ignored:
+                # Sección de un solo bloque ignorado: se salta entera
+                continue
+            if section.block(x & 15, y & 15, z & 15) not in ignored:
+                return y
+        return None
+
+    def _bounds(self):
+        x0, y0, z0, x1, y1, z1 = self.box
+        return min(x0, x1), min(y0, y1), min(z0, z1), max(x0, x1), max(y0, y1), max(z0, z1)
+
+
+def read_region(x0, y0, z0, x1, y1, z1):
+    """Lee los bloques de la caja (inclusiva) en una copia de secciones y una codificación."""
+    bridge = get_bridge()
+    ticket = bridge.call("world.read_region", int(x0), int(y0), int(z0), int(x1), int(y1), int(z1))
+    reply = bridge.call("world.region_data", ticket)
+    view = _view(reply["path"]) if reply["path"] else None
+    sections = []
+    for sx, sy, sz, palette, width, data in reply["sections"]:
+        indices = None
+        if width:
+            length = 4096 * width
+            chunk = view[data:data + length] if view is not None else memoryview(data)
+            indices = _indices(chunk, width)
+        sections.append(Section(sx, sy, sz, palette, indices))
+    return RegionData(reply["box"], sections)
+
+
+def _view(path):
+    mapped = _MAPS.get(path)
+    if mapped is None:
+        # Los mapas anteriores se sueltan sin close(): puede haber vistas vivas sobre ellos
+        _MAPS.clear()
+        with open(path, "rb") as handle:
+            mapped = mmap.mmap(handle.fileno(), 0, access=mmap.ACCESS_READ)
+        _MAPS[path] = mapped
+    return memoryview(mapped)
+
+
+def _indices(chunk, width):
+    if width == 1:
+        return chunk
+    if sys.byteorder == "little":
+        return chunk.cast("H")
+    values = array.array("H")
+    values.frombytes(chunk)
+    values.byteswap()
+    return memoryview(values)
@@ -0,0 +1,113 @@
+"""
+Texturas procedurales sin copias por el pipe (ver TextureBuffers.java).
+
+Engine.texture abre o crea un PNG de assets/textures y da sus píxeles ARGB
+en memoria compartida con el engine. El cliente sube a la textura solo las
+filas marcadas como cambiadas; set() y fill() las marcan solas, y tras
+escribir directamente en pixels o en la vista de numpy hay que llamar a
+mark_dirty() con las filas tocadas:
+
+    from pythonmc import Engine
+    tex = Engine.texture("ruido.png", 64, 64)
+    for y in range(tex.height):
+        row = tex.row(y)
+        for x in range(tex.width):
+            v = (x * y) & 0xFF
+            row[x] = 0xFF000000 | (v << 16) | (v << 8) | v
+    tex.mark_dirty()              # todas las filas
+    tex.set(0, 0, 0xFFFF0000)     # un píxel, ya marcado
+    tex.save()                    # PNG en assets/textures/ruido.png
+
+    arr = tex.array()             # con numpy: (alto, ancho) uint32 sin copia
+    arr[10:20, :] = 0xFF00FF00
+    tex.mark_dirty(10, 20)
+
+Los Model3D que usan ese PNG ven los cambios al momento (con el servidor en
+el mismo proceso que el cliente). Al cerrar la textura o el mundo se guarda
+como PNG si tiene cambios sin guardar.
+"""
+
+import mmap
+import struct
+import sys
+
+from pythonmc.bridge import get_bridge
+
+MAGIC = 0x58544350
+VERSION = 1
+
+_HEADER = struct.Struct("<IIIIII")  # magic, versión, ancho, alto, offset de filas, offset de píxeles
+_OFF_MODIFIED = 24
+
+
+class Texture(object):
+    """Píxeles ARGB de una textura abierta; pixels es una vista u32 de ancho * alto."""
+
+    def __init__(self, name, info):
+        if sys.byteorder != "little":
+            raise RuntimeError("las texturas compartidas necesitan una CPU little-endian")
+        self.name = name
+        self.generation = info["generation"]
+        with open(info["path"], "r+b") as handle:
+            self._mmap = mmap.mmap(handle.fileno(), 0)
+        self._view = memoryview(self._mmap)
+        magic, version, width, height, rows, pixels = _HEADER.unpack_from(self._view, 0)
+        if magic != MAGIC or version != VERSION:
+            raise ValueError("textura con formato desconocido: %s" % info["path"])
+        self.width = width
+        self.height = height
+        self._rows = self._view[rows:rows + height]
+        self.pixels = self._view[pixels:pixels + width * height * 4].cast("I")
+
+    def row(self, y):
+        """Vista de la fila y (escribir en ella no la marca)."""
+        start = y * self.width
+        return self.pixels[start:start + self.width]
+
+    def get(self, x, y):
+        return self.pixels[y * self.width + x]
+
+    def set(self, x, y, argb):
+        self.pixels[y * self.width + x] = argb & 0xFFFFFFFF
+        self.mark_dirty(y, y + 1)
+
+    def fill(self, argb, x0=0, y0=0, x1=None, y1=None):
+        """Rellena el rectángulo [x0, x1) x [y0, y1) (por defecto la textura entera)."""
+        x1 = self.width if x1 is None else x1
+        y1 = self.height if y1 is None else y1
+        value = argb & 0xFFFFFFFF
+        span = [value] * max(0, x1 - x0)
+        for y in range(y0, y1):
+            start = y * self.width
+            self.pixels[start + x0:start + x1] = _as_u32(span)
+        self.mark_dirty(y0, y1)
+
+    def mark_dirty(self, y0=0, y1=None):
+        """Marca las filas [y0, y1) para subirlas (por defecto todas)."""
+        y1 = self.height if y1 is None else y1
+        if y1 > y0:
+            self._rows[y0:y1] = b"\x01" * (y1 - y0)
+            self._view[_OFF_MODIFIED] = 1
+
+    def array(self):
+        """Vista numpy (alto, ancho) uint32 de los píxeles, sin copia."""
+        import numpy
+        return numpy.frombuffer(self.pixels, dtype=numpy.uint32).reshape(self.height, self.width)
+
+    def save(self):
+        """Guarda el PNG en assets/textures; devuelve su ruta."""
+        return get_bridge().call("texture.save", self.name)
+
+    def close(self):
+        """Guarda si hay cambios y suelta la textura."""
+        get_bridge().call("texture.close", self.name)
+
+
+def open_texture(name, width=0, height=0):
+    """Abre o crea la textura name (ruta .png en assets/textures); 0 x 0 usa el tamaño del PNG."""
+    info = get_bridge().call("texture.open", name, int(width), int(height))
+    return Texture(name, info)
+
+
+def _as_u32(values):
+    return memoryview(struct.pack("<%dI" % len(values), *values)).cast("I")
@@ -0,0 +1,217 @@
+"""
+Acceso directo (sin copias por el pipe) a los transforms de los nodos.
+
+El engine mantiene `.runtime/transforms.bin` mapeado en memoria y lo publica
+al inicio de cada tick (ver TransformBuffer.java para el formato). Desde un
+script:
+
+    from pythonmc.transforms import get_transforms
+    tf = get_transforms()
+    x, y, z, yaw, pitch, roll = tf.read(node_id)
+    tf.write(node_id, x, y + 1, z)
+
+    # Con numpy: array() es el estado publicado (solo lectura) y
+    # write_array() el área de escritura; stage() copia el uno al otro
+    slot = tf.slot(node_id)
+    out = tf.write_array()
+    tf.stage(slot)
+    out["pos"][slot] += (0, 1, 0)
+    tf.mark_dirty(slot)
+
+Las escrituras se aplican a los nodos en el hilo del servidor: al terminar el
+update() del tick en curso o al inicio del siguiente. Van a un área aparte de
+la que publica el engine, así que publicar no pisa una escritura a medias.
+"""
+
+import mmap
+import os
+import struct
+
+from pythonmc.bridge import get_bridge
+
+MAGIC = 0x544D4350
+VERSION = 2
+HEADER_SIZE = 64
+STRIDE = 48
+
+_HEADER = struct.Struct("<IIIIII")  # magic, versión, stride, capacidad, usados, layout
+_SEQ = struct.Struct("<Q")
+_POS = struct.Struct("<ddd")
+_ROT = struct.Struct("<fff")
+_SLOT = struct.Struct("<dddfffBBB")
+
+_OFF_LAYOUT = 20
+_OFF_SEQ = 24
+_OFF_TICK = 32
+_OFF_ROT = 24
+_OFF_ACTIVE = 36
+_OFF_VISIBLE = 37
+_OFF_DIRTY = 38
+
+# Intentos de lectura antes de rendirse si Java está publicando sin parar
+_MAX_RETRIES = 1000
+
+
+class TransformBuffer(object):
+    """Vista sobre transforms.bin con lectura consistente (seqlock) y escritura por slot."""
+
+    def __init__(self, path=None):
+        if path is None:
+            path = os.path.join(os.environ.get("PYTHONMC_RUNTIME", "."), "transforms.bin")
+        self.path = path
+        with open(path, "r+b") as handle:
+            self._mmap = mmap.mmap(handle.fileno(), 0)
+        self._view = memoryview(self._mmap)
+
+        magic, version, stride, capacity, _, _ = _HEADER.unpack_from(self._view, 0)
+        if magic != MAGIC or version != VERSION or stride != STRIDE:
+            raise ValueError("transforms.bin con formato desconocido")
+        self.capacity = capacity
+        # Área de escritura: detrás de los slots publicados
+        self._writes = HEADER_SIZE + capacity * STRIDE
+        self._layout = -1
+        self._slots = {}
+
+    # ---------- cabecera ----------
+
+    @property
+    def seq(self):
+        return _SEQ.unpack_from(self._view, _OFF_SEQ)[0]
+
+    @property
+    def tick(self):
+        return _SEQ.unpack_from(self._view, _OFF_TICK)[0]
+
+    @property
+    def layout(self):
+        return struct.unpack_from("<I", self._view, _OFF_LAYOUT)[0]
+
+    # ---------- slots ----------
+
+    def slot(self, node_id):
+        """Slot de un nodo; refresca la asignación si el engine la cambió."""
+        if self._layout != self.layout or node_id not in self._slots:
+            self.refresh()
+        try:
+            return self._slots[node_id]
+        except KeyError:
+            raise KeyError("El nodo %s no tiene slot en el buffer de transforms" % node_id)
+
+    def slots(self):
+        if self._layout != self.layout:
+            self.refresh()
+        return dict(self._slots)
+
+    def refresh(self):
+        info = get_bridge().call("transforms.slots")
+        self._slots = info["slots"]
+        self._layout = info["layout"]
+
+    # ---------- lectura ----------
+
+    def read(self, node_id):
+        """(x, y, z, yaw, pitch, roll) del último tick publicado."""
+        base = HEADER_SIZE + self.slot(node_id) * STRIDE
+        return self._consistent(lambda: _POS.unpack_from(self._view, base) + _ROT.unpack_from(self._view, base + _OFF_ROT))
+
+    def read_slot(self, slot):
+        """(x, y, z, yaw, pitch, roll, active, visible) de un slot."""
+        base = HEADER_SIZE + slot * STRIDE
+        return self._consistent(lambda: _SLOT.unpack_from(self._view, base)[:8])
+
+    def snapshot(self):
+        """Copia consistente de todos los slots (bytes) y el tick al que corresponde."""
+        used = _HEADER.unpack_from(self._view, 0)[4]
+        end = HEADER_SIZE + used * STRIDE
+        return self._consistent(lambda: (self.tick, bytes(self._view[HEADER_SIZE:end])))
+
+    def array(self):
+        """Vista numpy estructurada (sin copia) de los slots publicados; solo lectura."""
+        return self._numpy(HEADER_SIZE)
+
+    def write_array(self):
+        """Vista numpy del área de escritura; usa stage() antes y mark_dirty() después."""
+        return self._numpy(self._writes)
+
+    # ---------- escritura ----------
+
+    def write(self, node_id, x, y, z, yaw=None, pitch=None, roll=None):
+        """Escribe posición (y rotación si se indica) y marca el slot para aplicar."""
+        base = self._stage(self.slot(node_id))
+        _POS.pack_into(self._view, base, x, y, z)
+        if yaw is not None or pitch is not None or roll is not None:
+            old_yaw, old_pitch, old_roll = _ROT.unpack_from(self._view, base + _OFF_ROT)
+            _ROT.pack_into(self._view, base + _OFF_ROT,
+                           old_yaw if yaw is None else yaw,
+                           old_pitch if pitch is None else pitch,
+                           old_roll if roll is None else roll)
+        self._view[base + _OFF_DIRTY] = 1
+
+    def set_active(self, node_id, active):
+        base = self._stage(self.slot(node_id))
+        self._view[base + _OFF_ACTIVE] = 1 if active else 0
+        self._view[base + _OFF_DIRTY] = 1
+
+    def set_visible(self, node_id, visible):
+        base = self._stage(self.slot(node_id))
+        self._view[base + _OFF_VISIBLE] = 1 if visible else 0
+        self._view[base + _OFF_DIRTY] = 1
+
+    def stage(self, *slots):
+        """Prepara slots para escribirlos con write_array() (copia el estado publicado)."""
+        for slot in slots:
+            self._stage(slot)
+
+    def mark_dirty(self, *slots):
+        """Marca slots escritos a mano (con write_array()) para que se apliquen."""
+        for slot in slots:
+            self._view[self._writes + slot * STRIDE + _OFF_DIRTY] = 1
+
+    def close(self):
+        self._view.release()
+        self._mmap.close()
+
+    # ---------- internos ----------
+
+    def _stage(self, slot):
+        """Base del slot en el área de escritura; sin escritura pendiente parte del estado publicado."""
+        base = self._writes + slot * STRIDE
+        if not self._view[base + _OFF_DIRTY]:
+            published = HEADER_SIZE + slot * STRIDE
+            values = self._consistent(lambda: bytes(self._view[published:published + _OFF_DIRTY]))
+            self._view[base:base + _OFF_DIRTY] = values
+        return base
+
+    def _numpy(self, offset):
+        import numpy
+
+        dtype = numpy.dtype([
+            ("pos", "<f8", 3),
+            ("rot", "<f4", 3),
+            ("active", "u1"),
+            ("visible", "u1"),
+            ("dirty", "u1"),
+            ("_pad", "u1", 9),
+        ])
+        return numpy.frombuffer(self._mmap, dtype=dtype, count=self.capacity, offset=offset)
+
+    def _consistent(self, read):
+        for _ in range(_MAX_RETRIES):
+            before = self.seq
+            if before & 1:
+                continue
+            value = read()
+            if self.seq == before:
+                return value
+        raise RuntimeError("No se pudo leer un estado consistente del buffer de transforms")
+
+
+_TRANSFORMS = None
+
+
+def get_transforms():
+    """Buffer compartido del proceso (se abre la primera vez)."""
+    global _TRANSFORMS
+    if _TRANSFORMS is None:
+        _TRANSFORMS = TransformBuffer()
+    return _TRANSFORMS
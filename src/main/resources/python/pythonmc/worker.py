@@ -0,0 +1,715 @@
+"""
+Worker persistente de PythonMC.
+
+El engine lanza uno o varios procesos con `python -m pythonmc.worker` al cargar
+el mundo y los reutiliza entre ejecuciones. stdin/stdout del proceso
+transportan tramas binarias (ver pythonmc.bridge); main() atiende una trama
+a la vez y cada tipo tiene aquí su función.
+"""
+
+import contextlib
+import importlib.util
+import io
+import os
+import pickle
+import runpy
+import signal
+import sys
+import time
+import traceback
+import types
+
+from pythonmc import bridge as _bridge
+from pythonmc import compiler as _compiler
+from pythonmc import coroutines as _coroutines
+from pythonmc import engine as _engine
+from pythonmc import fastpath as _fastpath
+from pythonmc import generators as _generators
+from pythonmc import hotreload as _hotreload
+from pythonmc import profiler as _profiler
+from pythonmc import readcache as _readcache
+
+try:
+    import resource
+except ImportError:  # Windows: sin límites de CPU/memoria
+    resource = None
+
+# Canal real hacia Java; los scripts nunca escriben aquí directamente
+_PROTOCOL_OUT = sys.stdout.buffer
+_PROTOCOL_IN = sys.stdin.buffer
+_BRIDGE = None
+
+# Scripts de ciclo de vida cargados: handle -> módulo
+_LOADED = {}
+
+# Scripts de nodos: handle -> _NodeScriptFile
+_NODE_SCRIPTS = {}
+
+# Carpetas desde las que se han cargado scripts (para la recarga en caliente)
+_SCRIPT_DIRS = set()
+
+# Códigos de salida reservados (mantener en sincronía con ScriptLimits.java)
+EXIT_CPU_LIMIT = 152
+EXIT_MEMORY_LIMIT = 153
+
+# SIGXCPU solo interrumpe mientras hay un límite de CPU activo
+_CPU_LIMIT_ACTIVE = False
+
+# Profiler activo (None si está apagado) y último resumen enviado
+_PROFILER = None
+_PROFILE_REPORT_S = 0.5
+_LAST_PROFILE_REPORT = 0.0
+
+
+class _RunOutput(io.TextIOBase):
+    """Redirige stdout (OUT) o stderr (ERR) del script a tramas de la ejecución actual."""
+
+    def __init__(self, run_id, frame_type=_bridge.OUT):
+        self._run_id = run_id
+        self._frame_type = frame_type
+        self._pending = ""
+
+    def writable(self):
+        return True
+
+    def write(self, text):
+        self._pending += text
+        while "\n" in self._pending:
+            line, self._pending = self._pending.split("\n", 1)
+            _BRIDGE.send_frame(self._frame_type, self._run_id, _bridge.encode(line))
+        return len(text)
+
+    def flush(self):
+        if self._pending:
+            _BRIDGE.send_frame(self._frame_type, self._run_id, _bridge.encode(self._pending))
+            self._pending = ""
+
+
+class CpuLimitExceeded(BaseException):
+    """Se lanza en el script al agotar su tiempo de CPU (SIGXCPU)."""
+
+
+def _on_cpu_limit(signum, frame):
+    if _CPU_LIMIT_ACTIVE:
+        raise CpuLimitExceeded("límite de CPU agotado")
+
+
+def _address_space():
+    try:
+        with open("/proc/self/statm") as statm:
+            return int(statm.read().split()[0]) * resource.getpagesize()
+    except (OSError, ValueError, IndexError):
+        return None
+
+
+class _Limits(object):
+    """RLIMIT_CPU/RLIMIT_AS relativos al consumo actual del worker durante el bloque."""
+
+    def __init__(self, cpu_s, memory_mb):
+        self._cpu_s = cpu_s
+        self._memory_mb = memory_mb
+        self._saved = []
+
+    def __enter__(self):
+        global _CPU_LIMIT_ACTIVE
+        if resource is None:
+            return self
+        if self._cpu_s > 0 and hasattr(signal, "SIGXCPU"):
+            usage = resource.getrusage(resource.RUSAGE_SELF)
+            self._set(resource.RLIMIT_CPU, int(usage.ru_utime + usage.ru_stime) + 1 + self._cpu_s)
+            _CPU_LIMIT_ACTIVE = True
+        if self._memory_mb > 0:
+            base = _address_space()
+            if base is not None:
+                self._set(resource.RLIMIT_AS, base + self._memory_mb * 1024 * 1024)
+        return self
+
+    def __exit__(self, exc_type, exc, tb):
+        global _CPU_LIMIT_ACTIVE
+        _CPU_LIMIT_ACTIVE = False
+        for kind, limits in reversed(self._saved):
+            resource.setrlimit(kind, limits)
+        self._saved = []
+        return False
+
+    def _set(self, kind, soft):
+        # Solo se toca el límite blando: el duro no se podría volver a subir
+        limits = resource.getrlimit(kind)
+        hard = limits[1]
+        if hard != resource.RLIM_INFINITY:
+            soft = min(soft, hard)
+        resource.setrlimit(kind, (soft, hard))
+        self._saved.append((kind, limits))
+
+
+def _warm_imports(modules):
+    for name in modules:
+        name = name.strip()
+        if not name:
+            continue
+        try:
+            __import__(name)
+        except Exception as exc:  # un import fallido no debe tumbar el worker
+            sys.stderr.write("[worker] warm import '%s' falló: %s\n" % (name, exc))
+
+
+def _print_script_traceback(output, path):
+    """Imprime el traceback omitiendo los frames del worker y de runpy."""
+    exc_type, exc_value, tb = sys.exc_info()
+    script = os.path.abspath(path)
+    while tb is not None and os.path.abspath(tb.tb_frame.f_code.co_filename) != script:
+        tb = tb.tb_next
+    traceback.print_exception(exc_type, exc_value, tb, file=output)
+
+
+class _Redirect(object):
+    """Redirige stdout/stderr a las tramas OUT/ERR de un handle mientras dura el bloque."""
+
+    def __init__(self, handle):
+        self._handle = handle
+        self.out = _RunOutput(handle, _bridge.OUT)
+        self.err = _RunOutput(handle, _bridge.ERR)
+
+    def __enter__(self):
+        self._saved = sys.stdout, sys.stderr
+        self._saved_owner = _engine._set_owner(("handle", self._handle))
+        sys.stdout, sys.stderr = self.out, self.err
+        return self
+
+    def __exit__(self, exc_type, exc, tb):
+        self.out.flush()
+        self.err.flush()
+        sys.stdout, sys.stderr = self._saved
+        _engine._set_owner(self._saved_owner)
+        return False
+
+
+def _call_hook(handle, module, hook):
+    """Llama init()/update() si existe; devuelve el error como texto o None."""
+    function = getattr(module, hook, None)
+    if function is None:
+        return None
+    with _Redirect(handle) as output:
+        try:
+            with _profile_section():
+                function()
+        except BaseException as exc:
+            _print_script_traceback(output.err, module.__file__)
+            return "%s: %s" % (type(exc).__name__, exc)
+    return None
+
+
+class _NodeScriptFile(object):
+    """Módulo de un script de nodos y sus instancias (id del nodo -> NodeScript)."""
+
+    def __init__(self, module):
+        self.module = module
+        self.instances = {}
+        self.script_class = _script_class(module)
+        # update() ejecutado por el engine (ver pythonmc.fastpath)
+        self.compiled = False
+
+    def hook(self, state, name):
+        if self.script_class is not None:
+            return getattr(state, name, None)
+        function = getattr(self.module, name, None)
+        return (lambda: function(state)) if function is not None else None
+
+
+def _script_class(module):
+    """Subclase de NodeScript definida en el módulo, o None (estilo funciones)."""
+    for value in vars(module).values():
+        if (isinstance(value, type) and issubclass(value, _engine.NodeScript)
+                and value is not _engine.NodeScript and value.__module__ == module.__name__):
+            return value
+    return None
+
+
+def _call_node_hook(handle, entry, node_id, state, hook, output):
+    """Como _call_hook para una instancia; con la salida ya redirigida."""
+    function = entry.hook(state, hook)
+    if function is None:
+        return None
+    saved_owner = _engine._set_owner(("node", handle, node_id))
+    try:
+        function()
+    except BaseException as exc:
+        _print_script_traceback(output.err, entry.module.__file__)
+        return "%s: %s" % (type(exc).__name__, exc)
+    finally:
+        _engine._set_owner(saved_owner)
+    return None
+
+
+def _release_node(handle, node_id):
+    _coroutines.SCHEDULER.cancel_owned(("node", handle, node_id))
+    _engine._close_owned(("node", handle, node_id))
+
+
+def _attach_node(request_id, request):
+    """
+    ATTACH {"handle", "node"}: crea la instancia del script de nodos para ese
+    nodo; con "state" la recrea desde otro worker sin llamar a init().
+    """
+    handle = request["handle"]
+    info = request["node"]
+    entry = _NODE_SCRIPTS.get(handle)
+    error = None
+    if entry is None:
+        error = "script de nodos no cargado"
+    else:
+        cls = entry.script_class if entry.script_class is not None else _engine.NodeScript
+        saved = _restore_state(request.get("state"))
+        if saved is not None:
+            # Llega de otro worker: se recupera el estado sin volver a llamar a init()
+            state = cls.__new__(cls)
+            state.__dict__.update(saved)
+            state.node = _engine._wrap(info)
+        else:
+            state = cls()
+            state.node = _engine._wrap(info)
+            with _Redirect(handle) as output, _profile_section():
+                error = _call_node_hook(handle, entry, info["id"], state, "init", output)
+        if error is None:
+            entry.instances[info["id"]] = state
+        else:
+            _release_node(handle, info["id"])
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode({"ok": error is None, "error": error}))
+
+
+def _export_state(handle, node_id, state):
+    """Estado de la instancia serializado para llevarla a otro worker, o None si no se puede."""
+    owner = ("node", handle, node_id)
+    # Corrutinas y suscripciones no viajan: la instancia se queda donde está
+    if _coroutines.SCHEDULER.owns(owner) or _engine._owns(owner):
+        return None
+    values = dict((key, value) for key, value in vars(state).items() if key != "node")
+    try:
+        return pickle.dumps(values, pickle.HIGHEST_PROTOCOL)
+    except Exception:
+        return None
+
+
+def _restore_state(data):
+    if data is None:
+        return None
+    try:
+        return pickle.loads(data)
+    except Exception:
+        return None
+
+
+def _detach_node(request_id, request):
+    """
+    DETACH {"handle", "node"}: destruye la instancia del nodo. Con "export" la
+    saca sin destroy() y responde {"moved", "state"} con su estado en pickle
+    para repartir la carga; no se mueve si tiene corrutinas o suscripciones vivas.
+    """
+    handle = request["handle"]
+    node_id = request["node"]
+    entry = _NODE_SCRIPTS.get(handle)
+    if request.get("export"):
+        # Traslado a otro shard: sin destroy(), la instancia sigue viva en el destino
+        state = entry.instances.get(node_id) if entry is not None else None
+        data = _export_state(handle, node_id, state) if state is not None else None
+        if data is not None:
+            del entry.instances[node_id]
+        _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode({"moved": data is not None, "state": data}))
+        return
+    state = entry.instances.pop(node_id, None) if entry is not None else None
+    if state is not None:
+        with _Redirect(handle) as output:
+            _call_node_hook(handle, entry, node_id, state, "destroy", output)
+        _release_node(handle, node_id)
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode(state is not None))
+
+
+def _update_nodes(handle, entry):
+    """update() de todas las instancias; una instancia que falla deja de actualizarse."""
+    if not entry.instances or entry.compiled:
+        return
+    with _Redirect(handle) as output, _profile_section():
+        for node_id, state in list(entry.instances.items()):
+            error = _call_node_hook(handle, entry, node_id, state, "update", output)
+            if error is not None:
+                del entry.instances[node_id]
+                _release_node(handle, node_id)
+                output.err.write("[%s] update() falló; la instancia queda desactivada\n" % state.node)
+
+
+def _load_script(request_id, handle, path, node_script=False):
+    """
+    LOAD: importa el script como módulo y lo deja cargado; init() se llama una
+    vez. Con node_script es un script de nodos (ver engine.NodeScript): no se
+    llama a init() y las instancias llegan con ATTACH.
+    """
+    name = os.path.splitext(os.path.basename(path))[0]
+    script_dir = os.path.dirname(os.path.abspath(path))
+    _SCRIPT_DIRS.add(script_dir)
+    if script_dir not in sys.path:
+        sys.path.insert(0, script_dir)
+
+    error = None
+    module = None
+    with _Redirect(handle) as output:
+        try:
+            spec = importlib.util.spec_from_file_location(name, path)
+            module = importlib.util.module_from_spec(spec)
+            sys.modules[name] = module
+            spec.loader.exec_module(module)
+        except BaseException as exc:
+            sys.modules.pop(name, None)
+            _print_script_traceback(output.err, path)
+            error = "%s: %s" % (type(exc).__name__, exc)
+
+    reply = {}
+    if error is None and node_script:
+        entry = _NODE_SCRIPTS[handle] = _NodeScriptFile(module)
+        reply["compiled"] = _compile_update(handle, entry)
+    elif error is None:
+        _LOADED[handle] = module
+        error = _call_hook(handle, module, "init")
+        if error is not None:
+            _LOADED.pop(handle, None)
+
+    reply.update({"ok": error is None, "error": error})
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode(reply))
+
+
+def _compile_update(handle, entry):
+    """
+    Árbol de operaciones del update() marcado con @compiled, o None si se queda en Python.
+
+    Con árbol el engine ejecuta el update() por su cuenta (ver pythonmc.fastpath)
+    y el worker deja de llamarlo; init() y destroy() siguen aquí.
+    """
+    update = getattr(entry.script_class, "update", None) if entry.script_class is not None \
+        else getattr(entry.module, "update", None)
+    entry.compiled = False
+    if update is None or not _fastpath.is_marked(update):
+        return None
+    try:
+        tree = _fastpath.translate(update)
+    except _fastpath.Unsupported as exc:
+        with _Redirect(handle) as output:
+            output.err.write("[fastpath] update() se queda en Python: %s\n" % exc)
+        return None
+    entry.compiled = True
+    return tree
+
+
+def _unload_script(request_id, handle):
+    entry = _NODE_SCRIPTS.pop(handle, None)
+    if entry is not None:
+        with _Redirect(handle) as output:
+            for node_id, state in entry.instances.items():
+                _call_node_hook(handle, entry, node_id, state, "destroy", output)
+                _release_node(handle, node_id)
+        if sys.modules.get(entry.module.__name__) is entry.module:
+            del sys.modules[entry.module.__name__]
+        _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode(True))
+        return
+    module = _LOADED.pop(handle, None)
+    if module is not None:
+        _call_hook(handle, module, "destroy")
+        _coroutines.SCHEDULER.cancel_owned(("handle", handle))
+        _engine._close_owned(("handle", handle))
+        if sys.modules.get(module.__name__) is module:
+            del sys.modules[module.__name__]
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode(module is not None))
+
+
+def _update_scripts(request_id, request):
+    """Llama update() de cada handle, reanuda las corrutinas y devuelve [handle, ms, error] por script."""
+    handles = request["handles"]
+    results = []
+    _engine._TICK = request["tick"]
+    clock = time.perf_counter
+    for handle in handles:
+        entry = _NODE_SCRIPTS.get(handle)
+        if entry is not None:
+            start = clock()
+            _update_nodes(handle, entry)
+            results.append([handle, (clock() - start) * 1000.0, None])
+            continue
+        module = _LOADED.get(handle)
+        if module is None:
+            results.append([handle, 0.0, "no cargado"])
+            continue
+        start = clock()
+        error = _call_hook(handle, module, "update")
+        results.append([handle, (clock() - start) * 1000.0, error])
+    _coroutines.SCHEDULER.advance(request["tick"], _coroutine_output)
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode({
+        "results": results,
+        "coroutines": _coroutines.SCHEDULER.stats(),
+    }))
+    _report_profile()
+
+
+@contextlib.contextmanager
+def _coroutine_output(owner):
+    """Salida y owner del script dueño mientras se reanudan sus corrutinas."""
+    handle = owner[1] if owner else 0
+    with _Redirect(handle) as output, _profile_section():
+        def report(exc):
+            # Sin el frame de Scheduler._step
+            traceback.print_exception(type(exc), exc, exc.__traceback__.tb_next, file=output.err)
+        yield report
+
+
+def _reload_scripts(request_id, paths):
+    """
+    Recarga módulos cambiados y avisa a los scripts de ciclo de vida afectados.
+
+    Un script recargado recibe on_reload() si conserva estado con __persist__,
+    o un init() nuevo si no; la respuesta trae "compiled" [[handle, árbol o None]].
+    """
+    start = time.perf_counter()
+    results = _hotreload.reload(paths, _SCRIPT_DIRS)
+    reloaded = {name for name, _, error in results if error is None}
+
+    for handle, module in list(_LOADED.items()):
+        if module.__name__ not in reloaded:
+            continue
+        hook = "on_reload" if getattr(module, "__persist__", None) else "init"
+        if hook == "init":
+            # init() vuelve a suscribirse y a lanzar sus corrutinas
+            _coroutines.SCHEDULER.cancel_owned(("handle", handle))
+            _engine._close_owned(("handle", handle))
+        error = _call_hook(handle, module, hook)
+        if error is not None:
+            for result in results:
+                if result[0] == module.__name__:
+                    result[2] = "%s(): %s" % (hook, error)
+
+    # Los scripts de nodos conservan el estado de cada instancia: solo se
+    # pasan las instancias a la clase nueva (las funciones se leen del módulo)
+    compiled = []
+    for handle, entry in _NODE_SCRIPTS.items():
+        if entry.module.__name__ not in reloaded:
+            continue
+        old_class, entry.script_class = entry.script_class, _script_class(entry.module)
+        if old_class is not None and entry.script_class is not None:
+            for state in entry.instances.values():
+                if type(state) is old_class:
+                    state.__class__ = entry.script_class
+        # El update() nuevo puede dejar de caber en el subconjunto (o empezar a caber)
+        compiled.append([handle, _compile_update(handle, entry)])
+
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode({
+        "modules": results,
+        "compiled": compiled,
+        "total_ms": (time.perf_counter() - start) * 1000.0,
+    }))
+
+
+def _dispatch_events(subscription_id, batch):
+    """
+    Llama al callback de una suscripción con la salida del script que la abrió.
+
+    Las suscripciones se cierran al terminar el RUN o al descargar su script.
+    """
+    subscription = _engine._SUBSCRIPTIONS.get(subscription_id)
+    if subscription is None:
+        return
+    handle = subscription.owner[1] if subscription.owner else 0
+    module = _LOADED.get(handle)
+    with _Redirect(handle) as output:
+        try:
+            with _profile_section():
+                _engine._dispatch(subscription_id, batch)
+        except BaseException:
+            if module is not None:
+                _print_script_traceback(output.err, module.__file__)
+            else:
+                traceback.print_exc(file=output.err)
+
+
+def _generate_region(request_id, request):
+    """
+    GENERATE {"handle", "path", "root", "region", "args"}: generate_region() de
+    un generador (ver pythonmc.generators). Responde {"ops", "source", "deps", "ms"}
+    o {"error"}.
+    """
+    with _Redirect(request["handle"]) as output:
+        try:
+            with _profile_section():
+                ops, source, deps, ms = _generators.run_region(request["path"], request["root"],
+                                                               request["region"], request["args"])
+            reply = {"ops": ops, "source": source, "deps": deps, "ms": ms}
+        except BaseException as exc:
+            _print_script_traceback(output.err, request["path"])
+            reply = {"error": "%s: %s" % (type(exc).__name__, exc)}
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode(reply))
+
+
+def _exec_main(path, bytecode):
+    """Como runpy.run_path, pero con el code object precompilado si sirve."""
+    code = _compiler.load_bytecode(bytecode, path) if bytecode else None
+    if code is None:
+        runpy.run_path(path, run_name="__main__")
+        return
+    module = types.ModuleType("__main__")
+    module.__file__ = path
+    module.__cached__ = bytecode
+    module.__builtins__ = __builtins__
+    saved_main = sys.modules.get("__main__")
+    sys.modules["__main__"] = module
+    try:
+        exec(code, module.__dict__)
+    finally:
+        sys.modules["__main__"] = saved_main
+
+
+def _run_script(run_id, path, cpu_s=0, memory_mb=0, bytecode=None):
+    """
+    RUN: ejecuta el script en un namespace de módulo nuevo y responde DONE con
+    el código de salida. Los límites se aplican solo durante la ejecución; al
+    superarlos el worker sobrevive y el script acaba con EXIT_CPU_LIMIT o
+    EXIT_MEMORY_LIMIT.
+    """
+    output = _RunOutput(run_id, _bridge.OUT)
+    errors = _RunOutput(run_id, _bridge.ERR)
+    saved_stdout, saved_stderr = sys.stdout, sys.stderr
+    saved_argv, saved_path, saved_cwd = sys.argv, list(sys.path), os.getcwd()
+    script_dir = os.path.dirname(os.path.abspath(path))
+    _SCRIPT_DIRS.add(script_dir)
+
+    sys.stdout, sys.stderr = output, errors
+    saved_owner = _engine._set_owner(("run", run_id))
+    sys.argv = [path]
+    sys.path.insert(0, script_dir)
+    os.environ["PYTHONMC_SCRIPT_NAME"] = os.path.basename(path)
+    os.environ["PYTHONMC_SCRIPT_PATH"] = path
+
+    code = 0
+    try:
+        os.chdir(script_dir)
+        with _Limits(cpu_s, memory_mb), _profile_section():
+            _exec_main(path, bytecode)
+    except CpuLimitExceeded:
+        errors.write("CpuLimitExceeded: %d s de CPU agotados\n" % cpu_s)
+        code = EXIT_CPU_LIMIT
+    except MemoryError:
+        _print_script_traceback(errors, path)
+        code = EXIT_MEMORY_LIMIT
+    except SystemExit as exc:
+        if exc.code is None:
+            code = 0
+        elif isinstance(exc.code, int):
+            code = exc.code
+        else:
+            errors.write(str(exc.code) + "\n")
+            code = 1
+    except BaseException:
+        _print_script_traceback(errors, path)
+        code = 1
+    finally:
+        output.flush()
+        errors.flush()
+        sys.stdout, sys.stderr = saved_stdout, saved_stderr
+        _engine._set_owner(saved_owner)
+        _engine._close_owned(("run", run_id))
+        sys.argv = saved_argv
+        sys.path[:] = saved_path
+        try:
+            os.chdir(saved_cwd)
+        except OSError:
+            pass
+
+    _BRIDGE.send_frame(_bridge.DONE, run_id, _bridge.encode(code))
+    _report_profile(force=True)
+
+
+def _profile_section():
+    return _PROFILER.section() if _PROFILER is not None else _profiler.NO_SECTION
+
+
+def _set_profiling(request_id, request):
+    """Enciende (reiniciando los datos) o apaga el profiler; al apagar envía el último resumen."""
+    global _PROFILER
+    error = None
+    if _PROFILER is not None:
+        _report_profile(force=True)
+        _PROFILER.stop()
+        _PROFILER = None
+    if request.get("enabled"):
+        try:
+            _PROFILER = _profiler.Profiler(request.get("mode", "sample"), request.get("interval_ms", 5)).start()
+            _readcache.CACHE.reset_stats()
+        except ValueError as exc:
+            error = str(exc)
+    _BRIDGE.send_frame(_bridge.REPLY, request_id, _bridge.encode({"ok": error is None, "error": error}))
+
+
+def _report_profile(force=False):
+    """Envía PROFILE_DATA como mucho cada _PROFILE_REPORT_S (o ya, con force)."""
+    global _LAST_PROFILE_REPORT
+    if _PROFILER is None:
+        return
+    now = time.perf_counter()
+    if force or now - _LAST_PROFILE_REPORT >= _PROFILE_REPORT_S:
+        _LAST_PROFILE_REPORT = now
+        snapshot = _PROFILER.snapshot()
+        # Aciertos y fallos de la caché de lecturas desde que se activó el profiler
+        snapshot["cache"] = _readcache.stats()
+        _BRIDGE.send_frame(_bridge.PROFILE_DATA, 0, _bridge.encode(snapshot))
+
+
+def _next_frame():
+    if _BRIDGE.unsolicited:
+        return _BRIDGE.unsolicited.popleft()
+    return _bridge.read_frame(_PROTOCOL_IN)
+
+
+def main():
+    global _BRIDGE
+    _BRIDGE = _bridge.install(_PROTOCOL_IN, _PROTOCOL_OUT)
+
+    _warm_imports(os.environ.get("PYTHONMC_WARM_IMPORTS", "").split(","))
+    if hasattr(signal, "SIGXCPU"):
+        signal.signal(signal.SIGXCPU, _on_cpu_limit)
+    # stdout del proceso queda reservado al protocolo
+    sys.stdout = sys.stderr
+    _BRIDGE.send_frame(_bridge.READY, 0, _bridge.encode({"pid": os.getpid()}))
+
+    while True:
+        frame = _next_frame()
+        if frame is None:
+            break
+        frame_type, frame_id, payload = frame
+
+        if frame_type == _bridge.RUN:
+            request = _bridge.decode_value(payload)
+            _run_script(frame_id, request["path"], request.get("cpu_s", 0), request.get("memory_mb", 0),
+                        request.get("bytecode"))
+        elif frame_type == _bridge.LOAD:
+            request = _bridge.decode_value(payload)
+            _load_script(frame_id, request["handle"], request["path"], request.get("node_script", False))
+        elif frame_type == _bridge.ATTACH:
+            _attach_node(frame_id, _bridge.decode_value(payload))
+        elif frame_type == _bridge.DETACH:
+            _detach_node(frame_id, _bridge.decode_value(payload))
+        elif frame_type == _bridge.UNLOAD:
+            _unload_script(frame_id, _bridge.decode_value(payload))
+        elif frame_type == _bridge.UPDATE:
+            _update_scripts(frame_id, _bridge.decode_value(payload))
+        elif frame_type == _bridge.RELOAD:
+            _reload_scripts(frame_id, _bridge.decode_value(payload)["paths"])
+        elif frame_type == _bridge.EVENTS:
+            _dispatch_events(frame_id, _bridge.decode_value(payload))
+        elif frame_type == _bridge.GENERATE:
+            _generate_region(frame_id, _bridge.decode_value(payload))
+        elif frame_type == _bridge.PROFILE:
+            _set_profiling(frame_id, _bridge.decode_value(payload))
+        elif frame_type == _bridge.PING:
+            _BRIDGE.send_frame(_bridge.PONG, frame_id)
+        elif frame_type == _bridge.EXIT:
+            break
+        elif not _BRIDGE.handle_frame(frame_type, frame_id, payload):
+            sys.stderr.write("[worker] trama desconocida: %d\n" % frame_type)
+
+
+if __name__ == "__main__":
+    main()
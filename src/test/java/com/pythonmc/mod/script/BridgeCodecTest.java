@@ -0,0 +1,162 @@
+package com.pythonmc.mod.script;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Codificación de valores y tramas del bridge (espejo de src/test/python/test_bridge.py)
+ */
+class BridgeCodecTest {
+
+    @Test
+    void roundTripKeepsNestedValues() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("nada", null);
+        value.put("sí", true);
+        value.put("no", false);
+        value.put("entero", -42L);
+        value.put("real", 1.5);
+        value.put("texto", "árbol ñ");
+        value.put("lista", List.of(1L, "dos", List.of()));
+        value.put("mapa", Map.of("k", 3L));
+
+        assertEquals(value, BridgeCodec.decode(BridgeCodec.encode(value)));
+    }
+
+    @Test
+    void mapKeepsInsertionOrder() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("z", 1L);
+        value.put("a", 2L);
+        value.put("m", 3L);
+
+        Map<?, ?> decoded = (Map<?, ?>) BridgeCodec.decode(BridgeCodec.encode(value));
+        assertEquals(List.of("z", "a", "m"), List.copyOf(decoded.keySet()));
+    }
+
+    @Test
+    void javaTypesMapToPythonTypes() {
+        // int y float de Python llegan siempre como Long y Double
+        assertEquals(7L, BridgeCodec.decode(BridgeCodec.encode(7)));
+        assertEquals(0.25, BridgeCodec.decode(BridgeCodec.encode(0.25f)));
+        assertEquals(List.of(1.0, 2.0), BridgeCodec.decode(BridgeCodec.encode(new double[]{1, 2})));
+        assertEquals("APPLIED", BridgeCodec.decode(BridgeCodec.encode(MutationQueue.State.APPLIED)));
+
+        byte[] bytes = {0, 1, (byte) 0xff};
+        assertArrayEquals(bytes, (byte[]) BridgeCodec.decode(BridgeCodec.encode(bytes)));
+    }
+
+    @Test
+    void emptyPayloadIsNone() {
+        assertNull(BridgeCodec.decode(null));
+        assertNull(BridgeCodec.decode(new byte[0]));
+    }
+
+    @Test
+    void unsupportedTypeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BridgeCodec.encode(new Object()));
+    }
+
+    @Test
+    void unknownTagIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BridgeCodec.decode(new byte[]{42}));
+    }
+
+    @Test
+    void truncatedStringIsRejected() {
+        byte[] payload = BridgeCodec.encode("hola");
+        byte[] truncated = Arrays.copyOf(payload, payload.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> BridgeCodec.decode(truncated));
+    }
+
+    @Test
+    void truncatedListIsRejected() {
+        byte[] payload = BridgeCodec.encode(List.of(1L, 2L, 3L));
+        byte[] truncated = Arrays.copyOf(payload, payload.length - 9);
+
+        assertThrows(RuntimeException.class, () -> BridgeCodec.decode(truncated));
+    }
+
+    @Test
+    void oversizedCountsAreRejectedBeforeAllocating() {
+        // Tag + cuenta enorme sin datos detrás: no debe reservar memoria para ella
+        for (int tag : new int[]{5, 6, 7, 8}) {
+            byte[] payload = ByteBuffer.allocate(5).put((byte) tag).putInt(Integer.MAX_VALUE).array();
+            assertThrows(IllegalArgumentException.class, () -> BridgeCodec.decode(payload), "tag " + tag);
+        }
+    }
+
+    @Test
+    void negativeCountIsRejected() {
+        byte[] payload = ByteBuffer.allocate(5).put((byte) 7).putInt(-1).array();
+
+        assertThrows(IllegalArgumentException.class, () -> BridgeCodec.decode(payload));
+    }
+
+    @Test
+    void mapCountIsBoundedByMinimumEntrySize() {
+        // Cada entrada ocupa al menos 5 bytes: 4 bytes de sobra no alcanzan para una
+        byte[] payload = ByteBuffer.allocate(9).put((byte) 8).putInt(1).putInt(0).array();
+
+        assertThrows(IllegalArgumentException.class, () -> BridgeCodec.decode(payload));
+    }
+
+    @Test
+    void frameRoundTrip() throws IOException {
+        byte[] payload = BridgeCodec.encode(List.of("node.get", "abc"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        BridgeFrame.write(out, BridgeFrame.CALL, 17, payload);
+        BridgeFrame.write(out, BridgeFrame.PING, 18, null);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        BridgeFrame call = BridgeFrame.read(in);
+        assertEquals(BridgeFrame.CALL, call.type);
+        assertEquals(17, call.id);
+        assertEquals(List.of("node.get", "abc"), call.value());
+
+        BridgeFrame ping = BridgeFrame.read(in);
+        assertEquals(BridgeFrame.PING, ping.type);
+        assertEquals(18, ping.id);
+        assertEquals(0, ping.payload.length);
+
+        // Fin limpio del canal
+        assertNull(BridgeFrame.read(in));
+    }
+
+    @Test
+    void frameWithInvalidLengthIsRejected() {
+        for (int length : new int[]{4, -1, Integer.MAX_VALUE}) {
+            byte[] header = ByteBuffer.allocate(9).putInt(length).put((byte) 1).putInt(1).array();
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+            assertThrows(IOException.class, () -> BridgeFrame.read(in), "longitud " + length);
+        }
+    }
+
+    @Test
+    void truncatedFrameIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BridgeFrame.write(new DataOutputStream(bytes), BridgeFrame.RESULT, 3, new byte[]{1, 2, 3, 4});
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 2);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(truncated));
+        assertThrows(EOFException.class, () -> BridgeFrame.read(in));
+    }
+}
@@ -0,0 +1,161 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import com.pythonmc.mod.nodes.NodeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Semántica de Python en CompiledUpdate, con árboles como los de pythonmc/fastpath.py
+ */
+class CompiledUpdateTest {
+
+    @Test
+    void moduloTakesTheSignOfTheDivisor() {
+        assertEquals(2, eval(bin("%", num(-7), num(3))));
+        assertEquals(-2, eval(bin("%", num(7), num(-3))));
+        assertEquals(0.5, eval(bin("%", num(-7.5), num(2))));
+        assertEquals(0.0, eval(bin("%", num(-6), num(3))));
+        assertEquals(-0.0, eval(bin("%", num(6), num(-3))));
+    }
+
+    @Test
+    void floorDivisionRoundsDown() {
+        assertEquals(-4, eval(bin("//", num(-7), num(2))));
+        assertEquals(-4, eval(bin("//", num(7), num(-2))));
+        assertEquals(3, eval(bin("//", num(7), num(2))));
+        // floor(1 / 0.1) sería 10: Python trunca antes de redondear
+        assertEquals(9, eval(bin("//", num(1), num(0.1))));
+        assertEquals(-1, eval(bin("//", num(1), num(-3))));
+        assertEquals(-0.0, eval(bin("//", num(0), num(-3))));
+    }
+
+    @Test
+    void divisionByZeroFails() {
+        for (String operator : new String[]{"/", "//", "%"}) {
+            ArithmeticException error = assertThrows(ArithmeticException.class,
+                () -> eval(bin(operator, num(1), num(0))), operator);
+            assertEquals("division by zero", error.getMessage());
+        }
+        assertThrows(ArithmeticException.class, () -> eval(bin("**", num(0), num(-1))));
+    }
+
+    @Test
+    void unboundLocalFails() {
+        // x solo se asigna en una rama que no se ejecuta
+        CompiledUpdate update = compile(List.of("x"),
+            List.of("if", num(0), List.of(List.of("set", 0, num(1))), List.of()),
+            setX(List.of("local", 0)));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> update.run(node(), 0));
+        assertTrue(error.getMessage().contains("'x'"), error.getMessage());
+    }
+
+    @Test
+    void localsStartUnboundOnEveryCall() {
+        // El primer tick asigna x; el segundo no debe ver el valor anterior
+        CompiledUpdate update = compile(List.of("x"),
+            List.of("if", cmp("==", List.of("tick"), num(0)), List.of(List.of("set", 0, num(5))), List.of()),
+            setX(List.of("local", 0)));
+
+        Node node = node();
+        update.run(node, 0);
+        assertEquals(5, node.getX());
+        assertThrows(IllegalStateException.class, () -> update.run(node, 1));
+    }
+
+    @Test
+    void andOrReturnOperands() {
+        assertEquals(5, eval(List.of("or", List.of(num(0), num(5), num(7)))));
+        assertEquals(0, eval(List.of("and", List.of(num(2), num(0), num(7)))));
+        assertEquals(7, eval(List.of("and", List.of(num(2), num(7)))));
+        // El segundo operando no se evalúa: dividiría entre cero
+        assertEquals(3, eval(List.of("or", List.of(num(3), bin("/", num(1), num(0))))));
+    }
+
+    @Test
+    void chainedComparisonStopsAtFirstFalse() {
+        assertEquals(1, eval(List.of("cmp", List.of("<", "<="), List.of(num(1), num(2), num(2)))));
+        assertEquals(0, eval(List.of("cmp", List.of("<", "<"), List.of(num(1), num(3), num(2)))));
+        assertEquals(0, eval(List.of("cmp", List.of(">", "<"), List.of(num(1), num(2), bin("/", num(1), num(0))))));
+    }
+
+    @Test
+    void roundingFollowsPython() {
+        assertEquals(2, eval(fn("round", num(2.5))));
+        assertEquals(4, eval(fn("round", num(3.5))));
+        assertEquals(-2, eval(fn("int", num(-2.7))));
+        assertEquals(-3, eval(fn("math.floor", num(-2.5))));
+        assertThrows(ArithmeticException.class, () -> eval(fn("int", bin("*", num(1e308), num(10)))));
+        assertThrows(ArithmeticException.class, () -> eval(fn("math.sqrt", num(-1))));
+    }
+
+    @Test
+    void returnStopsTheUpdate() {
+        CompiledUpdate update = compile(List.of(),
+            setX(num(1)),
+            List.of("return"),
+            setX(num(2)));
+
+        Node node = node();
+        update.run(node, 0);
+        assertEquals(1, node.getX());
+    }
+
+    @Test
+    void malformedTreesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compile(List.of(), List.of("while", num(1))));
+        assertThrows(IllegalArgumentException.class, () -> compile(List.of(), setX(List.of("local", 0))));
+        assertThrows(IllegalArgumentException.class, () -> compile(List.of(), setX(bin("@", num(1), num(2)))));
+        assertThrows(IllegalArgumentException.class,
+            () -> compile(List.of(), List.of("call", "remove", List.of())));
+        assertThrows(IllegalArgumentException.class, () -> CompiledUpdate.compile(Map.of("names", List.of(),
+            "body", "no es una lista")));
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    /**
+     * Evalúa la expresión con set_position(expr, 0, 0) sobre un nodo nuevo
+     */
+    private static double eval(List<?> expr) {
+        Node node = node();
+        compile(List.of(), setX(expr)).run(node, 0);
+        return node.getX();
+    }
+
+    private static CompiledUpdate compile(List<String> names, List<?>... body) {
+        return CompiledUpdate.compile(Map.of("names", names, "body", List.of(body)));
+    }
+
+    private static Node node() {
+        return NodeRegistry.createNode(NodeType.NODE, "Compilado");
+    }
+
+    private static List<?> setX(List<?> expr) {
+        return List.of("call", "set_position", List.of(expr, num(0), num(0)));
+    }
+
+    private static List<?> num(double value) {
+        return List.of("const", value);
+    }
+
+    private static List<?> bin(String operator, List<?> left, List<?> right) {
+        return List.of("bin", operator, left, right);
+    }
+
+    private static List<?> cmp(String operator, List<?> left, List<?> right) {
+        return List.of("cmp", List.of(operator), List.of(left, right));
+    }
+
+    private static List<?> fn(String name, List<?> arg) {
+        return List.of("fn", name, List.of(arg));
+    }
+}
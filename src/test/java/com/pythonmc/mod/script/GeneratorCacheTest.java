@@ -0,0 +1,164 @@
+package com.pythonmc.mod.script;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Claves y dependencias de GeneratorCache sobre carpetas temporales
+ */
+class GeneratorCacheTest {
+    private static final List<Object> OPS = List.of(List.of("block", 1L, 2L, 3L, "minecraft:stone"));
+    private static final List<Object> OTHER_OPS = List.of(List.of("block", 4L, 5L, 6L, "minecraft:dirt"));
+
+    @TempDir
+    File root;
+    @TempDir
+    File cache;
+
+    private File generator;
+    private File module;
+
+    @BeforeEach
+    void writeScripts() throws IOException {
+        generator = write(new File(root, "torre.py"), "def generate(altura): ...");
+        module = write(new File(root, "lib/formas.py"), "ANCHO = 3");
+    }
+
+    @Test
+    void keyIgnoresArgumentOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("altura", 10L);
+        first.put("opciones", new LinkedHashMap<>(Map.of("a", 1L, "b", 2L)));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("opciones", new LinkedHashMap<>(Map.of("b", 2L, "a", 1L)));
+        second.put("altura", 10L);
+
+        assertEquals(GeneratorCache.key("fuente", first), GeneratorCache.key("fuente", second));
+    }
+
+    @Test
+    void keyDependsOnSourceAndArguments() {
+        String key = GeneratorCache.key("fuente", Map.of("altura", 10L));
+
+        assertTrue(key.startsWith("fuente:"), key);
+        assertNotEquals(key, GeneratorCache.key("fuente", Map.of("altura", 11L)));
+        assertNotEquals(key, GeneratorCache.key("fuente", Map.of("altura", 10.0)));
+        assertNotEquals(key, GeneratorCache.key("otra", Map.of("altura", 10L)));
+        assertEquals(GeneratorCache.sourceHash(generator), GeneratorCache.sourceHash(generator));
+    }
+
+    @Test
+    void storedOutputIsFoundWhileModulesMatch() {
+        String key = key();
+        GeneratorCache.save(cache, root, key, OPS, List.of(module.getPath()));
+
+        assertEquals(OPS, GeneratorCache.find(cache, root, key));
+        assertNull(GeneratorCache.find(cache, root, GeneratorCache.key("fuente", Map.of("altura", 99L))));
+    }
+
+    @Test
+    void changedModuleIsAMiss() throws IOException {
+        String key = key();
+        GeneratorCache.save(cache, root, key, OPS, List.of(module.getPath()));
+        write(module, "ANCHO = 4");
+
+        assertNull(GeneratorCache.find(cache, root, key));
+    }
+
+    @Test
+    void deletedModuleIsAMiss() {
+        String key = key();
+        GeneratorCache.save(cache, root, key, OPS, List.of(module.getPath()));
+        assertTrue(module.delete());
+
+        assertNull(GeneratorCache.find(cache, root, key));
+    }
+
+    @Test
+    void revertedModuleHitsItsOldVariant() throws IOException {
+        String key = key();
+        GeneratorCache.save(cache, root, key, OPS, List.of(module.getPath()));
+        write(module, "ANCHO = 4");
+        GeneratorCache.save(cache, root, key, OTHER_OPS, List.of(module.getPath()));
+
+        assertEquals(OTHER_OPS, GeneratorCache.find(cache, root, key));
+        write(module, "ANCHO = 3");
+        assertEquals(OPS, GeneratorCache.find(cache, root, key));
+    }
+
+    @Test
+    void modulesOutsideScriptsFolderAreNotTracked(@TempDir File outside) throws IOException {
+        File external = write(new File(outside, "externo.py"), "X = 1");
+        String key = key();
+        GeneratorCache.save(cache, root, key, OPS, List.of(external.getPath()));
+        write(external, "X = 2");
+
+        assertEquals(OPS, GeneratorCache.find(cache, root, key));
+    }
+
+    @Test
+    void identicalOutputsShareOneObject() {
+        GeneratorCache.save(cache, root, GeneratorCache.key("fuente", Map.of("altura", 1L)), OPS, List.of());
+        GeneratorCache.save(cache, root, GeneratorCache.key("fuente", Map.of("altura", 2L)), OPS, List.of());
+
+        assertEquals(1, new File(cache, "objects").listFiles().length);
+        assertEquals(2, new File(cache, "manifests").listFiles().length);
+    }
+
+    @Test
+    void corruptObjectIsAMiss() throws IOException {
+        String key = key();
+        GeneratorCache.save(cache, root, key, OPS, List.of());
+        for (File object : new File(cache, "objects").listFiles()) {
+            write(object, "basura");
+        }
+
+        assertNull(GeneratorCache.find(cache, root, key));
+    }
+
+    @Test
+    void corruptManifestIsAMiss() throws IOException {
+        String key = key();
+        GeneratorCache.save(cache, root, key, OPS, List.of());
+        for (File manifest : new File(cache, "manifests").listFiles()) {
+            write(manifest, "{\"variants\": 3");
+        }
+
+        assertNull(GeneratorCache.find(cache, root, key));
+    }
+
+    @Test
+    void resolveStaysInsideScriptsFolder() {
+        assertEquals(generator.getAbsoluteFile(), GeneratorCache.resolve(root, "torre.py"));
+        assertThrows(IllegalArgumentException.class, () -> GeneratorCache.resolve(root, "../torre.py"));
+        assertThrows(IllegalArgumentException.class, () -> GeneratorCache.resolve(root, "lib"));
+        assertThrows(IllegalArgumentException.class, () -> GeneratorCache.resolve(root, "no_existe.py"));
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private String key() {
+        return GeneratorCache.key(GeneratorCache.sourceHash(generator), Map.of("altura", 10L));
+    }
+
+    private static File write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,162 @@
+package com.pythonmc.mod.script;
+
+import com.pythonmc.mod.nodes.Node;
+import com.pythonmc.mod.nodes.NodeRegistry;
+import com.pythonmc.mod.nodes.NodeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validación atómica y agrupación de movimientos de MutationQueue
+ *
+ * Los lotes solo tocan nodos: applyPending no llega a usar el mundo, así que
+ * se le pasa null y el árbol se monta a mano bajo una raíz sin registrar.
+ */
+class MutationQueueTest {
+    private Node root;
+    private Node parent;
+    private Node child;
+
+    @BeforeEach
+    void buildTree() {
+        MutationQueue.clear();
+        root = NodeRegistry.createNode(NodeType.NODE, "Raíz");
+        parent = NodeRegistry.createNode(NodeType.NODE, "Padre");
+        child = NodeRegistry.createNode(NodeType.NODE, "Hijo");
+        NodeRegistry.addNode(null, parent, root);
+        NodeRegistry.addNode(null, child, parent);
+    }
+
+    @AfterEach
+    void removeTree() {
+        MutationQueue.clear();
+        NodeRegistry.removeNode(parent);
+    }
+
+    @Test
+    void reparentUnderOwnDescendantIsRejected() {
+        Map<String, Object> status = apply(op("reparent", parent.getId(), child.getId()));
+
+        assertEquals("rejected", status.get("state"));
+        assertTrue(String.valueOf(status.get("error")).contains("ciclo"), String.valueOf(status.get("error")));
+        assertSame(parent, child.getParent());
+    }
+
+    @Test
+    void cycleThroughCreatedNodeIsRejectedAtomically() {
+        Map<String, Object> status = apply(
+            op("create", "$p", "node", "Nuevo", child.getId(), null),
+            op("reparent", parent.getId(), "$p"));
+
+        assertEquals("rejected", status.get("state"));
+        assertTrue(String.valueOf(status.get("error")).startsWith("Operación 2"), String.valueOf(status.get("error")));
+        // El create que sí validaba tampoco se aplica
+        assertTrue(NodeRegistry.getNodesByName("Nuevo").isEmpty());
+        assertSame(root, parent.getParent());
+    }
+
+    @Test
+    void nodeUnderRemovedAncestorIsRejected() {
+        Map<String, Object> status = apply(
+            op("remove", parent.getId()),
+            op("move", child.getId(), 1, 2, 3));
+
+        assertEquals("rejected", status.get("state"));
+        assertTrue(String.valueOf(status.get("error")).contains("se elimina antes"), String.valueOf(status.get("error")));
+        assertSame(parent, NodeRegistry.getNodeById(parent.getId()));
+        assertEquals(0, child.getX());
+    }
+
+    @Test
+    void refUsedAfterRemoveIsRejected() {
+        Map<String, Object> status = apply(
+            op("create", "$n", "node", "Temporal", parent.getId(), null),
+            op("remove", "$n"),
+            op("move", "$n", 0, 0, 0));
+
+        assertEquals("rejected", status.get("state"));
+        assertTrue(NodeRegistry.getNodesByName("Temporal").isEmpty());
+    }
+
+    @Test
+    void createReturnsRealIdsForRefs() {
+        Map<String, Object> status = apply(op("create", "$n", "node", "Creado", parent.getId(), List.of(1, 2, 3)));
+
+        assertEquals("applied", status.get("state"));
+        String id = String.valueOf(((Map<?, ?>) status.get("created")).get("$n"));
+        Node created = NodeRegistry.getNodeById(id);
+        assertSame(parent, created.getParent());
+        assertEquals(3, created.getZ());
+    }
+
+    @Test
+    void movesOfOneNodeAreCoalesced() {
+        Map<String, Object> status = apply(
+            op("move", child.getId(), 1, 2, 3),
+            op("move", child.getId(), 4, 5, 6));
+
+        assertEquals("applied", status.get("state"));
+        assertEquals(1, status.get("coalesced"));
+        assertEquals(4, child.getX());
+        assertEquals(6, child.getZ());
+    }
+
+    @Test
+    void movesAreCoalescedAcrossBatchesOfOnePass() {
+        int first = MutationQueue.submit(List.of(op("move", child.getId(), 1, 1, 1)));
+        int second = MutationQueue.submit(List.of(op("move", child.getId(), 2, 2, 2)));
+
+        assertEquals(2, MutationQueue.applyPending(null));
+        assertEquals(0, MutationQueue.status(first).get("coalesced"));
+        assertEquals(1, MutationQueue.status(second).get("coalesced"));
+        assertEquals(2, child.getY());
+    }
+
+    @Test
+    void rejectedBatchDoesNotBlockTheNext() {
+        int rejected = MutationQueue.submit(List.of(op("move", "no-existe", 0, 0, 0)));
+        int applied = MutationQueue.submit(List.of(op("move", child.getId(), 7, 0, 0)));
+
+        MutationQueue.applyPending(null);
+        assertEquals("rejected", MutationQueue.status(rejected).get("state"));
+        assertEquals("applied", MutationQueue.status(applied).get("state"));
+        assertEquals(7, child.getX());
+    }
+
+    @Test
+    void malformedBatchesAreRejectedOnSubmit() {
+        assertThrows(IllegalArgumentException.class, () -> MutationQueue.submit(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> MutationQueue.submit(List.of(op("explode", "x"))));
+        assertThrows(IllegalArgumentException.class,
+            () -> MutationQueue.submit(List.of(op("create", "sin-dolar", "node", "N", null, null))));
+        assertThrows(IllegalArgumentException.class,
+            () -> MutationQueue.submit(List.of(op("move", child.getId(), Double.NaN, 0, 0))));
+        assertFalse(MutationQueue.hasPending());
+    }
+
+    // ========== MÉTODOS PRIVADOS ==========
+
+    private static Map<String, Object> apply(List<?>... ops) {
+        int id = MutationQueue.submit(Arrays.asList((Object[]) ops));
+        MutationQueue.applyPending(null);
+        return MutationQueue.status(id);
+    }
+
+    /**
+     * Operación como llega del bridge (admite None)
+     */
+    private static List<Object> op(Object... values) {
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,52 @@
+"""Pruebas del cliente RPC del bridge (python -m unittest discover src/test/python)."""
+
+import io
+import os
+import sys
+import unittest
+
+sys.path.insert(0, os.path.join(os.path.dirname(__file__), "..", "..", "main", "resources", "python"))
+
+from pythonmc import bridge  # noqa: E402
+
+
+class BatchReplyTest(unittest.TestCase):
+
+    def _bridge(self, *frames):
+        stream_in = io.BytesIO()
+        for frame in frames:
+            bridge.write_frame(stream_in, *frame)
+        stream_in.seek(0)
+        return bridge.Bridge(stream_in, io.BytesIO())
+
+    def test_error_for_batch_fails_every_call(self):
+        # Llamadas 1 y 2, trama BATCH 3
+        client = self._bridge((bridge.ERROR, 3, bridge.encode("Lote ilegible")))
+        with client.batch() as batch:
+            first = batch.call("node.get", "a")
+            second = batch.call("node.get", "b")
+        for future in (first, second):
+            with self.assertRaises(bridge.BridgeError):
+                future.result()
+
+    def test_batch_result_resolves_by_batch_id(self):
+        results = [[1, True, "a"], [2, False, "sin nodo"]]
+        client = self._bridge((bridge.BATCH_RESULT, 3, bridge.encode(results)))
+        with client.batch() as batch:
+            first = batch.call("node.get", "a")
+            second = batch.call("node.get", "b")
+        self.assertEqual(first.result(), "a")
+        with self.assertRaises(bridge.BridgeError):
+            second.result()
+
+    def test_missing_batch_entry_does_not_hang(self):
+        client = self._bridge((bridge.BATCH_RESULT, 3, bridge.encode([[1, True, None]])))
+        with client.batch() as batch:
+            batch.call("node.get", "a")
+            second = batch.call("node.get", "b")
+        with self.assertRaises(bridge.BridgeError):
+            second.result()
+
+
+if __name__ == "__main__":
+    unittest.main()
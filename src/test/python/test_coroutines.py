@@ -0,0 +1,128 @@
+"""Pruebas del planificador de corrutinas (python -m unittest discover src/test/python)."""
+
+import contextlib
+import os
+import sys
+import unittest
+
+sys.path.insert(0, os.path.join(os.path.dirname(__file__), "..", "..", "main", "resources", "python"))
+
+from pythonmc import engine  # noqa: E402
+from pythonmc.coroutines import Scheduler, wait_event  # noqa: E402
+
+
+class WaitEventTest(unittest.TestCase):
+
+    def setUp(self):
+        self.scheduler = Scheduler()
+        # Sin engine: la suscripción interna no hace falta, se entregan los eventos a mano
+        self.scheduler._sync_subscription = lambda: None
+        self.errors = []
+
+    @contextlib.contextmanager
+    def _owner_context(self, owner):
+        yield self.errors.append
+
+    def _advance(self, tick):
+        return self.scheduler.advance(tick, self._owner_context)
+
+    def test_failing_predicate_only_affects_its_waiter(self):
+        received = {}
+
+        def failing():
+            try:
+                yield wait_event("chat", lambda event: event["missing"])
+            except KeyError as exc:
+                received["failing"] = exc
+
+        def plain():
+            received["plain"] = yield wait_event("chat")
+
+        def filtered():
+            received["filtered"] = yield wait_event("chat", lambda event: event["message"] == "hola")
+
+        owner = ("init", 1)
+        for generator in (failing(), plain(), filtered()):
+            self.scheduler.start(generator, owner)
+        self._advance(1)
+
+        event = {"type": "chat", "message": "hola"}
+        self.scheduler._on_events([event])
+        self._advance(2)
+
+        self.assertIsInstance(received["failing"], KeyError)
+        self.assertIs(received["plain"], event)
+        self.assertIs(received["filtered"], event)
+        self.assertEqual(self.errors, [])
+        self.assertEqual(self.scheduler.stats()["live"], 0)
+
+
+
+class _FakeSubscription(object):
+
+    def __init__(self, types):
+        self.types = list(types)
+        self.closed = False
+
+    def set_types(self, types):
+        self.types = list(types)
+
+    def close(self):
+        self.closed = True
+
+
+class EventSubscriptionTest(unittest.TestCase):
+
+    def setUp(self):
+        self.subscriptions = []
+        self._subscribe = engine.Engine.subscribe
+
+        def subscribe(types, callback=None, capacity=1024, policy="drop_oldest"):
+            subscription = _FakeSubscription(types)
+            self.subscriptions.append(subscription)
+            return subscription
+
+        engine.Engine.subscribe = staticmethod(subscribe)
+        self.scheduler = Scheduler()
+
+    def tearDown(self):
+        engine.Engine.subscribe = self._subscribe
+
+    @contextlib.contextmanager
+    def _owner_context(self, owner):
+        yield self.fail
+
+    def test_other_waiter_keeps_its_subscription(self):
+        received = {}
+
+        def chat():
+            received["chat"] = yield wait_event("chat")
+
+        def block():
+            received["block"] = yield wait_event("block.break")
+
+        owner = ("init", 1)
+        self.scheduler.start(chat(), owner)
+        self.scheduler.start(block(), owner)
+        self.scheduler.advance(1, self._owner_context)
+        self.assertEqual(len(self.subscriptions), 1)
+        subscription = self.subscriptions[0]
+        self.assertEqual(subscription.types, ["block.break", "chat"])
+
+        self.scheduler._on_events([{"type": "block.break", "x": 0, "y": 0, "z": 0}])
+        self.scheduler.advance(2, self._owner_context)
+
+        # Se estrecha la misma suscripción: la cola del chat no se pierde
+        self.assertEqual(len(self.subscriptions), 1)
+        self.assertFalse(subscription.closed)
+        self.assertEqual(subscription.types, ["chat"])
+
+        event = {"type": "chat", "message": "hola"}
+        self.scheduler._on_events([event])
+        self.scheduler.advance(3, self._owner_context)
+        self.assertIs(received["chat"], event)
+        self.assertTrue(subscription.closed)
+
+
+if __name__ == "__main__":
+    unittest.main()